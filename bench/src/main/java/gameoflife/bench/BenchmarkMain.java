@@ -0,0 +1,37 @@
+package gameoflife.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.module.ModuleFinder;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Runs the JMH benchmarks with the GC profiler always attached, so every
+ * result reports allocation rate next to generations and cells per
+ * second. Takes the usual JMH command line, e.g. to run one benchmark
+ * on one size: java -jar benchmarks.jar EngineStep -p size=4096
+ *
+ * When the JDK has jdk.incubator.vector, the forked JVMs are started
+ * with it added so PackedEngine can load its vector kernel.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine).addProfiler(GCProfiler.class);
+        if (ModuleFinder.ofSystem().find("jdk.incubator.vector").isPresent()) {
+            options.jvmArgsPrepend("--add-modules=jdk.incubator.vector");
+        }
+        new Runner(options.build()).run();
+    }
+
+}
@@ -0,0 +1,125 @@
+package gameoflife.bench;
+
+import gameoflife.engine.HashLifeEngine;
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.PackedEngine;
+import gameoflife.engine.SparseEngine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Creates the engines and starting boards used by the benchmarks:
+ * random soups of a given density and a few well known patterns.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+final class Boards {
+    private static final long SEED = 0x5EED; // Same soup for every run
+
+    // Gosper glider gun
+    private static final String[] GLIDER_GUN = {
+            "........................O...........",
+            "......................O.O...........",
+            "............OO......OO............OO",
+            "...........O...O....OO............OO",
+            "OO........O.....O...OO..............",
+            "OO........O...O.OO....O.O...........",
+            "..........O.....O.......O...........",
+            "...........O...O....................",
+            "............OO......................"
+    };
+
+    // R-pentomino (methuselah, stabilises after 1103 generations)
+    private static final String[] R_PENTOMINO = {
+            ".OO",
+            "OO.",
+            ".O."
+    };
+
+    // Acorn (methuselah, stabilises after 5206 generations)
+    private static final String[] ACORN = {
+            ".O.....",
+            "...O...",
+            "OO..OOO"
+    };
+
+    /**
+     * Prevents instantiation of the utility class
+     */
+    private Boards() {
+    }
+
+    /**
+     * Creates an empty engine of the named kind
+     * @param engine, one of packed, parallel, sparse or hashlife
+     * @param size, the number of rows and columns
+     * @return, the new engine
+     */
+    static LifeEngine create(String engine, int size) {
+        switch (engine) {
+            case "packed":
+                return new PackedEngine(size, size);
+            case "parallel":
+                return new PackedEngine(size, size, Runtime.getRuntime().availableProcessors());
+            case "sparse":
+                return new SparseEngine(size, size);
+            case "hashlife":
+                return new HashLifeEngine(size, size);
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+
+    /**
+     * Clears the board and fills it with a random soup
+     * @param board, the engine to fill
+     * @param density, the chance of each cell being alive
+     */
+    static void soup(LifeEngine board, double density) {
+        board.clear();
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getCols(); col++) {
+                if (random.nextDouble() < density) {
+                    board.setCell(row, col, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the board and places a named pattern in its centre
+     * @param board, the engine to fill
+     * @param pattern, one of gun, rpentomino or acorn
+     */
+    static void pattern(LifeEngine board, String pattern) {
+        String[] lines;
+        switch (pattern) {
+            case "gun":
+                lines = GLIDER_GUN;
+                break;
+            case "rpentomino":
+                lines = R_PENTOMINO;
+                break;
+            case "acorn":
+                lines = ACORN;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown pattern: " + pattern);
+        }
+
+        board.clear();
+        int top = (board.getRows() - lines.length) / 2;
+        int left = (board.getCols() - lines[0].length()) / 2;
+        for (int row = 0; row < lines.length; row++) {
+            for (int col = 0; col < lines[row].length(); col++) {
+                if (lines[row].charAt(col) == 'O') {
+                    board.setCell(top + row, left + col, true);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package gameoflife.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Secondary JMH counter so each benchmark reports the number of cells
+ * updated per second alongside generations per second.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class CellCounter {
+    public long cells; // Cells updated during the iteration
+
+    /**
+     * Resets the counter at the start of every iteration
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+        cells = 0;
+    }
+
+}
@@ -0,0 +1,81 @@
+package gameoflife.bench;
+
+import gameoflife.Grid;
+import gameoflife.engine.LifeEngine;
+import gameoflife.gui.GridView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.*;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Generations per second of Grid.updateGrid(), including rewriting the
+ * pixels of every cell that changed in the GridView's image. Runs
+ * headless, so it measures the cost of the view rather than painting it.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class GridUpdateBenchmark {
+    @Param({"0.01", "0.1", "0.25", "0.5"})
+    public double density; // Chance of each cell starting alive
+
+    private Grid grid = new Grid(); // Grid being updated
+    private GridView view = new GridView(); // View displaying the grid
+
+    /**
+     * Creates the grid and its view once per trial
+     */
+    @Setup(Level.Trial)
+    public void createGrid() {
+        view.createGrid(new JPanel());
+    }
+
+    /**
+     * Reseeds the grid with a random soup before every iteration
+     */
+    @Setup(Level.Iteration)
+    public void seedGrid() {
+        view.createGrid(new JPanel()); // Existing grid is reset to dead cells
+        LifeEngine engine = grid.getEngine();
+        SplittableRandom random = new SplittableRandom(0x5EED);
+        for (int row = 0; row < grid.GRID_SIZE; row++) {
+            for (int col = 0; col < grid.GRID_SIZE; col++) {
+                if (random.nextDouble() < density) {
+                    engine.setCell(row, col, true);
+                }
+            }
+        }
+        grid.refresh(); // Draw the soup before timing starts
+    }
+
+    /**
+     * Updates the grid by one generation
+     * @param counter, counts the cells updated
+     */
+    @Benchmark
+    public void updateGrid(CellCounter counter) {
+        grid.updateGrid();
+        counter.cells += (long) grid.GRID_SIZE * grid.GRID_SIZE;
+    }
+
+}
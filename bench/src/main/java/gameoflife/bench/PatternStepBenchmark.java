@@ -0,0 +1,72 @@
+package gameoflife.bench;
+
+import gameoflife.engine.LifeEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Generations per second of every engine running a known pattern
+ * (glider gun, R-pentomino or acorn) from the centre of the board.
+ * The pattern is placed again before every iteration.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PatternStepBenchmark {
+    @Param({"packed", "parallel", "sparse", "hashlife"})
+    public String engine; // Engine under test
+
+    @Param({"gun", "rpentomino", "acorn"})
+    public String pattern; // Pattern placed at the centre
+
+    @Param({"1024"})
+    public int size; // Rows and columns of the board
+
+    private LifeEngine board; // Board being stepped
+
+    /**
+     * Creates the engine once per trial
+     */
+    @Setup(Level.Trial)
+    public void createBoard() {
+        board = Boards.create(engine, size);
+    }
+
+    /**
+     * Places the pattern before every iteration
+     */
+    @Setup(Level.Iteration)
+    public void placePattern() {
+        Boards.pattern(board, pattern);
+    }
+
+    /**
+     * Steps the board by one generation
+     * @param counter, counts the cells updated
+     */
+    @Benchmark
+    public void step(CellCounter counter) {
+        board.step();
+        counter.cells += (long) size * size;
+    }
+
+}
@@ -0,0 +1,69 @@
+package gameoflife.bench;
+
+import gameoflife.engine.LifeEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Generations per second of the sparse engine over random soups. Its
+ * memory follows the population, so sizes stop at 4096x4096 to keep a
+ * 50% soup within the heap.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SparseStepBenchmark {
+    @Param({"125", "1024", "4096"})
+    public int size; // Rows and columns of the board
+
+    @Param({"0.01", "0.1", "0.25", "0.5"})
+    public double density; // Chance of each cell starting alive
+
+    private LifeEngine board; // Board being stepped
+
+    /**
+     * Creates the engine once per trial
+     */
+    @Setup(Level.Trial)
+    public void createBoard() {
+        board = Boards.create("sparse", size);
+    }
+
+    /**
+     * Reseeds the soup before every iteration
+     */
+    @Setup(Level.Iteration)
+    public void seedBoard() {
+        Boards.soup(board, density);
+    }
+
+    /**
+     * Steps the board by one generation
+     * @param counter, counts the cells updated
+     */
+    @Benchmark
+    public void step(CellCounter counter) {
+        board.step();
+        counter.cells += (long) size * size;
+    }
+
+}
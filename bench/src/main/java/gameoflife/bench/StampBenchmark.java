@@ -0,0 +1,106 @@
+package gameoflife.bench;
+
+import gameoflife.engine.Boundary;
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.PackedEngine;
+import gameoflife.pattern.Orientation;
+import gameoflife.pattern.Pattern;
+import gameoflife.pattern.PatternLibrary;
+import gameoflife.pattern.Stamper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Time to seed a board with thousands of gliders, spaceships and
+ * R-pentominoes in every orientation, through one Stamper and, for
+ * comparison, a setCell() per live cell. The board is cleared before
+ * each placement, which is included in both.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StampBenchmark {
+    @Param({"stamper", "cells"})
+    public String method; // How the patterns are placed
+
+    @Param({"1000", "10000", "100000"})
+    public int count; // Patterns placed each time
+
+    @Param({"4096"})
+    public int size; // Rows and columns of the board
+
+    private LifeEngine board; // Board being seeded
+    private Pattern[] patterns; // Pattern of each placement, already turned
+    private int[] rows; // Row of each placement
+    private int[] cols; // Column of each placement
+
+    /**
+     * Creates the board and chooses the placements once per trial
+     * @throws IOException, if the built in patterns cannot be read
+     */
+    @Setup
+    public void createBoard() throws IOException {
+        board = new PackedEngine(size, size);
+        board.setBoundary(Boundary.TORUS);
+        PatternLibrary library = new PatternLibrary();
+        Pattern[] kinds = {library.get("glider"), library.get("lwss"), library.get("r-pentomino")};
+        SplittableRandom random = new SplittableRandom(0x5EED);
+        patterns = new Pattern[count];
+        rows = new int[count];
+        cols = new int[count];
+        for (int i = 0; i < count; i++) {
+            Orientation orientation = Orientation.values()[random.nextInt(Orientation.values().length)];
+            patterns[i] = kinds[random.nextInt(kinds.length)].orient(orientation);
+            rows[i] = random.nextInt(size);
+            cols[i] = random.nextInt(size);
+        }
+    }
+
+    /**
+     * Clears the board and places every pattern
+     * @return, the board's population, so the work is not optimised away
+     */
+    @Benchmark
+    public long place() {
+        board.clear();
+        if (method.equals("stamper")) {
+            Stamper stamper = new Stamper(board);
+            for (int i = 0; i < count; i++) {
+                stamper.stamp(patterns[i], rows[i], cols[i]);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                Pattern pattern = patterns[i];
+                for (int r = 0; r < pattern.getRows(); r++) {
+                    for (int c = 0; c < pattern.getCols(); c++) {
+                        if (pattern.getCell(r, c)) {
+                            board.setCell((rows[i] + r) % size, (cols[i] + c) % size, true);
+                        }
+                    }
+                }
+            }
+        }
+        return board.getPopulation();
+    }
+
+}
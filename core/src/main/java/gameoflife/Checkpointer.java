@@ -0,0 +1,288 @@
+package gameoflife;
+
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.Rule;
+import gameoflife.io.BinaryGridFile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Writes the grid to a directory of checkpoints every so many
+ * generations or seconds while the simulation runs, and resumes from
+ * the newest one that can be read.
+ *
+ * Taking a checkpoint only copies the board into a GridSnapshot while
+ * holding the grid's lock, the same copy the display makes for every
+ * frame. The snapshot is written on a background thread, so the
+ * stepping thread never waits for the disk. If the previous checkpoint
+ * is still being written when the next is due, the new one is skipped
+ * rather than queued. Each file is written under a temporary name,
+ * forced to disk and then renamed, so a crash never leaves a partial
+ * checkpoint with a valid name.
+ *
+ * Checkpoints are named by a sequence number that only increases, then
+ * their generation, so the newest is the last written even after the
+ * grid has been reset to generation 0 or the directory is reused.
+ * Checkpoints hold one bit per cell, so grids running rules with dying
+ * states are not checkpointed. Nor are unbounded planes once a live
+ * cell has left the board a checkpoint holds, rather than dropping it.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class Checkpointer implements AutoCloseable {
+    private static final String PREFIX = "checkpoint-"; // Start of every checkpoint file name
+    private static final String SUFFIX = "." + BinaryGridFile.EXTENSION; // End of every checkpoint file name
+    private static final long NANO_TO_MILLI = 1000000; // Nano seconds in one millisecond
+    private final Path directory; // Directory the checkpoints are written to
+    private final long everyGenerations; // Generations between checkpoints, 0 for no limit
+    private final long everyMillis; // Milliseconds between checkpoints, 0 for no limit
+    private final int keep; // Newest checkpoints kept, older ones are deleted
+    private final GridSnapshot snapshot = new GridSnapshot(); // Board being written
+    private final AtomicBoolean writing = new AtomicBoolean(); // True while the snapshot is being written
+    private final ExecutorService writer; // Background thread writing the checkpoints
+    private long sequence; // Sequence number of the last checkpoint written, read by the writer thread
+    private volatile long lastGeneration; // Generation of the last checkpoint taken
+    private volatile long lastTime = System.nanoTime(); // Time of the last checkpoint taken
+    private volatile long skipped; // Checkpoints skipped because the last was still being written
+    private volatile Rule refused; // Last rule with dying states reported as not checkpointed
+    private volatile boolean outside; // True once live cells outside the board have been reported
+
+    /**
+     * Class constructor
+     * @param directory, the directory to write checkpoints to, created if missing
+     * @param everyGenerations, the generations between checkpoints, 0 for no limit
+     * @param everySeconds, the seconds between checkpoints, 0 for no limit
+     * @param keep, the number of newest checkpoints to keep
+     * @throws IOException, if the directory cannot be created
+     */
+    public Checkpointer(Path directory, long everyGenerations, long everySeconds, int keep) throws IOException {
+        if (everyGenerations < 0 || everySeconds < 0 || keep < 1) {
+            throw new IllegalArgumentException("Invalid checkpoint interval or count: " + everyGenerations
+                    + " generations, " + everySeconds + " seconds, keep " + keep);
+        }
+
+        this.directory = Files.createDirectories(directory);
+        this.everyGenerations = everyGenerations;
+        this.everyMillis = TimeUnit.SECONDS.toMillis(everySeconds);
+        this.keep = keep;
+        for (Path file : list()) {
+            sequence = Math.max(sequence, sequence(file)); // Carry on after the checkpoints already there
+        }
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "Checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Takes a checkpoint if enough generations or time have passed
+     * since the last one. Called by the simulation after each update
+     * @param grid, the grid being simulated
+     */
+    public void update(Grid grid) {
+        LifeEngine engine = grid.getEngine();
+        long generation = engine.getGeneration();
+        if (generation < lastGeneration) {
+            lastGeneration = generation; // The grid was reset or rewound, count from here
+        }
+        boolean due = (everyGenerations > 0 && generation - lastGeneration >= everyGenerations)
+                || (everyMillis > 0 && (System.nanoTime() - lastTime) / NANO_TO_MILLI >= everyMillis);
+        if (due) {
+            checkpoint(grid);
+        }
+    }
+
+    /**
+     * Takes a checkpoint now, unless the last one is still being written,
+     * the grid's rule has dying states or live cells have left the board
+     * of an unbounded plane, which checkpoints cannot hold
+     * @param grid, the grid to checkpoint
+     * @return true, if a checkpoint was started
+     */
+    public boolean checkpoint(Grid grid) {
+        Rule rule = grid.getRule();
+        if (!canCheckpoint(rule)) {
+            if (!rule.equals(refused)) {
+                refused = rule;
+                System.err.println("Not checkpointing: checkpoints hold one bit per cell, so cannot store"
+                        + " the dying states of " + rule);
+            }
+            return false;
+        }
+        if (!writing.compareAndSet(false, true)) {
+            skipped++;
+            return false;
+        }
+
+        long lost;
+        synchronized (grid.getLock()) {
+            LifeEngine engine = grid.getEngine();
+            snapshot.copyFrom(engine);
+            lost = engine.isUnbounded() ? engine.getPopulation() - snapshot.getPopulation() : 0;
+        }
+        if (lost != 0) {
+            writing.set(false);
+            if (!outside) {
+                outside = true;
+                System.err.println("Not checkpointing: " + lost + " live cells have left the "
+                        + snapshot.getRows() + "x" + snapshot.getCols() + " board a checkpoint holds");
+            }
+            return false;
+        }
+        outside = false;
+        lastGeneration = snapshot.getGeneration();
+        lastTime = System.nanoTime();
+        writer.execute(this::writeSnapshot);
+        return true;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, forces it to disk, gives
+     * it its checkpoint name and deletes the oldest checkpoints
+     */
+    private void writeSnapshot() {
+        try {
+            Path file = directory.resolve(name(++sequence, snapshot.getGeneration()));
+            Path temp = directory.resolve(file.getFileName() + ".tmp");
+            BinaryGridFile.write(snapshot, temp, true);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            List<Path> checkpoints = list();
+            for (int i = keep; i < checkpoints.size(); i++) {
+                Files.deleteIfExists(checkpoints.get(i));
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            writing.set(false);
+        }
+    }
+
+    /**
+     * Loads the newest checkpoint that can be read into the grid,
+     * restoring its generation and rule. Unreadable checkpoints are skipped
+     * @param grid, the grid to load into
+     * @return, the generation resumed from, or -1 if there was no readable checkpoint
+     * @throws IOException, if the directory cannot be listed
+     */
+    public long resume(Grid grid) throws IOException {
+        for (Path file : list()) {
+            synchronized (grid.getLock()) {
+                LifeEngine engine;
+                try {
+                    Rule rule = Rule.parse(BinaryGridFile.readHeader(file).getRule());
+                    if (!rule.equals(grid.getRule())) {
+                        grid.setRule(rule); // Run on under the rule the checkpoint was taken with
+                    }
+                    engine = grid.getEngine();
+                    BinaryGridFile.Header header = BinaryGridFile.read(file, engine, false);
+                    engine.setGeneration(header.getGeneration());
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Skipping checkpoint " + file + ": " + e.getMessage());
+                    continue;
+                }
+
+                lastGeneration = engine.getGeneration();
+                lastTime = System.nanoTime();
+                grid.refresh(); // Call refresh() method
+                return lastGeneration;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the grids running a rule can be checkpointed
+     * @param rule, the rule to check
+     * @return true, if the rule's cells are only alive or dead
+     */
+    public static boolean canCheckpoint(Rule rule) {
+        return rule.getStates() <= 2;
+    }
+
+    /**
+     * Lists the checkpoints in the directory, newest first
+     * @return, the checkpoint files
+     * @throws IOException, if the directory cannot be listed
+     */
+    public List<Path> list() throws IOException {
+        List<Path> checkpoints = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                checkpoints.add(file);
+            }
+        }
+        checkpoints.sort(Comparator.comparingLong(Checkpointer::sequence).reversed()); // Newest written first
+        return checkpoints;
+    }
+
+    /**
+     * Gets the number of checkpoints skipped because the previous one
+     * was still being written
+     * @return, the skipped checkpoint count
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Waits for the checkpoint being written, if any, and stops the
+     * background thread
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the file name of a checkpoint
+     * @param sequence, the sequence number of the checkpoint
+     * @param generation, the generation of the checkpoint
+     * @return, the file name
+     */
+    private static String name(long sequence, long generation) {
+        return String.format("%s%019d-%019d%s", PREFIX, sequence, generation, SUFFIX);
+    }
+
+    /**
+     * Gets the sequence number of a checkpoint from its file name
+     * @param file, the checkpoint file
+     * @return, the sequence number, or 0 if the name does not hold one
+     */
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        int dash = name.indexOf('-', PREFIX.length());
+        if (dash < 0) {
+            return 0; // Written before checkpoints were numbered
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), dash));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+}
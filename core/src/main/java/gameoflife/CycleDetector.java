@@ -0,0 +1,198 @@
+package gameoflife;
+
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.LongIntHashMap;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Watches a run for the board dying out, going still or repeating.
+ * After each generation the board's hash and population are recorded
+ * in a bounded history, and a board that matches one already in the
+ * history has entered a cycle whose period is the number of
+ * generations between the two. Cycles longer than the history are not
+ * seen.
+ *
+ * Engines that keep their hash up to date make an update cost a hash
+ * table lookup. Once a cycle has been found the run can be stopped, or
+ * jumped ahead to any later generation with skipAhead().
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class CycleDetector {
+    public static final int DEFAULT_HISTORY = 1024; // Generations remembered unless told otherwise
+
+    /**
+     * What the board settled into
+     */
+    public enum Outcome {
+        EXTINCT, // Every cell died
+        STILL, // Still life, period 1
+        OSCILLATOR // Repeats with a period above 1
+    }
+
+    private final long[] hashes; // Hash of each remembered generation, a ring buffer
+    private final long[] populations; // Population of each remembered generation
+    private final long[] generations; // Generation number of each ring slot
+    private final LongIntHashMap seen; // Hash to its ring slot + 1
+    private int next; // Ring slot the next generation is written to
+    private int size; // Generations currently remembered
+    private Outcome outcome; // What the board settled into (null until found)
+    private long period; // Period of the cycle found
+    private long start; // First generation of the cycle found
+    private long last = -1; // Generation of the last update
+
+    /**
+     * Class constructor that remembers DEFAULT_HISTORY generations
+     */
+    public CycleDetector() {
+        this(DEFAULT_HISTORY);
+    }
+
+    /**
+     * Class constructor
+     * @param history, the number of generations remembered, the longest period that can be found
+     */
+    public CycleDetector(int history) {
+        if (history < 1) {
+            throw new IllegalArgumentException("History must be positive: " + history);
+        }
+        hashes = new long[history];
+        populations = new long[history];
+        generations = new long[history];
+        seen = new LongIntHashMap(history);
+    }
+
+    /**
+     * Records the engine's current generation and checks it against the
+     * history. Called after each step. A generation at or before the
+     * last one recorded, e.g. after a clear or a load, starts again
+     * @param engine, the engine being run
+     * @return true, once the board has died out, gone still or repeated
+     */
+    public boolean update(LifeEngine engine) {
+        long generation = engine.getGeneration();
+        if (generation <= last) {
+            reset();
+        }
+        last = generation;
+        if (outcome != null) {
+            return true;
+        }
+
+        long population = engine.getPopulation();
+        if (population == 0) {
+            found(Outcome.EXTINCT, generation, 1);
+            return true;
+        }
+
+        long hash = engine.getHash();
+        int slot = seen.get(hash) - 1;
+        if (slot >= 0 && populations[slot] == population) {
+            long cycle = generation - generations[slot];
+            found(cycle == 1 ? Outcome.STILL : Outcome.OSCILLATOR, generations[slot], cycle);
+            return true;
+        }
+
+        // Forget the oldest generation once the ring is full
+        if (size == hashes.length) {
+            if (seen.get(hashes[next]) == next + 1) {
+                seen.remove(hashes[next]);
+            }
+        } else {
+            size++;
+        }
+        if (slot >= 0) {
+            seen.remove(hash); // Same hash, different population: keep the newer one
+        }
+        hashes[next] = hash;
+        populations[next] = population;
+        generations[next] = generation;
+        seen.put(hash, next + 1);
+        next = (next + 1) % hashes.length;
+        return false;
+    }
+
+    /**
+     * Moves an engine whose cycle has been found to a later generation,
+     * stepping only the generations left over after whole periods
+     * @param engine, the engine being run, at the generation update() last saw
+     * @param target, the generation to move to
+     */
+    public void skipAhead(LifeEngine engine, long target) {
+        if (outcome == null) {
+            throw new IllegalStateException("No cycle has been found to skip");
+        }
+        long remaining = target - engine.getGeneration();
+        if (remaining > 0) {
+            engine.setGeneration(target - remaining % period);
+            engine.advance(remaining % period);
+        }
+    }
+
+    /**
+     * Forgets the history and any cycle found
+     */
+    public void reset() {
+        seen.clear();
+        size = 0;
+        next = 0;
+        outcome = null;
+        period = 0;
+        start = 0;
+        last = -1;
+    }
+
+    /**
+     * Gets what the board settled into
+     * @return, the outcome, or null if no cycle has been found
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the period of the cycle found, 1 for still lifes and extinction
+     * @return, the period, or 0 if no cycle has been found
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    /**
+     * Gets the first generation of the cycle found
+     * @return, the generation, or 0 if no cycle has been found
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Describes the cycle found
+     * @return, the description
+     */
+    @Override
+    public String toString() {
+        if (outcome == null) {
+            return "No cycle found in the last " + size + " generations";
+        }
+        switch (outcome) {
+            case EXTINCT:
+                return "Extinct at generation " + start;
+            case STILL:
+                return "Still life from generation " + start;
+            default:
+                return "Oscillator of period " + period + " from generation " + start;
+        }
+    }
+
+    /**
+     * Records the cycle found
+     */
+    private void found(Outcome outcome, long start, long period) {
+        this.outcome = outcome;
+        this.start = start;
+        this.period = period;
+    }
+
+}
@@ -0,0 +1,562 @@
+package gameoflife;
+
+import gameoflife.engine.Boundary;
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.Rule;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Remembers the recent generations of a grid so it can be rewound to
+ * any of them, e.g. by dragging the GUI's history slider, and so any
+ * of them can be copied out to inspect without running the board again
+ * from a file.
+ *
+ * Each generation the grid is stepped to is recorded as the XOR of its
+ * packed words against the generation before, kept as runs of changed
+ * words, so a board that barely changes costs a few bytes a generation
+ * and a still life costs none. Every so often a whole board is kept as
+ * a keyframe instead, once the deltas since the last keyframe add up to
+ * a keyframe's size or number MAX_CHAIN, so getting any generation back
+ * reads at most about two boards' worth of records. Moving to the
+ * generation next to the last one read only applies one delta, either
+ * way, as a delta undoes itself.
+ *
+ * The records fill a ring buffer of a fixed size allocated off the
+ * heap, and the oldest keyframe and its deltas are dropped to make room
+ * for new ones, so memory never grows past the capacity given. When
+ * the grid is advanced several generations per redraw only the last of
+ * each batch is recorded, and the ones between are stepped again from
+ * the record before when asked for.
+ *
+ * Recording runs on the thread stepping the grid, in the same pass
+ * that copies the board out, and only writes the words that changed.
+ * Going back and running again forgets the generations after the one
+ * gone back to, as does editing the board. Only rules with two states
+ * are recorded; a rule with more, a board too big for the buffer, or
+ * an engine on an unbounded plane, whose cells reach past the rows and
+ * columns copied, pauses recording until the grid changes back.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class GenerationHistory implements GridListener, AutoCloseable {
+    public static final long DEFAULT_CAPACITY = 64L << 20; // Bytes of records kept unless set
+    public static final int MAX_CHAIN = 256; // Most deltas recorded after each keyframe
+    private static final int MAX_FRAMES = 1 << 16; // Most generations remembered, however small
+    private static final byte KEY = 1; // Flag of a frame holding a whole board
+    private static final byte STEPPED = 2; // Flag of a frame stepped to from the frame before
+    private final Grid grid; // Grid being recorded
+    private final LongBuffer ring; // Records of the frames, off the heap
+    private final long[] generations = new long[MAX_FRAMES]; // Generation of each frame
+    private final int[] offsets = new int[MAX_FRAMES]; // Position in the ring of each frame's record, in longs
+    private final int[] lengths = new int[MAX_FRAMES]; // Longs in each frame's record
+    private final byte[] flags = new byte[MAX_FRAMES]; // KEY and STEPPED flags of each frame
+    private final Rule[] rules = new Rule[MAX_FRAMES]; // Rule of each frame
+    private final Boundary[] boundaries = new Boundary[MAX_FRAMES]; // Boundary of each frame
+    private long first; // Number of the oldest frame held, counting every frame ever recorded
+    private int count; // Frames held
+    private long used; // Longs of the records held
+    private int rows = -1; // Rows of the boards recorded
+    private int cols = -1; // Columns of the boards recorded
+    private int wordsPerRow; // Longs holding each row
+    private boolean recording; // False while the board is too big or has too many states
+    private long[] previous = new long[0]; // Board of the newest frame, when previousKnown
+    private boolean previousKnown; // False when the board may differ from the newest frame
+    private long[] delta = new long[0]; // Runs of the delta being recorded
+    private long[] row = new long[0]; // One row of the board being recorded
+    private int chainLength; // Deltas since the newest keyframe
+    private int tooBusy; // Frames left to keep whole before trying a delta again
+    private int busyBackoff; // Frames kept whole after the last delta that was too big
+    private long chainLongs; // Longs of the deltas since the newest keyframe
+    private long[] decoded = new long[0]; // Board of the last frame read
+    private long decodedFrame = -1; // Number of the last frame read, -1 for none
+    private boolean restoring; // True while rewind() changes the grid
+    private long recordNanos; // Time spent recording
+
+    /**
+     * Class constructor, recording from the grid's next change
+     * @param grid, the grid to record
+     * @param capacity, the bytes of records kept, at least one board's worth
+     */
+    public GenerationHistory(Grid grid, long capacity) {
+        if (capacity < Long.BYTES || capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("History capacity must be from 8 bytes to 2 GB: " + capacity);
+        }
+        this.grid = grid;
+        this.ring = ByteBuffer.allocateDirect((int) capacity & ~7)
+                .order(ByteOrder.nativeOrder()).asLongBuffer();
+        grid.addGridListener(this);
+    }
+
+    /**
+     * Records the grid's state if it has been stepped or changed
+     * @param grid, the grid that changed
+     */
+    public void gridUpdated(Grid grid) {
+        LifeEngine engine = grid.getEngine();
+        if (restoring || engine == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        record(engine, grid.getSteppedGenerations() > 0);
+        recordNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Records the engine's board as the newest frame, first forgetting
+     * any frames it replaces
+     * @param engine, the engine to record
+     * @param stepped, true if the engine has just been stepped
+     */
+    private void record(LifeEngine engine, boolean stepped) {
+        if (engine.getRows() != rows || engine.getCols() != cols) {
+            resize(engine.getRows(), engine.getCols());
+        }
+        recording = engine.getRule().getStates() == 2 && !engine.isUnbounded()
+                && (long) rows * wordsPerRow <= ring.capacity();
+        if (!recording) {
+            clear();
+            return;
+        }
+
+        long generation = engine.getGeneration();
+        if (count > 0 && generation <= generations[newest()]) {
+            if (!stepped && generation == generations[newest()] && unchanged(engine)) {
+                return; // Redrawn, nothing to record
+            }
+            // Gone back, or changed in place: what came after no longer happened
+            while (count > 0 && generations[newest()] >= generation) {
+                used -= lengths[newest()];
+                count--;
+            }
+            previousKnown = false;
+            if (decodedFrame >= first + count) {
+                decodedFrame = -1; // Its number is about to be reused
+            }
+        }
+        if (count == 0) {
+            previousKnown = false;
+        }
+
+        // Gather the changed words as runs of (start << 32 | length) then the words, and update the copy of the board
+        int size = 0; // Longs of the delta
+        boolean key = !previousKnown || chainLength >= MAX_CHAIN || chainLongs >= previous.length
+                || tooBusy > 0; // A board that changed too much last time likely still does
+        for (int r = 0; r < rows; r++) {
+            int base = r * wordsPerRow;
+            if (key) {
+                engine.copyRow(r, previous, base);
+                continue;
+            }
+            engine.copyRow(r, row, 0);
+            int runStart = -1; // Index in delta of the current run's header, -1 between runs
+            for (int i = 0; i < wordsPerRow; i++) {
+                long changed = row[i] ^ previous[base + i];
+                if (changed == 0) {
+                    runStart = -1;
+                } else if (size + 2 > delta.length) {
+                    key = true; // As big as a board, keep the board instead
+                    break;
+                } else {
+                    if (runStart < 0) {
+                        runStart = size++;
+                        delta[runStart] = (long) (base + i) << 32;
+                    }
+                    delta[runStart]++;
+                    delta[size++] = changed;
+                }
+            }
+            System.arraycopy(row, 0, previous, base, wordsPerRow);
+        }
+        if (tooBusy > 0) {
+            tooBusy--;
+        } else if (key && previousKnown && chainLength < MAX_CHAIN && chainLongs < previous.length) {
+            busyBackoff = Math.min(MAX_CHAIN, busyBackoff * 2 + 1); // Try deltas again less and less often
+            tooBusy = busyBackoff;
+        } else if (!key) {
+            busyBackoff = 0;
+        }
+
+        int length = key ? previous.length : size;
+        int offset = allocate(length);
+        if (!key && count == 0) {
+            key = true; // Room was only made by dropping the frame the delta is from
+            length = previous.length;
+            offset = allocate(length);
+        }
+        ring.position(offset);
+        ring.put(key ? previous : delta, 0, length);
+
+        int slot = slot(first + count);
+        generations[slot] = generation;
+        offsets[slot] = offset;
+        lengths[slot] = length;
+        flags[slot] = (byte) ((key ? KEY : 0) | (stepped && count > 0 ? STEPPED : 0));
+        rules[slot] = engine.getRule();
+        boundaries[slot] = engine.getBoundary();
+        count++;
+        used += length;
+        chainLength = key ? 0 : chainLength + 1;
+        chainLongs = key ? 0 : chainLongs + length;
+        previousKnown = true;
+    }
+
+    /**
+     * Checks whether the engine still holds the newest frame's board
+     * @param engine, the engine to compare
+     * @return true, if neither the board, rule nor boundary has changed
+     */
+    private boolean unchanged(LifeEngine engine) {
+        int newest = newest();
+        if (!previousKnown || !engine.getRule().equals(rules[newest]) || engine.getBoundary() != boundaries[newest]) {
+            return false;
+        }
+        for (int r = 0; r < rows; r++) {
+            engine.copyRow(r, row, 0);
+            for (int i = 0; i < wordsPerRow; i++) {
+                if (row[i] != previous[r * wordsPerRow + i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets every frame and sizes the buffers for a new board size
+     * @param newRows, the rows of the board
+     * @param newCols, the columns of the board
+     */
+    private void resize(int newRows, int newCols) {
+        clear();
+        rows = newRows;
+        cols = newCols;
+        wordsPerRow = (cols + 63) >>> 6;
+        long words = (long) rows * wordsPerRow;
+        if (words > ring.capacity()) {
+            previous = decoded = delta = new long[0];
+            return; // Too big to record
+        }
+        previous = new long[(int) words];
+        decoded = new long[(int) words];
+        delta = new long[(int) words / 2];
+        row = new long[wordsPerRow];
+    }
+
+    /**
+     * Finds room in the ring for a record, dropping the oldest keyframe
+     * and its deltas until there is
+     * @param length, the longs of the record
+     * @return, the position of the record in the ring
+     */
+    private int allocate(int length) {
+        if (count == MAX_FRAMES) {
+            dropOldest();
+        }
+        while (count > 0) {
+            int tail = offsets[slot(first)];
+            int head = offsets[newest()] + lengths[newest()];
+            if (head > tail) {
+                if (ring.capacity() - head >= length) {
+                    return head;
+                }
+                if (tail >= length) {
+                    return 0; // Wrap round to the start
+                }
+            } else if (tail - head >= length) {
+                return head;
+            }
+            dropOldest();
+        }
+        return 0;
+    }
+
+    /**
+     * Drops the oldest frame, and the deltas after it up to the next
+     * keyframe, which cannot be read without it
+     */
+    private void dropOldest() {
+        do {
+            used -= lengths[slot(first)];
+            first++;
+            count--;
+        } while (count > 0 && (flags[slot(first)] & KEY) == 0);
+        if (decodedFrame < first) {
+            decodedFrame = -1;
+        }
+        if (count > 0) {
+            flags[slot(first)] &= ~STEPPED; // Nothing left to step from
+        }
+    }
+
+    /**
+     * Puts the board of a frame into decoded, applying as few deltas as
+     * it can to the frame read last
+     * @param frame, the number of the frame
+     */
+    private void decode(long frame) {
+        long key = frame;
+        while ((flags[slot(key)] & KEY) == 0) {
+            key--;
+        }
+        if (decodedFrame >= key && decodedFrame <= frame) {
+            for (long f = decodedFrame + 1; f <= frame; f++) {
+                applyDelta(f); // Forwards from the frame read last
+            }
+        } else if (decodedFrame > frame && keyOf(decodedFrame) == key) {
+            for (long f = decodedFrame; f > frame; f--) {
+                applyDelta(f); // Backwards, each delta undoing itself
+            }
+        } else {
+            ring.position(offsets[slot(key)]);
+            ring.get(decoded, 0, decoded.length);
+            for (long f = key + 1; f <= frame; f++) {
+                applyDelta(f);
+            }
+        }
+        decodedFrame = frame;
+    }
+
+    /**
+     * Finds the keyframe a frame's deltas start from
+     * @param frame, the number of the frame
+     * @return, the number of the keyframe
+     */
+    private long keyOf(long frame) {
+        long key = frame;
+        while ((flags[slot(key)] & KEY) == 0) {
+            key--;
+        }
+        return key;
+    }
+
+    /**
+     * XORs a delta into decoded
+     * @param frame, the number of a frame holding a delta
+     */
+    private void applyDelta(long frame) {
+        int slot = slot(frame);
+        int position = offsets[slot];
+        int end = position + lengths[slot];
+        while (position < end) {
+            long header = ring.get(position++);
+            int start = (int) (header >>> 32);
+            int length = (int) header;
+            for (int i = 0; i < length; i++) {
+                decoded[start + i] ^= ring.get(position++);
+            }
+        }
+    }
+
+    /**
+     * Finds the newest frame at or before a generation
+     * @param generation, the generation
+     * @return, the number of the frame, or -1 if every frame is after it
+     */
+    private long find(long generation) {
+        long low = first;
+        long high = first + count - 1;
+        long found = -1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            if (generations[slot(mid)] <= generation) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Copies a remembered generation into an engine of the same size,
+     * with the rule and boundary it was recorded under. Generations
+     * inside a batch are stepped again from the frame before
+     * @param generation, the generation to copy
+     * @param engine, receives the board and generation
+     * @return true, if the generation was remembered
+     * @throws IllegalArgumentException, if the engine cannot apply the rule or boundary
+     */
+    public boolean copyGeneration(long generation, LifeEngine engine) {
+        synchronized (grid.getLock()) {
+            long frame = frameFor(generation);
+            if (frame < 0 || engine.getRows() != rows || engine.getCols() != cols) {
+                return false;
+            }
+            int slot = slot(frame);
+            if (!engine.getRule().equals(rules[slot])) {
+                engine.setRule(rules[slot]);
+            }
+            if (engine.getBoundary() != boundaries[slot]) {
+                engine.setBoundary(boundaries[slot]);
+            }
+            decode(frame);
+            for (int r = 0; r < rows; r++) {
+                engine.setRow(r, decoded, r * wordsPerRow);
+            }
+            engine.setGeneration(generations[slot]);
+            engine.advance(generation - generations[slot]);
+            return true;
+        }
+    }
+
+    /**
+     * Finds the frame a generation can be read or stepped from
+     * @param generation, the generation
+     * @return, the number of the frame, or -1 if the generation is not remembered
+     */
+    private long frameFor(long generation) {
+        long frame = find(generation);
+        if (frame < 0 || !recording) {
+            return -1;
+        }
+        if (generations[slot(frame)] != generation
+                && (frame + 1 >= first + count || (flags[slot(frame + 1)] & STEPPED) == 0)) {
+            return -1; // Changed between the frames, so it cannot be stepped to
+        }
+        return frame;
+    }
+
+    /**
+     * Puts the grid back to a remembered generation, with the rule and
+     * boundary it had then, and notifies the grid's listeners. Stepping
+     * or editing the grid afterwards forgets the generations after it
+     * @param generation, the generation to go back or forward to
+     * @return true, if the generation was remembered
+     */
+    public boolean rewind(long generation) {
+        synchronized (grid.getLock()) {
+            if (frameFor(generation) < 0) {
+                return false;
+            }
+            restoring = true;
+            try {
+                int slot = slot(find(generation));
+                if (!grid.getRule().equals(rules[slot])) {
+                    grid.setRule(rules[slot]);
+                }
+                if (grid.getBoundary() != boundaries[slot]) {
+                    grid.setBoundary(boundaries[slot]);
+                }
+                copyGeneration(generation, grid.getEngine());
+                previousKnown = false; // The newest frame is no longer on the board
+                grid.refresh(); // Call refresh() method in Grid
+            } finally {
+                restoring = false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Forgets every frame
+     */
+    public void clear() {
+        synchronized (grid.getLock()) {
+            first += count;
+            count = 0;
+            used = 0;
+            previousKnown = false;
+            decodedFrame = -1;
+        }
+    }
+
+    /**
+     * Gets the oldest generation remembered
+     * @return, the generation, or -1 if none are
+     */
+    public long getOldestGeneration() {
+        synchronized (grid.getLock()) {
+            return count == 0 ? -1 : generations[slot(first)];
+        }
+    }
+
+    /**
+     * Gets the newest generation remembered
+     * @return, the generation, or -1 if none are
+     */
+    public long getNewestGeneration() {
+        synchronized (grid.getLock()) {
+            return count == 0 ? -1 : generations[newest()];
+        }
+    }
+
+    /**
+     * Gets the number of generations recorded, not counting those
+     * stepped over inside a batch
+     * @return, the frame count
+     */
+    public int getFrameCount() {
+        synchronized (grid.getLock()) {
+            return count;
+        }
+    }
+
+    /**
+     * Gets the bytes of records held
+     * @return, the bytes used, at most getCapacity()
+     */
+    public long getBytesUsed() {
+        synchronized (grid.getLock()) {
+            return used * Long.BYTES;
+        }
+    }
+
+    /**
+     * Gets the bytes of the ring buffer
+     * @return, the capacity
+     */
+    public long getCapacity() {
+        return (long) ring.capacity() * Long.BYTES;
+    }
+
+    /**
+     * Returns true while the grid's changes are being recorded
+     * @return false, if the board is too big or unbounded, or its rule has more than two states
+     */
+    public boolean isRecording() {
+        synchronized (grid.getLock()) {
+            return recording;
+        }
+    }
+
+    /**
+     * Gets the time spent recording, to compare with the time spent stepping
+     * @return, the nanos spent
+     */
+    public long getRecordNanos() {
+        synchronized (grid.getLock()) {
+            return recordNanos;
+        }
+    }
+
+    /**
+     * Stops recording the grid
+     */
+    public void close() {
+        grid.removeGridListener(this);
+    }
+
+    /**
+     * Gets the number of the newest frame held
+     * @return, the frame's slot
+     */
+    private int newest() {
+        return slot(first + count - 1);
+    }
+
+    /**
+     * Gets where a frame is kept in the index arrays
+     * @param frame, the number of the frame
+     * @return, the slot
+     */
+    private static int slot(long frame) {
+        return (int) (frame & (MAX_FRAMES - 1));
+    }
+
+}
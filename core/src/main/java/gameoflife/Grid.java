@@ -0,0 +1,415 @@
+package gameoflife;
+
+import gameoflife.engine.Boundary;
+import gameoflife.engine.EngineType;
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.PackedEngine;
+import gameoflife.engine.Rule;
+import gameoflife.engine.TableEngine;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Creates the grid of user defined size and updates the grid
+ * according to the game rules on update call. The rules are applied
+ * by a LifeEngine, and anything displaying the grid registers a
+ * GridListener to be told when its state changes. Every access to the
+ * engine happens while holding the grid's lock, so the simulation
+ * thread and the GUI never touch it at the same time.
+ *
+ * Life-like rules run on a PackedEngine, or a SparseEngine or
+ * HashLifeEngine if that EngineType is set; Generations and Larger than Life rules need a
+ * TableEngine, which the grid switches to when such a rule is set.
+ * Likewise engines that cannot wrap their edges or apply B0 rules are
+ * swapped for a PackedEngine when the grid is made a torus or Klein
+ * bottle or such a rule is set.
+ *
+ * Every Grid made with new Grid() shows the same board, so the GUI's
+ * parts can each make their own. Grids from newIndependent() have a
+ * board of their own, so simulations in one JVM never share cells, a
+ * lock or listeners.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class Grid {
+    private static final Board SHARED = new Board(); // Board of every grid made with new Grid()
+    private final Board board; // Board this grid shows and updates
+    private long timeStart; // Stores starting times
+    private long updateTime; // Time taken by the last update in nanoseconds
+    private long stepped; // Generations stepped by the advanceGrid() call being notified, 0 for other changes
+    public final int GRID_SIZE = 125; // Row & column size of the grid
+
+    /**
+     * Class constructor for a grid on the board every other grid made
+     * this way shows, so the GUI's parts all see the same cells
+     */
+    public Grid() {
+        this(SHARED);
+    }
+
+    /**
+     * Class constructor for a grid on the parsed board
+     * @param board, the board to show and update
+     */
+    private Grid(Board board) {
+        this.board = board;
+    }
+
+    /**
+     * Creates a grid on a board of its own, with its own engine, rule,
+     * boundary, lock and listeners, e.g. to run several simulations in
+     * one JVM. Pass the returned grid, not new Grid(), to anything that
+     * should share its board
+     * @return, the new grid
+     */
+    public static Grid newIndependent() {
+        return new Grid(new Board());
+    }
+
+    /**
+     * Initializes the grid's engine if not created, otherwise sets
+     * every cell of the existing grid to dead
+     */
+    public void createGrid() {
+        synchronized (board.lock) {
+            if (board.engineOpened) {
+                closeEngine(board.engine); // Never clear a board file, start a new grid instead
+                board.engine = null;
+                board.engineOpened = false;
+            }
+            if (!gridExists() || board.engine == null) {
+                if (board.engine == null) {
+                    board.engine = newEngine(); // Create engine of the grid's size
+                }
+            } else {
+                board.engine.clear(); // Reset state and generation of the existing engine
+            }
+
+            board.gridExists = true; // Grid successfully created, therefore does exist
+            refresh(); // Call refresh() method
+        }
+    }
+
+    /**
+     * Creates an engine of the grid's size that can apply the rule and boundary
+     * @return, an engine of the grid's type for life-like rules it can
+     * apply, a PackedEngine for other life-like rules, otherwise a TableEngine
+     */
+    private LifeEngine newEngine() {
+        LifeEngine newEngine;
+        if (!board.rule.isLifeLike()) {
+            newEngine = new TableEngine(GRID_SIZE, GRID_SIZE);
+        } else if (board.boundary.wraps() || board.rule.isBornFromNothing()) {
+            newEngine = new PackedEngine(GRID_SIZE, GRID_SIZE); // Unbounded planes have no edges to wrap
+        } else {
+            newEngine = board.engineType.create(GRID_SIZE, GRID_SIZE);
+        }
+        newEngine.setRule(board.rule);
+        newEngine.setBoundary(board.boundary);
+        return newEngine;
+    }
+
+    /**
+     * Sets the rule the grid is run under from the next update on. If
+     * the engine cannot apply it, the grid's live cells are copied into
+     * a new engine that can
+     * @param newRule, the rule to apply
+     */
+    public void setRule(Rule newRule) {
+        synchronized (board.lock) {
+            board.rule = newRule;
+            if (board.engine == null) {
+                return; // Applied when the grid is created
+            }
+            try {
+                board.engine.setRule(newRule);
+                refresh(); // Call refresh() method
+            } catch (IllegalArgumentException e) {
+                setEngine(newEngine()); // e.g. a Generations rule on a bit-packed engine
+            }
+        }
+    }
+
+    /**
+     * Sets what lies past the edges of the grid from the next update on.
+     * If the engine cannot wrap its edges, the grid's live cells are
+     * copied into a new engine that can
+     * @param newBoundary, the boundary
+     */
+    public void setBoundary(Boundary newBoundary) {
+        synchronized (board.lock) {
+            board.boundary = newBoundary;
+            if (board.engine == null) {
+                return; // Applied when the grid is created
+            }
+            try {
+                board.engine.setBoundary(newBoundary);
+                refresh(); // Call refresh() method
+            } catch (IllegalArgumentException e) {
+                setEngine(newEngine()); // e.g. a torus on an unbounded engine
+            }
+        }
+    }
+
+    /**
+     * Sets the type of engine life-like rules run on. If the grid exists,
+     * its live cells are copied into a new engine of that type
+     * @param newType, the engine type
+     */
+    public void setEngineType(EngineType newType) {
+        synchronized (board.lock) {
+            board.engineType = newType;
+            if (board.engine != null) {
+                setEngine(newEngine()); // Call setEngine(LifeEngine) method
+            }
+        }
+    }
+
+    /**
+     * Gets the type of engine life-like rules run on
+     * @return engineType, the type new engines are created as
+     */
+    public EngineType getEngineType() {
+        synchronized (board.lock) {
+            return board.engineType;
+        }
+    }
+
+    /**
+     * Gets what lies past the edges of the grid
+     * @return boundary, the boundary of the engine
+     */
+    public Boundary getBoundary() {
+        synchronized (board.lock) {
+            return board.engine == null ? board.boundary : board.engine.getBoundary();
+        }
+    }
+
+    /**
+     * Gets the rule the grid is run under
+     * @return rule, the rule new engines are created with
+     */
+    public Rule getRule() {
+        synchronized (board.lock) {
+            return board.engine == null ? board.rule : board.engine.getRule();
+        }
+    }
+
+    /**
+     * Steps the engine by one generation and notifies the listeners
+     */
+    public void updateGrid() {
+        advanceGrid(1); // Call advanceGrid(long) method
+    }
+
+    /**
+     * Advances the engine by the parsed number of generations and
+     * notifies the listeners
+     * @param generations, the number of generations to advance
+     */
+    public void advanceGrid(long generations) {
+        synchronized (board.lock) {
+            timeStart = System.nanoTime(); // Stores time started
+            board.engine.advance(generations); // Apply the game rules to the whole board
+            updateTime = System.nanoTime() - timeStart; // Kept off the console so updates stay allocation free
+            stepped = generations;
+            try {
+                refresh(); // Call refresh() method
+            } finally {
+                stepped = 0; // Anything else that notifies is not a step
+            }
+        }
+    }
+
+    /**
+     * Notifies the listeners that the state of the grid has changed,
+     * e.g. after a file is loaded straight into the engine. Listeners
+     * are called while holding the grid's lock
+     */
+    public void refresh() {
+        synchronized (board.lock) {
+            for (GridListener listener : board.listeners) {
+                listener.gridUpdated(this);
+            }
+        }
+    }
+
+    /**
+     * Flips the state of one cell and notifies the listeners
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     */
+    public void toggleCell(int row, int col) {
+        synchronized (board.lock) {
+            board.engine.setCell(row, col, !board.engine.getCell(row, col)); // If Cell dead, make alive and vice versa
+            refresh(); // Call refresh() method
+        }
+    }
+
+    /**
+     * Gets the lock that must be held while using the engine directly,
+     * e.g. to load a file into it while the simulation is running
+     * @return lock, the grid's lock
+     */
+    public Object getLock() {
+        return board.lock;
+    }
+
+    /**
+     * Registers a listener to be notified whenever the grid changes
+     * @param listener, the listener to add
+     */
+    public void addGridListener(GridListener listener) {
+        board.listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener
+     * @param listener, the listener to remove
+     */
+    public void removeGridListener(GridListener listener) {
+        board.listeners.remove(listener);
+    }
+
+    /**
+     * Returns how long the engine took to step the last call to
+     * advanceGrid(), not counting the listeners it notified. Listeners
+     * notified by advanceGrid() see the time of the step they are told of
+     * @return updateTime, the elapsed time in nanoseconds
+     */
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    /**
+     * Returns the number of generations stepped by the advanceGrid()
+     * call listeners are being notified of, so a listener can tell steps
+     * from edits, loads and new grids
+     * @return stepped, the generations stepped, 0 if the change was not a step
+     */
+    public long getSteppedGenerations() {
+        return stepped;
+    }
+
+    /**
+     * Returns true if grid has been created already
+     * @return gridExists, returns true if grid exists
+     */
+    public boolean gridExists() {
+        return board.gridExists;
+    }
+
+    /**
+     * Replaces the engine behind the grid, copying the state of the
+     * grid into it (e.g. a HashLifeEngine for huge jumps). The engine
+     * is given the grid's rule, boundary and generation. Every live cell
+     * of an unbounded plane is copied, though a bounded engine can only
+     * keep those within its rows and columns
+     * @param newEngine, the engine to drive the grid with
+     * @throws IllegalArgumentException, if the engine cannot apply the grid's rule or boundary
+     */
+    public void setEngine(LifeEngine newEngine) {
+        synchronized (board.lock) {
+            if (!newEngine.getRule().equals(board.rule)) {
+                newEngine.setRule(board.rule);
+            }
+            if (newEngine.getBoundary() != board.boundary) {
+                newEngine.setBoundary(board.boundary);
+            }
+            LifeEngine oldEngine = board.engine;
+            boolean oldOpened = board.engineOpened;
+            board.engine = newEngine;
+            board.engineOpened = false;
+            if (!gridExists() || oldEngine == null) {
+                return;
+            }
+
+            newEngine.clear();
+            if (oldEngine.isUnbounded()) {
+                boolean unbounded = newEngine.isUnbounded();
+                int rows = newEngine.getRows();
+                int cols = newEngine.getCols();
+                oldEngine.forEachLiveCell((row, col) -> {
+                    if (unbounded || (row >= 0 && row < rows && col >= 0 && col < cols)) {
+                        newEngine.setCell(row, col, true);
+                    }
+                });
+            } else {
+                int rows = Math.min(GRID_SIZE, Math.min(oldEngine.getRows(), newEngine.getRows()));
+                int cols = Math.min(GRID_SIZE, Math.min(oldEngine.getCols(), newEngine.getCols()));
+                for (int row = 0; row < rows; row++) {
+                    for (int col = 0; col < cols; col++) {
+                        if (oldEngine.getCell(row, col)) {
+                            newEngine.setCell(row, col, true);
+                        }
+                    }
+                }
+            }
+            newEngine.setGeneration(oldEngine.getGeneration()); // Carry on counting from the old engine
+            if (oldOpened) {
+                closeEngine(oldEngine);
+            }
+            refresh(); // Call refresh() method
+        }
+    }
+
+    /**
+     * Replaces the engine behind the grid with one already holding a
+     * board, e.g. a MappedEngine opened from a file, keeping its state
+     * size and rule. The previous engine is closed if it was also opened
+     * @param newEngine, the engine to drive the grid with
+     */
+    public void openEngine(LifeEngine newEngine) {
+        synchronized (board.lock) {
+            if (board.engineOpened) {
+                closeEngine(board.engine);
+            }
+            board.engine = newEngine;
+            board.rule = newEngine.getRule();
+            board.boundary = newEngine.getBoundary();
+            board.engineOpened = true;
+            board.gridExists = true;
+            refresh(); // Call refresh() method
+        }
+    }
+
+    /**
+     * Closes an engine if it holds a file open
+     * @param oldEngine, the engine to close
+     */
+    private void closeEngine(LifeEngine oldEngine) {
+        if (oldEngine instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) oldEngine).close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns the engine that holds the state of the grid
+     * @return engine, returns the LifeEngine of the grid
+     */
+    public LifeEngine getEngine() {
+        return board.engine;
+    }
+
+    /**
+     * State of one board, shared by every Grid that shows it
+     */
+    private static class Board {
+        private LifeEngine engine; // Applies the game rules to the state of the grid
+        private Rule rule = Rule.CONWAY; // Rule new engines are created with
+        private Boundary boundary = Boundary.DEAD; // What lies past the edges of new engines
+        private EngineType engineType = EngineType.PACKED; // Engine new engines are for life-like rules
+        private boolean gridExists = false; // Stores true if grid currently exists
+        private boolean engineOpened = false; // True if the engine was opened from a file by openEngine()
+        private final Object lock = new Object(); // Held while the engine is read or changed
+        private final List<GridListener> listeners = new CopyOnWriteArrayList<>(); // Notified after every change
+    }
+
+}
@@ -0,0 +1,19 @@
+package gameoflife;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Listener notified by Grid whenever the state of the grid changes,
+ * so a display can redraw without Grid depending on it.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public interface GridListener {
+
+    /**
+     * Called after the grid has been created, stepped or loaded
+     * @param grid, the grid that changed
+     */
+    void gridUpdated(Grid grid);
+
+}
@@ -0,0 +1,195 @@
+package gameoflife;
+
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.Rule;
+
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Packed copy of the state of a grid at one generation, one bit per
+ * cell, so a display can read it while the engine keeps stepping.
+ * Snapshots are reused rather than allocated per generation; see
+ * SnapshotExchange.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class GridSnapshot {
+    private int rows; // Rows in the snapshot
+    private int cols; // Columns in the snapshot
+    private int wordsPerRow; // Longs holding one row
+    private int top; // Engine row shown in the snapshot's first row
+    private int left; // Engine column shown in the snapshot's first column
+    private long[] words = new long[0]; // Packed rows, bit (col & 63) of word (col >>> 6)
+    private long generation; // Generation the snapshot was taken at
+    private Rule rule; // Rule the engine was applying
+    private long[] row = new long[0]; // Scratch buffer for rows wider than the snapshot
+
+    /**
+     * Copies the state of the engine into the snapshot, growing it if
+     * the engine is larger than the last one copied
+     * @param engine, the engine to copy
+     */
+    public void copyFrom(LifeEngine engine) {
+        copyFrom(engine, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Copies at most the top left limit x limit cells of the engine
+     * into the snapshot, so huge boards are not copied whole
+     * @param engine, the engine to copy
+     * @param limit, the most rows & columns to copy
+     */
+    public void copyFrom(LifeEngine engine, int limit) {
+        copyFrom(engine, limit, 0, 0);
+    }
+
+    /**
+     * Copies at most limit x limit cells of the engine, starting from a
+     * cell other than the top left, into the snapshot, e.g. to follow a
+     * pattern across an unbounded plane. Windows away from the top left
+     * are read a cell at a time
+     * @param engine, the engine to copy
+     * @param limit, the most rows & columns to copy
+     * @param top, the engine row copied into the snapshot's first row
+     * @param left, the engine column copied into the snapshot's first column
+     */
+    public void copyFrom(LifeEngine engine, int limit, int top, int left) {
+        this.top = top;
+        this.left = left;
+        rows = Math.min(engine.getRows(), limit);
+        cols = Math.min(engine.getCols(), limit);
+        wordsPerRow = (cols + 63) >>> 6;
+        if (words.length != rows * wordsPerRow) {
+            words = new long[rows * wordsPerRow];
+        }
+
+        int engineWords = (engine.getCols() + 63) >>> 6;
+        long lastWordMask = (cols & 63) == 0 ? -1L : (1L << (cols & 63)) - 1;
+        if (top != 0 || left != 0) {
+            Arrays.fill(words, 0L);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    if (engine.getCell(top + r, left + c)) {
+                        words[r * wordsPerRow + (c >>> 6)] |= 1L << c;
+                    }
+                }
+            }
+        } else if (engineWords == wordsPerRow) {
+            for (int r = 0; r < rows; r++) {
+                engine.copyRow(r, words, r * wordsPerRow);
+            }
+        } else {
+            if (row.length != engineWords) {
+                row = new long[engineWords];
+            }
+            for (int r = 0; r < rows; r++) {
+                engine.copyRow(r, row, 0);
+                System.arraycopy(row, 0, words, r * wordsPerRow, wordsPerRow);
+                words[r * wordsPerRow + wordsPerRow - 1] &= lastWordMask; // Drop the cells past the limit
+            }
+        }
+        generation = engine.getGeneration();
+        rule = engine.getRule();
+    }
+
+    /**
+     * Gets one packed word of a row
+     * @param row, the row of the word
+     * @param index, the index of the word within the row
+     * @return, the 64 cells of the word
+     */
+    public long getWord(int row, int index) {
+        return words[row * wordsPerRow + index];
+    }
+
+    /**
+     * Copies one row of the snapshot into packed words
+     * @param row, the row to copy
+     * @param words, receives the row, at least getWordsPerRow() long after offset
+     * @param offset, index of words the first word of the row is written to
+     */
+    public void copyRow(int row, long[] words, int offset) {
+        System.arraycopy(this.words, row * wordsPerRow, words, offset, wordsPerRow);
+    }
+
+    /**
+     * Gets the state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return true, if the cell was alive
+     */
+    public boolean getCell(int row, int col) {
+        return (words[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    /**
+     * Counts the live cells in the snapshot
+     * @return, the population of the snapshot
+     */
+    public long getPopulation() {
+        long population = 0;
+        for (int i = 0; i < rows * wordsPerRow; i++) {
+            population += Long.bitCount(words[i]);
+        }
+        return population;
+    }
+
+    /**
+     * Gets the number of rows in the snapshot
+     * @return, the row count
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns in the snapshot
+     * @return, the column count
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Gets the engine row shown in the snapshot's first row
+     * @return, the top row
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Gets the engine column shown in the snapshot's first column
+     * @return, the left column
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * Gets the number of longs holding one row
+     * @return, the words per row
+     */
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Gets the generation the snapshot was taken at
+     * @return, the generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the rule the engine was applying when the snapshot was taken
+     * @return, the rule
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+}
@@ -0,0 +1,213 @@
+package gameoflife;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Paces a run at a requested number of generations per second. Each
+ * tick steps a batch of generations, and tick n is due at a deadline
+ * of n tick periods after the run started, measured with nanoTime(),
+ * so time spent stepping is taken off the wait and rounding never
+ * builds up into drift. A run that falls more than MAX_LAG_NANOS
+ * behind starts its schedule again from now rather than racing to
+ * catch up.
+ *
+ * Rates above MAX_TICKS_PER_SECOND step several generations per tick
+ * so the board is not redrawn faster than it can be seen. A rate of
+ * UNTHROTTLED steps as fast as possible. Waits park the thread until
+ * shortly before the deadline, then spin, as a park can oversleep by
+ * more than a whole tick at high rates. wake() ends a wait early, so a
+ * slow rate never holds up stopping or pausing a run. A paused run is
+ * resumed with resume(), which starts the schedule again from now but
+ * keeps the generations and running time the achieved rate is
+ * measured by, so time spent paused is not counted against it.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class RateScheduler {
+    public static final double UNTHROTTLED = 0; // Rate that steps as fast as possible
+    public static final double MAX_TICKS_PER_SECOND = 250; // Fastest ticks before generations are batched
+    private static final double NANOS_PER_SECOND = 1e9; // Nano seconds in one second
+    private static final long SPIN_NANOS = 200_000; // Last part of each wait spent spinning
+    private static final long MAX_LAG_NANOS = 250_000_000; // Lag after which the schedule starts again
+    private final double rate; // Requested generations per second, UNTHROTTLED for no limit
+    private final int batch; // Generations stepped each tick
+    private final double tickNanos; // Nano seconds between tick deadlines
+    private long start; // Time the run started or was last resumed
+    private long end; // Time the run finished or was paused, or -1 while it runs
+    private long ranNanos; // Time the run spent running before it was last resumed
+    private long base; // Time tick 0 of the current schedule was due
+    private long ticks; // Ticks since base
+    private long generations; // Generations stepped since the run started
+    private volatile boolean woken; // True once wake() has ended the current or next wait
+    private volatile Thread waiter; // Thread waiting for the next tick, null when none is
+
+    /**
+     * Class constructor that batches generations only when the rate is
+     * above MAX_TICKS_PER_SECOND
+     * @param rate, the generations per second, or UNTHROTTLED
+     */
+    public RateScheduler(double rate) {
+        this(rate, rate > MAX_TICKS_PER_SECOND && rate != Double.POSITIVE_INFINITY
+                ? (int) Math.min(Integer.MAX_VALUE, Math.ceil(rate / MAX_TICKS_PER_SECOND)) : 1);
+    }
+
+    /**
+     * Class constructor
+     * @param rate, the generations per second, or UNTHROTTLED
+     * @param batch, the generations stepped each tick
+     */
+    public RateScheduler(double rate, int batch) {
+        if (!(rate >= 0)) {
+            throw new IllegalArgumentException("Rate must not be negative: " + rate);
+        }
+        if (batch < 1) {
+            throw new IllegalArgumentException("Batch must be at least 1: " + batch);
+        }
+        this.rate = rate == Double.POSITIVE_INFINITY ? UNTHROTTLED : rate;
+        this.batch = batch;
+        this.tickNanos = this.rate == UNTHROTTLED ? 0 : batch * NANOS_PER_SECOND / rate;
+        start();
+    }
+
+    /**
+     * Starts the schedule and the achieved rate from now
+     */
+    public void start() {
+        start = System.nanoTime();
+        base = start;
+        end = -1;
+        ticks = 0;
+        generations = 0;
+        ranNanos = 0;
+        woken = false;
+    }
+
+    /**
+     * Starts the schedule again from now after a pause, keeping the
+     * generations stepped and the time spent running so far
+     */
+    public void resume() {
+        long now = System.nanoTime();
+        ranNanos += (end < 0 ? now : end) - start;
+        start = now;
+        base = now;
+        end = -1;
+        ticks = 0;
+        woken = false;
+    }
+
+    /**
+     * Records the last tick of a run, or of the stretch before a pause,
+     * without waiting, and stops the clock the achieved rate is measured by
+     * @param stepped, the generations the last tick stepped
+     */
+    public void finish(int stepped) {
+        generations += stepped;
+        end = System.nanoTime();
+    }
+
+    /**
+     * Records a finished tick and waits until the next one is due
+     * @param stepped, the generations the tick stepped
+     */
+    public void tick(int stepped) {
+        generations += stepped;
+        ticks++;
+        if (rate == UNTHROTTLED) {
+            return;
+        }
+
+        long deadline = base + (long) (ticks * tickNanos);
+        long now = System.nanoTime();
+        if (now - deadline > MAX_LAG_NANOS) {
+            base = now; // Too far behind to catch up, start again from here
+            ticks = 0;
+            return;
+        }
+        waitUntil(deadline);
+    }
+
+    /**
+     * Parks, then spins, until the deadline passes, wake() is called or
+     * the thread is interrupted
+     * @param deadline, the nanoTime() to wait until
+     */
+    private void waitUntil(long deadline) {
+        waiter = Thread.currentThread();
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (woken || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(this, remaining - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        waiter = null;
+        woken = false;
+    }
+
+    /**
+     * Ends the wait for the next tick now, or the next wait if none is
+     * in progress, without interrupting the waiting thread. Safe to call
+     * from any thread
+     */
+    public void wake() {
+        woken = true;
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Gets the generations to step each tick
+     * @return, the batch size
+     */
+    public int getBatch() {
+        return batch;
+    }
+
+    /**
+     * Gets the rate the run was asked to go at
+     * @return, the generations per second, UNTHROTTLED for no limit
+     */
+    public double getRequestedRate() {
+        return rate;
+    }
+
+    /**
+     * Gets the rate the run has gone at while running since it started,
+     * or went at until it finished
+     * @return, the generations per second achieved
+     */
+    public double getAchievedRate() {
+        long elapsed = ranNanos + (end < 0 ? System.nanoTime() : end) - start;
+        return elapsed <= 0 ? 0 : generations * NANOS_PER_SECOND / elapsed;
+    }
+
+    /**
+     * Gets the generations stepped since the run started
+     * @return, the generation count
+     */
+    public long getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Describes the requested and achieved rates
+     * @return, the rates, e.g. "300.0 gen/s requested, 299.9 achieved, 2 per tick"
+     */
+    @Override
+    public String toString() {
+        if (rate == UNTHROTTLED) {
+            return String.format("Unthrottled, %.1f gen/s achieved, %d per tick", getAchievedRate(), batch);
+        }
+        return String.format("%.1f gen/s requested, %.1f achieved, %d per tick", rate, getAchievedRate(), batch);
+    }
+
+}
@@ -0,0 +1,463 @@
+package gameoflife;
+
+import gameoflife.engine.HashLifeEngine;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Runs the main game loop of one grid on a single worker thread that
+ * lives as long as the controller, so a run can be started, paused,
+ * resumed, stepped and stopped any number of times. Each run advances
+ * the grid a batch of generations per tick, paced by a RateScheduler
+ * so the rate asked for is the rate that runs. If a Checkpointer has
+ * been set, the grid is checkpointed as it runs and once more when it
+ * stops. If a CycleDetector has been set, the run stops by itself once
+ * the board dies out, goes still or starts repeating.
+ *
+ * Every control only swaps the state with a compare-and-set and wakes
+ * the worker, so none of them ever blocks the thread calling it, e.g.
+ * the event dispatch thread. The worker sees a stop or pause by the
+ * end of the tick it is stepping, without waiting for the next tick to
+ * be due. Big batches on engines that step one generation at a time
+ * are advanced in chunks of at most CHUNK generations, releasing the
+ * grid's lock between chunks, so a jump of 2^30 generations never
+ * holds up editing, saving or stopping. Everything a run uses belongs to the controller, so each
+ * controller given a grid from Grid.newIndependent() runs on its own.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class SimulationController implements AutoCloseable {
+    private static final AtomicInteger workers = new AtomicInteger(); // Numbers the worker threads
+    private static final int CHUNK = 4096; // Most generations stepped per hold of the lock, unless memoized
+    private final Grid grid; // Grid the runs advance
+    private final AtomicReference<State> state = new AtomicReference<>(State.STOPPED); // Current state
+    private final AtomicBoolean restart = new AtomicBoolean(); // True when start() has asked for a new run
+    private final AtomicInteger pendingSteps = new AtomicInteger(); // Generations asked for by step()
+    private final AtomicBoolean started = new AtomicBoolean(); // True once the worker has been started
+    private final Thread worker; // Thread that steps the grid
+    private final List<SimulationListener> listeners = new CopyOnWriteArrayList<>(); // Notified of each change of state
+    private final Object idle = new Object(); // Notified when the worker finishes a run
+    private volatile boolean open; // True while a run has started and not yet finished
+    private RateScheduler pace; // Scheduler of the open run, only used by the worker
+    private volatile RateScheduler scheduler = new RateScheduler(1); // Paces the generations of the current run
+    private volatile int batch; // Generations stepped each tick, 0 to batch only at high rates
+    private volatile Checkpointer checkpointer; // Writes checkpoints while running (null for none)
+    private volatile CycleDetector cycleDetector; // Stops the run once the board settles (null for none)
+
+    /**
+     * States of a controller
+     */
+    public enum State {
+        STOPPED, // No run, or the last run has finished
+        RUNNING, // Stepping the grid at the requested rate
+        PAUSED, // In the middle of a run, not stepping
+        CLOSED // The worker has been told to finish, no more runs
+    }
+
+    /**
+     * Class constructor
+     * @param grid, the grid to advance
+     */
+    public SimulationController(Grid grid) {
+        this.grid = grid;
+        this.worker = new Thread(this::work, "Simulation-" + workers.incrementAndGet());
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Sets the Checkpointer used by every run
+     * @param checkpoints, the Checkpointer to use, or null for none
+     */
+    public void setCheckpointer(Checkpointer checkpoints) {
+        checkpointer = checkpoints;
+    }
+
+    /**
+     * Sets the CycleDetector used by every run
+     * @param detector, the CycleDetector to use, or null to run until stopped
+     */
+    public void setCycleDetector(CycleDetector detector) {
+        cycleDetector = detector;
+    }
+
+    /**
+     * Sets the number of generations stepped each tick of every run
+     * started from now on, e.g. to run far faster than the board can be
+     * redrawn
+     * @param generations, the generations per tick, or 0 to batch only
+     *                     above RateScheduler.MAX_TICKS_PER_SECOND
+     */
+    public void setBatch(int generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Batch must not be negative: " + generations);
+        }
+        batch = generations;
+    }
+
+    /**
+     * Sets every run started from now on to advance the grid 2^exponent
+     * generations each tick in a single advance() call, which a
+     * HashLifeEngine takes as one memoized jump, e.g. 30 to reach
+     * generation 10^9 in a few ticks. Other engines step the generations
+     * in chunks, so a big jump is slow but can still be stopped
+     * @param exponent, the base two logarithm of the generations per tick, 0 to 30
+     */
+    public void setJump(int exponent) {
+        if (exponent < 0 || exponent > 30) {
+            throw new IllegalArgumentException("Jump must be 2^0 to 2^30 generations: 2^" + exponent);
+        }
+        setBatch(1 << exponent); // Call setBatch(int) method
+    }
+
+    /**
+     * Registers a listener to be notified whenever the state changes
+     * @param listener, the listener to add
+     */
+    public void addSimulationListener(SimulationListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener
+     * @param listener, the listener to remove
+     */
+    public void removeSimulationListener(SimulationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts a new run, from stopped or paused
+     * @param genPerSec, the number of generation to update per second of
+     *                   real time, or RateScheduler.UNTHROTTLED to run as fast as possible
+     * @return true, if a run was started
+     */
+    public boolean start(double genPerSec) {
+        RateScheduler next = batch == 0 ? new RateScheduler(genPerSec) : new RateScheduler(genPerSec, batch);
+        State current = state.get();
+        while (current == State.STOPPED || current == State.PAUSED) {
+            scheduler.wake(); // A paused run may still be waiting for its last tick
+            scheduler = next;
+            restart.set(true);
+            if (state.compareAndSet(current, State.RUNNING)) {
+                wakeWorker();
+                changed(State.RUNNING);
+                return true;
+            }
+            current = state.get();
+        }
+        return false;
+    }
+
+    /**
+     * Pauses a run after the tick being stepped
+     * @return true, if the run was running
+     */
+    public boolean pause() {
+        return change(State.RUNNING, State.PAUSED);
+    }
+
+    /**
+     * Resumes a paused run at the rate it was started at
+     * @return true, if the run was paused
+     */
+    public boolean resume() {
+        return change(State.PAUSED, State.RUNNING);
+    }
+
+    /**
+     * Steps the grid by one generation while it is stopped or paused
+     * @return true, if a step was asked for
+     */
+    public boolean step() {
+        State current = state.get();
+        if (current == State.RUNNING || current == State.CLOSED) {
+            return false;
+        }
+        pendingSteps.incrementAndGet();
+        wakeWorker();
+        return true;
+    }
+
+    /**
+     * Stops a run after the tick being stepped. The worker then records
+     * the outcome and takes the last checkpoint
+     * @return true, if the run was running or paused
+     */
+    public boolean stop() {
+        return change(State.RUNNING, State.STOPPED) || change(State.PAUSED, State.STOPPED);
+    }
+
+    /**
+     * Stops any run and lets the worker finish. The controller cannot be
+     * started again
+     */
+    public void close() {
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            scheduler.wake();
+            wakeWorker();
+            changed(State.CLOSED);
+        }
+    }
+
+    /**
+     * Waits until the last run has finished, e.g. for a headless run
+     * with a CycleDetector to stop by itself. Never call this on the
+     * event dispatch thread
+     * @param timeout, the longest time to wait
+     * @param unit, the unit of the timeout
+     * @return true, if no run is open
+     * @throws InterruptedException, if the waiting thread is interrupted
+     */
+    public boolean awaitStop(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (idle) {
+            while (isBusy()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(idle, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true while a run is open, or the worker has yet to see it stop
+     */
+    private boolean isBusy() {
+        State current = state.get();
+        return current == State.RUNNING || current == State.PAUSED || open
+                || (current == State.CLOSED && worker.isAlive());
+    }
+
+    /**
+     * Gets the state of the controller
+     * @return, the current state
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Returns true while a run is stepping the grid
+     * @return true, if running
+     */
+    public boolean isRunning() {
+        return state.get() == State.RUNNING;
+    }
+
+    /**
+     * Gets the grid the runs advance
+     * @return, the grid
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Gets the scheduler pacing the current or last run, to compare the
+     * rate achieved with the rate requested
+     * @return, the scheduler
+     */
+    public RateScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Swaps one state for another if the controller is in it
+     * @param from, the state the controller must be in
+     * @param to, the state to change to
+     * @return true, if the state was changed
+     */
+    private boolean change(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+        if (from == State.RUNNING) {
+            scheduler.wake(); // Don't wait out the tick
+        }
+        wakeWorker();
+        changed(to);
+        return true;
+    }
+
+    /**
+     * Starts the worker the first time it is needed, or unparks it
+     */
+    private void wakeWorker() {
+        if (started.compareAndSet(false, true)) {
+            worker.start();
+        } else {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Tells the listeners the state has changed
+     * @param to, the new state
+     */
+    private void changed(State to) {
+        for (SimulationListener listener : listeners) {
+            listener.stateChanged(this, to);
+        }
+    }
+
+    /**
+     * The worker's loop. Runs while the state is RUNNING, steps when
+     * asked while it is not, finishes each run once it is stopped, and
+     * parks while there is nothing to do
+     */
+    private void work() {
+        while (true) {
+            State current = state.get();
+            if (current == State.RUNNING) {
+                if (restart.getAndSet(false)) {
+                    if (open) {
+                        finishRun(); // Started again before the last run was seen to stop
+                    }
+                    beginRun();
+                }
+                runTicks();
+                continue;
+            }
+            if (open && current != State.PAUSED) {
+                finishRun();
+            }
+            if (current == State.CLOSED) {
+                synchronized (idle) {
+                    idle.notifyAll(); // The worker is about to finish
+                }
+                return;
+            }
+            if (pendingSteps.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                grid.updateGrid(); // Call updateGrid() method in Grid
+                if (open && cycleDetector != null && settled()) {
+                    change(State.PAUSED, State.STOPPED);
+                }
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * Starts a new run
+     */
+    private void beginRun() {
+        pace = scheduler;
+        pace.start(); // Paced and measured from now, not from when the scheduler was made
+        pendingSteps.set(0);
+        if (cycleDetector != null) {
+            cycleDetector.reset(); // The board may have been edited since the last run
+        }
+        open = true;
+    }
+
+    /**
+     * Advances the grid a batch of generations per tick and waits for
+     * the scheduler's next deadline, until the run is paused or stopped
+     */
+    private void runTicks() {
+        pace.resume(); // A resumed run is paced from now but keeps its totals
+        int stepped = 0; // Generations of the last tick, not yet counted by the scheduler
+
+        while (state.get() == State.RUNNING && !restart.get()) {
+
+            stepped = pace.getBatch();
+            if (cycleDetector == null) {
+                stepped = advanceTick(stepped); // Call advanceTick() method
+            } else {
+                // Every generation must be seen to find the period
+                for (int i = 0; i < pace.getBatch(); i++) {
+                    grid.updateGrid(); // Call updateGrid() method in Grid
+                    if (settled()) {
+                        stepped = i + 1;
+                        change(State.RUNNING, State.STOPPED);
+                        break;
+                    }
+                    if (i % CHUNK == CHUNK - 1 && (state.get() != State.RUNNING || restart.get())) {
+                        stepped = i + 1; // Paused or stopped part way through a big batch
+                        break;
+                    }
+                }
+            }
+            Checkpointer checkpoints = checkpointer;
+            if (checkpoints != null) {
+                checkpoints.update(grid); // Checkpoint if one is due
+            }
+            if (state.get() != State.RUNNING) {
+                break; // No need to wait for the next tick
+            }
+            pace.tick(stepped); // Wait until the next tick is due
+            stepped = 0;
+
+        }
+
+        pace.finish(stepped);
+    }
+
+    /**
+     * Advances the grid one tick's generations. A HashLifeEngine takes
+     * them in one memoized jump; other engines are advanced CHUNK
+     * generations at a time, stopping early once the run is paused or
+     * stopped
+     * @param generations, the generations to advance
+     * @return, the generations advanced
+     */
+    private int advanceTick(int generations) {
+        if (generations <= CHUNK || grid.getEngine() instanceof HashLifeEngine) {
+            grid.advanceGrid(generations); // Call advanceGrid() method in Grid
+            return generations;
+        }
+        int advanced = 0;
+        while (advanced < generations) {
+            int chunk = Math.min(CHUNK, generations - advanced);
+            grid.advanceGrid(chunk); // Releases the lock between chunks
+            advanced += chunk;
+            if (state.get() != State.RUNNING || restart.get()) {
+                break; // Paused or stopped part way through the tick
+            }
+        }
+        return advanced;
+    }
+
+    /**
+     * Reports the outcome of a run and keeps the state it stopped at
+     */
+    private void finishRun() {
+        if (cycleDetector != null && cycleDetector.getOutcome() != null) {
+            System.out.println(cycleDetector);
+        }
+        System.out.println(pace); // Achieved against requested rate
+
+        Checkpointer checkpoints = checkpointer;
+        if (checkpoints != null) {
+            checkpoints.checkpoint(grid); // Keep the state the run stopped at
+        }
+        open = false;
+        synchronized (idle) {
+            idle.notifyAll();
+        }
+    }
+
+    /**
+     * Checks whether the board has died out, gone still or started
+     * repeating since the run started
+     * @return true, if the run can stop
+     */
+    private boolean settled() {
+        synchronized (grid.getLock()) {
+            return cycleDetector.update(grid.getEngine());
+        }
+    }
+
+}
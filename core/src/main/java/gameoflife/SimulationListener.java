@@ -0,0 +1,22 @@
+package gameoflife;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Listener notified by a SimulationController whenever its run starts,
+ * pauses, resumes or stops, so a display can update its controls
+ * without polling.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public interface SimulationListener {
+
+    /**
+     * Called after the controller's state changes, on whichever thread
+     * changed it, e.g. the worker when a run stops by itself
+     * @param controller, the controller that changed
+     * @param state, the state it changed to
+     */
+    void stateChanged(SimulationController controller, SimulationController.State state);
+
+}
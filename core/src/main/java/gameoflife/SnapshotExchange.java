@@ -0,0 +1,70 @@
+package gameoflife;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Triple buffer handing GridSnapshots from the thread stepping the
+ * grid to the thread displaying it. The writer fills its back buffer
+ * and publishes it, the reader takes whichever snapshot was published
+ * last, and any snapshot published before the reader gets to it is
+ * simply overwritten. Neither side ever waits for the other and no
+ * snapshots are allocated after the first few.
+ *
+ * Only one thread may write at a time and only one may read.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class SnapshotExchange {
+    private static final int INDEX = 3; // Bits of the state holding the middle buffer's index
+    private static final int FRESH = 4; // Set while the middle buffer holds an unread snapshot
+    private final GridSnapshot[] buffers = { new GridSnapshot(), new GridSnapshot(), new GridSnapshot() };
+    private final AtomicInteger middle = new AtomicInteger(1); // Index of the middle buffer & FRESH flag
+    private int back = 0; // Buffer the writer fills, only touched by the writer
+    private int front = 2; // Buffer the reader displays, only touched by the reader
+    private long dropped; // Snapshots overwritten before being read
+
+    /**
+     * Gets the buffer the writer should fill before calling publish()
+     * @return, the back buffer
+     */
+    public GridSnapshot back() {
+        return buffers[back];
+    }
+
+    /**
+     * Publishes the back buffer as the latest snapshot and takes the
+     * old middle buffer as the new back buffer
+     */
+    public void publish() {
+        int old = middle.getAndSet(back | FRESH);
+        if ((old & FRESH) != 0) {
+            dropped++; // Reader never saw the old snapshot
+        }
+        back = old & INDEX;
+    }
+
+    /**
+     * Takes the latest published snapshot if one has been published
+     * since the last call
+     * @return, the latest snapshot, or null if nothing new was published
+     */
+    public GridSnapshot latest() {
+        if ((middle.get() & FRESH) == 0) {
+            return null;
+        }
+        front = middle.getAndSet(front) & INDEX;
+        return buffers[front];
+    }
+
+    /**
+     * Gets the number of snapshots that were replaced before the
+     * reader took them, read by the writer's thread
+     * @return, the dropped snapshot count
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+}
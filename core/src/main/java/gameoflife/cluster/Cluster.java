@@ -0,0 +1,612 @@
+package gameoflife.cluster;
+
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.PackedEngine;
+import gameoflife.engine.Rule;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Coordinator stepping one board across several StripeWorker processes,
+ * for boards too big for one machine to step fast enough. The board is
+ * split into stripes of whole rows, one per worker, and each worker
+ * steps its stripe on its own PackedEngine. Neighbouring workers
+ * exchange the rows along their shared edge with each other over TCP,
+ * never through the coordinator, which only sends commands and adds up
+ * the populations. With a halo of H rows the workers exchange H rows
+ * once every H generations instead of one row every generation, so the
+ * cost of each round trip is shared by H generations at the price of
+ * stepping H extra rows at each edge.
+ *
+ * Workers are started on the local host with spawn(), one JVM each, or
+ * by hand on any hosts and joined with connect(). Only life-like rules
+ * are run, and cells past the edges of the board are dead.
+ *
+ * Options
+ * --workers N      local worker JVMs to start (default 2)
+ * --connect LIST   host:port of running workers, comma separated, instead of --workers
+ * --board N        side of the square board (default 4096)
+ * --density D      chance of each cell of the starting soup being alive (default 0.25)
+ * --seed N         seed of the soup (default random)
+ * --rule RULE      life-like rule to run (default B3/S23)
+ * --generations N  generations to step (default 1000)
+ * --halo N         rows exchanged at a time, and generations between exchanges (default 8)
+ * --threads N      threads stepping each stripe (default 1)
+ * --verify         step the same soup on one PackedEngine and compare the boards
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class Cluster implements AutoCloseable {
+    public static final int DEFAULT_HALO = 8; // Rows exchanged at a time unless set
+    private static final long SPAWN_SECONDS = 30; // Longest wait for a spawned worker to finish
+    private static final double NANO_TO_SECOND = 1e9; // Nano seconds in one second
+    private final int rows; // Number of rows on the board
+    private final int cols; // Number of columns on the board
+    private final long[] scratch; // One row of packed words
+    private final ByteBuffer buffer = Wire.allocate(Wire.HEADER_SIZE + Integer.BYTES + Wire.CHUNK_SIZE); // Messages to and from the workers
+    private final List<Process> processes = new ArrayList<>(); // Worker JVMs started by spawn()
+    private Rule rule = Rule.CONWAY; // Rule the workers run
+    private int halo = DEFAULT_HALO; // Rows exchanged at a time
+    private int threads = 1; // Threads stepping each stripe
+    private SocketChannel[] workers; // Connection to each worker, top stripe first (null until connected)
+    private int[] firstRows; // First row of each stripe, then the number of rows
+    private long[] stepNanos; // Nanos each worker has spent stepping
+    private long[] exchangeNanos; // Nanos each worker has spent exchanging halo rows
+    private long generation; // Current generation
+    private long population; // Live cells after the last command
+
+    /**
+     * Class constructor
+     * @param rows, the number of rows on the board
+     * @param cols, the number of columns on the board
+     */
+    public Cluster(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Board must have rows and columns: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.scratch = new long[(cols + 63) >>> 6];
+        if (Wire.rowsPerChunk(scratch.length) * scratch.length * Long.BYTES > Wire.CHUNK_SIZE) {
+            throw new IllegalArgumentException("Rows of " + cols + " columns are too wide to send");
+        }
+    }
+
+    /**
+     * Sets the rule the workers run, before they are connected
+     * @param rule, a life-like rule
+     */
+    public void setRule(Rule rule) {
+        if (!rule.isLifeLike()) {
+            throw new IllegalArgumentException("Only life-like rules run on a cluster: " + rule);
+        }
+        checkNotConnected();
+        this.rule = rule;
+    }
+
+    /**
+     * Sets the rows exchanged at a time, and so the generations stepped
+     * between exchanges, before the workers are connected
+     * @param halo, the rows, no more than the rows of each stripe
+     */
+    public void setHalo(int halo) {
+        if (halo < 1) {
+            throw new IllegalArgumentException("Halo must be at least 1 row: " + halo);
+        }
+        checkNotConnected();
+        this.halo = halo;
+    }
+
+    /**
+     * Sets the number of threads each worker steps its stripe with,
+     * before the workers are connected
+     * @param threads, the thread count
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        checkNotConnected();
+        this.threads = threads;
+    }
+
+    /**
+     * Starts worker JVMs on the local host, from the same Java and the
+     * same class or module path as this one, and connects to them
+     * @param count, the number of workers
+     * @throws IOException, if a worker cannot be started or reached
+     */
+    public void spawn(int count) throws IOException {
+        checkNotConnected();
+        checkStripes(count);
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            command.add("--add-modules=jdk.incubator.vector"); // Let the workers use the vector kernel too
+        }
+        String kernel = System.getProperty("gameoflife.kernel");
+        if (kernel != null) {
+            command.add("-Dgameoflife.kernel=" + kernel);
+        }
+        Module module = Cluster.class.getModule();
+        if (module.isNamed()) {
+            command.add("--module-path");
+            command.add(System.getProperty("jdk.module.path"));
+            command.add("--module");
+            command.add(module.getName() + "/" + StripeWorker.class.getName());
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(StripeWorker.class.getName());
+        }
+
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                processes.add(process);
+                BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+                String line = out.readLine();
+                if (line == null || !line.startsWith(StripeWorker.LISTENING)) {
+                    throw new IOException("Worker " + i + " did not start: " + line);
+                }
+                int port = Integer.parseInt(line.substring(StripeWorker.LISTENING.length()).trim());
+                addresses.add(new InetSocketAddress("127.0.0.1", port));
+            }
+            connect(addresses);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Connects to running workers and gives each its stripe, top stripe
+     * first. Every worker must be able to reach the next one at the
+     * address given here
+     * @param addresses, the address of each worker
+     * @throws IOException, if a worker cannot be reached or set up
+     */
+    public void connect(List<InetSocketAddress> addresses) throws IOException {
+        checkNotConnected();
+        int count = addresses.size();
+        checkStripes(count);
+
+        workers = new SocketChannel[count];
+        firstRows = new int[count + 1];
+        stepNanos = new long[count];
+        exchangeNanos = new long[count];
+        for (int i = 0; i <= count; i++) {
+            firstRows[i] = (int) ((long) rows * i / count);
+        }
+
+        try {
+            // Connect to every worker before any of them connects to its neighbour, so each accepts us first
+            for (int i = 0; i < count; i++) {
+                workers[i] = SocketChannel.open(addresses.get(i));
+                workers[i].socket().setTcpNoDelay(true);
+                Wire.writeHeader(workers[i], buffer, Wire.HELLO, -1);
+            }
+            for (int i = 0; i < count; i++) {
+                InetSocketAddress lower = i + 1 < count ? addresses.get(i + 1) : null;
+                buffer.clear().position(Wire.HEADER_SIZE);
+                buffer.putInt(i).putInt(firstRows[i + 1] - firstRows[i]).putInt(cols).putInt(halo).putInt(threads);
+                buffer.put((byte) (i > 0 ? 1 : 0));
+                Wire.putString(buffer, rule.toString());
+                Wire.putString(buffer, lower == null ? "" : lower.getHostString());
+                buffer.putInt(lower == null ? 0 : lower.getPort());
+                buffer.flip();
+                buffer.putInt(0, Wire.SETUP).putLong(Integer.BYTES, buffer.limit() - Wire.HEADER_SIZE);
+                Wire.write(workers[i], buffer);
+            }
+            for (int i = 0; i < count; i++) {
+                awaitDone(i);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        population = 0;
+    }
+
+    /**
+     * Copies a board to the workers, replacing the cells they hold
+     * @param board, the board to copy, the same size as the cluster's
+     * @throws IOException, if a worker cannot be reached
+     */
+    public void load(LifeEngine board) throws IOException {
+        checkBoard(board);
+        int chunk = Wire.rowsPerChunk(scratch.length);
+        for (int i = 0; i < workers.length; i++) {
+            Wire.writeHeader(workers[i], buffer, Wire.CLEAR, 0);
+            int stripeRows = firstRows[i + 1] - firstRows[i];
+            for (int first = 0; first < stripeRows; first += chunk) {
+                int count = Math.min(chunk, stripeRows - first);
+                buffer.clear();
+                buffer.putInt(Wire.ROWS).putLong(first).putInt(count);
+                for (int row = first; row < first + count; row++) {
+                    board.copyRow(firstRows[i] + row, scratch, 0);
+                    for (long word : scratch) {
+                        buffer.putLong(word);
+                    }
+                }
+                buffer.flip();
+                Wire.write(workers[i], buffer);
+            }
+        }
+        generation = board.getGeneration();
+        population = board.getPopulation();
+    }
+
+    /**
+     * Steps the board by a number of generations. Every worker steps its
+     * stripe at the same time, and this returns once they all have
+     * @param generations, the number of generations to step
+     * @throws IOException, if a worker cannot be reached or fails
+     */
+    public void advance(long generations) throws IOException {
+        checkConnected();
+        if (generations < 0) {
+            throw new IllegalArgumentException("Generations must not be negative: " + generations);
+        }
+        for (SocketChannel worker : workers) {
+            Wire.writeHeader(worker, buffer, Wire.ADVANCE, generations);
+        }
+        long total = 0;
+        for (int i = 0; i < workers.length; i++) {
+            total += awaitDone(i);
+        }
+        generation += generations;
+        population = total;
+    }
+
+    /**
+     * Copies the workers' cells back into a board
+     * @param board, receives the cells, the same size as the cluster's
+     * @throws IOException, if a worker cannot be reached or fails
+     */
+    public void gather(LifeEngine board) throws IOException {
+        checkBoard(board);
+        for (int i = 0; i < workers.length; i++) {
+            Wire.writeHeader(workers[i], buffer, Wire.GATHER, 0);
+            Wire.readHeader(workers[i], buffer);
+            while (buffer.getInt(0) == Wire.ROWS) {
+                int first = (int) buffer.getLong(Integer.BYTES);
+                buffer.clear().limit(Integer.BYTES);
+                Wire.read(workers[i], buffer);
+                int count = buffer.getInt();
+                buffer.clear().limit(count * scratch.length * Long.BYTES);
+                Wire.read(workers[i], buffer);
+                for (int row = first; row < first + count; row++) {
+                    for (int w = 0; w < scratch.length; w++) {
+                        scratch[w] = buffer.getLong();
+                    }
+                    board.setRow(firstRows[i] + row, scratch, 0);
+                }
+                Wire.readHeader(workers[i], buffer);
+            }
+            finishDone(i);
+        }
+        board.setGeneration(generation);
+    }
+
+    /**
+     * Reads a worker's reply to a command, which must be DONE
+     * @param worker, the index of the worker
+     * @return, the population of the worker's stripe
+     * @throws IOException, if the worker cannot be reached or has failed
+     */
+    private long awaitDone(int worker) throws IOException {
+        Wire.readHeader(workers[worker], buffer);
+        return finishDone(worker);
+    }
+
+    /**
+     * Reads the rest of a reply whose header has been read
+     * @param worker, the index of the worker
+     * @return, the population of the worker's stripe
+     * @throws IOException, if the worker cannot be reached or has failed
+     */
+    private long finishDone(int worker) throws IOException {
+        int opcode = buffer.getInt(0);
+        long argument = buffer.getLong(Integer.BYTES);
+        if (opcode == Wire.FAILED) {
+            buffer.clear().limit((int) Math.min(argument, buffer.capacity()));
+            Wire.read(workers[worker], buffer);
+            throw new IOException("Worker " + worker + " failed: " + StandardCharsets.UTF_8.decode(buffer));
+        }
+        if (opcode != Wire.DONE) {
+            throw new IOException("Worker " + worker + " sent unexpected message " + opcode);
+        }
+        buffer.clear().limit(Wire.DONE_SIZE);
+        Wire.read(workers[worker], buffer);
+        stepNanos[worker] += buffer.getLong();
+        exchangeNanos[worker] += buffer.getLong();
+        return argument;
+    }
+
+    /**
+     * Checks a board is the cluster's size and the workers are connected
+     * @param board, the board to check
+     */
+    private void checkBoard(LifeEngine board) {
+        checkConnected();
+        if (board.getRows() != rows || board.getCols() != cols) {
+            throw new IllegalArgumentException("Board is " + board.getRows() + "x" + board.getCols()
+                    + ", cluster is " + rows + "x" + cols);
+        }
+    }
+
+    /**
+     * Checks the board can be split into a number of stripes, each at
+     * least as tall as the halo
+     * @param count, the number of stripes
+     */
+    private void checkStripes(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("A cluster needs at least one worker");
+        }
+        if (count > 1 && rows / count < halo) {
+            throw new IllegalArgumentException(count + " stripes of " + rows + " rows are thinner than the halo of " + halo);
+        }
+    }
+
+    /**
+     * Checks the workers are connected
+     */
+    private void checkConnected() {
+        if (workers == null) {
+            throw new IllegalStateException("Cluster has no workers");
+        }
+    }
+
+    /**
+     * Checks the workers are not yet connected
+     */
+    private void checkNotConnected() {
+        if (workers != null) {
+            throw new IllegalStateException("Cluster already has workers");
+        }
+    }
+
+    /**
+     * Gets the number of workers
+     * @return, the worker count, 0 before they are connected
+     */
+    public int getWorkerCount() {
+        return workers == null ? 0 : workers.length;
+    }
+
+    /**
+     * Gets the first row of a worker's stripe
+     * @param worker, the index of the worker
+     * @return, the row
+     */
+    public int getFirstRow(int worker) {
+        return firstRows[worker];
+    }
+
+    /**
+     * Gets the nanos a worker has spent stepping its stripe
+     * @param worker, the index of the worker
+     * @return, the nanos
+     */
+    public long getStepNanos(int worker) {
+        return stepNanos[worker];
+    }
+
+    /**
+     * Gets the nanos a worker has spent exchanging halo rows, including
+     * waiting for slower neighbours
+     * @param worker, the index of the worker
+     * @return, the nanos
+     */
+    public long getExchangeNanos(int worker) {
+        return exchangeNanos[worker];
+    }
+
+    /**
+     * Gets the number of live cells after the last command
+     * @return, the population
+     */
+    public long getPopulation() {
+        return population;
+    }
+
+    /**
+     * Gets the current generation
+     * @return, the generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Tells every worker to finish, closes the connections and waits for
+     * any workers this cluster started to exit
+     */
+    public void close() {
+        for (int i = 0; i < processes.size() || (workers != null && i < workers.length); i++) {
+            boolean told = false; // True once the worker has been told to finish
+            if (workers != null && i < workers.length && workers[i] != null) {
+                try (SocketChannel closing = workers[i]) {
+                    Wire.writeHeader(closing, buffer, Wire.SHUTDOWN, 0);
+                    told = true;
+                } catch (IOException e) {
+                    // The worker has already gone
+                }
+            }
+            if (i < processes.size()) {
+                finish(processes.get(i), told);
+            }
+        }
+        processes.clear();
+        workers = null;
+    }
+
+    /**
+     * Waits for a spawned worker to exit, or ends it
+     * @param process, the worker's JVM
+     * @param told, true if the worker was told to finish
+     */
+    private static void finish(Process process, boolean told) {
+        try {
+            if (!told || !process.waitFor(SPAWN_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly(); // Never connected, or stuck
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int workerCount = 2; // Local workers to start
+        List<InetSocketAddress> addresses = null; // Running workers, null to start local ones
+        int boardSize = 4096; // Side of the board
+        double density = 0.25; // Chance of each cell being alive
+        long seed = new SplittableRandom().nextLong(); // Seed of the soup
+        Rule rule = Rule.CONWAY; // Rule to run
+        long generations = 1000; // Generations to step
+        int halo = DEFAULT_HALO; // Rows exchanged at a time
+        int threads = 1; // Threads per worker
+        boolean verify = false; // True to compare with one PackedEngine
+        boolean matches = true; // False if the verified boards differ
+
+        // Read the command line options
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--workers":
+                    workerCount = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--connect":
+                    addresses = new ArrayList<>();
+                    for (String worker : value(args, ++i).split(",")) {
+                        int colon = worker.lastIndexOf(':');
+                        if (colon < 0) {
+                            throw new IllegalArgumentException("Expected host:port, found " + worker);
+                        }
+                        addresses.add(new InetSocketAddress(worker.substring(0, colon),
+                                Integer.parseInt(worker.substring(colon + 1))));
+                    }
+                    break;
+                case "--board":
+                    boardSize = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--density":
+                    density = Double.parseDouble(value(args, ++i));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value(args, ++i));
+                    break;
+                case "--rule":
+                    rule = Rule.parse(value(args, ++i));
+                    break;
+                case "--generations":
+                    generations = Long.parseLong(value(args, ++i));
+                    break;
+                case "--halo":
+                    halo = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--verify":
+                    verify = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        // Fill the starting soup
+        PackedEngine board = new PackedEngine(boardSize, boardSize);
+        board.setRule(rule);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int row = 0; row < boardSize; row++) {
+            for (int col = 0; col < boardSize; col++) {
+                if (random.nextDouble() < density) {
+                    board.setCell(row, col, true);
+                }
+            }
+        }
+
+        try (Cluster cluster = new Cluster(boardSize, boardSize)) {
+            cluster.setRule(rule);
+            cluster.setHalo(halo);
+            cluster.setThreads(threads);
+            if (addresses == null) {
+                cluster.spawn(workerCount);
+            } else {
+                cluster.connect(addresses);
+            }
+            System.err.println("Stepping a " + boardSize + "x" + boardSize + " soup of " + rule + " from seed " + seed
+                    + " on " + cluster.getWorkerCount() + " workers, halo " + halo);
+            cluster.load(board);
+
+            long start = System.nanoTime();
+            cluster.advance(generations);
+            double seconds = (System.nanoTime() - start) / NANO_TO_SECOND;
+            System.err.printf("%d generations in %.2f s: %.1f gen/s, %.3g cells/s, population %d%n", generations,
+                    seconds, generations / seconds, generations * (double) boardSize * boardSize / seconds,
+                    cluster.getPopulation());
+            for (int i = 0; i < cluster.getWorkerCount(); i++) {
+                double busy = cluster.getStepNanos(i) + cluster.getExchangeNanos(i);
+                System.err.printf("Worker %d: rows %d to %d, %.0f%% stepping, %.0f%% exchanging halos%n", i,
+                        cluster.getFirstRow(i), (i + 1 < cluster.getWorkerCount() ? cluster.getFirstRow(i + 1) : boardSize) - 1,
+                        100 * cluster.getStepNanos(i) / busy, 100 * cluster.getExchangeNanos(i) / busy);
+            }
+
+            if (verify) {
+                PackedEngine gathered = new PackedEngine(boardSize, boardSize);
+                cluster.gather(gathered);
+                board.advance(generations);
+                long[] expected = new long[board.getWordsPerRow()];
+                long[] found = new long[board.getWordsPerRow()];
+                for (int row = 0; row < boardSize; row++) {
+                    board.copyRow(row, expected, 0);
+                    gathered.copyRow(row, found, 0);
+                    if (!Arrays.equals(expected, found)) {
+                        System.err.println("Differs from one PackedEngine at row " + row);
+                        matches = false;
+                        break;
+                    }
+                }
+                if (matches) {
+                    System.err.println("Matches one PackedEngine, population " + board.getPopulation());
+                }
+            }
+        }
+        if (!matches) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Gets the value following an option
+     * @param args, the command line arguments
+     * @param i, the index of the value
+     * @return, the value
+     */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+}
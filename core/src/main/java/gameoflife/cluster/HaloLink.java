@@ -0,0 +1,129 @@
+package gameoflife.cluster;
+
+import gameoflife.engine.PackedEngine;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Connection from a StripeWorker to the worker of the stripe above or
+ * below it. Before each batch of generations the worker packs its rows
+ * nearest the neighbour into the link's outgoing buffer, then writes
+ * and reads every link as the channels allow, so neither neighbour
+ * waits for the other to finish sending, and finally unpacks the rows
+ * received into its halo rows. Both buffers are allocated once, for the
+ * widest halo.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+final class HaloLink implements Closeable {
+    private final SocketChannel channel; // Non-blocking channel to the neighbour
+    private final int wordsPerRow; // Longs holding each row
+    private final ByteBuffer out; // Rows still to be sent this batch
+    private final ByteBuffer in; // Rows received so far this batch
+
+    /**
+     * Class constructor
+     * @param channel, the connected channel to the neighbour
+     * @param halo, the most rows exchanged at a time
+     * @param wordsPerRow, the longs holding each row
+     * @throws IOException, if the channel cannot be made non-blocking
+     */
+    HaloLink(SocketChannel channel, int halo, int wordsPerRow) throws IOException {
+        this.channel = channel;
+        this.wordsPerRow = wordsPerRow;
+        this.out = Wire.allocate(halo * wordsPerRow * Long.BYTES);
+        this.in = Wire.allocate(halo * wordsPerRow * Long.BYTES);
+        channel.socket().setTcpNoDelay(true); // Halos are sent whole, so don't wait to fill packets
+        channel.configureBlocking(false);
+    }
+
+    /**
+     * Gets the channel, to register with a Selector
+     * @return, the channel
+     */
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Packs rows of the engine to be sent, and readies the link to
+     * receive the same number of rows
+     * @param engine, the worker's engine
+     * @param firstRow, the first row to send
+     * @param count, the rows to send and receive
+     * @param scratch, space for one row
+     */
+    void prepare(PackedEngine engine, int firstRow, int count, long[] scratch) {
+        out.clear();
+        for (int row = firstRow; row < firstRow + count; row++) {
+            engine.copyRow(row, scratch, 0);
+            for (int i = 0; i < wordsPerRow; i++) {
+                out.putLong(scratch[i]);
+            }
+        }
+        out.flip();
+        in.clear().limit(count * wordsPerRow * Long.BYTES);
+    }
+
+    /**
+     * Writes as much of the outgoing rows as the channel takes
+     * @return true, once every row has been sent
+     * @throws IOException, if the channel cannot be written
+     */
+    boolean write() throws IOException {
+        channel.write(out);
+        return !out.hasRemaining();
+    }
+
+    /**
+     * Reads as much of the incoming rows as the channel has
+     * @return true, once every row has been received
+     * @throws IOException, if the channel cannot be read or the neighbour has gone
+     */
+    boolean read() throws IOException {
+        if (channel.read(in) == -1) {
+            throw new EOFException("Neighbouring worker closed the halo connection");
+        }
+        return !in.hasRemaining();
+    }
+
+    /**
+     * Returns true once the rows have been both sent and received
+     * @return true, if the exchange has finished
+     */
+    boolean isComplete() {
+        return !out.hasRemaining() && !in.hasRemaining();
+    }
+
+    /**
+     * Unpacks the rows received into the engine
+     * @param engine, the worker's engine
+     * @param firstRow, the row receiving the first row
+     * @param scratch, space for one row
+     */
+    void receive(PackedEngine engine, int firstRow, long[] scratch) {
+        in.flip();
+        int count = in.remaining() / (wordsPerRow * Long.BYTES);
+        for (int row = firstRow; row < firstRow + count; row++) {
+            for (int i = 0; i < wordsPerRow; i++) {
+                scratch[i] = in.getLong();
+            }
+            engine.setRow(row, scratch, 0);
+        }
+    }
+
+    /**
+     * Closes the connection
+     * @throws IOException, if the channel cannot be closed
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,414 @@
+package gameoflife.cluster;
+
+import gameoflife.engine.PackedEngine;
+import gameoflife.engine.Rule;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * One process of a Cluster, stepping a stripe of whole rows of the
+ * board on its own PackedEngine. Above and below the stripe the engine
+ * keeps halo rows copied from the neighbouring stripes. Before each
+ * batch of up to halo generations, the worker sends the rows nearest
+ * each neighbour straight to that neighbour's worker and receives
+ * theirs. Errors spread by at most one row a generation, so the rows
+ * of the halo beyond those refreshed, and the dead rows past them, can
+ * only spoil the halo itself by the end of the batch, and the stripe
+ * steps exactly as it would on one board. The first and last stripes
+ * have no halo past the board's edges, where every cell is dead.
+ *
+ * A worker listens on a port, serves one Cluster and then finishes.
+ * Cluster.spawn() starts workers on the local host itself; on other
+ * hosts start them by hand, e.g.
+ * java -cp gameoflife-core.jar gameoflife.cluster.StripeWorker --port 7001 --host 0.0.0.0
+ *
+ * Options
+ * --port N    port to listen on, 0 for any free port (default 0)
+ * --host H    address to listen on (default 127.0.0.1)
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class StripeWorker {
+    public static final String LISTENING = "StripeWorker listening on port "; // Start of the line printed once listening
+    private final ServerSocketChannel server; // Accepts the coordinator and the neighbour above
+    private final ByteBuffer buffer = Wire.allocate(Wire.HEADER_SIZE + Integer.BYTES + Wire.CHUNK_SIZE); // Messages to and from the coordinator
+    private SocketChannel control; // Connection to the coordinator
+    private PackedEngine engine; // Halo rows above, the stripe, then halo rows below
+    private int index; // Position of the stripe, 0 at the top of the board
+    private int stripeRows; // Rows of the stripe
+    private int halo; // Most generations stepped between exchanges
+    private int haloAbove; // Halo rows above the stripe, 0 for the first stripe
+    private HaloLink upper; // Link to the stripe above (null for the first stripe)
+    private HaloLink lower; // Link to the stripe below (null for the last stripe)
+    private Selector selector; // Waits on both links during an exchange
+    private long[] scratch; // One row of packed words
+
+    /**
+     * Class constructor, listening straight away
+     * @param address, the address and port to listen on, port 0 for any
+     * @throws IOException, if the address cannot be bound
+     */
+    public StripeWorker(InetSocketAddress address) throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(address);
+    }
+
+    /**
+     * Gets the port the worker is listening on
+     * @return, the port
+     * @throws IOException, if the listening address cannot be read
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Serves one Cluster from its first message to SHUTDOWN, then
+     * closes every connection
+     * @throws IOException, if the coordinator or a neighbour cannot be reached
+     */
+    public void run() throws IOException {
+        try {
+            control = server.accept();
+            control.socket().setTcpNoDelay(true);
+            Wire.readHeader(control, buffer);
+            if (buffer.getInt() != Wire.HELLO || buffer.getLong() != -1) {
+                throw new IOException("First connection was not from a coordinator");
+            }
+
+            while (serve()) {
+                // Serve the next message
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Reads and carries out one message from the coordinator. A message
+     * that cannot be carried out is answered with FAILED and ends the run
+     * @return true, if there may be more messages
+     * @throws IOException, if the coordinator or a neighbour cannot be reached
+     */
+    private boolean serve() throws IOException {
+        Wire.readHeader(control, buffer);
+        int opcode = buffer.getInt();
+        long argument = buffer.getLong();
+        try {
+            switch (opcode) {
+                case Wire.SETUP:
+                    setup((int) argument);
+                    reply(0, 0);
+                    return true;
+                case Wire.CLEAR:
+                    engine.clear();
+                    return true;
+                case Wire.ROWS:
+                    receiveRows((int) argument);
+                    return true;
+                case Wire.ADVANCE:
+                    advance(argument);
+                    return true;
+                case Wire.GATHER:
+                    sendRows();
+                    reply(0, 0);
+                    return true;
+                case Wire.SHUTDOWN:
+                    return false;
+                default:
+                    throw new IllegalStateException("Unknown message " + opcode);
+            }
+        } catch (RuntimeException e) {
+            fail(String.valueOf(e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * Reads the stripe, rule and neighbours, creates the engine and
+     * connects to the neighbours
+     * @param length, the bytes of the message after its header
+     * @throws IOException, if a neighbour cannot be reached
+     */
+    private void setup(int length) throws IOException {
+        if (engine != null) {
+            throw new IllegalStateException("Worker has already been set up");
+        }
+        buffer.clear().limit(length);
+        Wire.read(control, buffer);
+
+        index = buffer.getInt();
+        stripeRows = buffer.getInt();
+        int cols = buffer.getInt();
+        halo = buffer.getInt();
+        int threads = buffer.getInt();
+        boolean hasUpper = buffer.get() != 0;
+        Rule rule = Rule.parse(Wire.getString(buffer));
+        String lowerHost = Wire.getString(buffer);
+        int lowerPort = buffer.getInt();
+
+        haloAbove = hasUpper ? halo : 0;
+        int haloBelow = lowerPort != 0 ? halo : 0;
+        engine = new PackedEngine(haloAbove + stripeRows + haloBelow, cols, threads);
+        engine.setRule(rule);
+        scratch = new long[engine.getWordsPerRow()];
+        selector = Selector.open();
+
+        // Connect down first: the worker below is already listening, and its accept takes the connection later
+        if (lowerPort != 0) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(lowerHost, lowerPort));
+            Wire.writeHeader(channel, Wire.allocate(Wire.HEADER_SIZE), Wire.HELLO, index);
+            lower = new HaloLink(channel, halo, scratch.length);
+            lower.getChannel().register(selector, 0, lower);
+        }
+        if (hasUpper) {
+            SocketChannel channel = server.accept();
+            ByteBuffer hello = Wire.allocate(Wire.HEADER_SIZE);
+            Wire.readHeader(channel, hello);
+            if (hello.getInt() != Wire.HELLO || hello.getLong() != index - 1) {
+                channel.close();
+                throw new IOException("Worker " + index + " expected the worker above to connect");
+            }
+            upper = new HaloLink(channel, halo, scratch.length);
+            upper.getChannel().register(selector, 0, upper);
+        }
+    }
+
+    /**
+     * Steps the stripe, exchanging halo rows with the neighbours before
+     * each batch, and replies with the stripe's population and the time
+     * spent stepping and exchanging
+     * @param generations, the number of generations to step
+     * @throws IOException, if a neighbour cannot be reached
+     */
+    private void advance(long generations) throws IOException {
+        long stepNanos = 0;
+        long exchangeNanos = 0;
+        boolean alone = upper == null && lower == null;
+        for (long left = generations; left > 0; ) {
+            int batch = (int) Math.min(left, alone ? Integer.MAX_VALUE : halo);
+            long start = System.nanoTime();
+            exchange(batch);
+            long exchanged = System.nanoTime();
+            engine.advance(batch);
+            stepNanos += System.nanoTime() - exchanged;
+            exchangeNanos += exchanged - start;
+            left -= batch;
+        }
+        reply(stepNanos, exchangeNanos);
+    }
+
+    /**
+     * Sends the rows nearest each neighbour and receives theirs into the
+     * halo rows next to the stripe, writing and reading both links as
+     * their channels allow
+     * @param rows, the rows exchanged with each neighbour
+     * @throws IOException, if a neighbour cannot be reached
+     */
+    private void exchange(int rows) throws IOException {
+        if (upper == null && lower == null) {
+            return;
+        }
+        if (upper != null) {
+            upper.prepare(engine, haloAbove, rows, scratch);
+            upper.getChannel().keyFor(selector).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+        if (lower != null) {
+            lower.prepare(engine, haloAbove + stripeRows - rows, rows, scratch);
+            lower.getChannel().keyFor(selector).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+
+        while (!((upper == null || upper.isComplete()) && (lower == null || lower.isComplete()))) {
+            selector.select();
+            for (SelectionKey key : selector.selectedKeys()) {
+                HaloLink link = (HaloLink) key.attachment();
+                if (key.isWritable() && link.write()) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                }
+                if (key.isReadable() && link.read()) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                }
+            }
+            selector.selectedKeys().clear();
+        }
+
+        if (upper != null) {
+            upper.receive(engine, haloAbove - rows, scratch);
+        }
+        if (lower != null) {
+            lower.receive(engine, haloAbove + stripeRows, scratch);
+        }
+    }
+
+    /**
+     * Reads rows of the stripe sent by the coordinator into the engine
+     * @param first, the row of the stripe receiving the first row
+     * @throws IOException, if the coordinator cannot be reached
+     */
+    private void receiveRows(int first) throws IOException {
+        buffer.clear().limit(Integer.BYTES);
+        Wire.read(control, buffer);
+        int count = buffer.getInt();
+        if (first < 0 || count < 0 || first + count > stripeRows || count > Wire.rowsPerChunk(scratch.length)) {
+            throw new IllegalArgumentException("Rows " + first + " to " + (first + count) + " outside stripe of " + stripeRows);
+        }
+        buffer.clear().limit(count * scratch.length * Long.BYTES);
+        Wire.read(control, buffer);
+        for (int row = first; row < first + count; row++) {
+            for (int i = 0; i < scratch.length; i++) {
+                scratch[i] = buffer.getLong();
+            }
+            engine.setRow(haloAbove + row, scratch, 0);
+        }
+    }
+
+    /**
+     * Sends every row of the stripe to the coordinator
+     * @throws IOException, if the coordinator cannot be reached
+     */
+    private void sendRows() throws IOException {
+        int chunk = Wire.rowsPerChunk(scratch.length);
+        for (int first = 0; first < stripeRows; first += chunk) {
+            int count = Math.min(chunk, stripeRows - first);
+            buffer.clear();
+            buffer.putInt(Wire.ROWS).putLong(first).putInt(count);
+            for (int row = first; row < first + count; row++) {
+                engine.copyRow(haloAbove + row, scratch, 0);
+                for (long word : scratch) {
+                    buffer.putLong(word);
+                }
+            }
+            buffer.flip();
+            Wire.write(control, buffer);
+        }
+    }
+
+    /**
+     * Replies DONE with the stripe's population
+     * @param stepNanos, the nanos spent stepping
+     * @param exchangeNanos, the nanos spent exchanging halo rows
+     * @throws IOException, if the coordinator cannot be reached
+     */
+    private void reply(long stepNanos, long exchangeNanos) throws IOException {
+        long population = 0;
+        if (engine != null) {
+            // The halo rows hold copies of the neighbours' cells, so only count the stripe
+            population = engine.getPopulation() - countRows(0, haloAbove)
+                    - countRows(haloAbove + stripeRows, engine.getRows());
+        }
+        buffer.clear();
+        buffer.putInt(Wire.DONE).putLong(population).putLong(stepNanos).putLong(exchangeNanos).flip();
+        Wire.write(control, buffer);
+    }
+
+    /**
+     * Counts the live cells on rows of the engine
+     * @param from, the first row
+     * @param to, the row after the last row
+     * @return, the live cells
+     */
+    private long countRows(int from, int to) {
+        long count = 0;
+        for (int row = from; row < to; row++) {
+            engine.copyRow(row, scratch, 0);
+            for (long word : scratch) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Replies FAILED with the reason, cut short if it does not fit the buffer
+     * @param message, the reason
+     * @throws IOException, if the coordinator cannot be reached
+     */
+    private void fail(String message) throws IOException {
+        ByteBuffer text = StandardCharsets.UTF_8.encode(message);
+        buffer.clear();
+        buffer.putInt(Wire.FAILED);
+        int room = buffer.remaining() - Long.BYTES; // Bytes left for the text after its length
+        if (text.remaining() > room) {
+            int end = text.position() + room;
+            while (end > text.position() && (text.get(end) & 0xC0) == 0x80) {
+                end--; // Don't split a character
+            }
+            text.limit(end);
+        }
+        buffer.putLong(text.remaining()).put(text).flip();
+        Wire.write(control, buffer);
+    }
+
+    /**
+     * Closes every connection and stops listening
+     * @throws IOException, if a connection cannot be closed
+     */
+    private void close() throws IOException {
+        IOException failure = null; // First failure, later ones are added to it
+        for (Closeable resource : new Closeable[] {selector, lower, upper, control, server}) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close(); // Close them all, even if one fails
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 0; // Port to listen on, 0 for any
+        String host = "127.0.0.1"; // Address to listen on
+
+        // Read the command line options
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--host":
+                    host = value(args, ++i);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        StripeWorker worker = new StripeWorker(new InetSocketAddress(host, port));
+        System.out.println(LISTENING + worker.getPort()); // Cluster.spawn() reads the port from this line
+        System.out.flush();
+        worker.run();
+    }
+
+    /**
+     * Gets the value following an option
+     * @param args, the command line arguments
+     * @param i, the index of the value
+     * @return, the value
+     */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+}
@@ -0,0 +1,133 @@
+package gameoflife.cluster;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Messages passed between a Cluster and its StripeWorkers. Every
+ * message starts with a header of an int opcode and a long argument,
+ * and some are followed by a body. Rows travel as packed words, 64
+ * cells to a long as in PackedEngine, little endian whatever the host.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+final class Wire {
+    static final int HELLO = 0x474F4C43; // "CLOG" read as a little endian int, sent first by every connection
+    static final int SETUP = 1; // Coordinator to worker: the stripe, rule and neighbours
+    static final int CLEAR = 2; // Coordinator to worker: kill every cell of the stripe
+    static final int ROWS = 3; // Either way: rows of the stripe, argument is the first row
+    static final int ADVANCE = 4; // Coordinator to worker: step the argument's generations
+    static final int GATHER = 5; // Coordinator to worker: send every row back
+    static final int SHUTDOWN = 6; // Coordinator to worker: finish
+    static final int DONE = 7; // Worker to coordinator: argument is the stripe's population
+    static final int FAILED = 8; // Worker to coordinator: argument is the length of the message
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES; // Bytes of each header
+    static final int DONE_SIZE = 2 * Long.BYTES; // Bytes after a DONE header, the nanos stepping and exchanging
+    static final int CHUNK_SIZE = 1 << 20; // Most bytes of rows sent in one ROWS message
+
+    /**
+     * Prevents instantiation of the utility class
+     */
+    private Wire() {
+    }
+
+    /**
+     * Allocates a direct buffer in the byte order of the wire
+     * @param capacity, the bytes it holds
+     * @return, the buffer
+     */
+    static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Writes the whole of a buffer, from its position to its limit
+     * @param channel, the blocking channel to write
+     * @param buffer, the bytes to write
+     * @throws IOException, if the channel cannot be written
+     */
+    static void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Fills a buffer from its position to its limit
+     * @param channel, the blocking channel to read
+     * @param buffer, receives the bytes, flipped ready to get from
+     * @throws IOException, if the channel cannot be read or closes first
+     */
+    static void read(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                throw new EOFException("Connection closed in the middle of a message");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Writes a header with no body
+     * @param channel, the blocking channel to write
+     * @param buffer, scratch space of at least HEADER_SIZE bytes
+     * @param opcode, the kind of message
+     * @param argument, the message's argument
+     * @throws IOException, if the channel cannot be written
+     */
+    static void writeHeader(WritableByteChannel channel, ByteBuffer buffer, int opcode, long argument)
+            throws IOException {
+        buffer.clear();
+        buffer.putInt(opcode).putLong(argument).flip();
+        write(channel, buffer);
+    }
+
+    /**
+     * Reads a header, leaving the opcode and argument in the buffer
+     * @param channel, the blocking channel to read
+     * @param buffer, receives the header, at least HEADER_SIZE bytes
+     * @throws IOException, if the channel cannot be read or closes first
+     */
+    static void readHeader(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear().limit(HEADER_SIZE);
+        read(channel, buffer);
+    }
+
+    /**
+     * Adds a string to a buffer, as its length in bytes and its UTF-8 bytes
+     * @param buffer, the buffer to add to
+     * @param text, the string
+     */
+    static void putString(ByteBuffer buffer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    /**
+     * Gets a string added by putString()
+     * @param buffer, the buffer to get from
+     * @return, the string
+     */
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the number of rows sent in each ROWS message
+     * @param wordsPerRow, the longs holding each row
+     * @return, the rows that fit in CHUNK_SIZE, at least 1
+     */
+    static int rowsPerChunk(int wordsPerRow) {
+        return Math.max(1, CHUNK_SIZE / (wordsPerRow * Long.BYTES));
+    }
+
+}
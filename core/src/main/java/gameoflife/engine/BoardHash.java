@@ -0,0 +1,125 @@
+package gameoflife.engine;
+
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Zobrist style 64-bit hash of a board. Every packed word of the board
+ * contributes a pseudo random value picked by its position and its
+ * bits, and the board's hash is all of them XORed together. A word
+ * that changes is taken out of the hash and put back in with two
+ * XORs, so an engine can keep the hash up to date for the cost of the
+ * words that changed. Empty words contribute nothing, so the empty
+ * board hashes to 0 whatever its size.
+ *
+ * Positions are rows and word columns rather than buffer indexes, so
+ * every engine hashes the same board to the same value. Each position's
+ * key is mixed before the word's bits are XORed in, so no two positions
+ * can give the same value for different words by adding up alike.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class BoardHash {
+    private static final long WEYL = 0x9E3779B97F4A7C15L; // Odd step between the keys of a row's words
+
+    /**
+     * Prevents instantiation of the utility class
+     */
+    private BoardHash() {
+    }
+
+    /**
+     * Gets the key of a row, mixed once and shared by its words
+     * @param row, the row
+     * @return, the row's key
+     */
+    public static long rowKey(int row) {
+        return mix(row);
+    }
+
+    /**
+     * Gets the key of one word position. Keys along a row are a Weyl
+     * sequence, so a loop along a row costs an add per word
+     * @param rowKey, the key of the word's row
+     * @param index, the index of the word within its row (column / 64)
+     * @return, the position's key
+     */
+    public static long key(long rowKey, int index) {
+        return rowKey + index * WEYL;
+    }
+
+    /**
+     * Gets the contribution of one packed word to the board's hash
+     * @param key, the key of the word's position
+     * @param word, the bits of the word
+     * @return, the value XORed into the hash, 0 for an empty word
+     */
+    public static long word(long key, long word) {
+        return word == 0 ? 0L : mix(mix(key) ^ word);
+    }
+
+    /**
+     * Gets the change in the board's hash when a word is replaced
+     * @param key, the key of the word's position
+     * @param before, the bits of the word before the change
+     * @param after, the bits of the word after the change
+     * @return, the value to XOR into the hash, 0 if the word is unchanged
+     */
+    public static long change(long key, long before, long after) {
+        return word(key, before) ^ word(key, after);
+    }
+
+    /**
+     * Hashes a whole board by reading every row of an engine
+     * @param engine, the engine to hash
+     * @return, the board's hash
+     */
+    public static long of(LifeEngine engine) {
+        long[] row = new long[(engine.getCols() + 63) >>> 6];
+        long hash = 0L;
+        for (int r = 0; r < engine.getRows(); r++) {
+            engine.copyRow(r, row, 0);
+            long rowKey = rowKey(r);
+            for (int i = 0; i < row.length; i++) {
+                hash ^= word(key(rowKey, i), row[i]);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes a board given by the positions of its live cells, e.g. an
+     * unbounded plane. The cells are gathered into the same words as a
+     * packed board, so the hash is the one BoardHash.of gives that board
+     * @param cells, the live cells, row in the high 32 bits and column in the low 32 bits, sorted in place
+     * @param count, the number of cells in the array
+     * @return, the board's hash
+     */
+    public static long ofCells(long[] cells, int count) {
+        Arrays.sort(cells, 0, count); // The cells of each word are now together
+        long hash = 0L;
+        for (int i = 0; i < count; ) {
+            int row = (int) (cells[i] >> 32);
+            int index = (int) cells[i] >> 6; // Negative columns round down to their own words
+            long word = 0L;
+            for (; i < count && (int) (cells[i] >> 32) == row && ((int) cells[i] >> 6) == index; i++) {
+                word |= 1L << cells[i]; // Bit (column & 63)
+            }
+            hash ^= word(key(rowKey(row), index), word);
+        }
+        return hash;
+    }
+
+    /**
+     * Scrambles the bits of a long (the SplitMix64 finaliser)
+     * @param z, the value to scramble
+     * @return, the scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
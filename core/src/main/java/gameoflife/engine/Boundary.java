@@ -0,0 +1,46 @@
+package gameoflife.engine;
+
+import java.util.Locale;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * What lies past the edges of a bounded board. Engines with bounded
+ * boards copy the wrapped rows into halo rows around the board before
+ * each step and treat the first and last words of a row apart, so the
+ * loop over the inside of the board never checks where it is.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public enum Boundary {
+    DEAD, // Cells past the edges are always dead
+    TORUS, // Each edge joins the opposite edge
+    KLEIN_BOTTLE; // Left and right edges join as on a torus, top and bottom join mirrored left to right
+
+    /**
+     * Parses a boundary by name, "dead", "torus", or "klein" or "klein-bottle"
+     * @param name, the name, case is ignored
+     * @return, the boundary
+     * @throws IllegalArgumentException, if the name is not a boundary
+     */
+    public static Boundary parse(String name) {
+        String text = name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+        if (text.equals("KLEIN")) {
+            return KLEIN_BOTTLE;
+        }
+        try {
+            return valueOf(text);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown boundary " + name + ", expected dead, torus or klein");
+        }
+    }
+
+    /**
+     * Returns true if cells past the edges wrap round to the board
+     * @return true, unless the boundary is DEAD
+     */
+    public boolean wraps() {
+        return this != DEAD;
+    }
+
+}
@@ -0,0 +1,21 @@
+package gameoflife.engine;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Visitor given the position of every live cell of a board, e.g. to
+ * copy the cells of an unbounded plane into another engine.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+@FunctionalInterface
+public interface CellVisitor {
+
+    /**
+     * Called once for each live cell
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     */
+    void visit(int row, int col);
+
+}
@@ -0,0 +1,50 @@
+package gameoflife.engine;
+
+import java.util.Locale;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * The engines a Grid can be asked to run life-like rules on. Rules and
+ * boundaries an engine cannot apply still switch the grid to an engine
+ * that can, whatever type was asked for.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public enum EngineType {
+    PACKED, // Bit-packed bounded board, the default
+    SPARSE, // Hash set of the live cells of an unbounded plane
+    HASHLIFE; // Quadtree on an unbounded plane, jumping 2^k generations at a time
+
+    /**
+     * Parses an engine type by name, "packed", "sparse" or "hashlife"
+     * @param name, the name, case is ignored
+     * @return, the engine type
+     * @throws IllegalArgumentException, if the name is not an engine type
+     */
+    public static EngineType parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown engine " + name + ", expected packed, sparse or hashlife");
+        }
+    }
+
+    /**
+     * Creates an empty engine of this type
+     * @param rows, the rows of the board, or of the region displayed of an unbounded plane
+     * @param cols, the columns of the board, or of the region displayed of an unbounded plane
+     * @return, the engine
+     */
+    public LifeEngine create(int rows, int cols) {
+        switch (this) {
+            case SPARSE:
+                return new SparseEngine(rows, cols);
+            case HASHLIFE:
+                return new HashLifeEngine(rows, cols);
+            default:
+                return new PackedEngine(rows, cols);
+        }
+    }
+
+}
@@ -0,0 +1,722 @@
+package gameoflife.engine;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Hashlife rule engine. The board is a quadtree of canonical nodes held
+ * in a hash-consed node cache, so identical regions of the board share
+ * one node. The result of advancing each node is memoized, which lets
+ * large, repetitive or periodic patterns jump 2^k generations at a time.
+ *
+ * Unlike PackedEngine the universe is an unbounded plane. The rows and
+ * columns only describe the region a Grid displays; cells can be read
+ * and written at any position. When the node cache grows past its cap,
+ * nodes that are no longer reachable from the board are discarded
+ * between steps. Any life-like Rule without B0 can be applied.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class HashLifeEngine implements LifeEngine {
+    private static final int DEFAULT_MAX_NODES = 1 << 22; // Default cap on the node cache
+    private static final int MIN_LEVEL = 3; // Smallest root kept (8x8 cells)
+    private final Node dead = new Node(); // Level 0 dead cell
+    private final Node alive = new Node(); // Level 0 live cell
+    private final int rows; // Rows of the displayed region
+    private final int cols; // Columns of the displayed region
+    private final int maxNodes; // Node count that triggers a collection
+    private Node[] table = new Node[1 << 16]; // Open addressed table of canonical nodes
+    private int nodeCount; // Number of nodes in the table
+    private Node[] emptyNodes = new Node[64]; // Canonical empty node of each level
+    private Node root; // Root of the board's quadtree
+    private long originRow; // Row of the root's top left cell
+    private long originCol; // Column of the root's top left cell
+    private long generation; // Current generation
+    private Rule rule = Rule.CONWAY; // Rule applied at each step
+    private int[] baseResults = createBaseResults(Rule.CONWAY); // Next 2x2 centre of every 4x4 block
+    private long[] cells = new long[0]; // Scratch list of the live cells for hashing
+
+    /**
+     * Class constructor that creates an empty universe displayed in a
+     * region of the parsed size
+     * @param rows, the number of rows displayed
+     * @param cols, the number of columns displayed
+     */
+    public HashLifeEngine(int rows, int cols) {
+        this(rows, cols, DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * Class constructor that creates an empty universe displayed in a
+     * region of the parsed size, with a cap on the node cache
+     * @param rows, the number of rows displayed
+     * @param cols, the number of columns displayed
+     * @param maxNodes, the node count at which unreachable nodes are discarded
+     */
+    public HashLifeEngine(int rows, int cols, int maxNodes) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Board size must be positive: " + rows + "x" + cols);
+        }
+        if (maxNodes < 1024) {
+            throw new IllegalArgumentException("Node cache cap too small: " + maxNodes);
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.maxNodes = maxNodes;
+
+        alive.population = 1;
+        alive.hash = 1;
+        dead.hash = 0;
+        clear();
+    }
+
+    /**
+     * Advances the universe by a single generation
+     */
+    public void step() {
+        advance(1);
+    }
+
+    /**
+     * Advances the universe by the parsed number of generations. The
+     * count is split into powers of two, each of which is a single
+     * memoized jump through the quadtree
+     * @param generations, the number of generations to advance
+     */
+    public void advance(long generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Cannot advance backwards: " + generations);
+        }
+
+        for (int k = 0; k < 63 && (generations >>> k) != 0; k++) {
+            if (((generations >>> k) & 1) != 0) {
+                advancePowerOfTwo(k);
+                generation += 1L << k;
+            }
+        }
+    }
+
+    /**
+     * Advances the universe by 2^k generations
+     * @param k, the base two logarithm of the generations to advance
+     */
+    private void advancePowerOfTwo(int k) {
+        // Pad the pattern so nothing it grows into within 2^k generations is cut off
+        while (root.level < k + 2 || !isCentred(root)) {
+            expand();
+        }
+        expand();
+
+        long shift = 1L << (root.level - 2); // Result is the centre half of the root
+        root = successor(root, k);
+        originRow += shift;
+        originCol += shift;
+
+        if (nodeCount > maxNodes) {
+            collect();
+        }
+    }
+
+    /**
+     * Computes the centre half of a node advanced by 2^j generations
+     * @param node, the node to advance (level >= 2, j <= level - 2)
+     * @param j, the base two logarithm of the generations to advance
+     * @return, the advanced centre, one level below the node
+     */
+    private Node successor(Node node, int j) {
+        if (node.population == 0) {
+            return node.nw; // Empty stays empty
+        }
+        if (node.level == 2) {
+            return baseResult(node);
+        }
+
+        boolean full = j == node.level - 2; // Full speed jump for this level
+        if (full && node.result != null) {
+            return node.result;
+        }
+        if (!full && node.slowStep == j && node.slowResult != null) {
+            return node.slowResult;
+        }
+
+        // Nine overlapping sub nodes one level down
+        Node n00 = node.nw;
+        Node n01 = centreHorizontal(node.nw, node.ne);
+        Node n02 = node.ne;
+        Node n10 = centreVertical(node.nw, node.sw);
+        Node n11 = centre(node);
+        Node n12 = centreVertical(node.ne, node.se);
+        Node n20 = node.sw;
+        Node n21 = centreHorizontal(node.sw, node.se);
+        Node n22 = node.se;
+
+        Node result;
+        if (full) {
+            // Advance each by half, then advance the four overlapping quarters by the other half
+            Node r00 = successor(n00, j - 1), r01 = successor(n01, j - 1), r02 = successor(n02, j - 1);
+            Node r10 = successor(n10, j - 1), r11 = successor(n11, j - 1), r12 = successor(n12, j - 1);
+            Node r20 = successor(n20, j - 1), r21 = successor(n21, j - 1), r22 = successor(n22, j - 1);
+            result = join(
+                    successor(join(r00, r01, r10, r11), j - 1),
+                    successor(join(r01, r02, r11, r12), j - 1),
+                    successor(join(r10, r11, r20, r21), j - 1),
+                    successor(join(r11, r12, r21, r22), j - 1));
+            node.result = result;
+        } else {
+            // Take the centres without advancing, then advance the four quarters by the whole step
+            Node c00 = centre(n00), c01 = centre(n01), c02 = centre(n02);
+            Node c10 = centre(n10), c11 = centre(n11), c12 = centre(n12);
+            Node c20 = centre(n20), c21 = centre(n21), c22 = centre(n22);
+            result = join(
+                    successor(join(c00, c01, c10, c11), j),
+                    successor(join(c01, c02, c11, c12), j),
+                    successor(join(c10, c11, c20, c21), j),
+                    successor(join(c11, c12, c21, c22), j));
+            node.slowResult = result;
+            node.slowStep = j;
+        }
+        return result;
+    }
+
+    /**
+     * Advances the centre 2x2 cells of a 4x4 node by one generation
+     * @param node, the level 2 node to advance
+     * @return, the level 1 result
+     */
+    private Node baseResult(Node node) {
+        if (node.result == null) {
+            int bits = 0;
+            for (int row = 0; row < 4; row++) {
+                for (int col = 0; col < 4; col++) {
+                    if (cellOf(node, row, col)) {
+                        bits |= 1 << (row * 4 + col);
+                    }
+                }
+            }
+
+            int next = baseResults[bits];
+            node.result = join(leaf(next & 1), leaf(next & 2), leaf(next & 4), leaf(next & 8));
+        }
+        return node.result;
+    }
+
+    /**
+     * Builds the table of next states for the centre of every 4x4 block
+     * @param rule, the rule to apply
+     * @return, table indexed by the 16 cell bits of a block
+     */
+    private static int[] createBaseResults(Rule rule) {
+        int[] results = new int[1 << 16];
+        for (int bits = 0; bits < results.length; bits++) {
+            int next = 0;
+            for (int i = 0; i < 4; i++) {
+                int row = 1 + (i >> 1);
+                int col = 1 + (i & 1);
+                int neighbours = 0;
+                for (int r = row - 1; r <= row + 1; r++) {
+                    for (int c = col - 1; c <= col + 1; c++) {
+                        if ((r != row || c != col) && (bits & (1 << (r * 4 + c))) != 0) {
+                            neighbours++;
+                        }
+                    }
+                }
+
+                boolean isAlive = (bits & (1 << (row * 4 + col))) != 0;
+                if (isAlive ? rule.survives(neighbours) : rule.isBorn(neighbours)) {
+                    next |= 1 << i;
+                }
+            }
+            results[bits] = next;
+        }
+        return results;
+    }
+
+    /**
+     * Gets the state of the cell at the given position of the plane
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return true, if the cell is alive
+     */
+    public boolean getCell(int row, int col) {
+        long r = row - originRow;
+        long c = col - originCol;
+        long size = 1L << root.level;
+        if (r < 0 || r >= size || c < 0 || c >= size) {
+            return false; // Outside the root is always dead
+        }
+        return cellOf(root, r, c);
+    }
+
+    /**
+     * Sets the state of the cell at the given position of the plane,
+     * growing the universe if the cell is outside it
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @param isAlive, true to make the cell alive, false to make it dead
+     */
+    public void setCell(int row, int col, boolean isAlive) {
+        while (true) {
+            long r = row - originRow;
+            long c = col - originCol;
+            long size = 1L << root.level;
+            if (r >= 0 && r < size && c >= 0 && c < size) {
+                root = withCell(root, r, c, isAlive);
+                break;
+            }
+            expand();
+        }
+
+        if (nodeCount > maxNodes) {
+            collect();
+        }
+    }
+
+    /**
+     * Reads a cell of a node by walking down the quadtree
+     * @param node, the node to read
+     * @param row, the row relative to the node
+     * @param col, the column relative to the node
+     * @return true, if the cell is alive
+     */
+    private boolean cellOf(Node node, long row, long col) {
+        while (node.level > 0) {
+            if (node.population == 0) {
+                return false;
+            }
+            long half = 1L << (node.level - 1);
+            boolean south = row >= half;
+            boolean east = col >= half;
+            if (south) {
+                row -= half;
+            }
+            if (east) {
+                col -= half;
+            }
+            node = south ? (east ? node.se : node.sw) : (east ? node.ne : node.nw);
+        }
+        return node == alive;
+    }
+
+    /**
+     * Builds a copy of a node with a single cell changed
+     * @param node, the node to copy
+     * @param row, the row relative to the node
+     * @param col, the column relative to the node
+     * @param isAlive, the new state of the cell
+     * @return, the canonical node with the cell changed
+     */
+    private Node withCell(Node node, long row, long col, boolean isAlive) {
+        if (node.level == 0) {
+            return isAlive ? alive : dead;
+        }
+
+        long half = 1L << (node.level - 1);
+        Node nw = node.nw, ne = node.ne, sw = node.sw, se = node.se;
+        if (row < half) {
+            if (col < half) {
+                nw = withCell(nw, row, col, isAlive);
+            } else {
+                ne = withCell(ne, row, col - half, isAlive);
+            }
+        } else {
+            if (col < half) {
+                sw = withCell(sw, row - half, col, isAlive);
+            } else {
+                se = withCell(se, row - half, col - half, isAlive);
+            }
+        }
+        return join(nw, ne, sw, se);
+    }
+
+    /**
+     * Gets the number of live cells in the universe
+     * @return, the current population
+     */
+    public long getPopulation() {
+        return root.population;
+    }
+
+    /**
+     * Hashes every live cell of the universe, not just the displayed
+     * region. The live cells are listed by walking the non-empty nodes
+     * @return, the BoardHash of the live cells
+     */
+    public long getHash() {
+        int population = (int) Math.min(root.population, Integer.MAX_VALUE - 8);
+        if (cells.length < population) {
+            cells = new long[(int) Math.min(population + (population >>> 1), Integer.MAX_VALUE - 8L)];
+        }
+        return BoardHash.ofCells(cells, listCells(root, originRow, originCol, 0));
+    }
+
+    /**
+     * Adds the live cells of a node to the scratch list
+     * @param node, the node to list
+     * @param row, the row of the node's top left cell
+     * @param col, the column of the node's top left cell
+     * @param count, the cells already listed
+     * @return, the cells listed including the node's
+     */
+    private int listCells(Node node, long row, long col, int count) {
+        if (node.population == 0 || count == cells.length) {
+            return count;
+        }
+        if (node.level == 0) {
+            cells[count] = SparseEngine.pack((int) row, (int) col);
+            return count + 1;
+        }
+        long half = 1L << (node.level - 1);
+        count = listCells(node.nw, row, col, count);
+        count = listCells(node.ne, row, col + half, count);
+        count = listCells(node.sw, row + half, col, count);
+        return listCells(node.se, row + half, col + half, count);
+    }
+
+    /**
+     * Visits every live cell of the universe
+     * @param visitor, given the position of each live cell
+     */
+    public void forEachLiveCell(CellVisitor visitor) {
+        visitCells(root, originRow, originCol, visitor);
+    }
+
+    /**
+     * Visits the live cells of a node
+     * @param node, the node to visit
+     * @param row, the row of the node's top left cell
+     * @param col, the column of the node's top left cell
+     * @param visitor, given the position of each live cell
+     */
+    private void visitCells(Node node, long row, long col, CellVisitor visitor) {
+        if (node.population == 0) {
+            return;
+        }
+        if (node.level == 0) {
+            visitor.visit((int) row, (int) col);
+            return;
+        }
+        long half = 1L << (node.level - 1);
+        visitCells(node.nw, row, col, visitor);
+        visitCells(node.ne, row, col + half, visitor);
+        visitCells(node.sw, row + half, col, visitor);
+        visitCells(node.se, row + half, col + half, visitor);
+    }
+
+    /**
+     * Checks whether cells can live outside the displayed region
+     * @return true, as the plane is unbounded
+     */
+    public boolean isUnbounded() {
+        return true;
+    }
+
+    /**
+     * Gets the number of rows displayed
+     * @return, the row count
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns displayed
+     * @return, the column count
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Gets the number of generations advanced since creation or the last clear
+     * @return, the current generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Sets the generation counter, e.g. when resuming from a checkpoint
+     * @param generation, the generation the board is at
+     */
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Gets the rule applied at each step
+     * @return, the rule
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Sets the rule applied from the next step on, forgetting every
+     * memoized result worked out under the old rule
+     * @param rule, a life-like rule without B0, as the plane is unbounded
+     * @throws IllegalArgumentException, if the rule cannot be applied to an unbounded plane
+     */
+    public void setRule(Rule rule) {
+        if (!rule.isLifeLike()) {
+            throw new IllegalArgumentException("HashLifeEngine needs a life-like rule: " + rule);
+        }
+        if (rule.isBornFromNothing()) {
+            throw new IllegalArgumentException("B0 rules fill an unbounded plane: " + rule);
+        }
+        baseResults = createBaseResults(rule);
+        this.rule = rule;
+
+        for (Node node : table) {
+            if (node != null) {
+                node.result = null;
+                node.slowResult = null;
+                node.slowStep = -1;
+            }
+        }
+    }
+
+    /**
+     * Empties the universe and the node cache and resets the generation
+     */
+    public void clear() {
+        table = new Node[1 << 16];
+        nodeCount = 0;
+        emptyNodes = new Node[64];
+        emptyNodes[0] = dead;
+
+        root = empty(MIN_LEVEL);
+        originRow = 0;
+        originCol = 0;
+        generation = 0;
+    }
+
+    /**
+     * Gets the number of nodes in the node cache
+     * @return, the node count
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Doubles the size of the root, keeping the pattern in its centre
+     */
+    private void expand() {
+        Node border = empty(root.level - 1);
+        root = join(
+                join(border, border, border, root.nw),
+                join(border, border, root.ne, border),
+                join(border, root.sw, border, border),
+                join(root.se, border, border, border));
+
+        long shift = 1L << (root.level - 2);
+        originRow -= shift;
+        originCol -= shift;
+    }
+
+    /**
+     * Checks that every live cell of a node is within its centre half
+     * @param node, the node to check
+     * @return true, if the outer ring of the node is empty
+     */
+    private boolean isCentred(Node node) {
+        if (node.level < 2) {
+            return false;
+        }
+        return node.population == node.nw.se.population + node.ne.sw.population
+                + node.sw.ne.population + node.se.nw.population;
+    }
+
+    /**
+     * Gets the centre half of a node without advancing it
+     * @param node, the node (level >= 2)
+     * @return, the centre node one level down
+     */
+    private Node centre(Node node) {
+        return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+    }
+
+    /**
+     * Gets the node centred on the border between two side by side nodes
+     * @param w, the west node
+     * @param e, the east node
+     * @return, the node of the same level spanning the border
+     */
+    private Node centreHorizontal(Node w, Node e) {
+        return join(w.ne, e.nw, w.se, e.sw);
+    }
+
+    /**
+     * Gets the node centred on the border between two stacked nodes
+     * @param n, the north node
+     * @param s, the south node
+     * @return, the node of the same level spanning the border
+     */
+    private Node centreVertical(Node n, Node s) {
+        return join(n.sw, n.se, s.nw, s.ne);
+    }
+
+    /**
+     * Gets the canonical empty node of a level
+     * @param level, the level of the node
+     * @return, the empty node
+     */
+    private Node empty(int level) {
+        if (emptyNodes[level] == null) {
+            Node child = empty(level - 1);
+            emptyNodes[level] = join(child, child, child, child);
+        }
+        return emptyNodes[level];
+    }
+
+    /**
+     * Gets a level 0 node from a bit of a base result
+     * @param bit, non zero for a live cell
+     * @return, the live or dead leaf
+     */
+    private Node leaf(int bit) {
+        return bit != 0 ? alive : dead;
+    }
+
+    /**
+     * Gets the canonical node with the parsed children, creating it if
+     * it is not already in the node cache
+     * @return, the canonical node
+     */
+    private Node join(Node nw, Node ne, Node sw, Node se) {
+        int hash = hashOf(nw, ne, sw, se);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+
+        // Linear probe for an existing node with identical children
+        for (Node n = table[slot]; n != null; n = table[slot]) {
+            if (n.hash == hash && n.nw == nw && n.ne == ne && n.sw == sw && n.se == se) {
+                return n;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        Node node = new Node();
+        node.nw = nw;
+        node.ne = ne;
+        node.sw = sw;
+        node.se = se;
+        node.level = nw.level + 1;
+        node.population = nw.population + ne.population + sw.population + se.population;
+        node.hash = hash;
+        table[slot] = node;
+
+        if (++nodeCount > table.length / 2) {
+            resize(table.length * 2);
+        }
+        return node;
+    }
+
+    /**
+     * Combines the hashes of four children into the hash of their parent
+     * @return, the parent's hash
+     */
+    private static int hashOf(Node nw, Node ne, Node sw, Node se) {
+        long h = nw.hash;
+        h = h * 0x9E3779B97F4A7C15L + ne.hash;
+        h = h * 0x9E3779B97F4A7C15L + sw.hash;
+        h = h * 0x9E3779B97F4A7C15L + se.hash;
+        h ^= h >>> 29;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Rehashes every node into a table of the parsed size
+     * @param size, the new table size (a power of two)
+     */
+    private void resize(int size) {
+        Node[] old = table;
+        table = new Node[size];
+        for (Node node : old) {
+            if (node != null) {
+                insert(node);
+            }
+        }
+    }
+
+    /**
+     * Places an existing node into the table without checking for duplicates
+     * @param node, the node to insert
+     */
+    private void insert(Node node) {
+        int mask = table.length - 1;
+        int slot = node.hash & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = node;
+    }
+
+    /**
+     * Discards every node that is not reachable from the root or the
+     * empty nodes, and forgets memoized results that may refer to them
+     */
+    private void collect() {
+        Node[] old = table;
+        for (Node node : old) {
+            if (node != null) {
+                node.marked = false;
+                node.result = null;
+                node.slowResult = null;
+                node.slowStep = -1;
+            }
+        }
+
+        nodeCount = 0;
+        mark(root);
+        for (Node node : emptyNodes) {
+            if (node != null) {
+                mark(node);
+            }
+        }
+
+        // Size the table to keep the survivors below half full
+        int size = 1 << 16;
+        while (size < nodeCount * 4) {
+            size <<= 1;
+        }
+        table = new Node[size];
+        for (Node node : old) {
+            if (node != null && node.marked) {
+                insert(node);
+            }
+        }
+    }
+
+    /**
+     * Marks a node and its descendants as reachable
+     * @param node, the node to mark
+     */
+    private void mark(Node node) {
+        if (node.level == 0 || node.marked) {
+            return;
+        }
+        node.marked = true;
+        nodeCount++;
+        mark(node.nw);
+        mark(node.ne);
+        mark(node.sw);
+        mark(node.se);
+    }
+
+    /**
+     * Canonical quadtree node. Level 0 nodes are single cells, and a
+     * node of level n covers a square of 2^n by 2^n cells
+     */
+    private static class Node {
+        Node nw, ne, sw, se; // Children (null for level 0)
+        int level; // Base two logarithm of the node's size
+        long population; // Live cells within the node
+        int hash; // Structural hash of the children
+        Node result; // Centre advanced by 2^(level - 2) generations
+        Node slowResult; // Centre advanced by 2^slowStep generations
+        int slowStep = -1; // Step the slowResult was computed for
+        boolean marked; // Reached during a collection
+    }
+
+}
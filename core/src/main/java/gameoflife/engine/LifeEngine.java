@@ -0,0 +1,231 @@
+package gameoflife.engine;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Headless rule engine that holds the state of a board and advances
+ * it one generation at a time. Implementations hold no Swing state so
+ * they can be stepped without a GUI.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public interface LifeEngine {
+
+    /**
+     * Advances the board by a single generation
+     */
+    void step();
+
+    /**
+     * Advances the board by the parsed number of generations. Engines
+     * that can jump ahead faster than stepping override this
+     * @param generations, the number of generations to advance
+     */
+    default void advance(long generations) {
+        for (long i = 0; i < generations; i++) {
+            step();
+        }
+    }
+
+    /**
+     * Gets the state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return true, if the cell is alive
+     */
+    boolean getCell(int row, int col);
+
+    /**
+     * Sets the state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @param alive, true to make the cell alive, false to make it dead
+     */
+    void setCell(int row, int col, boolean alive);
+
+    /**
+     * Copies one row of the board into packed words, where bit
+     * (col & 63) of word (col >>> 6) holds the state of column col.
+     * Engines that store packed rows override this with a bulk copy
+     * @param row, the row to copy
+     * @param words, receives the row, at least (getCols() + 63) / 64 long after offset
+     * @param offset, index of words the first word of the row is written to
+     */
+    default void copyRow(int row, long[] words, int offset) {
+        int cols = getCols();
+        for (int i = 0; i < (cols + 63) >>> 6; i++) {
+            long word = 0L;
+            for (int bit = 0; bit < 64 && (i << 6) + bit < cols; bit++) {
+                if (getCell(row, (i << 6) + bit)) {
+                    word |= 1L << bit;
+                }
+            }
+            words[offset + i] = word;
+        }
+    }
+
+    /**
+     * Replaces one row of the board with packed words laid out as in
+     * copyRow(). Bits past the last column are ignored. Engines that
+     * store packed rows override this with a bulk copy
+     * @param row, the row to replace
+     * @param words, holds the row, at least (getCols() + 63) / 64 long after offset
+     * @param offset, index of words holding the first word of the row
+     */
+    default void setRow(int row, long[] words, int offset) {
+        int cols = getCols();
+        for (int col = 0; col < cols; col++) {
+            setCell(row, col, (words[offset + (col >>> 6)] & (1L << col)) != 0);
+        }
+    }
+
+    /**
+     * Sets alive the cells of one word of a row, laid out as in copyRow(),
+     * whose bits are set, leaving the rest of the row as it is. Bits past
+     * the last column are ignored. Engines that store packed rows
+     * override this with a single OR
+     * @param row, the row of the cells
+     * @param word, the word of the row, holding columns word * 64 onwards
+     * @param bits, the cells to set alive
+     */
+    default void orWord(int row, int word, long bits) {
+        int cols = getCols();
+        for (; bits != 0; bits &= bits - 1) {
+            int col = (word << 6) + Long.numberOfTrailingZeros(bits);
+            if (col >= cols) {
+                break; // Past the last column
+            }
+            setCell(row, col, true);
+        }
+    }
+
+    /**
+     * Gets the number of live cells on the board
+     * @return, the current population
+     */
+    long getPopulation();
+
+    /**
+     * Gets the number of cells born by every step since creation or the
+     * last clear. Engines that do not count them report -1
+     * @return, the births, or -1 if not counted
+     */
+    default long getBirths() {
+        return -1;
+    }
+
+    /**
+     * Gets the number of live cells that died in every step since
+     * creation or the last clear. Engines that do not count them report -1
+     * @return, the deaths, or -1 if not counted
+     */
+    default long getDeaths() {
+        return -1;
+    }
+
+    /**
+     * Gets the 64-bit Zobrist style hash of the board, equal for equal
+     * boards whatever the engine. Engines that track the words changed
+     * by each step override this to keep the hash up to date instead of
+     * reading the whole board, and engines for unbounded planes override
+     * it to hash their live cells beyond the displayed region
+     * @return, the board's hash, 0 for an empty board
+     */
+    default long getHash() {
+        return BoardHash.of(this);
+    }
+
+    /**
+     * Gets the number of rows on the board
+     * @return, the row count
+     */
+    int getRows();
+
+    /**
+     * Checks whether cells can live outside the rows and columns, as on
+     * an unbounded plane. The rows and columns then only describe the
+     * region a Grid displays, and copyRow() only reads that region
+     * @return true, if the board extends past getRows() x getCols()
+     */
+    default boolean isUnbounded() {
+        return false;
+    }
+
+    /**
+     * Visits every live cell of the board, including those of an
+     * unbounded plane outside its rows and columns. Engines that do not
+     * store their board as rows override this
+     * @param visitor, given the position of each live cell
+     */
+    default void forEachLiveCell(CellVisitor visitor) {
+        long[] words = new long[(getCols() + 63) >>> 6];
+        for (int row = 0; row < getRows(); row++) {
+            copyRow(row, words, 0);
+            for (int i = 0; i < words.length; i++) {
+                for (long word = words[i]; word != 0; word &= word - 1) {
+                    visitor.visit(row, (i << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of columns on the board
+     * @return, the column count
+     */
+    int getCols();
+
+    /**
+     * Gets the number of generations stepped since creation or the last clear
+     * @return, the current generation
+     */
+    long getGeneration();
+
+    /**
+     * Sets the generation counter, e.g. when resuming from a checkpoint
+     * @param generation, the generation the board is at
+     */
+    void setGeneration(long generation);
+
+    /**
+     * Gets the rule the engine applies at each step
+     * @return, the rule, Rule.CONWAY unless changed
+     */
+    Rule getRule();
+
+    /**
+     * Sets the rule the engine applies from the next step on. Engines
+     * that store one bit per cell only apply life-like rules
+     * @param rule, the rule to apply
+     * @throws IllegalArgumentException, if the engine cannot apply the rule
+     */
+    void setRule(Rule rule);
+
+    /**
+     * Gets what lies past the edges of the board. Engines on an
+     * unbounded plane have no edges and report DEAD
+     * @return, the boundary
+     */
+    default Boundary getBoundary() {
+        return Boundary.DEAD;
+    }
+
+    /**
+     * Sets what lies past the edges of the board from the next step on.
+     * Engines that only have dead edges or no edges at all reject the
+     * others
+     * @param boundary, the boundary
+     * @throws IllegalArgumentException, if the engine cannot apply the boundary
+     */
+    default void setBoundary(Boundary boundary) {
+        if (boundary != Boundary.DEAD) {
+            throw new IllegalArgumentException(getClass().getSimpleName() + " cannot wrap its edges: " + boundary);
+        }
+    }
+
+    /**
+     * Sets every cell on the board to dead and resets the generation
+     */
+    void clear();
+
+}
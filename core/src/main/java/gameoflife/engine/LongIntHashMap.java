@@ -0,0 +1,256 @@
+package gameoflife.engine;
+
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Open addressed hash map from long keys to non-zero int values, stored
+ * in primitive arrays so no key or value is ever boxed. A value of zero
+ * marks an empty slot, so zero cannot be stored.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class LongIntHashMap {
+    private static final int MIN_CAPACITY = 16; // Smallest table allocated
+    private long[] keys; // Key of each slot
+    private int[] values; // Value of each slot (0 = empty)
+    private int size; // Number of entries in the map
+    private int mask; // Capacity - 1, for wrapping slot indexes
+
+    /**
+     * Class constructor that creates an empty map
+     */
+    public LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Class constructor that creates an empty map sized to hold the
+     * parsed number of entries without growing
+     * @param expected, the number of entries expected
+     */
+    public LongIntHashMap(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    /**
+     * Gets the value stored for a key
+     * @param key, the key to look up
+     * @return, the value, or 0 if the key is not present
+     */
+    public int get(long key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a value for a key, replacing any existing value
+     * @param key, the key to store
+     * @param value, the value to store (must not be 0)
+     */
+    public void put(long key, int value) {
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insertAt(slot, key, value);
+    }
+
+    /**
+     * Adds to the value stored for a key, inserting it if not present
+     * @param key, the key to add to
+     * @param delta, the amount to add (the result must not be 0)
+     */
+    public void add(long key, int delta) {
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insertAt(slot, key, delta);
+    }
+
+    /**
+     * Removes a key from the map
+     * @param key, the key to remove
+     * @return true, if the key was present
+     */
+    public boolean remove(long key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of entries in the map
+     * @return, the entry count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry, keeping the current table
+     */
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    /**
+     * Removes every entry and resizes the table for the parsed number
+     * of entries if the current table is far too big or too small
+     * @param expected, the number of entries expected
+     */
+    public void clear(int expected) {
+        int wanted = capacityFor(expected);
+        if (wanted > keys.length || wanted * 8 < keys.length) {
+            allocate(wanted);
+        } else {
+            clear();
+        }
+    }
+
+    /**
+     * Gets the number of slots in the table, for iterating with keyAt()
+     * and valueAt()
+     * @return, the table capacity
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the key held in a slot
+     * @param slot, the slot index
+     * @return, the key (meaningless if the slot is empty)
+     */
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Gets the value held in a slot
+     * @param slot, the slot index
+     * @return, the value, or 0 if the slot is empty
+     */
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Fills an empty slot and grows the table if it is over half full
+     * @param slot, the empty slot
+     * @param key, the key to insert
+     * @param value, the value to insert
+     */
+    private void insertAt(int slot, long key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length >>> 1) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Empties a slot and moves later entries of its probe run back
+     * so that every remaining key can still be found
+     * @param slot, the slot to empty
+     */
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != 0) {
+            int home = mix(keys[next]) & mask;
+            // Move the entry into the gap if its home is not between the gap and itself
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = 0;
+    }
+
+    /**
+     * Moves every entry into a new table of the parsed capacity
+     * @param capacity, the new capacity (a power of two)
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Replaces the table with an empty one of the parsed capacity
+     * @param capacity, the new capacity (a power of two)
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    /**
+     * Gets the table capacity that keeps the parsed number of entries
+     * below half full
+     * @param expected, the number of entries expected
+     * @return, a power of two capacity
+     */
+    private static int capacityFor(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity >>> 1 < expected) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Scrambles the bits of a key so that nearby cells spread over the table
+     * @param key, the key to hash
+     * @return, the hash of the key
+     */
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+}
@@ -0,0 +1,612 @@
+package gameoflife.engine;
+
+import gameoflife.io.BinaryGridFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Bit-packed rule engine whose board lives in a memory mapped file
+ * rather than on the heap, so boards far larger than the heap can be
+ * stepped. The file is a binary grid file with the MAPPED flag: a
+ * header followed by two boards, the current generation in one and
+ * the next written into the other. Each step streams the current
+ * board a row at a time, three rows being held on the heap, and only
+ * bumps the generation in the header once the next board is complete,
+ * so the file is always a consistent save that opens instantly.
+ *
+ * Each board is mapped in chunks of whole rows, as a single mapping is
+ * limited to 2GB. Rows known to be empty are neither read nor written,
+ * so the pages of empty areas are never touched, unless the rule has B0.
+ *
+ * The population and, once getHash() has been called, the BoardHash
+ * are counted from the rows each step writes, so neither reads the
+ * file again. A board opened from a file is counted the first time
+ * either is asked for before it is stepped.
+ *
+ * Any life-like Rule can be applied, using the same kernel as
+ * PackedEngine. The rule is kept in the file's header, so it is
+ * restored when the file is opened again.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class MappedEngine implements LifeEngine, Closeable {
+    private static final long CHUNK_BYTES = 1L << 30; // Largest mapping made for one chunk of a board
+    private final FileChannel channel; // Channel of the board file
+    private final MappedByteBuffer header; // Mapping of the file's header
+    private final MappedByteBuffer[][] mappings; // Mapped chunks of each board
+    private final LongBuffer[][] boards; // Word views of the chunks of each board
+    private final long[][] liveRows; // Bit set per board of the rows that may hold live cells
+    private final int rows; // Number of rows on the board
+    private final int cols; // Number of columns on the board
+    private final int wordsPerRow; // Number of longs needed to hold one row
+    private final long lastWordMask; // Mask of the valid bits in the last word of a row
+    private final int rowsPerChunk; // Rows in each mapped chunk
+    private final long[][] window; // Three rows of the current board being stepped
+    private final int[] windowRows; // Row held by each buffer of the window
+    private final long[] empty; // Row of dead cells for beyond the edges
+    private final long[] out; // Next state of the row being stepped
+    private long generation; // Current generation, also selecting the current board
+    private Rule rule = Rule.CONWAY; // Rule applied at each step
+    private long[] ruleMasks; // Kernel masks of the rule, null for Conway's Game of Life
+    private long population; // Number of live cells, -1 until the board opened has been counted
+    private long hash; // BoardHash of the current board, kept up to date while hashing
+    private boolean hashing; // True once getHash() has been called
+
+    /**
+     * Class constructor that maps an opened board file
+     * @param channel, the channel of the file, open for reading & writing
+     * @param rows, the number of rows on the board
+     * @param cols, the number of columns on the board
+     * @param generation, the generation stored in the file
+     * @param known, true if both boards are known to be empty
+     * @throws IOException, if the file cannot be mapped
+     */
+    private MappedEngine(FileChannel channel, int rows, int cols, long generation, boolean known) throws IOException {
+        this.channel = channel;
+        this.rows = rows;
+        this.cols = cols;
+        this.generation = generation;
+        this.population = known ? 0 : -1;
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.lastWordMask = (cols & 63) == 0 ? -1L : (1L << (cols & 63)) - 1;
+
+        long rowBytes = (long) wordsPerRow * Long.BYTES;
+        long boardBytes = rows * rowBytes;
+        rowsPerChunk = (int) Math.max(1, Math.min(rows, CHUNK_BYTES / rowBytes));
+        int chunks = (rows + rowsPerChunk - 1) / rowsPerChunk;
+
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, BinaryGridFile.MAPPED_DATA_OFFSET);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        mappings = new MappedByteBuffer[2][chunks];
+        boards = new LongBuffer[2][chunks];
+        liveRows = new long[2][(rows + 63) >>> 6];
+        for (int board = 0; board < 2; board++) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                long start = (long) chunk * rowsPerChunk * rowBytes;
+                long size = Math.min(rowsPerChunk * rowBytes, boardBytes - start);
+                mappings[board][chunk] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        BinaryGridFile.MAPPED_DATA_OFFSET + board * boardBytes + start, size);
+                mappings[board][chunk].order(ByteOrder.LITTLE_ENDIAN);
+                boards[board][chunk] = mappings[board][chunk].asLongBuffer();
+            }
+            if (!known) {
+                Arrays.fill(liveRows[board], -1L); // Nothing read yet, so any row may be live
+            }
+        }
+
+        window = new long[3][wordsPerRow];
+        windowRows = new int[3];
+        empty = new long[wordsPerRow];
+        out = new long[wordsPerRow];
+    }
+
+    /**
+     * Creates a new board file holding an empty board of the parsed
+     * size, replacing any existing file. The file is sparse where the
+     * file system allows, so untouched areas take no disk space
+     * @param file, the file to create
+     * @param rows, the number of rows on the board
+     * @param cols, the number of columns on the board
+     * @return, an engine stepping the new file
+     * @throws IOException, if the file cannot be created or mapped
+     */
+    public static MappedEngine create(Path file, int rows, int cols) throws IOException {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Board size must be positive: " + rows + "x" + cols);
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long boardBytes = (long) rows * ((cols + 63) >>> 6) * Long.BYTES;
+            channel.write(ByteBuffer.allocate(1), BinaryGridFile.MAPPED_DATA_OFFSET + 2 * boardBytes - 1); // Set the length
+
+            ByteBuffer head = ByteBuffer.allocate(BinaryGridFile.MAPPED_DATA_OFFSET).order(ByteOrder.LITTLE_ENDIAN);
+            BinaryGridFile.putHeader(head, BinaryGridFile.MAPPED, rows, cols, 0L, Rule.CONWAY.toString());
+            head.flip();
+            channel.write(head, 0);
+
+            return new MappedEngine(channel, rows, cols, 0, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing board file. Nothing is read up front, the
+     * pages of the file are read as the board is stepped or viewed
+     * @param file, the file written by create()
+     * @return, an engine stepping the file
+     * @throws IOException, if the file cannot be mapped or is not a mapped board file
+     */
+    public static MappedEngine open(Path file) throws IOException {
+        BinaryGridFile.Header head = BinaryGridFile.readHeader(file);
+        if ((head.getFlags() & BinaryGridFile.MAPPED) == 0) {
+            throw new IOException("Not a mapped board file: " + file);
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long boardBytes = (long) head.getRows() * ((head.getCols() + 63) >>> 6) * Long.BYTES;
+            if (channel.size() < BinaryGridFile.MAPPED_DATA_OFFSET + 2 * boardBytes) {
+                throw new IOException("Mapped board file is truncated: " + file);
+            }
+            MappedEngine engine = new MappedEngine(channel, head.getRows(), head.getCols(), head.getGeneration(), false);
+            try {
+                engine.setRule(Rule.parse(head.getRule()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage() + ": " + file, e);
+            }
+            return engine;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Advances the board by a single generation, reading the current
+     * board a row at a time and writing each row of the next board
+     */
+    public void step() {
+        int src = (int) (generation & 1);
+        int dst = src ^ 1;
+        Arrays.fill(windowRows, -1);
+        boolean fromNothing = rule.isBornFromNothing(); // Under B0 every row must be stepped
+        long nextPopulation = 0L; // Live cells of the rows written
+        long nextHash = 0L; // BoardHash of the rows written, rows not stepped being empty
+        boolean tracking = hashing;
+
+        for (int row = 0; row < rows; row++) {
+            boolean live = fromNothing || isLive(src, row) || (row > 0 && isLive(src, row - 1))
+                    || (row + 1 < rows && isLive(src, row + 1));
+            if (!live) {
+                // Nothing can be born here, only make sure the old row is cleared
+                if (isLive(dst, row)) {
+                    writeRow(dst, row, empty);
+                    markLive(dst, row, false);
+                }
+                continue;
+            }
+
+            long any = stepRow(windowRow(src, row - 1), windowRow(src, row), windowRow(src, row + 1));
+            if (any != 0 || isLive(dst, row)) {
+                writeRow(dst, row, out);
+            }
+            markLive(dst, row, any != 0);
+            if (any != 0) {
+                long rowKey = tracking ? BoardHash.rowKey(row) : 0L;
+                for (int i = 0; i < wordsPerRow; i++) {
+                    nextPopulation += Long.bitCount(out[i]);
+                    if (tracking) {
+                        nextHash ^= BoardHash.word(BoardHash.key(rowKey, i), out[i]);
+                    }
+                }
+            }
+        }
+
+        population = nextPopulation;
+        hash = nextHash;
+        generation++;
+        header.putLong(BinaryGridFile.GENERATION_OFFSET, generation); // Next board becomes current
+    }
+
+    /**
+     * Computes the next state of a row into out
+     * @param a, the row above
+     * @param b, the row being stepped
+     * @param c, the row below
+     * @return, non zero if any cell of the row is alive next generation
+     */
+    private long stepRow(long[] a, long[] b, long[] c) {
+        int last = wordsPerRow - 1;
+        long any = 0L;
+        long[] masks = ruleMasks;
+
+        // Slide a three word window along the row (zero past the left edge)
+        long aPrev = 0L, bPrev = 0L, cPrev = 0L;
+        long aw = a[0], bw = b[0], cw = c[0];
+        for (int i = 0; i < last; i++) {
+            long aNext = a[i + 1];
+            long bNext = b[i + 1];
+            long cNext = c[i + 1];
+
+            long aW = (aw << 1) | (aPrev >>> 63), aE = (aw >>> 1) | (aNext << 63);
+            long bW = (bw << 1) | (bPrev >>> 63), bE = (bw >>> 1) | (bNext << 63);
+            long cW = (cw << 1) | (cPrev >>> 63), cE = (cw >>> 1) | (cNext << 63);
+            long result = masks == null
+                    ? PackedEngine.nextWord(aW, aw, aE, bW, bw, bE, cW, cw, cE)
+                    : PackedEngine.ruleWord(masks, aW, aw, aE, bW, bw, bE, cW, cw, cE);
+            out[i] = result;
+            any |= result;
+
+            aPrev = aw; bPrev = bw; cPrev = cw;
+            aw = aNext; bw = bNext; cw = cNext;
+        }
+
+        // Last word has nothing to its right and its padding bits stay dead
+        long aW = (aw << 1) | (aPrev >>> 63), bW = (bw << 1) | (bPrev >>> 63), cW = (cw << 1) | (cPrev >>> 63);
+        long result = lastWordMask & (masks == null
+                ? PackedEngine.nextWord(aW, aw, aw >>> 1, bW, bw, bw >>> 1, cW, cw, cw >>> 1)
+                : PackedEngine.ruleWord(masks, aW, aw, aw >>> 1, bW, bw, bw >>> 1, cW, cw, cw >>> 1));
+        out[last] = result;
+        return any | result;
+    }
+
+    /**
+     * Gets a row of the current board through the three row window,
+     * reading it from the file only the first time it is needed
+     * @param board, the current board
+     * @param row, the row to get
+     * @return, the row, or the empty row if it is off the board or known to be empty
+     */
+    private long[] windowRow(int board, int row) {
+        if (row < 0 || row >= rows || !isLive(board, row)) {
+            return empty;
+        }
+
+        int slot = row % 3;
+        if (windowRows[slot] != row) {
+            readRow(board, row, window[slot], 0);
+            windowRows[slot] = row;
+        }
+        return window[slot];
+    }
+
+    /**
+     * Copies a row of a board out of the file
+     */
+    private void readRow(int board, int row, long[] words, int offset) {
+        LongBuffer chunk = boards[board][row / rowsPerChunk];
+        chunk.position((row % rowsPerChunk) * wordsPerRow);
+        chunk.get(words, offset, wordsPerRow);
+    }
+
+    /**
+     * Copies a row into a board of the file
+     */
+    private void writeRow(int board, int row, long[] words) {
+        LongBuffer chunk = boards[board][row / rowsPerChunk];
+        chunk.position((row % rowsPerChunk) * wordsPerRow);
+        chunk.put(words, 0, wordsPerRow);
+    }
+
+    /**
+     * Gets the position of a word of the current board within its chunk
+     */
+    private int wordIndex(int row, int col) {
+        return (row % rowsPerChunk) * wordsPerRow + (col >>> 6);
+    }
+
+    /**
+     * Returns true if a row of a board may hold live cells
+     */
+    private boolean isLive(int board, int row) {
+        return (liveRows[board][row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Records whether a row of a board may hold live cells
+     */
+    private void markLive(int board, int row, boolean live) {
+        if (live) {
+            liveRows[board][row >>> 6] |= 1L << row;
+        } else {
+            liveRows[board][row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    /**
+     * Gets the state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return true, if the cell is alive
+     */
+    public boolean getCell(int row, int col) {
+        checkBounds(row, col);
+        int board = (int) (generation & 1);
+        return (boards[board][row / rowsPerChunk].get(wordIndex(row, col)) & (1L << col)) != 0;
+    }
+
+    /**
+     * Sets the state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @param alive, true to make the cell alive, false to make it dead
+     */
+    public void setCell(int row, int col, boolean alive) {
+        checkBounds(row, col);
+        int board = (int) (generation & 1);
+        LongBuffer chunk = boards[board][row / rowsPerChunk];
+        int index = wordIndex(row, col);
+        long before = chunk.get(index);
+        long after = alive ? before | (1L << col) : before & ~(1L << col);
+        if (before == after) {
+            return;
+        }
+        chunk.put(index, after);
+        if (alive) {
+            markLive(board, row, true);
+        }
+        changed(row, col >>> 6, before, after);
+    }
+
+    /**
+     * Updates the population and hash after a word of the current board changes
+     * @param row, the row of the word
+     * @param index, the index of the word within its row
+     * @param before, the bits of the word before the change
+     * @param after, the bits of the word after the change
+     */
+    private void changed(int row, int index, long before, long after) {
+        if (population >= 0) {
+            population += Long.bitCount(after) - Long.bitCount(before);
+        }
+        if (hashing) {
+            hash ^= BoardHash.change(BoardHash.key(BoardHash.rowKey(row), index), before, after);
+        }
+    }
+
+    /**
+     * Copies one row of the board into packed words
+     * @param row, the row to copy
+     * @param words, receives the row, at least (getCols() + 63) / 64 long after offset
+     * @param offset, index of words the first word of the row is written to
+     */
+    public void copyRow(int row, long[] words, int offset) {
+        checkBounds(row, 0);
+        readRow((int) (generation & 1), row, words, offset);
+    }
+
+    /**
+     * Replaces one row of the board with packed words
+     * @param row, the row to replace
+     * @param words, holds the row, at least (getCols() + 63) / 64 long after offset
+     * @param offset, index of words holding the first word of the row
+     */
+    public void setRow(int row, long[] words, int offset) {
+        checkBounds(row, 0);
+        System.arraycopy(words, offset, out, 0, wordsPerRow);
+        out[wordsPerRow - 1] &= lastWordMask; // Keep the bits past the last column dead
+
+        int board = (int) (generation & 1);
+        long[] before = window[0]; // Free between steps
+        windowRows[0] = -1;
+        readRow(board, row, before, 0);
+        for (int i = 0; i < wordsPerRow; i++) {
+            if (before[i] != out[i]) {
+                changed(row, i, before[i], out[i]);
+            }
+        }
+        writeRow(board, row, out);
+        markLive(board, row, true);
+    }
+
+    /**
+     * Sets alive the cells of one word of a row whose bits are set
+     * @param row, the row of the cells
+     * @param word, the word of the row, holding columns word * 64 onwards
+     * @param bits, the cells to set alive
+     */
+    public void orWord(int row, int word, long bits) {
+        checkBounds(row, word << 6);
+        int board = (int) (generation & 1);
+        LongBuffer chunk = boards[board][row / rowsPerChunk];
+        int index = wordIndex(row, word << 6);
+        bits &= word == wordsPerRow - 1 ? lastWordMask : -1L; // Keep the bits past the last column dead
+        long before = chunk.get(index);
+        if ((before | bits) != before) {
+            chunk.put(index, before | bits);
+            markLive(board, row, true);
+            changed(row, word, before, before | bits);
+        }
+    }
+
+    /**
+     * Gets the number of live cells on the board, kept up to date by
+     * every change. A board opened from a file is counted the first
+     * time, reading every row that may hold live cells
+     * @return, the current population
+     */
+    public long getPopulation() {
+        if (population < 0) {
+            population = countPopulation();
+        }
+        return population;
+    }
+
+    /**
+     * Counts the live cells on the board, reading every row that may
+     * hold live cells
+     * @return, the current population
+     */
+    private long countPopulation() {
+        int board = (int) (generation & 1);
+        long population = 0;
+        for (int row = 0; row < rows; row++) {
+            if (isLive(board, row)) {
+                readRow(board, row, out, 0);
+                long any = 0L;
+                for (long word : out) {
+                    population += Long.bitCount(word);
+                    any |= word;
+                }
+                markLive(board, row, any != 0); // Empty rows can be skipped from now on
+            }
+        }
+        return population;
+    }
+
+    /**
+     * Gets the BoardHash of the board. The first call hashes the whole
+     * board, after which the hash is kept up to date as the board changes
+     * @return, the board's hash, 0 for an empty board
+     */
+    public long getHash() {
+        if (!hashing) {
+            hash = BoardHash.of(this);
+            hashing = true;
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the number of rows on the board
+     * @return, the row count
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns on the board
+     * @return, the column count
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Gets the number of generations stepped since the file was created or cleared
+     * @return, the current generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Sets the generation counter, e.g. when resuming from a checkpoint.
+     * The generation selects the current board, so the board is copied
+     * across if the new generation selects the other one
+     * @param generation, the generation the board is at
+     */
+    public void setGeneration(long generation) {
+        int src = (int) (this.generation & 1);
+        int dst = (int) (generation & 1);
+        if (src != dst) {
+            for (int row = 0; row < rows; row++) {
+                if (isLive(src, row) || isLive(dst, row)) {
+                    readRow(src, row, out, 0);
+                    writeRow(dst, row, out);
+                    markLive(dst, row, isLive(src, row));
+                }
+            }
+        }
+        this.generation = generation;
+        header.putLong(BinaryGridFile.GENERATION_OFFSET, generation);
+    }
+
+    /**
+     * Gets the rule applied at each step
+     * @return, the rule
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Sets the rule applied from the next step on and records it in
+     * the file's header
+     * @param rule, a life-like rule
+     * @throws IllegalArgumentException, if the rule is not life-like or too long for the header
+     */
+    public void setRule(Rule rule) {
+        String text = rule.toString();
+        if (text.length() > BinaryGridFile.MAX_RULE_LENGTH) {
+            throw new IllegalArgumentException("Rule longer than " + BinaryGridFile.MAX_RULE_LENGTH + " characters: " + rule);
+        }
+        ruleMasks = PackedEngine.ruleMasks(rule);
+        this.rule = rule;
+
+        header.putShort(BinaryGridFile.HEADER_SIZE, (short) text.length());
+        for (int i = 0; i < text.length(); i++) {
+            header.put(BinaryGridFile.HEADER_SIZE + Short.BYTES + i, (byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * Sets every cell on the board to dead and resets the generation.
+     * Only rows that may hold live cells are written
+     */
+    public void clear() {
+        for (int board = 0; board < 2; board++) {
+            for (int row = 0; row < rows; row++) {
+                if (isLive(board, row)) {
+                    writeRow(board, row, empty);
+                    markLive(board, row, false);
+                }
+            }
+        }
+        generation = 0;
+        population = 0;
+        hash = 0L;
+        header.putLong(BinaryGridFile.GENERATION_OFFSET, generation);
+    }
+
+    /**
+     * Writes every changed page of the file back to disk, e.g. before
+     * copying the file as a checkpoint
+     */
+    public void force() {
+        for (MappedByteBuffer[] board : mappings) {
+            for (MappedByteBuffer chunk : board) {
+                chunk.force();
+            }
+        }
+        header.force();
+    }
+
+    /**
+     * Writes the board back to disk and closes the file. The mappings
+     * themselves are released when they are garbage collected
+     * @throws IOException, if the file cannot be closed
+     */
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Checks that a position is on the board
+     * @param row, the row of the position
+     * @param col, the column of the position
+     */
+    private void checkBounds(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("Cell (" + row + "," + col + ") outside " + rows + "x" + cols + " board");
+        }
+    }
+
+}
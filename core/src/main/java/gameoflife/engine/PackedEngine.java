@@ -0,0 +1,953 @@
+package gameoflife.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Bit-packed rule engine. Each row of the board is stored as a run of
+ * longs, one bit per cell, and the rules are applied to 64 cells at a
+ * time using bitwise adders. Past the edges of the board cells are dead
+ * or wrap round as a torus or Klein bottle: the wrapped rows are copied
+ * into the halo rows above and below the board before each step, and
+ * only the first and last word of a row pick up the bit of the opposite
+ * column, so the loop over the inside words is the same for every
+ * Boundary.
+ * Any life-like Rule can be applied: Conway's Game of Life keeps its
+ * own short circuit, and other rules select the next state from the
+ * full neighbour count through a tree of bitwise multiplexers whose
+ * leaves are masks built from the rule, so no rule is slower than
+ * another and none branches per cell.
+ *
+ * On Java 17 and later with jdk.incubator.vector added, a WordKernel
+ * runs the same circuits on four or eight words at once in the middle
+ * of each row, and the words at the edges are stepped one at a time as
+ * before. The result is the same bit for bit either way.
+ *
+ * With more than one thread the board is split into row stripes that
+ * are stepped in parallel. The calling thread and the workers of a
+ * ForkJoinPool claim stripes from a shared counter until none are left,
+ * and the step returns once every one of them has finished. Every row
+ * is computed only from the current buffer into the next buffer, so the
+ * result is the same for any thread count.
+ *
+ * Both state buffers, the tile flags and the worker tasks are allocated
+ * up front and reused, and the barrier parks rather than allocating a
+ * waiter, so a warmed up step allocates nothing.
+ *
+ * The board is divided into tiles of 64 rows by one word. Only tiles
+ * that changed in the last generation, or were edited, are stepped
+ * along with their neighbours, so still and empty areas cost nothing.
+ * Rules with B0, where empty areas come alive, step every tile.
+ * While a word is stepped its old and new bits are both at hand, so the
+ * population, the births and deaths, and the board's BoardHash are
+ * updated from the words that changed as they are computed. Each stripe
+ * keeps its own totals, which are added up once the step has finished,
+ * so none of them needs a pass over
+ * the whole board. Hashing a changed word costs about as much as
+ * stepping it, so the hash is only tracked once getHash() has been
+ * called and runs that never ask for it do not pay for it.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class PackedEngine implements LifeEngine {
+    private static final int STRIPES_PER_THREAD = 4; // Stripes created for each thread
+    private static final int TILE_ROWS = 64; // Rows in each tile (tiles are one word wide)
+    private static final WordKernel VECTOR_KERNEL = WordKernel.find(); // Vector kernel, null if the JVM has none
+    private final int rows; // Number of rows on the board
+    private final int cols; // Number of columns on the board
+    private final int wordsPerRow; // Number of longs needed to hold one row
+    private final long lastWordMask; // Mask of the valid bits in the last word of a row
+    private final int tileRows; // Number of rows of tiles
+    private final int tileCols; // Number of columns of tiles (same as wordsPerRow)
+    private boolean[] activeTiles; // Tiles that must be stepped this generation
+    private long[] changedTiles; // Bits of each tile that changed during the last step
+    private long[] stripeHashes; // Change to the hash made by each stripe during a step
+    private long[] stripeBirths; // Cells born in each stripe during a step
+    private long[] stripeDeaths; // Cells that died in each stripe during a step
+    private long[] current; // State of the current generation
+    private long[] next; // Scratch buffer the next generation is written into
+    private long generation; // Current generation
+    private Rule rule = Rule.CONWAY; // Rule applied at each step
+    private long[] ruleMasks; // Kernel masks of the rule, null for Conway's Game of Life
+    private WordKernel kernel = VECTOR_KERNEL; // Steps the middle of each span, null to step every word alone
+    private Boundary boundary = Boundary.DEAD; // What lies past the edges
+    private final long[] mirrored; // Scratch row for the mirrored halo rows of a Klein bottle
+    private long population; // Number of live cells, kept up to date by every change
+    private long births; // Cells born by every step since creation or the last clear
+    private long deaths; // Cells that died in every step since creation or the last clear
+    private long hash; // BoardHash of the current state, kept up to date while hashing
+    private boolean hashing; // True once getHash() has been called
+    private int threads = 1; // Number of threads used to step the board
+    private ForkJoinPool pool; // Pool that steps stripes in parallel (null when single-threaded)
+    private int stripeTileRows; // Number of tile rows in each stripe
+    private int stripeCount; // Number of stripes the board is split into
+    private StripeWorker[] workers; // Reusable tasks that help the calling thread
+    private final AtomicInteger nextStripe = new AtomicInteger(); // Next stripe to be claimed
+    private final AtomicInteger pending = new AtomicInteger(); // Threads still stepping stripes
+    private volatile Thread stepper; // Thread waiting in step() for the workers
+    private boolean workersStarted; // True once the workers have been executed
+
+    /**
+     * Class constructor that creates an empty board of the parsed size
+     * @param rows, the number of rows on the board
+     * @param cols, the number of columns on the board
+     */
+    public PackedEngine(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Board size must be positive: " + rows + "x" + cols);
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.lastWordMask = (cols & 63) == 0 ? -1L : (1L << (cols & 63)) - 1;
+
+        // One dead halo row above and below the board removes the edge checks from the step loop
+        current = new long[(rows + 2) * wordsPerRow];
+        next = new long[(rows + 2) * wordsPerRow];
+
+        tileRows = (rows + TILE_ROWS - 1) / TILE_ROWS;
+        tileCols = wordsPerRow;
+        activeTiles = new boolean[tileRows * tileCols];
+        changedTiles = new long[tileRows * tileCols];
+        stripeHashes = new long[tileRows]; // Never more stripes than tile rows
+        stripeBirths = new long[tileRows];
+        stripeDeaths = new long[tileRows];
+        mirrored = new long[wordsPerRow];
+    }
+
+    /**
+     * Class constructor that creates an empty board of the parsed size
+     * which is stepped using the parsed number of threads
+     * @param rows, the number of rows on the board
+     * @param cols, the number of columns on the board
+     * @param threads, the number of threads to step with
+     */
+    public PackedEngine(int rows, int cols, int threads) {
+        this(rows, cols);
+        setThreads(threads);
+    }
+
+    /**
+     * Sets the number of threads used to step the board. A value
+     * of one steps the board on the calling thread
+     * @param threads, the number of threads to step with
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+
+        if (pool != null) {
+            pool.shutdown(); // Release the workers of the previous pool
+            pool = null;
+        }
+
+        this.threads = threads;
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads - 1); // Calling thread is the last stepper
+
+            // Several stripes per thread so faster threads can claim more of them
+            stripeTileRows = Math.max(1, tileRows / (threads * STRIPES_PER_THREAD));
+            stripeCount = (tileRows + stripeTileRows - 1) / stripeTileRows;
+            workers = new StripeWorker[threads - 1];
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new StripeWorker();
+            }
+            workersStarted = false;
+        }
+    }
+
+    /**
+     * Gets the number of threads used to step the board
+     * @return, the thread count
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Advances the board by a single generation and swaps the buffers.
+     * Tiles that are not active already hold the same state in both
+     * buffers, so they are left untouched
+     */
+    public void step() {
+        if (boundary.wraps()) {
+            fillHalos();
+        }
+
+        int stripes = 1;
+        if (pool == null) {
+            stepTileRows(0, tileRows, 0);
+        } else {
+            stepParallel();
+            stripes = stripeCount;
+        }
+
+        // Add up the changes each stripe made to the population and hash
+        for (int i = 0; i < stripes; i++) {
+            births += stripeBirths[i];
+            deaths += stripeDeaths[i];
+            population += stripeBirths[i] - stripeDeaths[i];
+            hash ^= stripeHashes[i];
+            stripeBirths[i] = 0;
+            stripeDeaths[i] = 0;
+            stripeHashes[i] = 0L;
+        }
+
+        updateActiveTiles(); // Changed tiles and their neighbours are stepped next generation
+
+        long[] swap = current; // Swap current and next buffers
+        current = next;
+        next = swap;
+        generation++;
+    }
+
+    /**
+     * Copies the rows the board wraps round to into the halo rows above
+     * the first row and below the last
+     */
+    private void fillHalos() {
+        int top = 0; // Halo row above row 0
+        int first = wordsPerRow; // Row 0
+        int last = rows * wordsPerRow; // Last row
+        int bottom = last + wordsPerRow; // Halo row below the last row
+        if (boundary == Boundary.TORUS) {
+            System.arraycopy(current, last, current, top, wordsPerRow);
+            System.arraycopy(current, first, current, bottom, wordsPerRow);
+        } else {
+            mirror(last, top);
+            mirror(first, bottom);
+        }
+    }
+
+    /**
+     * Copies a row of the current buffer into another row reversed left
+     * to right, column c landing on column cols - 1 - c
+     * @param from, offset of the row to copy
+     * @param to, offset of the row to write
+     */
+    private void mirror(int from, int to) {
+        for (int i = 0; i < wordsPerRow; i++) {
+            mirrored[i] = Long.reverse(current[from + wordsPerRow - 1 - i]);
+        }
+
+        // Reversing whole words puts column c at wordsPerRow * 64 - 1 - c, shift down to cols - 1 - c
+        int shift = (wordsPerRow << 6) - cols;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long word = mirrored[i] >>> shift;
+            if (shift != 0 && i + 1 < wordsPerRow) {
+                word |= mirrored[i + 1] << (64 - shift);
+            }
+            current[to + i] = word;
+        }
+    }
+
+    /**
+     * Steps every stripe using the calling thread and the pool's workers,
+     * then parks until the last of them has finished
+     */
+    private void stepParallel() {
+        if (workersStarted) {
+            // A worker can still be returning from the last step for a few nanoseconds
+            for (StripeWorker worker : workers) {
+                while (!worker.isDone()) {
+                    Thread.onSpinWait();
+                }
+                worker.reinitialize();
+            }
+        }
+
+        nextStripe.set(0);
+        pending.set(workers.length + 1);
+        stepper = Thread.currentThread();
+        for (StripeWorker worker : workers) {
+            pool.execute(worker);
+        }
+        workersStarted = true;
+
+        claimStripes();
+        if (pending.decrementAndGet() != 0) {
+            while (pending.get() != 0) {
+                LockSupport.park(this); // Woken by the last worker to finish
+            }
+        }
+    }
+
+    /**
+     * Claims and steps stripes until every stripe has been claimed
+     */
+    private void claimStripes() {
+        int stripe;
+        while ((stripe = nextStripe.getAndIncrement()) < stripeCount) {
+            int from = stripe * stripeTileRows;
+            stepTileRows(from, Math.min(tileRows, from + stripeTileRows), stripe);
+        }
+    }
+
+    /**
+     * Computes the next state of the active tiles in a range of tile rows
+     * @param from, the first tile row to compute
+     * @param to, the tile row after the last tile row to compute
+     * @param stripe, the stripe being stepped, whose totals the changes are added to
+     */
+    private void stepTileRows(int from, int to, int stripe) {
+        for (int tileRow = from; tileRow < to; tileRow++) {
+            int base = tileRow * tileCols; // Index of the first tile in this tile row
+            int firstRow = tileRow * TILE_ROWS;
+            int lastRow = Math.min(rows, firstRow + TILE_ROWS);
+
+            // Step each run of neighbouring active tiles as one span of words
+            int tileCol = 0;
+            while (tileCol < tileCols) {
+                if (!activeTiles[base + tileCol]) {
+                    tileCol++;
+                    continue;
+                }
+
+                int end = tileCol + 1;
+                while (end < tileCols && activeTiles[base + end]) {
+                    end++;
+                }
+
+                for (int row = firstRow; row < lastRow; row++) {
+                    stepSpan(row, tileCol, end, base, stripe);
+                }
+                tileCol = end;
+            }
+        }
+    }
+
+    /**
+     * Computes the next state of a span of words on a single row into
+     * the next buffer, flags the tiles of any word that changed and adds
+     * the changed words to the stripe's birth, death and hash totals.
+     * With a vector kernel, the kernel computes the words in the middle
+     * of the span and the words at either end are computed one at a time
+     * @param row, the row to compute
+     * @param from, the first word of the span
+     * @param to, the word after the last word of the span
+     * @param tileBase, index of the first tile in the row's tile row
+     * @param stripe, the stripe the row belongs to
+     */
+    private void stepSpan(int row, int from, int to, int tileBase, int stripe) {
+        WordKernel vector = kernel;
+        int first = Math.max(from, 1); // Word 0 may look across the left edge
+        int end = Math.min(to, wordsPerRow - 1); // The last word may look across the right edge
+        if (vector == null || end - first < vector.lanes()) {
+            stepWords(row, from, to, tileBase, stripe);
+            return;
+        }
+
+        if (from < first) {
+            stepWords(row, from, first, tileBase, stripe);
+        }
+        int middle = (row + 1) * wordsPerRow; // Offset of the row being computed
+        vector.step(current, next, middle - wordsPerRow, middle, middle + wordsPerRow, first, end, ruleMasks);
+        countChanges(row, first, end, tileBase, stripe);
+        if (end < to) {
+            stepWords(row, end, to, tileBase, stripe);
+        }
+    }
+
+    /**
+     * Flags the tiles of any word of a span the kernel computed that
+     * changed, and adds the changed words to the stripe's totals
+     * @param row, the row computed
+     * @param from, the first word computed
+     * @param to, the word after the last word computed
+     * @param tileBase, index of the first tile in the row's tile row
+     * @param stripe, the stripe the row belongs to
+     */
+    private void countChanges(int row, int from, int to, int tileBase, int stripe) {
+        int middle = (row + 1) * wordsPerRow;
+        long[] cur = current;
+        long[] out = next;
+        long[] changed = changedTiles;
+        long born = 0; // Cells born along the span
+        long died = 0; // Cells that died along the span
+        long hashed = 0L; // Change to the hash along the span
+        boolean tracking = hashing;
+        long rowKey = tracking ? BoardHash.rowKey(row) : 0L;
+
+        for (int i = from; i < to; i++) {
+            long b = cur[middle + i];
+            long result = out[middle + i];
+            long flipped = result ^ b;
+            changed[tileBase + i] |= flipped;
+            born += Long.bitCount(flipped & result);
+            died += Long.bitCount(flipped & b);
+            if (tracking && flipped != 0) {
+                hashed ^= BoardHash.change(BoardHash.key(rowKey, i), b, result);
+            }
+        }
+
+        stripeBirths[stripe] += born;
+        stripeDeaths[stripe] += died;
+        stripeHashes[stripe] ^= hashed;
+    }
+
+    /**
+     * Computes the next state of a span of words one word at a time,
+     * flags the tiles of any word that changed and adds the changed
+     * words to the stripe's birth, death and hash totals
+     * @param row, the row to compute
+     * @param from, the first word of the span
+     * @param to, the word after the last word of the span
+     * @param tileBase, index of the first tile in the row's tile row
+     * @param stripe, the stripe the row belongs to
+     */
+    private void stepWords(int row, int from, int to, int tileBase, int stripe) {
+        int above = row * wordsPerRow; // Offset of the row above (halo row for row 0)
+        int middle = above + wordsPerRow; // Offset of the row being computed
+        int below = middle + wordsPerRow; // Offset of the row below (halo row for the last row)
+        long[] cur = current;
+        long[] out = next;
+        long[] changed = changedTiles;
+        long[] masks = ruleMasks;
+
+        int last = wordsPerRow - 1;
+        int end = Math.min(to, last); // Words before the last word always have a word to their right
+        boolean wraps = boundary.wraps();
+        int lastBit = (cols - 1) & 63; // Bit of the last column in the last word
+
+        // Slide a three word window along the span (zero past the left edge unless it wraps)
+        long aPrev = 0L, bPrev = 0L, cPrev = 0L;
+        if (from > 0) {
+            aPrev = cur[above + from - 1];
+            bPrev = cur[middle + from - 1];
+            cPrev = cur[below + from - 1];
+        } else if (wraps) { // Last column is west of the first, only bit 63 is read
+            aPrev = cur[above + last] << (63 - lastBit);
+            bPrev = cur[middle + last] << (63 - lastBit);
+            cPrev = cur[below + last] << (63 - lastBit);
+        }
+        long a = cur[above + from], b = cur[middle + from], c = cur[below + from];
+        long born = 0; // Cells born along the span
+        long died = 0; // Cells that died along the span
+        long hashed = 0L; // Change to the hash along the span
+        boolean tracking = hashing;
+        long rowKey = tracking ? BoardHash.rowKey(row) : 0L;
+
+        for (int i = from; i < end; i++) {
+            long aNext = cur[above + i + 1];
+            long bNext = cur[middle + i + 1];
+            long cNext = cur[below + i + 1];
+
+            long aW = (a << 1) | (aPrev >>> 63), aE = (a >>> 1) | (aNext << 63);
+            long bW = (b << 1) | (bPrev >>> 63), bE = (b >>> 1) | (bNext << 63);
+            long cW = (c << 1) | (cPrev >>> 63), cE = (c >>> 1) | (cNext << 63);
+            long result = masks == null
+                    ? nextWord(aW, a, aE, bW, b, bE, cW, c, cE) : ruleWord(masks, aW, a, aE, bW, b, bE, cW, c, cE);
+            out[middle + i] = result;
+            long flipped = result ^ b;
+            changed[tileBase + i] |= flipped;
+            born += Long.bitCount(flipped & result);
+            died += Long.bitCount(flipped & b);
+            if (tracking && result != b) {
+                hashed ^= BoardHash.change(BoardHash.key(rowKey, i), b, result);
+            }
+
+            aPrev = a; bPrev = b; cPrev = c;
+            a = aNext; b = bNext; c = cNext;
+        }
+
+        // Last word has nothing to its right unless it wraps, and its padding bits stay dead
+        if (to > last) {
+            long aW = (a << 1) | (aPrev >>> 63), bW = (b << 1) | (bPrev >>> 63), cW = (c << 1) | (cPrev >>> 63);
+            long aE = a >>> 1, bE = b >>> 1, cE = c >>> 1;
+            if (wraps) { // First column is east of the last
+                aE |= (cur[above] & 1L) << lastBit;
+                bE |= (cur[middle] & 1L) << lastBit;
+                cE |= (cur[below] & 1L) << lastBit;
+            }
+            long result = lastWordMask & (masks == null
+                    ? nextWord(aW, a, aE, bW, b, bE, cW, c, cE)
+                    : ruleWord(masks, aW, a, aE, bW, b, bE, cW, c, cE));
+            out[middle + last] = result;
+            long flipped = result ^ b;
+            changed[tileBase + last] |= flipped;
+            born += Long.bitCount(flipped & result);
+            died += Long.bitCount(flipped & b);
+            if (tracking && result != b) {
+                hashed ^= BoardHash.change(BoardHash.key(rowKey, last), b, result);
+            }
+        }
+
+        stripeBirths[stripe] += born;
+        stripeDeaths[stripe] += died;
+        stripeHashes[stripe] ^= hashed;
+    }
+
+    /**
+     * Replaces the active tiles with every tile that changed during
+     * the last step plus its eight neighbours, then resets the changes
+     */
+    private void updateActiveTiles() {
+        Arrays.fill(activeTiles, false);
+
+        for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+            for (int tileCol = 0; tileCol < tileCols; tileCol++) {
+                if (changedTiles[tileRow * tileCols + tileCol] != 0) {
+                    changedTiles[tileRow * tileCols + tileCol] = 0L;
+                    activateAround(tileRow, tileCol);
+                }
+            }
+        }
+        if (rule.isBornFromNothing()) {
+            Arrays.fill(activeTiles, true); // Empty tiles change too
+        }
+    }
+
+    /**
+     * Marks a tile and its eight neighbours as active. When the board
+     * wraps, neighbours past an edge are the tiles on the opposite edge,
+     * and past the top or bottom of a Klein bottle, where columns are
+     * mirrored, the whole opposite tile row
+     * @param tileRow, the row of the tile
+     * @param tileCol, the column of the tile
+     */
+    private void activateAround(int tileRow, int tileCol) {
+        boolean wraps = boundary.wraps();
+        for (int dr = -1; dr <= 1; dr++) {
+            int r = tileRow + dr;
+            if (r < 0 || r >= tileRows) {
+                if (!wraps) {
+                    continue;
+                }
+                r = r < 0 ? tileRows - 1 : 0;
+                if (boundary == Boundary.KLEIN_BOTTLE) {
+                    Arrays.fill(activeTiles, r * tileCols, (r + 1) * tileCols, true);
+                    continue;
+                }
+            }
+            for (int dc = -1; dc <= 1; dc++) {
+                int c = tileCol + dc;
+                if (c < 0 || c >= tileCols) {
+                    if (!wraps) {
+                        continue;
+                    }
+                    c = c < 0 ? tileCols - 1 : 0;
+                }
+                activeTiles[r * tileCols + c] = true;
+            }
+        }
+    }
+
+    /**
+     * Counts the tiles that will be stepped next generation
+     * @return, the number of active tiles
+     */
+    public int getActiveTileCount() {
+        int count = 0;
+        for (boolean active : activeTiles) {
+            if (active) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Applies the game rules to 64 cells at once. Each parameter holds
+     * one neighbour (or the cell itself) for every bit position
+     * @return, the next state of the 64 cells
+     */
+    static long nextWord(long aW, long a, long aE, long bW, long b, long bE, long cW, long c, long cE) {
+        // Add each row of three into a two bit sum (ones, twos)
+        long a0 = aW ^ a ^ aE;
+        long a1 = (aW & a) | (aE & (aW ^ a));
+        long b0 = bW ^ bE; // Middle row excludes the cell itself
+        long b1 = bW & bE;
+        long c0 = cW ^ c ^ cE;
+        long c1 = (cW & c) | (cE & (cW ^ c));
+
+        // Add the ones column, carrying into the twos column
+        long ones = a0 ^ b0 ^ c0;
+        long carry = (a0 & b0) | (c0 & (a0 ^ b0));
+
+        // Neighbour count is 2 or 3 only if exactly one twos bit is set
+        long p = a1 ^ b1;
+        long q = c1 ^ carry;
+        long oneTwo = (p ^ q) & ~((a1 & b1) | (c1 & carry));
+
+        // Count of 3 gives birth or survival, count of 2 only survival
+        return oneTwo & (ones | b);
+    }
+
+    /**
+     * Applies any other life-like rule to 64 cells at once. The
+     * neighbour count is summed into four bit planes, then each bit of
+     * the result is picked from the rule's masks by the count, one plane
+     * at a time. Kept apart from nextWord() so both stay small enough to
+     * be inlined where they are called
+     * @param masks, the rule's masks from ruleMasks()
+     * @return, the next state of the 64 cells
+     */
+    static long ruleWord(long[] masks, long aW, long a, long aE, long bW, long b, long bE, long cW, long c, long cE) {
+        // Add each row of three into a two bit sum (ones, twos)
+        long a0 = aW ^ a ^ aE;
+        long a1 = (aW & a) | (aE & (aW ^ a));
+        long b0 = bW ^ bE; // Middle row excludes the cell itself
+        long b1 = bW & bE;
+        long c0 = cW ^ c ^ cE;
+        long c1 = (cW & c) | (cE & (cW ^ c));
+
+        // Add the three sums into a four bit count (s0 to s3)
+        long s0 = a0 ^ b0 ^ c0;
+        long carry = (a0 & b0) | (c0 & (a0 ^ b0));
+        long p = a1 ^ b1;
+        long q = c1 ^ carry;
+        long s1 = p ^ q;
+        long pair = a1 & b1;
+        long fours = c1 & carry;
+        long s2 = pair ^ fours ^ (p & q);
+        long s3 = pair & fours; // Only a count of 8 sets the eights bit
+
+        // Next state for each count given the cell's state: birth mask, or survival mask where b is set
+        long v0 = masks[0] ^ (b & masks[9]);
+        long v1 = masks[1] ^ (b & masks[10]);
+        long v2 = masks[2] ^ (b & masks[11]);
+        long v3 = masks[3] ^ (b & masks[12]);
+        long v4 = masks[4] ^ (b & masks[13]);
+        long v5 = masks[5] ^ (b & masks[14]);
+        long v6 = masks[6] ^ (b & masks[15]);
+        long v7 = masks[7] ^ (b & masks[16]);
+        long v8 = masks[8] ^ (b & masks[17]);
+
+        // Pick by the count's bits, lowest first
+        long v01 = v0 ^ (s0 & (v0 ^ v1));
+        long v23 = v2 ^ (s0 & (v2 ^ v3));
+        long v45 = v4 ^ (s0 & (v4 ^ v5));
+        long v67 = v6 ^ (s0 & (v6 ^ v7));
+        long v03 = v01 ^ (s1 & (v01 ^ v23));
+        long v47 = v45 ^ (s1 & (v45 ^ v67));
+        long v07 = v03 ^ (s2 & (v03 ^ v47));
+        return v07 ^ (s3 & (v07 ^ v8));
+    }
+
+    /**
+     * Builds the masks ruleWord() applies a life-like rule with: for
+     * each count the birth mask, then for each count the birth mask
+     * XORed with the survival mask
+     * @param rule, a life-like rule
+     * @return, the masks, or null for Conway's Game of Life
+     */
+    static long[] ruleMasks(Rule rule) {
+        if (!rule.isLifeLike()) {
+            throw new IllegalArgumentException("Bit-packed engines need a life-like rule: " + rule);
+        }
+        if (rule.equals(Rule.CONWAY)) {
+            return null; // Has its own shorter circuit
+        }
+
+        long[] masks = new long[18];
+        for (int count = 0; count <= 8; count++) {
+            long born = rule.isBorn(count) ? -1L : 0L;
+            long survives = rule.survives(count) ? -1L : 0L;
+            masks[count] = born;
+            masks[9 + count] = born ^ survives;
+        }
+        return masks;
+    }
+
+    /**
+     * Gets the state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return true, if the cell is alive
+     */
+    public boolean getCell(int row, int col) {
+        checkBounds(row, col);
+        return (current[index(row, col)] & (1L << col)) != 0;
+    }
+
+    /**
+     * Sets the state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @param alive, true to make the cell alive, false to make it dead
+     */
+    public void setCell(int row, int col, boolean alive) {
+        checkBounds(row, col);
+        int i = index(row, col);
+        long before = current[i];
+        long after = alive ? before | (1L << col) : before & ~(1L << col);
+        if (before == after) {
+            return;
+        }
+        current[i] = after;
+        population += alive ? 1 : -1;
+        if (hashing) {
+            hash ^= BoardHash.change(BoardHash.key(BoardHash.rowKey(row), col >>> 6), before, after);
+        }
+        activateAround(row / TILE_ROWS, col >>> 6); // Edited tile must be stepped next generation
+    }
+
+    /**
+     * Copies one row of the board into packed words
+     * @param row, the row to copy
+     * @param words, receives the row, at least getWordsPerRow() long after offset
+     * @param offset, index of words the first word of the row is written to
+     */
+    public void copyRow(int row, long[] words, int offset) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " outside " + rows + "x" + cols + " board");
+        }
+        System.arraycopy(current, (row + 1) * wordsPerRow, words, offset, wordsPerRow);
+    }
+
+    /**
+     * Replaces one row of the board with packed words
+     * @param row, the row to replace
+     * @param words, holds the row, at least getWordsPerRow() long after offset
+     * @param offset, index of words holding the first word of the row
+     */
+    public void setRow(int row, long[] words, int offset) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " outside " + rows + "x" + cols + " board");
+        }
+        int base = (row + 1) * wordsPerRow;
+        long rowKey = BoardHash.rowKey(row);
+        for (int i = 0; i < wordsPerRow; i++) {
+            long before = current[base + i];
+            long after = i == wordsPerRow - 1 ? words[offset + i] & lastWordMask : words[offset + i]; // Keep the bits past the last column dead
+            if (before != after) {
+                current[base + i] = after;
+                population += Long.bitCount(after) - Long.bitCount(before);
+                if (hashing) {
+                    hash ^= BoardHash.change(BoardHash.key(rowKey, i), before, after);
+                }
+                activateAround(row / TILE_ROWS, i); // Replaced tiles must be stepped next generation
+            }
+        }
+    }
+
+    /**
+     * Sets alive the cells of one word of a row whose bits are set
+     * @param row, the row of the cells
+     * @param word, the word of the row, holding columns word * 64 onwards
+     * @param bits, the cells to set alive
+     */
+    public void orWord(int row, int word, long bits) {
+        if (row < 0 || row >= rows || word < 0 || word >= wordsPerRow) {
+            throw new IndexOutOfBoundsException("Word " + word + " of row " + row + " outside "
+                    + rows + "x" + cols + " board");
+        }
+        int i = (row + 1) * wordsPerRow + word;
+        long before = current[i];
+        long after = before | (word == wordsPerRow - 1 ? bits & lastWordMask : bits); // Keep the bits past the last column dead
+        if (before == after) {
+            return;
+        }
+        current[i] = after;
+        population += Long.bitCount(after) - Long.bitCount(before);
+        if (hashing) {
+            hash ^= BoardHash.change(BoardHash.key(BoardHash.rowKey(row), word), before, after);
+        }
+        activateAround(row / TILE_ROWS, word); // Edited tile must be stepped next generation
+    }
+
+    /**
+     * Chooses whether the middle of each row is stepped by the vector
+     * kernel, when the JVM has one, or one word at a time. Both give the
+     * same bits
+     * @param vector, true to use the vector kernel if there is one
+     */
+    public void setVectorKernel(boolean vector) {
+        kernel = vector ? VECTOR_KERNEL : null;
+    }
+
+    /**
+     * Describes the kernel stepping the board, e.g. for benchmark output
+     * @return, "scalar", or the vector kernel, e.g. "vector 256-bit"
+     */
+    public String getKernelName() {
+        return kernel == null ? "scalar" : kernel.name();
+    }
+
+    /**
+     * Gets the number of longs holding each row
+     * @return, the words per row
+     */
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Gets the number of live cells, kept up to date as the board changes
+     * @return, the current population
+     */
+    public long getPopulation() {
+        return population;
+    }
+
+    /**
+     * Gets the number of cells born by every step since creation or the
+     * last clear, counted from the words that changed
+     * @return, the births
+     */
+    public long getBirths() {
+        return births;
+    }
+
+    /**
+     * Gets the number of cells that died in every step since creation
+     * or the last clear, counted from the words that changed
+     * @return, the deaths
+     */
+    public long getDeaths() {
+        return deaths;
+    }
+
+    /**
+     * Gets the BoardHash of the board. The first call hashes the whole
+     * board, after which the hash is kept up to date as the board changes
+     * @return, the board's hash, 0 for an empty board
+     */
+    public long getHash() {
+        if (!hashing) {
+            hash = BoardHash.of(this);
+            hashing = true;
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the number of rows on the board
+     * @return, the row count
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns on the board
+     * @return, the column count
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Gets the number of generations stepped since creation or the last clear
+     * @return, the current generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Sets the generation counter, e.g. when resuming from a checkpoint
+     * @param generation, the generation the board is at
+     */
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Gets the rule applied at each step
+     * @return, the rule
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Sets the rule applied from the next step on. Every tile is
+     * stepped next generation, as still areas may not be still under
+     * the new rule
+     * @param rule, a life-like rule
+     * @throws IllegalArgumentException, if the rule is not life-like
+     */
+    public void setRule(Rule rule) {
+        ruleMasks = ruleMasks(rule);
+        this.rule = rule;
+        Arrays.fill(activeTiles, true);
+    }
+
+    /**
+     * Gets what lies past the edges of the board
+     * @return, the boundary
+     */
+    public Boundary getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * Sets what lies past the edges of the board from the next step on.
+     * Every tile is stepped next generation, as the edges may change
+     * @param boundary, the boundary
+     */
+    public void setBoundary(Boundary boundary) {
+        this.boundary = boundary;
+        if (!boundary.wraps()) {
+            // Halo rows go back to dead in both buffers
+            int bottom = (rows + 1) * wordsPerRow;
+            for (long[] buffer : new long[][] {current, next}) {
+                Arrays.fill(buffer, 0, wordsPerRow, 0L);
+                Arrays.fill(buffer, bottom, bottom + wordsPerRow, 0L);
+            }
+        }
+        Arrays.fill(activeTiles, true);
+    }
+
+    /**
+     * Sets every cell on the board to dead and resets the generation
+     */
+    public void clear() {
+        Arrays.fill(current, 0L);
+        Arrays.fill(next, 0L);
+        Arrays.fill(activeTiles, rule.isBornFromNothing()); // Empty tiles change under B0
+        Arrays.fill(changedTiles, 0L);
+        generation = 0;
+        population = 0;
+        births = 0;
+        deaths = 0;
+        hash = 0L;
+    }
+
+    /**
+     * Gets the index of the word holding the given cell
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return, the index into the state buffer
+     */
+    private int index(int row, int col) {
+        return (row + 1) * wordsPerRow + (col >>> 6);
+    }
+
+    /**
+     * Throws if the position is outside the board
+     * @param row, the row to test
+     * @param col, the column to test
+     */
+    private void checkBounds(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("Cell (" + row + "," + col + ") outside " + rows + "x" + cols + " board");
+        }
+    }
+
+    /**
+     * ForkJoin task that helps the calling thread claim and step
+     * stripes, waking it if this is the last thread to finish
+     */
+    private class StripeWorker extends RecursiveAction {
+        @Override
+        /**
+         * Steps claimed stripes, then signals the calling thread
+         */
+        protected void compute() {
+            claimStripes();
+            if (pending.decrementAndGet() == 0) {
+                LockSupport.unpark(stepper);
+            }
+        }
+    }
+
+}
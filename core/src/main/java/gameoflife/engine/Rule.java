@@ -0,0 +1,419 @@
+package gameoflife.engine;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Outer totalistic rule, where a cell's next state depends only on its
+ * own state and how many of its neighbours are alive. Three notations
+ * are parsed:
+ *
+ * B/S         "B3/S23" (Conway's Game of Life), "B36/S23", or the older
+ *             survival first form "23/3"
+ * Generations "B2/S/C3" or "/2/3": cells that do not survive take C - 2
+ *             extra generations to die, and only live cells are counted
+ * Larger than Life
+ *             "R5,C0,M1,S34..58,B34..45,NM": neighbours out to range R
+ *             in a Moore (NM) or von Neumann (NN) neighbourhood, M1
+ *             counting the cell itself, C states as for Generations
+ *
+ * Whatever the notation, a rule compiles to a table giving the next
+ * state for every state and neighbour count, so engines apply any rule
+ * with one lookup per cell and no branches on the rule itself. Counts
+ * are stored without the cell itself, a rule counting it (M1) having
+ * its survival counts shifted down by one when parsed.
+ *
+ * State 0 is dead, state 1 alive, and states 2 to C - 1 dying.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class Rule {
+    public static final int MAX_RANGE = 50; // Largest Larger than Life range accepted
+    public static final int MAX_STATES = 256; // Most states a cell can have (stored as a byte)
+    public static final Rule CONWAY = parse("B3/S23"); // Conway's Game of Life
+
+    /**
+     * Cells counted as neighbours
+     */
+    public enum Neighbourhood {
+        MOORE, // Every cell within the range in both directions (a square)
+        VON_NEUMANN // Cells within the range in total steps along rows and columns (a diamond)
+    }
+
+    private final int range; // Furthest distance counted
+    private final Neighbourhood neighbourhood; // Shape of the cells counted
+    private final boolean middle; // True if the notation counted the cell itself
+    private final int states; // Number of states, 2 unless a Generations rule
+    private final boolean[] births; // Counts at which a dead cell becomes alive
+    private final boolean[] survivals; // Counts at which a live cell stays alive
+    private final byte[] table; // Next state, indexed by state * (maxCount + 1) + count
+    private final String text; // Rule in canonical notation
+
+    /**
+     * Class constructor, use parse() to create rules
+     */
+    private Rule(int range, Neighbourhood neighbourhood, boolean middle, int states,
+                 boolean[] births, boolean[] survivals) {
+        this.range = range;
+        this.neighbourhood = neighbourhood;
+        this.middle = middle;
+        this.states = states;
+        this.births = births;
+        this.survivals = survivals;
+
+        int counts = births.length;
+        table = new byte[states * counts];
+        for (int count = 0; count < counts; count++) {
+            table[count] = (byte) (births[count] ? 1 : 0);
+            table[counts + count] = (byte) (survivals[count] ? 1 : (states > 2 ? 2 : 0));
+            for (int state = 2; state < states; state++) {
+                table[state * counts + count] = (byte) ((state + 1) % states); // Dying cells age regardless
+            }
+        }
+        text = format();
+    }
+
+    /**
+     * Parses a rule in B/S, Generations or Larger than Life notation
+     * @param rule, the rule text, case is ignored
+     * @return, the rule
+     * @throws IllegalArgumentException, if the rule cannot be parsed
+     */
+    public static Rule parse(String rule) {
+        String text = rule.trim().toUpperCase(Locale.ROOT);
+        try {
+            if (text.length() > 1 && text.charAt(0) == 'R' && Character.isDigit(text.charAt(1))) {
+                return parseLargerThanLife(text);
+            }
+            return parseBirthSurvival(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid rule: " + rule, e);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid rule " + rule + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses "B3/S23", "B2/S/C3", "23/3" or "/2/3"
+     */
+    private static Rule parseBirthSurvival(String text) {
+        String[] parts = text.split("/", -1);
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("expected B/S or B/S/C");
+        }
+
+        boolean[] births = new boolean[9];
+        boolean[] survivals = new boolean[9];
+        int states = 2;
+        boolean lettered = parts[0].startsWith("B") || parts[0].startsWith("S");
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            char kind;
+            if (lettered) {
+                if (part.isEmpty()) {
+                    throw new IllegalArgumentException("empty part");
+                }
+                kind = part.charAt(0) == 'G' ? 'C' : part.charAt(0);
+                part = part.substring(1);
+            } else {
+                kind = "SBC".charAt(i); // Survival, birth, then states without letters
+            }
+
+            if (kind == 'C') {
+                states = Integer.parseInt(part);
+                continue;
+            }
+            if (kind != 'B' && kind != 'S') {
+                throw new IllegalArgumentException("unknown part " + parts[i]);
+            }
+            for (char digit : part.toCharArray()) {
+                if (digit < '0' || digit > '8') {
+                    throw new IllegalArgumentException("neighbour count " + digit + " is not 0 to 8");
+                }
+                (kind == 'B' ? births : survivals)[digit - '0'] = true;
+            }
+        }
+        return new Rule(1, Neighbourhood.MOORE, false, checkStates(states), births, survivals);
+    }
+
+    /**
+     * Parses "Rr,Cc,Mm,Smin..max,Bmin..max,Nn"
+     */
+    private static Rule parseLargerThanLife(String text) {
+        int range = 1;
+        int states = 2;
+        boolean middle = false;
+        int[] survive = null;
+        int[] birth = null;
+        Neighbourhood neighbourhood = Neighbourhood.MOORE;
+
+        for (String part : text.split(",")) {
+            if (part.isEmpty()) {
+                throw new IllegalArgumentException("empty part");
+            }
+            String value = part.substring(1);
+            switch (part.charAt(0)) {
+                case 'R':
+                    range = Integer.parseInt(value);
+                    break;
+                case 'C':
+                    states = Integer.parseInt(value);
+                    break;
+                case 'M':
+                    middle = value.equals("1");
+                    if (!middle && !value.equals("0")) {
+                        throw new IllegalArgumentException("M must be 0 or 1");
+                    }
+                    break;
+                case 'S':
+                    survive = parseInterval(value);
+                    break;
+                case 'B':
+                    birth = parseInterval(value);
+                    break;
+                case 'N':
+                    if (value.equals("M")) {
+                        neighbourhood = Neighbourhood.MOORE;
+                    } else if (value.equals("N")) {
+                        neighbourhood = Neighbourhood.VON_NEUMANN;
+                    } else {
+                        throw new IllegalArgumentException("neighbourhood must be NM or NN");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown part " + part);
+            }
+        }
+        if (range < 1 || range > MAX_RANGE) {
+            throw new IllegalArgumentException("range must be 1 to " + MAX_RANGE);
+        }
+        if (survive == null || birth == null) {
+            throw new IllegalArgumentException("S and B are required");
+        }
+
+        int counts = maxCount(range, neighbourhood) + 1;
+        boolean[] births = new boolean[counts];
+        boolean[] survivals = new boolean[counts];
+        for (int count = 0; count < counts; count++) {
+            births[count] = count >= birth[0] && count <= birth[1];
+            int counted = middle ? count + 1 : count; // A live cell counts itself with M1
+            survivals[count] = counted >= survive[0] && counted <= survive[1];
+        }
+        return new Rule(range, neighbourhood, middle, checkStates(states <= 1 ? 2 : states), births, survivals);
+    }
+
+    /**
+     * Parses "min..max"
+     * @return, the minimum then the maximum
+     */
+    private static int[] parseInterval(String text) {
+        int dots = text.indexOf("..");
+        if (dots < 0) {
+            int count = Integer.parseInt(text);
+            return new int[] {count, count};
+        }
+        return new int[] {Integer.parseInt(text.substring(0, dots)), Integer.parseInt(text.substring(dots + 2))};
+    }
+
+    /**
+     * Checks a number of states is in range
+     * @return, the states
+     */
+    private static int checkStates(int states) {
+        if (states < 2 || states > MAX_STATES) {
+            throw new IllegalArgumentException("states must be 2 to " + MAX_STATES);
+        }
+        return states;
+    }
+
+    /**
+     * Gets the most neighbours a cell can have, not counting itself
+     */
+    private static int maxCount(int range, Neighbourhood neighbourhood) {
+        int side = 2 * range + 1;
+        return neighbourhood == Neighbourhood.MOORE ? side * side - 1 : 2 * range * (range + 1);
+    }
+
+    /**
+     * Gets the furthest distance at which neighbours are counted
+     * @return, the range, 1 for B/S and Generations rules
+     */
+    public int getRange() {
+        return range;
+    }
+
+    /**
+     * Gets the shape of the cells counted as neighbours
+     * @return, the neighbourhood
+     */
+    public Neighbourhood getNeighbourhood() {
+        return neighbourhood;
+    }
+
+    /**
+     * Gets the number of states a cell can be in
+     * @return, 2 for two state rules, C for Generations rules
+     */
+    public int getStates() {
+        return states;
+    }
+
+    /**
+     * Gets the most live neighbours a cell can have, not counting itself
+     * @return, the largest neighbour count
+     */
+    public int getMaxCount() {
+        return births.length - 1;
+    }
+
+    /**
+     * Returns true if a dead cell with the parsed number of live
+     * neighbours becomes alive
+     * @param count, the live neighbours, not counting the cell itself
+     * @return true, if the cell is born
+     */
+    public boolean isBorn(int count) {
+        return births[count];
+    }
+
+    /**
+     * Returns true if a live cell with the parsed number of live
+     * neighbours stays alive
+     * @param count, the live neighbours, not counting the cell itself
+     * @return true, if the cell survives
+     */
+    public boolean survives(int count) {
+        return survivals[count];
+    }
+
+    /**
+     * Gets the next state of a cell
+     * @param state, the cell's state
+     * @param count, the live neighbours, not counting the cell itself
+     * @return, the cell's next state
+     */
+    public int next(int state, int count) {
+        return table[state * births.length + count] & 0xFF;
+    }
+
+    /**
+     * Gets the compiled transition table shared by the engines. The
+     * table must not be changed, and its bytes are unsigned
+     * @return, the next state, indexed by state * (getMaxCount() + 1) + count
+     */
+    byte[] getTable() {
+        return table;
+    }
+
+    /**
+     * Returns true if the rule has two states and counts the eight
+     * nearest neighbours, so it can be stepped on bit-packed boards
+     * @return true, if the rule is life-like
+     */
+    public boolean isLifeLike() {
+        return states == 2 && range == 1 && neighbourhood == Neighbourhood.MOORE;
+    }
+
+    /**
+     * Returns true if dead cells with no live neighbours are born (B0),
+     * so empty areas of the board change and cannot be skipped
+     * @return true, if the rule has B0
+     */
+    public boolean isBornFromNothing() {
+        return births[0];
+    }
+
+    /**
+     * Gets the rule in canonical notation, B/S or Generations for range
+     * one Moore rules and Larger than Life otherwise
+     * @return, the rule text
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * Rules are equal if they give the same next state for every cell,
+     * however they were written
+     * @param other, the object to compare with
+     * @return true, if the rules are the same
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Rule)) {
+            return false;
+        }
+        Rule rule = (Rule) other;
+        return range == rule.range && neighbourhood == rule.neighbourhood && states == rule.states
+                && Arrays.equals(births, rule.births) && Arrays.equals(survivals, rule.survivals);
+    }
+
+    /**
+     * Gets a hash code consistent with equals()
+     * @return, the hash code
+     */
+    @Override
+    public int hashCode() {
+        return (31 * Arrays.hashCode(births) + Arrays.hashCode(survivals)) * 31 + states * 64 + range;
+    }
+
+    /**
+     * Writes the rule in canonical notation
+     * @return, the rule text
+     */
+    private String format() {
+        StringBuilder text = new StringBuilder();
+        if (range == 1 && neighbourhood == Neighbourhood.MOORE) {
+            text.append('B');
+            for (int count = 0; count <= 8; count++) {
+                if (births[count]) {
+                    text.append(count);
+                }
+            }
+            text.append("/S");
+            for (int count = 0; count <= 8; count++) {
+                if (survivals[count]) {
+                    text.append(count);
+                }
+            }
+            if (states > 2) {
+                text.append("/C").append(states);
+            }
+            return text.toString();
+        }
+
+        int offset = middle ? 1 : 0; // Survival counts are written with the cell itself when M1
+        text.append('R').append(range).append(",C").append(states > 2 ? states : 0)
+                .append(",M").append(offset).append(",S");
+        appendInterval(text, survivals, offset);
+        text.append(",B");
+        appendInterval(text, births, 0);
+        text.append(",N").append(neighbourhood == Neighbourhood.MOORE ? 'M' : 'N');
+        return text.toString();
+    }
+
+    /**
+     * Writes the counts set in a table as "min..max"
+     */
+    private static void appendInterval(StringBuilder text, boolean[] counts, int offset) {
+        int min = -1;
+        int max = -1;
+        for (int count = 0; count < counts.length; count++) {
+            if (counts[count]) {
+                if (min < 0) {
+                    min = count;
+                }
+                max = count;
+            }
+        }
+        if (min < 0) {
+            text.append(counts.length + offset).append("..").append(counts.length + offset - 1); // Empty interval
+        } else {
+            text.append(min + offset).append("..").append(max + offset);
+        }
+    }
+
+}
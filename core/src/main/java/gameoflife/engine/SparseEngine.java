@@ -0,0 +1,283 @@
+package gameoflife.engine;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Sparse rule engine for an unbounded plane. Only the live cells are
+ * stored, as packed (row, col) keys in a primitive hash table, so memory
+ * grows and shrinks with the population rather than the area covered.
+ *
+ * Rows and columns are ints, so the plane wraps after 2^32 cells in each
+ * direction. The rows and columns parsed to the constructor only describe
+ * the region a Grid displays. Any life-like Rule without B0 can be
+ * applied.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class SparseEngine implements LifeEngine {
+    private static final int SELF = 16; // Added to a cell's own count when it is alive
+    private final int rows; // Rows of the displayed region
+    private final int cols; // Columns of the displayed region
+    private LongIntHashMap live = new LongIntHashMap(); // Live cells (value is always 1)
+    private LongIntHashMap counts = new LongIntHashMap(); // Scratch neighbour counts for a step
+    private long generation; // Current generation
+    private Rule rule = Rule.CONWAY; // Rule applied at each step
+    private boolean[] nextAlive = nextAlive(Rule.CONWAY); // Next state by count, SELF added for live cells
+    private long[] cells = new long[0]; // Scratch copy of the live cells for hashing
+
+    /**
+     * Class constructor that creates an empty plane displayed in a
+     * region of the parsed size
+     * @param rows, the number of rows displayed
+     * @param cols, the number of columns displayed
+     */
+    public SparseEngine(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Board size must be positive: " + rows + "x" + cols);
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Advances the plane by a single generation. Every live cell adds
+     * one to each neighbour's count and SELF to its own, then the cells
+     * whose count gives birth or survival become the new live set
+     */
+    public void step() {
+        int population = live.size();
+        counts.clear(population * 4); // Roughly the cells touched by a typical pattern
+
+        for (int slot = 0; slot < live.capacity(); slot++) {
+            if (live.valueAt(slot) == 0) {
+                continue;
+            }
+
+            long key = live.keyAt(slot);
+            int row = (int) (key >> 32);
+            int col = (int) key;
+            counts.add(key, SELF);
+            counts.add(pack(row - 1, col - 1), 1);
+            counts.add(pack(row - 1, col), 1);
+            counts.add(pack(row - 1, col + 1), 1);
+            counts.add(pack(row, col - 1), 1);
+            counts.add(pack(row, col + 1), 1);
+            counts.add(pack(row + 1, col - 1), 1);
+            counts.add(pack(row + 1, col), 1);
+            counts.add(pack(row + 1, col + 1), 1);
+        }
+
+        // Swap maps so the old live table is reused for the next generation
+        LongIntHashMap swap = live;
+        live = counts;
+        counts = swap;
+        counts.clear(population); // Next population is usually close to this one
+
+        // Keep only the cells the rule gives life to
+        boolean[] next = nextAlive;
+        for (int slot = 0; slot < live.capacity(); slot++) {
+            int count = live.valueAt(slot);
+            if (count != 0 && next[count]) {
+                counts.put(live.keyAt(slot), 1);
+            }
+        }
+
+        swap = live;
+        live = counts;
+        counts = swap;
+        generation++;
+    }
+
+    /**
+     * Gets the state of the cell at the given position of the plane
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return true, if the cell is alive
+     */
+    public boolean getCell(int row, int col) {
+        return live.get(pack(row, col)) != 0;
+    }
+
+    /**
+     * Sets the state of the cell at the given position of the plane
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @param alive, true to make the cell alive, false to make it dead
+     */
+    public void setCell(int row, int col, boolean alive) {
+        if (alive) {
+            live.put(pack(row, col), 1);
+        } else {
+            live.remove(pack(row, col));
+        }
+    }
+
+    /**
+     * Gets the number of live cells on the plane
+     * @return, the current population
+     */
+    public long getPopulation() {
+        return live.size();
+    }
+
+    /**
+     * Finds the bounding box of the live cells, so a display can follow
+     * the population across the plane
+     * @param box, receives the top, left, bottom and right of the live cells
+     * @return true, if any cell is alive
+     */
+    public boolean getBounds(int[] box) {
+        if (live.size() == 0) {
+            return false;
+        }
+        int top = Integer.MAX_VALUE, left = Integer.MAX_VALUE, bottom = Integer.MIN_VALUE, right = Integer.MIN_VALUE;
+        for (int slot = 0; slot < live.capacity(); slot++) {
+            if (live.valueAt(slot) == 0) {
+                continue;
+            }
+            long key = live.keyAt(slot);
+            int row = (int) (key >> 32);
+            int col = (int) key;
+            top = Math.min(top, row);
+            bottom = Math.max(bottom, row);
+            left = Math.min(left, col);
+            right = Math.max(right, col);
+        }
+        box[0] = top;
+        box[1] = left;
+        box[2] = bottom;
+        box[3] = right;
+        return true;
+    }
+
+    /**
+     * Hashes every live cell of the plane, not just the displayed region
+     * @return, the BoardHash of the live cells
+     */
+    public long getHash() {
+        int population = live.size();
+        if (cells.length < population) {
+            cells = new long[population + (population >>> 1)];
+        }
+        int count = 0;
+        for (int slot = 0; slot < live.capacity(); slot++) {
+            if (live.valueAt(slot) != 0) {
+                cells[count++] = live.keyAt(slot);
+            }
+        }
+        return BoardHash.ofCells(cells, count);
+    }
+
+    /**
+     * Visits every live cell of the plane
+     * @param visitor, given the position of each live cell
+     */
+    public void forEachLiveCell(CellVisitor visitor) {
+        for (int slot = 0; slot < live.capacity(); slot++) {
+            if (live.valueAt(slot) != 0) {
+                long key = live.keyAt(slot);
+                visitor.visit((int) (key >> 32), (int) key);
+            }
+        }
+    }
+
+    /**
+     * Checks whether cells can live outside the displayed region
+     * @return true, as the plane is unbounded
+     */
+    public boolean isUnbounded() {
+        return true;
+    }
+
+    /**
+     * Gets the number of rows displayed
+     * @return, the row count
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns displayed
+     * @return, the column count
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Gets the number of generations stepped since creation or the last clear
+     * @return, the current generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Sets the generation counter, e.g. when resuming from a checkpoint
+     * @param generation, the generation the board is at
+     */
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Gets the rule applied at each step
+     * @return, the rule
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Sets the rule applied from the next step on
+     * @param rule, a life-like rule without B0, as the plane is unbounded
+     * @throws IllegalArgumentException, if the rule cannot be applied to an unbounded plane
+     */
+    public void setRule(Rule rule) {
+        if (rule.isBornFromNothing()) {
+            throw new IllegalArgumentException("B0 rules fill an unbounded plane: " + rule);
+        }
+        nextAlive = nextAlive(rule);
+        this.rule = rule;
+    }
+
+    /**
+     * Builds the table of next states by count, the count of a live
+     * cell having SELF added
+     * @param rule, a life-like rule
+     * @return, true at each count that is alive next generation
+     */
+    private static boolean[] nextAlive(Rule rule) {
+        if (!rule.isLifeLike()) {
+            throw new IllegalArgumentException("SparseEngine needs a life-like rule: " + rule);
+        }
+        boolean[] next = new boolean[SELF + 9];
+        for (int count = 0; count <= 8; count++) {
+            next[count] = rule.isBorn(count);
+            next[SELF + count] = rule.survives(count);
+        }
+        return next;
+    }
+
+    /**
+     * Removes every live cell, releases the tables and resets the generation
+     */
+    public void clear() {
+        live = new LongIntHashMap();
+        counts = new LongIntHashMap();
+        generation = 0;
+    }
+
+    /**
+     * Packs a position into a single long key
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return, the row in the high 32 bits and the column in the low 32 bits
+     */
+    static long pack(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+}
@@ -0,0 +1,480 @@
+package gameoflife.engine;
+
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Rule engine for any Rule, including Generations rules with dying
+ * states and Larger than Life rules with wide neighbourhoods. Each cell
+ * is stored as a byte holding its state, and its next state is read
+ * from the rule's table by its state and live neighbour count, so the
+ * rule costs one lookup per cell whatever it is. Cells past the edge of
+ * the board are dead, or wrap round as set by setBoundary().
+ *
+ * Moore neighbourhoods are counted with running sums: each column keeps
+ * the live cells in the window of rows around the current row, and the
+ * window of columns slides along the row, so a step costs the same for
+ * every range. Von Neumann neighbourhoods sum a run of each row within
+ * range from prefix sums of the rows. Both pad the row sums with the
+ * columns past each edge, wrapped or dead, and resolve the rows past
+ * each edge once per row, so the loop over the cells has no edge checks.
+ *
+ * getCell() is true only for live cells (state 1); getState() also
+ * gives the dying states.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class TableEngine implements LifeEngine {
+    private final int rows; // Number of rows on the board
+    private final int cols; // Number of columns on the board
+    private byte[] current; // State of each cell, row by row
+    private byte[] next; // Scratch buffer the next generation is written into
+    private int[] columnSums; // Live cells in the window of rows around each column (Moore)
+    private int[] prefixSums; // Live cells before each column of each row (von Neumann)
+    private long generation; // Current generation
+    private long population; // Number of live cells
+    private long births; // Cells born by every step since creation or the last clear
+    private long deaths; // Live cells that died or started dying since creation or the last clear
+    private Rule rule = Rule.CONWAY; // Rule applied at each step
+    private Boundary boundary = Boundary.DEAD; // What lies past the edges
+
+    /**
+     * Class constructor that creates an empty board
+     * @param rows, the number of rows on the board
+     * @param cols, the number of columns on the board
+     */
+    public TableEngine(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Board must have at least one row and column");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        current = new byte[rows * cols];
+        next = new byte[rows * cols];
+    }
+
+    /**
+     * Class constructor that creates an empty board run under a rule
+     * @param rows, the number of rows on the board
+     * @param cols, the number of columns on the board
+     * @param rule, the rule to apply
+     */
+    public TableEngine(int rows, int cols, Rule rule) {
+        this(rows, cols);
+        setRule(rule);
+    }
+
+    /**
+     * Advances the board by a single generation
+     */
+    public void step() {
+        if (rule.getNeighbourhood() == Rule.Neighbourhood.MOORE) {
+            stepMoore();
+        } else {
+            stepVonNeumann();
+        }
+        byte[] swap = current;
+        current = next;
+        next = swap;
+        generation++;
+    }
+
+    /**
+     * Steps every cell, counting a square of neighbours with running sums
+     */
+    private void stepMoore() {
+        byte[] cur = current;
+        byte[] out = next;
+        byte[] table = rule.getTable();
+        int counts = rule.getMaxCount() + 1;
+        int range = rule.getRange();
+        int span = 2 * range; // Columns in a window besides the newest
+        if (columnSums == null || columnSums.length != cols + span) {
+            columnSums = new int[cols + span];
+        }
+        int[] sums = columnSums;
+        long alive = 0;
+        long born = 0; // Cells that came alive
+        long died = 0; // Live cells that died or started dying
+
+        // Fill the window of rows around row -1
+        Arrays.fill(sums, 0);
+        for (int r = -range - 1; r < range; r++) {
+            addRow(sums, r, 1, range);
+        }
+
+        for (int r = 0; r < rows; r++) {
+            // Slide the window of rows down to r
+            addRow(sums, r + range, 1, range);
+            addRow(sums, r - range - 1, -1, range);
+            if (boundary.wraps()) {
+                for (int k = 0; k < range; k++) {
+                    sums[k] = sums[cols + k]; // Columns -range to -1 are the last columns
+                    sums[range + cols + k] = sums[range + k]; // Columns past the end are the first columns
+                }
+            }
+
+            // Slide the window of columns along the row, column c being sums[c + range]
+            int window = 0;
+            for (int k = 0; k < span; k++) {
+                window += sums[k];
+            }
+            int base = r * cols;
+            for (int c = 0; c < cols; c++) {
+                window += sums[c + span];
+                int state = cur[base + c] & 0xFF;
+                int count = window - (state == 1 ? 1 : 0); // The window holds the cell itself
+                window -= sums[c];
+                byte result = table[state * counts + count];
+                out[base + c] = result;
+                if (result == 1) {
+                    alive++;
+                }
+                if (result != state) {
+                    if (result == 1) {
+                        born++;
+                    } else if (state == 1) {
+                        died++;
+                    }
+                }
+            }
+        }
+        population = alive;
+        births += born;
+        deaths += died;
+    }
+
+    /**
+     * Adds the live cells of one row to the column sums. Rows past the
+     * edges are the wrapped rows, mirrored on a Klein bottle, or nothing
+     * if the edges are dead
+     * @param sums, the column sums, column c at c + range
+     * @param row, the row, which may be past the top or bottom edge
+     * @param sign, 1 to add the row, -1 to take it away
+     * @param range, the range of the rule
+     */
+    private void addRow(int[] sums, int row, int sign, int range) {
+        boolean mirror = false;
+        if (row < 0 || row >= rows) {
+            if (!boundary.wraps()) {
+                return;
+            }
+            row = Math.floorMod(row, rows);
+            mirror = boundary == Boundary.KLEIN_BOTTLE;
+        }
+
+        byte[] cur = current;
+        int base = row * cols;
+        for (int c = 0; c < cols; c++) {
+            if (cur[base + (mirror ? cols - 1 - c : c)] == 1) {
+                sums[range + c] += sign;
+            }
+        }
+    }
+
+    /**
+     * Steps every cell, counting a diamond of neighbours from the prefix
+     * sums of the rows within range
+     */
+    private void stepVonNeumann() {
+        byte[] cur = current;
+        byte[] out = next;
+        byte[] table = rule.getTable();
+        int counts = rule.getMaxCount() + 1;
+        int range = rule.getRange();
+        int stride = cols + 2 * range + 1; // Row of prefix sums, column c at c + range
+        if (prefixSums == null || prefixSums.length != rows * stride) {
+            prefixSums = new int[rows * stride];
+        }
+        int[] prefix = prefixSums;
+        long alive = 0;
+        long born = 0; // Cells that came alive
+        long died = 0; // Live cells that died or started dying
+
+        // Prefix sums of each row, padded with the wrapped columns (or dead ones) either side
+        boolean wraps = boundary.wraps();
+        for (int r = 0; r < rows; r++) {
+            int base = r * cols;
+            int sum = 0;
+            for (int p = 0; p < stride - 1; p++) {
+                prefix[r * stride + p] = sum;
+                int c = p - range;
+                if (c >= 0 && c < cols) {
+                    sum += cur[base + c] == 1 ? 1 : 0;
+                } else if (wraps) {
+                    sum += cur[base + Math.floorMod(c, cols)] == 1 ? 1 : 0;
+                }
+            }
+            prefix[r * stride + stride - 1] = sum;
+        }
+
+        // Rows of the diamond around each row, worked out once per row so the cell loop never checks an edge
+        int[] rowBases = new int[2 * range + 1];
+        int[] widths = new int[2 * range + 1];
+        int[] centres = new int[2 * range + 1]; // Column the diamond is centred on, less c * steps
+        int[] steps = new int[2 * range + 1]; // 1, or -1 for a mirrored row
+        for (int r = 0; r < rows; r++) {
+            int found = 0;
+            for (int dr = -range; dr <= range; dr++) {
+                int nr = r + dr;
+                boolean mirror = false;
+                if (nr < 0 || nr >= rows) {
+                    if (!wraps) {
+                        continue;
+                    }
+                    nr = Math.floorMod(nr, rows);
+                    mirror = boundary == Boundary.KLEIN_BOTTLE;
+                }
+                rowBases[found] = nr * stride + range;
+                widths[found] = range - Math.abs(dr);
+                centres[found] = mirror ? cols - 1 : 0;
+                steps[found] = mirror ? -1 : 1;
+                found++;
+            }
+
+            int base = r * cols;
+            for (int c = 0; c < cols; c++) {
+                int count = 0;
+                for (int k = 0; k < found; k++) {
+                    int at = rowBases[k] + centres[k] + steps[k] * c;
+                    count += prefix[at + widths[k] + 1] - prefix[at - widths[k]];
+                }
+                int state = cur[base + c] & 0xFF;
+                count -= state == 1 ? 1 : 0; // The diamond holds the cell itself
+                byte result = table[state * counts + count];
+                out[base + c] = result;
+                if (result == 1) {
+                    alive++;
+                }
+                if (result != state) {
+                    if (result == 1) {
+                        born++;
+                    } else if (state == 1) {
+                        died++;
+                    }
+                }
+            }
+        }
+        population = alive;
+        births += born;
+        deaths += died;
+    }
+
+    /**
+     * Gets the state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return true, if the cell is alive (state 1)
+     */
+    public boolean getCell(int row, int col) {
+        return current[row * cols + col] == 1;
+    }
+
+    /**
+     * Sets the state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @param alive, true to make the cell alive, false to make it dead
+     */
+    public void setCell(int row, int col, boolean alive) {
+        setState(row, col, alive ? 1 : 0);
+    }
+
+    /**
+     * Gets the full state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return, 0 if dead, 1 if alive, 2 or more if dying
+     */
+    public int getState(int row, int col) {
+        return current[row * cols + col] & 0xFF;
+    }
+
+    /**
+     * Sets the full state of the cell at the given position
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @param state, 0 for dead, 1 for alive, 2 or more for dying
+     */
+    public void setState(int row, int col, int state) {
+        if (state < 0 || state >= rule.getStates()) {
+            throw new IllegalArgumentException("State " + state + " is not valid under " + rule);
+        }
+        int index = row * cols + col;
+        population += (state == 1 ? 1 : 0) - (current[index] == 1 ? 1 : 0);
+        current[index] = (byte) state;
+    }
+
+    /**
+     * Copies the live cells of one row into packed words
+     * @param row, the row to copy
+     * @param words, receives the row, at least (getCols() + 63) / 64 long after offset
+     * @param offset, index of words the first word of the row is written to
+     */
+    @Override
+    public void copyRow(int row, long[] words, int offset) {
+        int base = row * cols;
+        for (int i = 0; i < (cols + 63) >>> 6; i++) {
+            long word = 0L;
+            int end = Math.min(64, cols - (i << 6));
+            for (int bit = 0; bit < end; bit++) {
+                if (current[base + (i << 6) + bit] == 1) {
+                    word |= 1L << bit;
+                }
+            }
+            words[offset + i] = word;
+        }
+    }
+
+    /**
+     * Gets the number of live cells on the board, dying cells excluded
+     * @return, the current population
+     */
+    public long getPopulation() {
+        return population;
+    }
+
+    /**
+     * Gets the number of cells born by every step since creation or the
+     * last clear
+     * @return, the births
+     */
+    public long getBirths() {
+        return births;
+    }
+
+    /**
+     * Gets the number of live cells that died, or started dying under a
+     * Generations rule, in every step since creation or the last clear
+     * @return, the deaths
+     */
+    public long getDeaths() {
+        return deaths;
+    }
+
+    /**
+     * Gets the hash of the board. Live cells hash as on every other
+     * engine; each dying cell adds the hash of its state at a position
+     * past the end of its row, so boards differing only in dying cells
+     * hash differently
+     * @return, the board's hash, 0 for an empty board
+     */
+    @Override
+    public long getHash() {
+        long hash = BoardHash.of(this);
+        if (rule.getStates() > 2) {
+            int wordsPerRow = (cols + 63) >>> 6;
+            for (int r = 0; r < rows; r++) {
+                long rowKey = BoardHash.rowKey(r);
+                int base = r * cols;
+                for (int c = 0; c < cols; c++) {
+                    int state = current[base + c] & 0xFF;
+                    if (state > 1) {
+                        hash ^= BoardHash.word(BoardHash.key(rowKey, wordsPerRow + c), state);
+                    }
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the number of rows on the board
+     * @return, the row count
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns on the board
+     * @return, the column count
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Gets the number of generations stepped since creation or the last clear
+     * @return, the current generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Sets the generation counter, e.g. when resuming from a checkpoint
+     * @param generation, the generation the board is at
+     */
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Gets the rule applied at each step
+     * @return, the rule
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Sets the rule applied from the next step on. Dying cells past the
+     * new rule's last state are made dead
+     * @param rule, any rule
+     * @throws IllegalArgumentException, if the board wraps and is too small for the rule's range
+     */
+    public void setRule(Rule rule) {
+        checkWrap(rule, boundary);
+        for (int i = 0; i < current.length; i++) {
+            if ((current[i] & 0xFF) >= rule.getStates()) {
+                current[i] = 0;
+            }
+        }
+        this.rule = rule;
+    }
+
+    /**
+     * Gets what lies past the edges of the board
+     * @return, the boundary
+     */
+    public Boundary getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * Sets what lies past the edges of the board from the next step on
+     * @param boundary, the boundary
+     * @throws IllegalArgumentException, if the board wraps and is too small for the rule's range
+     */
+    public void setBoundary(Boundary boundary) {
+        checkWrap(rule, boundary);
+        this.boundary = boundary;
+    }
+
+    /**
+     * Checks a wrapping board is wide and tall enough that no cell
+     * counts the same neighbour twice
+     */
+    private void checkWrap(Rule rule, Boundary boundary) {
+        int side = 2 * rule.getRange() + 1;
+        if (boundary.wraps() && (rows < side || cols < side)) {
+            throw new IllegalArgumentException("A " + boundary + " board needs at least " + side + "x" + side
+                    + " cells for " + rule);
+        }
+    }
+
+    /**
+     * Sets every cell on the board to dead and resets the generation
+     */
+    public void clear() {
+        Arrays.fill(current, (byte) 0);
+        Arrays.fill(next, (byte) 0);
+        generation = 0;
+        population = 0;
+        births = 0;
+        deaths = 0;
+    }
+
+}
@@ -0,0 +1,69 @@
+package gameoflife.engine;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Computes the next state of a run of words inside a row several words
+ * at a time, e.g. with SIMD lanes. PackedEngine steps the words at the
+ * ends of each span itself and hands the kernel the middle, where every
+ * word has a word on both sides, so the kernel never checks an edge. It
+ * only writes the next state; the engine then counts what changed.
+ *
+ * The vector kernel is compiled into the multi-release jar for Java 17
+ * and later, and only loads when the JVM is started with
+ * --add-modules jdk.incubator.vector. Without it, or with
+ * -Dgameoflife.kernel=scalar, find() returns null and every word is
+ * stepped by the scalar circuit, which gives the same bits.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+interface WordKernel {
+    String PROPERTY = "gameoflife.kernel"; // System property choosing the kernel, "scalar" or "vector"
+    String VECTOR_CLASS = "gameoflife.engine.VectorWordKernel"; // Kernel loaded when the Vector API is there
+
+    /**
+     * Computes the next state of words from to to of a row
+     * @param cur, the current state
+     * @param out, receives the next state
+     * @param above, offset of the row above
+     * @param middle, offset of the row being computed
+     * @param below, offset of the row below
+     * @param from, the first word, at least 1
+     * @param to, the word after the last word, at most the last word of the row
+     *            and at least lanes() words after from
+     * @param masks, the rule's masks from PackedEngine.ruleMasks(), null for Conway's Game of Life
+     */
+    void step(long[] cur, long[] out, int above, int middle, int below, int from, int to, long[] masks);
+
+    /**
+     * Gets the number of words the kernel computes at once
+     * @return, the lanes of each vector
+     */
+    int lanes();
+
+    /**
+     * Describes the kernel, e.g. "vector 256-bit"
+     * @return, the description
+     */
+    String name();
+
+    /**
+     * Loads the vector kernel if the JVM can run it and it is not turned off
+     * @return, the kernel, or null to step every word with the scalar circuit
+     */
+    static WordKernel find() {
+        if ("scalar".equalsIgnoreCase(System.getProperty(PROPERTY, ""))) {
+            return null;
+        }
+        try {
+            // A named module only reads what it requires, so read the incubator module if it was added
+            ModuleLayer.boot().findModule("jdk.incubator.vector").ifPresent(WordKernel.class.getModule()::addReads);
+            WordKernel kernel = (WordKernel) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+            return kernel.lanes() >= 4 || "vector".equalsIgnoreCase(System.getProperty(PROPERTY, ""))
+                    ? kernel : null; // Two lanes rarely beat the scalar circuit
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null; // Older JVM, or jdk.incubator.vector not added
+        }
+    }
+
+}
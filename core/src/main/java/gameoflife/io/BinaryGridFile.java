@@ -0,0 +1,427 @@
+package gameoflife.io;
+
+import gameoflife.GridSnapshot;
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.Rule;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Reads and writes the versioned binary grid format. All values are
+ * little endian:
+ *
+ *   magic "GOLB", int version, int flags, int rows, int cols, long generation
+ *
+ * followed by the board as packed longs, row by row, bit (col & 63) of
+ * word (col >>> 6) holding column col. With the ZERO_RUNS flag every
+ * zero word is followed by an int counting the zero words in its run
+ * (itself included), which keeps sparse boards small. Both directions
+ * stream through one buffer, a row at a time.
+ *
+ * Version 2 adds the MAPPED layout written by MappedEngine: the header
+ * is padded to MAPPED_DATA_OFFSET bytes and followed by two
+ * uncompressed boards, the current one being board (generation & 1).
+ *
+ * Version 3 follows the generation with the rule the board was run
+ * under, a short length then that many ASCII characters. Older files
+ * are read as B3/S23. Only live cells are stored, so the dying cells
+ * of a Generations rule are saved as dead.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class BinaryGridFile {
+    public static final String EXTENSION = "golb"; // File extension of binary grid files
+    public static final int VERSION = 3; // Version written by this class
+    public static final int ZERO_RUNS = 1; // Flag set when runs of zero words are compressed
+    public static final int MAPPED = 2; // Flag set on the double board files of MappedEngine
+    public static final int MAGIC = 0x424C4F47; // "GOLB" read as a little endian int
+    public static final int HEADER_SIZE = 28; // Bytes of the header before the rule
+    public static final int GENERATION_OFFSET = 20; // Position of the generation in the header
+    public static final int MAPPED_DATA_OFFSET = 64; // Position of the first board of a MAPPED file
+    public static final int MAX_RULE_LENGTH = MAPPED_DATA_OFFSET - HEADER_SIZE - Short.BYTES; // Longest rule stored
+    private static final String DEFAULT_RULE = Rule.CONWAY.toString(); // Rule of files written before version 3
+    private static final int BUFFER_SIZE = 1 << 16; // Bytes read or written at a time
+
+    /**
+     * Prevents instantiation of the utility class
+     */
+    private BinaryGridFile() {
+    }
+
+    /**
+     * Header of a binary grid file
+     */
+    public static final class Header {
+        private final int version; // Format version the file was written with
+        private final int flags; // Encoding flags
+        private final int rows; // Rows on the saved board
+        private final int cols; // Columns on the saved board
+        private final long generation; // Generation the board was saved at
+        private final String rule; // Rule the board was run under
+
+        /**
+         * Class constructor
+         * @param version, the format version
+         * @param flags, the encoding flags
+         * @param rows, the rows on the board
+         * @param cols, the columns on the board
+         * @param generation, the generation of the board
+         * @param rule, the rule the board was run under
+         */
+        Header(int version, int flags, int rows, int cols, long generation, String rule) {
+            this.version = version;
+            this.flags = flags;
+            this.rows = rows;
+            this.cols = cols;
+            this.generation = generation;
+            this.rule = rule;
+        }
+
+        /**
+         * Gets the format version the file was written with
+         * @return version, the format version the file was written with
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the encoding flags
+         * @return flags, the encoding flags
+         */
+        public int getFlags() {
+            return flags;
+        }
+
+        /**
+         * Gets the rows on the saved board
+         * @return rows, the rows on the saved board
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Gets the columns on the saved board
+         * @return cols, the columns on the saved board
+         */
+        public int getCols() {
+            return cols;
+        }
+
+        /**
+         * Gets the generation the board was saved at
+         * @return generation, the generation the board was saved at
+         */
+        public long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Gets the rule the board was run under
+         * @return rule, the rule in B/S notation
+         */
+        public String getRule() {
+            return rule;
+        }
+    }
+
+    /**
+     * Source of the packed rows being written
+     */
+    private interface RowSource {
+        void copyRow(int row, long[] words, int offset);
+    }
+
+    /**
+     * Writes the whole board of the engine to file
+     * @param engine, the engine to save
+     * @param file, the file to write
+     * @param compress, true to compress runs of zero words
+     * @throws IOException, if the file cannot be written
+     */
+    public static void write(LifeEngine engine, Path file, boolean compress) throws IOException {
+        write(engine::copyRow, engine.getRows(), engine.getCols(), engine.getGeneration(), engine.getRule().toString(),
+                file, compress);
+    }
+
+    /**
+     * Writes a snapshot of a board to file, e.g. as a checkpoint taken
+     * while the engine keeps stepping
+     * @param snapshot, the snapshot to save
+     * @param file, the file to write
+     * @param compress, true to compress runs of zero words
+     * @throws IOException, if the file cannot be written
+     */
+    public static void write(GridSnapshot snapshot, Path file, boolean compress) throws IOException {
+        write(snapshot::copyRow, snapshot.getRows(), snapshot.getCols(), snapshot.getGeneration(),
+                snapshot.getRule().toString(), file, compress);
+    }
+
+    /**
+     * Writes a board from any source of packed rows
+     */
+    private static void write(RowSource source, int rows, int cols, long generation, String rule,
+                              Path file, boolean compress) throws IOException {
+        int wordsPerRow = (cols + 63) >>> 6;
+        long[] row = new long[wordsPerRow];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            putHeader(buffer, compress ? ZERO_RUNS : 0, rows, cols, generation, rule);
+
+            int zeros = 0; // Length of the current run of zero words
+            for (int r = 0; r < rows; r++) {
+                source.copyRow(r, row, 0);
+                for (int i = 0; i < wordsPerRow; i++) {
+                    if (buffer.remaining() < 2 * Long.BYTES + Integer.BYTES) { // End of a run plus this word
+                        drain(buffer, channel);
+                    }
+
+                    if (!compress) {
+                        buffer.putLong(row[i]);
+                    } else if (row[i] == 0) {
+                        zeros++;
+                    } else {
+                        if (zeros > 0) {
+                            buffer.putLong(0L).putInt(zeros); // End the run before this word
+                            zeros = 0;
+                        }
+                        buffer.putLong(row[i]);
+                    }
+                }
+            }
+            if (zeros > 0) {
+                buffer.putLong(0L).putInt(zeros);
+            }
+            drain(buffer, channel);
+        }
+    }
+
+    /**
+     * Reads just the header of a file
+     * @param file, the file to read
+     * @return, the header
+     * @throws IOException, if the file cannot be read or is not a binary grid file
+     */
+    public static Header readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readHeader(channel, file);
+        }
+    }
+
+    /**
+     * Reads a file into the engine. Cells outside the engine are
+     * dropped and cells of the engine outside the file are left dead,
+     * or untouched when adding. Unless adding, the engine is set to the
+     * generation the file was saved at
+     * @param file, the file to read
+     * @param engine, the engine to load into
+     * @param add, true to add the file's live cells to the existing ones
+     * @return, the header of the file
+     * @throws IOException, if the file cannot be read, is not a binary grid file or is too short
+     */
+    public static Header read(Path file, LifeEngine engine, boolean add) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, file);
+            boolean compressed = (header.getFlags() & ZERO_RUNS) != 0;
+            buffer.clear().flip(); // Empty, ready for words
+            if ((header.getFlags() & MAPPED) != 0) {
+                channel.position(mappedBoardOffset(header.getRows(), header.getCols(), header.getGeneration()));
+            }
+
+            if (!add) {
+                engine.clear();
+            }
+
+            int fileWords = (header.getCols() + 63) >>> 6;
+            int engineWords = (engine.getCols() + 63) >>> 6;
+            long[] fileRow = new long[fileWords];
+            long[] engineRow = new long[engineWords];
+            int zeros = 0; // Zero words still owed by the current run
+
+            for (int r = 0; r < header.getRows(); r++) {
+                boolean empty = true;
+                for (int i = 0; i < fileWords; i++) {
+                    if (zeros > 0) {
+                        zeros--;
+                        fileRow[i] = 0L;
+                        continue;
+                    }
+
+                    long word = nextLong(buffer, channel, file);
+                    if (compressed && word == 0) {
+                        zeros = nextInt(buffer, channel, file) - 1; // This word is the first of the run
+                    }
+                    fileRow[i] = word;
+                    empty &= word == 0;
+                }
+
+                // Engine is already clear, so only rows with live cells need writing
+                if (empty || r >= engine.getRows()) {
+                    continue;
+                }
+                if (add) {
+                    engine.copyRow(r, engineRow, 0);
+                } else {
+                    Arrays.fill(engineRow, 0L);
+                }
+                for (int i = 0; i < Math.min(fileWords, engineWords); i++) {
+                    engineRow[i] |= fileRow[i];
+                }
+                engine.setRow(r, engineRow, 0);
+            }
+            if (!add) {
+                engine.setGeneration(header.getGeneration()); // Carry on from the generation saved
+            }
+            return header;
+        }
+    }
+
+    /**
+     * Gets the position of the current board in a MAPPED file
+     * @param rows, the rows on the board
+     * @param cols, the columns on the board
+     * @param generation, the generation in the header
+     * @return, the byte offset of the current board
+     */
+    public static long mappedBoardOffset(int rows, int cols, long generation) {
+        long boardBytes = (long) rows * ((cols + 63) >>> 6) * Long.BYTES;
+        return MAPPED_DATA_OFFSET + (generation & 1) * boardBytes;
+    }
+
+    /**
+     * Puts a header holding the parsed values into the buffer
+     * @param buffer, a little endian buffer to put the header in
+     * @param flags, the encoding flags
+     * @param rows, the rows on the board
+     * @param cols, the columns on the board
+     * @param generation, the generation of the board
+     * @param rule, the rule the board is run under
+     */
+    public static void putHeader(ByteBuffer buffer, int flags, int rows, int cols, long generation, String rule) {
+        if (rule.length() > MAX_RULE_LENGTH) {
+            throw new IllegalArgumentException("Rule longer than " + MAX_RULE_LENGTH + " characters: " + rule);
+        }
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(rows).putInt(cols).putLong(generation);
+        buffer.putShort((short) rule.length());
+        buffer.put(rule.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Reads and checks the header at the start of the channel, leaving
+     * the channel positioned just after it
+     * @param channel, the channel to read
+     * @param file, the file being read, for error messages
+     * @return, the header
+     * @throws IOException, if the header is not a supported binary grid header
+     */
+    private static Header readHeader(FileChannel channel, Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        fill(buffer, channel, file);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary grid file: " + file);
+        }
+        int version = buffer.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported binary grid version " + version + ": " + file);
+        }
+        int flags = buffer.getInt();
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        if (rows < 0 || cols < 0) {
+            throw new IOException("Negative board size " + rows + "x" + cols + ": " + file);
+        }
+        long generation = buffer.getLong();
+        if (version < 3) {
+            return new Header(version, flags, rows, cols, generation, DEFAULT_RULE);
+        }
+
+        // Rule follows the fixed part of the header
+        ByteBuffer length = ByteBuffer.allocate(Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        fill(length, channel, file);
+        int ruleLength = length.getShort();
+        if (ruleLength < 0 || ruleLength > MAX_RULE_LENGTH) {
+            throw new IOException("Invalid rule length " + ruleLength + ": " + file);
+        }
+        ByteBuffer rule = ByteBuffer.allocate(ruleLength);
+        fill(rule, channel, file);
+        return new Header(version, flags, rows, cols, generation, StandardCharsets.US_ASCII.decode(rule).toString());
+    }
+
+    /**
+     * Reads the next long, refilling the buffer if needed
+     * @return, the long read
+     */
+    private static long nextLong(ByteBuffer buffer, FileChannel channel, Path file) throws IOException {
+        if (buffer.remaining() < Long.BYTES) {
+            refill(buffer, channel, Long.BYTES, file);
+        }
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads the next int, refilling the buffer if needed
+     * @return, the int read
+     */
+    private static int nextInt(ByteBuffer buffer, FileChannel channel, Path file) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            refill(buffer, channel, Integer.BYTES, file);
+        }
+        int run = buffer.getInt();
+        if (run < 1) {
+            throw new IOException("Invalid run of " + run + " zero words: " + file);
+        }
+        return run;
+    }
+
+    /**
+     * Keeps the unread bytes of the buffer and reads more after them
+     * until at least the parsed number of bytes are available
+     */
+    private static void refill(ByteBuffer buffer, FileChannel channel, int needed, Path file) throws IOException {
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) == -1) {
+                throw new IOException("Binary grid file ended early: " + file);
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Reads until the buffer is full, then flips it for reading
+     */
+    private static void fill(ByteBuffer buffer, FileChannel channel, Path file) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                throw new IOException("Binary grid file ended early: " + file);
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Writes everything in the buffer to the channel and empties it
+     */
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
@@ -0,0 +1,98 @@
+package gameoflife.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Reads the text pattern formats a byte at a time from a channel
+ * through one reused buffer, so a file is never held in memory whole.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+final class ChannelReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16; // Bytes read from the channel at a time
+    private final ReadableByteChannel channel; // Channel being read
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE); // Bytes read but not yet returned
+    private int line = 1; // Line of the next byte, for error messages
+
+    /**
+     * Class constructor
+     * @param channel, the channel to read
+     */
+    ChannelReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip(); // Start empty
+    }
+
+    /**
+     * Reads the next byte
+     * @return, the byte, or -1 at the end of the channel
+     * @throws IOException, if the channel cannot be read
+     */
+    int read() throws IOException {
+        while (!buffer.hasRemaining()) {
+            buffer.clear();
+            int count = channel.read(buffer);
+            buffer.flip();
+            if (count == -1) {
+                return -1;
+            }
+        }
+
+        int b = buffer.get() & 0xFF;
+        if (b == '\n') {
+            line++;
+        }
+        return b;
+    }
+
+    /**
+     * Skips the rest of the current line
+     * @return, the byte ending the line, '\n' or -1
+     * @throws IOException, if the channel cannot be read
+     */
+    int skipLine() throws IOException {
+        int b;
+        do {
+            b = read();
+        } while (b != '\n' && b != -1);
+        return b;
+    }
+
+    /**
+     * Reads the rest of the current line
+     * @return, the line without its ending, or null at the end of the channel
+     * @throws IOException, if the channel cannot be read
+     */
+    String readLine() throws IOException {
+        StringBuilder text = new StringBuilder();
+        int b;
+        while ((b = read()) != '\n' && b != -1) {
+            if (b != '\r') {
+                text.append((char) b);
+            }
+        }
+        return b == -1 && text.length() == 0 ? null : text.toString();
+    }
+
+    /**
+     * Gets the line the next byte is on
+     * @return, the line number, starting at 1
+     */
+    int getLine() {
+        return line;
+    }
+
+    /**
+     * Closes the channel
+     * @throws IOException, if the channel cannot be closed
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,111 @@
+package gameoflife.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Writes the text pattern formats to a channel through one reused
+ * buffer, so a save never builds the whole file as a String.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+final class ChannelWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16; // Bytes written to the channel at a time
+    private final WritableByteChannel channel; // Channel being written
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE); // Bytes not yet written
+    private final byte[] digits = new byte[20]; // Scratch space for writing numbers
+
+    /**
+     * Class constructor
+     * @param channel, the channel to write
+     */
+    ChannelWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes one ASCII character
+     * @param c, the character to write
+     * @throws IOException, if the channel cannot be written
+     */
+    void write(char c) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) c);
+    }
+
+    /**
+     * Writes an ASCII string
+     * @param s, the string to write
+     * @throws IOException, if the channel cannot be written
+     */
+    void write(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            write(s.charAt(i));
+        }
+    }
+
+    /**
+     * Writes a number in decimal
+     * @param n, the number to write
+     * @throws IOException, if the channel cannot be written
+     */
+    void writeNumber(long n) throws IOException {
+        if (n < 0) {
+            write('-');
+        }
+
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + Math.abs(n % 10));
+            n /= 10;
+        } while (n != 0);
+
+        while (length > 0) {
+            write((char) digits[--length]);
+        }
+    }
+
+    /**
+     * Gets the number of characters writeNumber() would write
+     * @param n, the number
+     * @return, the number of characters
+     */
+    static int numberLength(long n) {
+        int length = n < 0 ? 2 : 1;
+        while ((n /= 10) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Writes everything buffered so far to the channel
+     * @throws IOException, if the channel cannot be written
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes the buffer and closes the channel
+     * @throws IOException, if the channel cannot be written or closed
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
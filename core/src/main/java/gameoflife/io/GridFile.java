@@ -0,0 +1,74 @@
+package gameoflife.io;
+
+import gameoflife.engine.LifeEngine;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Reads and writes the .grid file format: a single line holding one
+ * character per cell, '1' for alive and '0' for dead, row by row.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class GridFile {
+    public static final String EXTENSION = "grid"; // File extension of grid files
+
+    /**
+     * Prevents instantiation of the utility class
+     */
+    private GridFile() {
+    }
+
+    /**
+     * Writes the top left size x size cells of the engine to file
+     * @param engine, the engine to save
+     * @param size, the row & column size of the grid
+     * @param file, the file to write
+     * @throws IOException, if the file cannot be written
+     */
+    public static void write(LifeEngine engine, int size, Path file) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    bw.write(engine.getCell(row, col) ? '1' : '0'); // Write Cell state to File
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a file into the top left size x size cells of the engine
+     * @param file, the file to read
+     * @param engine, the engine to load into
+     * @param size, the row & column size of the grid
+     * @param add, true to add the file's live cells to the existing ones
+     * @throws IOException, if the file cannot be read or is too short
+     */
+    public static void read(Path file, LifeEngine engine, int size, boolean add) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int state = br.read();
+                    if (state == -1) {
+                        throw new IOException("Grid file ended after " + (row * size + col) + " cells: " + file);
+                    }
+
+                    // If state is 1 set alive, otherwise clear it unless adding
+                    if (state == '1') {
+                        engine.setCell(row, col, true);
+                    } else if (!add) {
+                        engine.setCell(row, col, false);
+                    }
+                }
+            }
+        }
+    }
+
+}
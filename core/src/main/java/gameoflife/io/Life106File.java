@@ -0,0 +1,161 @@
+package gameoflife.io;
+
+import gameoflife.engine.LifeEngine;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Reads and writes the Life 1.06 pattern format: a "#Life 1.06" line
+ * followed by one "x y" line per live cell, x being the column and y
+ * the row. Both directions stream through NIO channels.
+ *
+ * Most Life 1.06 patterns are centred on the origin, so have negative
+ * coordinates. A file with any negative coordinate is moved to centre
+ * the pattern on the board when read; files whose coordinates are all
+ * positive, such as those written here, are read where they lie.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class Life106File {
+    public static final String EXTENSION = "lif"; // File extension of Life 1.06 files
+    private static final String HEADER = "#Life 1.06"; // First line of every file
+
+    /**
+     * Prevents instantiation of the utility class
+     */
+    private Life106File() {
+    }
+
+    /**
+     * Writes every live cell of the engine to file
+     * @param engine, the engine to save
+     * @param file, the file to write
+     * @throws IOException, if the file cannot be written
+     */
+    public static void write(LifeEngine engine, Path file) throws IOException {
+        long[] row = new long[(engine.getCols() + 63) >>> 6];
+
+        try (ChannelWriter out = new ChannelWriter(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            out.write(HEADER);
+            out.write('\n');
+
+            for (int r = 0; r < engine.getRows(); r++) {
+                engine.copyRow(r, row, 0);
+                for (int i = 0; i < row.length; i++) {
+                    for (long word = row[i]; word != 0; word &= word - 1) {
+                        out.writeNumber((i << 6) + Long.numberOfTrailingZeros(word)); // x, the column
+                        out.write(' ');
+                        out.writeNumber(r); // y, the row
+                        out.write('\n');
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a file into the engine, centring the pattern on the board if
+     * it has negative coordinates. Cells still outside the engine are dropped
+     * @param file, the file to read
+     * @param engine, the engine to load into
+     * @param add, true to add the file's live cells to the existing ones
+     * @throws IOException, if the file cannot be read or is not valid Life 1.06
+     */
+    public static void read(Path file, LifeEngine engine, boolean add) throws IOException {
+        if (!add) {
+            engine.clear();
+        }
+        int rows = engine.getRows();
+        int cols = engine.getCols();
+        long[] cells = new long[64]; // Cells read, as y in the high and x in the low 32 bits
+        int cellCount = 0; // Cells read so far
+        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE, maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+
+        try (ChannelReader in = new ChannelReader(FileChannel.open(file, StandardOpenOption.READ))) {
+            long[] pair = new long[2]; // x then y of the line being read
+            int count = 0; // Numbers read on the current line
+            boolean negative = false; // True if the number being read has a '-'
+            boolean inNumber = false; // True while reading the digits of a number
+
+            for (int b = in.read(); ; b = in.read()) {
+                if (b == '#' && count == 0 && !inNumber) {
+                    in.skipLine(); // Header or comment line
+                    continue;
+                }
+                if (b >= '0' && b <= '9') {
+                    if (count == 2) {
+                        throw new IOException("More than two numbers on line " + in.getLine() + ": " + file);
+                    }
+                    pair[count] = pair[count] * 10 + (b - '0');
+                    if (pair[count] > Integer.MAX_VALUE) {
+                        throw new IOException("Coordinate too large on line " + in.getLine() + ": " + file);
+                    }
+                    inNumber = true;
+                    continue;
+                }
+                if (b == '-' && !inNumber) {
+                    negative = true;
+                    continue;
+                }
+
+                // End of a number
+                if (inNumber) {
+                    if (negative) {
+                        pair[count] = -pair[count];
+                    }
+                    count++;
+                    inNumber = false;
+                    negative = false;
+                } else if (negative) {
+                    throw new IOException("Expected a number after '-' on line " + in.getLine() + ": " + file);
+                }
+
+                if (b == '\n' || b == -1) {
+                    if (count == 2) {
+                        if (cellCount == cells.length) {
+                            cells = Arrays.copyOf(cells, cellCount * 2);
+                        }
+                        cells[cellCount++] = pair[1] << 32 | (pair[0] & 0xFFFFFFFFL);
+                        minX = Math.min(minX, pair[0]);
+                        maxX = Math.max(maxX, pair[0]);
+                        minY = Math.min(minY, pair[1]);
+                        maxY = Math.max(maxY, pair[1]);
+                    } else if (count != 0) {
+                        throw new IOException("Expected \"x y\" on line " + (in.getLine() - 1) + ": " + file);
+                    }
+                    count = 0;
+                    pair[0] = 0;
+                    pair[1] = 0;
+                    if (b == -1) {
+                        break;
+                    }
+                } else if (b != ' ' && b != '\t' && b != '\r') {
+                    throw new IOException("Unexpected '" + (char) b + "' on line " + in.getLine() + ": " + file);
+                }
+            }
+        }
+
+        // Centre patterns drawn around the origin, leave the others where they lie
+        long shiftX = 0;
+        long shiftY = 0;
+        if (cellCount > 0 && (minX < 0 || minY < 0)) {
+            shiftX = (cols - (maxX - minX + 1)) / 2 - minX;
+            shiftY = (rows - (maxY - minY + 1)) / 2 - minY;
+        }
+        for (int i = 0; i < cellCount; i++) {
+            long x = (int) cells[i] + shiftX;
+            long y = (cells[i] >> 32) + shiftY;
+            if (x >= 0 && x < cols && y >= 0 && y < rows) {
+                engine.setCell((int) y, (int) x, true);
+            }
+        }
+    }
+
+}
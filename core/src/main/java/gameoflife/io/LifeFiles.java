@@ -0,0 +1,136 @@
+package gameoflife.io;
+
+import gameoflife.engine.LifeEngine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Chooses the file format to read or write from the extension of the
+ * file: .grid, .golb (binary), .rle or .lif/.life (Life 1.06).
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class LifeFiles {
+    public static final String[] EXTENSIONS = {
+            GridFile.EXTENSION, BinaryGridFile.EXTENSION, RleFile.EXTENSION, Life106File.EXTENSION, "life"
+    }; // Every extension that can be read or written
+
+    /**
+     * Prevents instantiation of the utility class
+     */
+    private LifeFiles() {
+    }
+
+    /**
+     * Writes the whole board of the engine in the format of the file's
+     * extension. Binary files are written with zero runs compressed.
+     * Every format holds the engine's rows and columns, so an unbounded
+     * plane with live cells outside them is refused rather than cut short
+     * @param engine, the engine to save
+     * @param file, the file to write
+     * @throws IOException, if the file cannot be written, its extension is unknown or cells would be lost
+     */
+    public static void write(LifeEngine engine, Path file) throws IOException {
+        if (engine.isUnbounded()) {
+            long lost = engine.getPopulation() - countBoard(engine);
+            if (lost != 0) {
+                throw new IOException("Cannot save " + file.getFileName() + ": " + lost + " live cells have left the "
+                        + engine.getRows() + "x" + engine.getCols() + " board a file holds");
+            }
+        }
+        switch (extension(file)) {
+            case GridFile.EXTENSION:
+                GridFile.write(engine, Math.min(engine.getRows(), engine.getCols()), file);
+                break;
+            case BinaryGridFile.EXTENSION:
+                BinaryGridFile.write(engine, file, true);
+                break;
+            case RleFile.EXTENSION:
+                RleFile.write(engine, file);
+                break;
+            case Life106File.EXTENSION:
+            case "life":
+                Life106File.write(engine, file);
+                break;
+            default:
+                throw new IOException("Unknown pattern file extension: " + file);
+        }
+    }
+
+    /**
+     * Reads a file into the engine in the format of the file's extension
+     * @param file, the file to read
+     * @param engine, the engine to load into
+     * @param add, true to add the file's live cells to the existing ones
+     * @throws IOException, if the file cannot be read, is invalid or its extension is unknown
+     */
+    public static void read(Path file, LifeEngine engine, boolean add) throws IOException {
+        switch (extension(file)) {
+            case GridFile.EXTENSION:
+                GridFile.read(file, engine, Math.min(engine.getRows(), engine.getCols()), add);
+                break;
+            case BinaryGridFile.EXTENSION:
+                BinaryGridFile.read(file, engine, add);
+                break;
+            case RleFile.EXTENSION:
+                RleFile.read(file, engine, add);
+                break;
+            case Life106File.EXTENSION:
+            case "life":
+                Life106File.read(file, engine, add);
+                break;
+            default:
+                throw new IOException("Unknown pattern file extension: " + file);
+        }
+    }
+
+    /**
+     * Reads the rule a file was saved with, for the formats that record it
+     * @param file, the file to read
+     * @return, the rule text, or null if the format or file gives no rule
+     * @throws IOException, if the file cannot be read
+     */
+    public static String readRule(Path file) throws IOException {
+        switch (extension(file)) {
+            case BinaryGridFile.EXTENSION:
+                return BinaryGridFile.readHeader(file).getRule();
+            case RleFile.EXTENSION:
+                return RleFile.readRule(file);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Counts the live cells within the engine's rows and columns
+     * @param engine, the engine to count
+     * @return, the live cells a file of the engine would hold
+     */
+    private static long countBoard(LifeEngine engine) {
+        long[] row = new long[(engine.getCols() + 63) >>> 6];
+        long count = 0;
+        for (int r = 0; r < engine.getRows(); r++) {
+            engine.copyRow(r, row, 0);
+            for (long word : row) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the lower case extension of a file
+     * @param file, the file
+     * @return, the text after the last '.', or "" if there is none
+     */
+    public static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -0,0 +1,322 @@
+package gameoflife.io;
+
+import gameoflife.engine.LifeEngine;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Reads and writes the run length encoded (.rle) pattern format used
+ * by Golly and the LifeWiki: '#' comment lines, a header line such as
+ * "x = 3, y = 3, rule = B3/S23", then runs of 'b' (dead) and 'o'
+ * (alive) cells with '$' ending a row and '!' ending the pattern.
+ * Both directions stream through NIO channels a row at a time.
+ *
+ * Patterns of Generations rules write states as letters, 'A' alive
+ * and 'B' onwards dying ('pA' onwards past 'X'). Only live cells are
+ * loaded, so dying cells are read as dead.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class RleFile {
+    public static final String EXTENSION = "rle"; // File extension of RLE files
+    private static final String GENERATION = "C Generation "; // Comment giving the generation saved, after the '#'
+    private static final int MAX_LINE = 70; // Longest pattern line written, as the format recommends
+
+    /**
+     * Prevents instantiation of the utility class
+     */
+    private RleFile() {
+    }
+
+    /**
+     * Writes the whole board of the engine to file. The header gives
+     * the board's size so the pattern keeps its position when read back
+     * @param engine, the engine to save
+     * @param file, the file to write
+     * @throws IOException, if the file cannot be written
+     */
+    public static void write(LifeEngine engine, Path file) throws IOException {
+        int rows = engine.getRows();
+        int cols = engine.getCols();
+        long[] row = new long[(cols + 63) >>> 6];
+
+        try (ChannelWriter out = new ChannelWriter(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            out.write("#C Generation ");
+            out.writeNumber(engine.getGeneration());
+            out.write("\nx = ");
+            out.writeNumber(cols);
+            out.write(", y = ");
+            out.writeNumber(rows);
+            out.write(", rule = ");
+            out.write(engine.getRule().toString());
+            out.write('\n');
+
+            int line = 0; // Characters on the current pattern line
+            int endRows = 0; // Row ends not yet written, merged into one run
+            for (int r = 0; r < rows; r++) {
+                engine.copyRow(r, row, 0);
+                int col = 0;
+                while (true) {
+                    int start = nextCell(row, col, cols, true);
+                    if (start == cols) {
+                        break; // Trailing dead cells are left implied
+                    }
+                    if (endRows > 0) {
+                        line = writeRun(out, line, endRows, '$');
+                        endRows = 0;
+                    }
+                    if (start > col) {
+                        line = writeRun(out, line, start - col, 'b');
+                    }
+                    col = nextCell(row, start, cols, false);
+                    line = writeRun(out, line, col - start, 'o');
+                }
+                endRows++;
+            }
+            out.write('!');
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Reads a file into the engine with the pattern's top left corner
+     * at the top left of the board. Cells outside the engine are dropped.
+     * Unless adding, the engine is set to the generation given by a
+     * "#C Generation" comment, as written by write()
+     * @param file, the file to read
+     * @param engine, the engine to load into
+     * @param add, true to add the pattern's live cells to the existing ones
+     * @throws IOException, if the file cannot be read or is not valid RLE
+     */
+    public static void read(Path file, LifeEngine engine, boolean add) throws IOException {
+        read(FileChannel.open(file, StandardOpenOption.READ), file.toString(), engine, add);
+    }
+
+    /**
+     * Reads a pattern from a channel, e.g. a resource or a download, as
+     * read(Path,LifeEngine,boolean) reads a file. The channel is closed
+     * @param channel, the channel to read
+     * @param source, names the pattern in error messages
+     * @param engine, the engine to load into
+     * @param add, true to add the pattern's live cells to the existing ones
+     * @throws IOException, if the channel cannot be read or is not valid RLE
+     */
+    public static void read(ReadableByteChannel channel, String source, LifeEngine engine, boolean add)
+            throws IOException {
+        if (!add) {
+            engine.clear();
+        }
+        int cols = engine.getCols();
+        long[] row = new long[(cols + 63) >>> 6];
+        long[] existing = add ? new long[row.length] : null; // Engine's row when adding
+        long generation = 0; // Generation the pattern was saved at
+
+        try (ChannelReader in = new ChannelReader(channel)) {
+            int b = in.read();
+
+            // Skip the comment lines and the header line
+            while (b == '#' || b == 'x' || b == '\r' || b == '\n' || b == ' ') {
+                if (b == '#' && !add) {
+                    String comment = in.readLine();
+                    if (comment != null && comment.startsWith(GENERATION)) {
+                        try {
+                            generation = Long.parseLong(comment.substring(GENERATION.length()).trim());
+                        } catch (NumberFormatException e) {
+                            throw new IOException("Invalid generation on line " + (in.getLine() - 1) + ": " + source);
+                        }
+                    }
+                } else if (b == '#' || b == 'x') {
+                    in.skipLine();
+                }
+                b = in.read();
+            }
+
+            int r = 0; // Row being read
+            int col = 0; // Column of the next run
+            long count = 0; // Run count being read, 0 meaning 1
+            boolean live = false; // True if row holds any live cells
+            for (; b != '!'; b = in.read()) {
+                if (b == -1) {
+                    throw new IOException("RLE pattern has no '!' at the end: " + source);
+                }
+                if (b >= '0' && b <= '9') {
+                    count = count * 10 + (b - '0');
+                    if (count > Integer.MAX_VALUE) {
+                        throw new IOException("RLE run too long on line " + in.getLine() + ": " + source);
+                    }
+                    continue;
+                }
+                if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                    continue;
+                }
+
+                int run = count == 0 ? 1 : (int) count;
+                count = 0;
+                if (b == '$') {
+                    if (live) {
+                        storeRow(engine, r, row, existing);
+                        live = false;
+                    }
+                    r = (int) Math.min(Integer.MAX_VALUE, (long) r + run);
+                    col = 0;
+                } else if (b == 'b' || b == '.') {
+                    col = (int) Math.min(Integer.MAX_VALUE, (long) col + run);
+                } else if (b >= 'B' && b <= 'X' || b >= 'p' && b <= 'y') { // Dying state, left dead
+                    if (b >= 'p') {
+                        in.read(); // Second letter of a state past 'X'
+                    }
+                    col = (int) Math.min(Integer.MAX_VALUE, (long) col + run);
+                } else if (Character.isLetter(b)) { // 'o', 'A', or any other live state letter
+                    live |= setRun(row, col, run, cols);
+                    col = (int) Math.min(Integer.MAX_VALUE, (long) col + run);
+                } else {
+                    throw new IOException("Unexpected '" + (char) b + "' in RLE on line " + in.getLine() + ": " + source);
+                }
+            }
+            if (live) {
+                storeRow(engine, r, row, existing);
+            }
+        }
+        if (!add) {
+            engine.setGeneration(generation);
+        }
+    }
+
+    /**
+     * Reads the rule given in a file's header line
+     * @param file, the file to read
+     * @return, the rule text, or null if the header gives no rule
+     * @throws IOException, if the file cannot be read
+     */
+    public static String readRule(Path file) throws IOException {
+        return readHeader(FileChannel.open(file, StandardOpenOption.READ), "rule")[0];
+    }
+
+    /**
+     * Reads the size of the pattern given in its header line, which the
+     * pattern's live cells are expected to fit within. The channel is closed
+     * @param channel, the channel to read
+     * @param source, names the pattern in error messages
+     * @return, the pattern's rows and columns, as {rows, cols}
+     * @throws IOException, if the channel cannot be read or gives no valid size
+     */
+    public static int[] readSize(ReadableByteChannel channel, String source) throws IOException {
+        String[] size = readHeader(channel, "y", "x");
+        try {
+            return new int[] {Integer.parseInt(size[0]), Integer.parseInt(size[1])};
+        } catch (NumberFormatException e) {
+            throw new IOException("RLE header gives no valid size: " + source);
+        }
+    }
+
+    /**
+     * Reads the values of named fields from a header line such as
+     * "x = 3, y = 3, rule = B3/S23"
+     * @param channel, the channel to read, closed afterwards
+     * @param names, the fields to find
+     * @return, the value of each field, or null where the header or field is missing
+     * @throws IOException, if the channel cannot be read
+     */
+    private static String[] readHeader(ReadableByteChannel channel, String... names) throws IOException {
+        String[] values = new String[names.length];
+        try (ChannelReader in = new ChannelReader(channel)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (!line.startsWith("x")) {
+                    return values; // Pattern with no header line
+                }
+                for (String part : line.split(",")) {
+                    String[] pair = part.split("=", 2);
+                    for (int i = 0; i < names.length && pair.length == 2; i++) {
+                        if (pair[0].trim().equals(names[i])) {
+                            values[i] = pair[1].trim();
+                        }
+                    }
+                }
+                return values;
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Sets a run of cells alive in a packed row, clipped to the board
+     * @return true, if any cell of the run was on the board
+     */
+    private static boolean setRun(long[] row, int col, int run, int cols) {
+        int end = (int) Math.min(cols, (long) col + run);
+        for (int c = col; c < end; ) {
+            int next = Math.min(end, (c & ~63) + 64); // End of the run within this word
+            int length = next - c;
+            row[c >>> 6] |= (length == 64 ? -1L : (1L << length) - 1) << c;
+            c = next;
+        }
+        return col < end;
+    }
+
+    /**
+     * Writes the pattern's row into the engine and empties it
+     */
+    private static void storeRow(LifeEngine engine, int r, long[] row, long[] existing) {
+        if (r < engine.getRows()) {
+            if (existing != null) { // Adding to the cells already there
+                engine.copyRow(r, existing, 0);
+                for (int i = 0; i < row.length; i++) {
+                    row[i] |= existing[i];
+                }
+            }
+            engine.setRow(r, row, 0);
+        }
+        Arrays.fill(row, 0L);
+    }
+
+    /**
+     * Finds the next column at or after col whose state matches
+     * @param row, the packed row
+     * @param col, the column to search from
+     * @param cols, the columns in the row
+     * @param alive, the state to find
+     * @return, the column found, or cols if there is none
+     */
+    private static int nextCell(long[] row, int col, int cols, boolean alive) {
+        while (col < cols) {
+            long word = alive ? row[col >>> 6] : ~row[col >>> 6];
+            word &= -1L << col; // Ignore the columns before col
+            if (word != 0) {
+                return Math.min(cols, (col & ~63) + Long.numberOfTrailingZeros(word));
+            }
+            col = (col & ~63) + 64;
+        }
+        return cols;
+    }
+
+    /**
+     * Writes one run, starting a new line if it would pass MAX_LINE
+     * @return, the characters on the current line after the run
+     */
+    private static int writeRun(ChannelWriter out, int line, int run, char tag) throws IOException {
+        int length = (run > 1 ? ChannelWriter.numberLength(run) : 0) + 1;
+        if (line + length > MAX_LINE) {
+            out.write('\n');
+            line = 0;
+        }
+        if (run > 1) {
+            out.writeNumber(run);
+        }
+        out.write(tag);
+        return line + length;
+    }
+
+}
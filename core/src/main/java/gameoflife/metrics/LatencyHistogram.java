@@ -0,0 +1,123 @@
+package gameoflife.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Histogram of durations in nano seconds, laid out like HdrHistogram:
+ * values below 128 each have their own bucket, and each doubling above
+ * that is split into 64 buckets, so every value is kept to within 1/64
+ * (about 1.6%) of itself from nano seconds up to centuries in 3776
+ * longs. Recording a value is a few shifts and an increment, with no
+ * allocation.
+ *
+ * Values are recorded by one thread at a time (the grid's lock is held
+ * while stepping). Readers on other threads see counts that may be a
+ * generation behind, which is fine for monitoring.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7; // Bits of precision kept for each value
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // Buckets below the first doubling
+    private static final int HALF = SUB_BUCKETS / 2; // Buckets for each doubling above that
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * HALF + HALF]; // Values recorded in each bucket
+    private long total; // Values recorded
+    private long sum; // Sum of the values recorded
+    private long max; // Largest value recorded
+
+    /**
+     * Records one value
+     * @param nanos, the duration, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        record(nanos, 1);
+    }
+
+    /**
+     * Records the same value several times, e.g. each generation of a
+     * batch stepped at once
+     * @param nanos, the duration, negative values are recorded as 0
+     * @param count, the number of times to record it
+     */
+    public void record(long nanos, long count) {
+        long value = Math.max(0, nanos);
+        counts[index(value)] += count;
+        total += count;
+        sum += value * count;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Gets the bucket a value is counted in
+     */
+    private static int index(long value) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS); // Bits dropped
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the largest value counted in a bucket
+     */
+    private static long highest(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        long sub = index - shift * HALF; // 64 to 127
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Gets the value at a percentile of those recorded
+     * @param percentile, from 0 to 100
+     * @return, the value, to within 1/64 of it, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank) && counts[i] != 0) {
+                return Math.min(max, highest(i));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the number of values recorded
+     * @return, the count
+     */
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * Gets the mean of the values recorded
+     * @return, the mean, 0 if nothing has been recorded
+     */
+    public double getMean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /**
+     * Gets the largest value recorded
+     * @return, the maximum, 0 if nothing has been recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Forgets every value recorded
+     */
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        total = 0;
+        sum = 0;
+        max = 0;
+    }
+
+}
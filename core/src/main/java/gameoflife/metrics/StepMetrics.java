@@ -0,0 +1,404 @@
+package gameoflife.metrics;
+
+import gameoflife.Grid;
+import gameoflife.GridListener;
+import gameoflife.engine.LifeEngine;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Measures the simulation as it runs: the time taken to step each
+ * generation, generations and cells updated per second, population,
+ * births and deaths per generation, and the rate memory is allocated.
+ * Registered as a GridListener, it is told of every step while the
+ * grid's lock is held, so the stepping thread only adds the step to a
+ * LatencyHistogram and a few counters, with no allocation and nothing
+ * written to the console.
+ *
+ * Everything else happens on a background thread that samples the
+ * counters once a sample period, works out the rates and, if asked,
+ * logs them as one line on System.err. The values are published as the
+ * StepMetricsMBean gameoflife:type=StepMetrics once register() is
+ * called, for JConsole, VisualVM or any other JMX client.
+ *
+ * Generations stepped together in a batch are recorded as taking an
+ * equal share of the batch's time each.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class StepMetrics implements StepMetricsMBean, GridListener, AutoCloseable {
+    public static final String OBJECT_NAME = "gameoflife:type=StepMetrics"; // Name the MBean is registered under
+    private static final double NANOS_PER_SECOND = 1e9; // Nano seconds in one second
+    private static final double NANOS_PER_MICRO = 1e3; // Nano seconds in one microsecond
+    private static final double BYTES_PER_MEGABYTE = 1e6; // Bytes in one megabyte
+    private final Grid grid; // Grid being measured
+    private final LatencyHistogram latency = new LatencyHistogram(); // Time taken by each generation
+    private final ScheduledExecutorService sampler; // Background thread sampling the rates
+    private ObjectName name; // Name the MBean was registered under, null until registered
+    private boolean logging; // True to log each sample
+    private LifeEngine lastEngine; // Engine of the last change, births and deaths restart with a new one
+    private long lastBirths; // Births counted by the engine at the last change
+    private long lastDeaths; // Deaths counted by the engine at the last change
+    private volatile boolean counting; // True if the engine counts births and deaths
+    private volatile long generations; // Generations stepped since the last reset
+    private volatile long cellUpdates; // Cells updated since the last reset
+    private volatile long births; // Cells born since the last reset
+    private volatile long deaths; // Live cells that died since the last reset
+    private long sampleTime = System.nanoTime(); // Time of the last sample
+    private long sampledGenerations; // Generations at the last sample
+    private long sampledCells; // Cell updates at the last sample
+    private long sampledBirths; // Births at the last sample
+    private long sampledDeaths; // Deaths at the last sample
+    private long sampledAllocated = allocatedBytes(); // Bytes allocated by every thread at the last sample
+    private volatile long population; // Population at the last sample
+    private volatile double generationsPerSecond; // Generations per second over the last sample period
+    private volatile double cellsPerSecond; // Cells updated per second over the last sample period
+    private volatile double allocatedPerSecond; // Bytes allocated per second over the last sample period
+    private volatile double birthsPerGeneration; // Mean births per generation over the last sample period
+    private volatile double deathsPerGeneration; // Mean deaths per generation over the last sample period
+
+    /**
+     * Class constructor that starts measuring every step of the grid
+     * @param grid, the grid to measure
+     */
+    public StepMetrics(Grid grid) {
+        this.grid = grid;
+        this.sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "StepMetrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        grid.addGridListener(this);
+    }
+
+    /**
+     * Starts sampling the rates, and logging them if asked
+     * @param sampleSeconds, the seconds between samples
+     * @param log, true to log each sample on System.err
+     */
+    public void start(long sampleSeconds, boolean log) {
+        if (sampleSeconds < 1) {
+            throw new IllegalArgumentException("Sample period must be at least one second: " + sampleSeconds);
+        }
+        logging = log;
+        sampler.scheduleAtFixedRate(this::sample, sampleSeconds, sampleSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as OBJECT_NAME
+     * @throws JMException, if the name is taken or the MBean is rejected
+     */
+    public void register() throws JMException {
+        ObjectName objectName = new ObjectName(OBJECT_NAME);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        name = objectName;
+    }
+
+    /**
+     * Records a step of the grid. Called by the stepping thread while it
+     * holds the grid's lock, so it only adds to the counters
+     * @param grid, the grid that changed
+     */
+    public void gridUpdated(Grid grid) {
+        LifeEngine engine = grid.getEngine();
+        if (engine == null) {
+            return;
+        }
+
+        long born = engine.getBirths();
+        long died = engine.getDeaths();
+        long stepped = grid.getSteppedGenerations();
+        if (stepped > 0) {
+            synchronized (latency) {
+                latency.record(grid.getUpdateTime() / stepped, stepped);
+            }
+            generations += stepped;
+            cellUpdates += stepped * engine.getRows() * (long) engine.getCols();
+            if (born >= 0 && engine == lastEngine && born >= lastBirths) {
+                births += born - lastBirths;
+                deaths += died - lastDeaths;
+            }
+        }
+        counting = born >= 0;
+        lastEngine = engine; // Edits, loads and new grids move the counts on without a step
+        lastBirths = born;
+        lastDeaths = died;
+    }
+
+    /**
+     * Works out the rates since the last sample and logs them if asked.
+     * The population is read here rather than on every step, as some
+     * engines count it by reading the whole board
+     */
+    private synchronized void sample() {
+        long now = System.nanoTime();
+        long gens = generations;
+        long cells = cellUpdates;
+        long born = births;
+        long died = deaths;
+        long allocated = allocatedBytes();
+        double seconds = (now - sampleTime) / NANOS_PER_SECOND;
+
+        if (seconds > 0) {
+            generationsPerSecond = (gens - sampledGenerations) / seconds;
+            cellsPerSecond = (cells - sampledCells) / seconds;
+            allocatedPerSecond = allocated < 0 ? -1 : Math.max(0, allocated - sampledAllocated) / seconds;
+        }
+        long stepped = gens - sampledGenerations;
+        birthsPerGeneration = stepped > 0 ? (double) (born - sampledBirths) / stepped : 0;
+        deathsPerGeneration = stepped > 0 ? (double) (died - sampledDeaths) / stepped : 0;
+        synchronized (grid.getLock()) {
+            LifeEngine engine = grid.getEngine();
+            population = engine == null ? 0 : engine.getPopulation();
+        }
+
+        sampleTime = now;
+        sampledGenerations = gens;
+        sampledCells = cells;
+        sampledBirths = born;
+        sampledDeaths = died;
+        sampledAllocated = allocated;
+
+        if (logging) {
+            System.err.println(this);
+        }
+    }
+
+    /**
+     * Gets the bytes allocated so far by every live thread. Threads that
+     * have finished drop out of the total, so a sample never goes below 0
+     * @return, the bytes allocated, or -1 if the JVM cannot measure it
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean memory = (com.sun.management.ThreadMXBean) threads;
+        if (!memory.isThreadAllocatedMemorySupported() || !memory.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+
+        long total = 0;
+        for (long bytes : memory.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes; // -1 for threads that finished while being read
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of generations stepped since the last reset
+     * @return, the generation count
+     */
+    public long getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Gets the number of live cells at the last sample
+     * @return, the population
+     */
+    public long getPopulation() {
+        return population;
+    }
+
+    /**
+     * Gets the number of cells born since the last reset
+     * @return, the births, or -1 if the engine does not count them
+     */
+    public long getBirths() {
+        return counting ? births : -1;
+    }
+
+    /**
+     * Gets the number of live cells that died since the last reset
+     * @return, the deaths, or -1 if the engine does not count them
+     */
+    public long getDeaths() {
+        return counting ? deaths : -1;
+    }
+
+    /**
+     * Gets the mean births per generation over the last sample period
+     * @return, the births per generation
+     */
+    public double getBirthsPerGeneration() {
+        return birthsPerGeneration;
+    }
+
+    /**
+     * Gets the mean deaths per generation over the last sample period
+     * @return, the deaths per generation
+     */
+    public double getDeathsPerGeneration() {
+        return deathsPerGeneration;
+    }
+
+    /**
+     * Gets the generations stepped per second over the last sample period
+     * @return, the generations per second
+     */
+    public double getGenerationsPerSecond() {
+        return generationsPerSecond;
+    }
+
+    /**
+     * Gets the cells updated per second over the last sample period
+     * @return, the cells per second
+     */
+    public double getCellsPerSecond() {
+        return cellsPerSecond;
+    }
+
+    /**
+     * Gets the bytes allocated per second over the last sample period
+     * @return, the bytes per second, or -1 if not measured
+     */
+    public double getAllocatedBytesPerSecond() {
+        return allocatedPerSecond;
+    }
+
+    /**
+     * Gets the mean time taken to step one generation
+     * @return, the mean in nano seconds
+     */
+    public double getStepNanosMean() {
+        synchronized (latency) {
+            return latency.getMean();
+        }
+    }
+
+    /**
+     * Gets the median time taken to step one generation
+     * @return, the 50th percentile in nano seconds
+     */
+    public long getStepNanosP50() {
+        return percentile(50);
+    }
+
+    /**
+     * Gets the 90th percentile of the time taken to step one generation
+     * @return, the 90th percentile in nano seconds
+     */
+    public long getStepNanosP90() {
+        return percentile(90);
+    }
+
+    /**
+     * Gets the 99th percentile of the time taken to step one generation
+     * @return, the 99th percentile in nano seconds
+     */
+    public long getStepNanosP99() {
+        return percentile(99);
+    }
+
+    /**
+     * Gets the 99.9th percentile of the time taken to step one generation
+     * @return, the 99.9th percentile in nano seconds
+     */
+    public long getStepNanosP999() {
+        return percentile(99.9);
+    }
+
+    /**
+     * Gets the longest time taken to step one generation
+     * @return, the maximum in nano seconds
+     */
+    public long getStepNanosMax() {
+        synchronized (latency) {
+            return latency.getMax();
+        }
+    }
+
+    /**
+     * Gets a percentile of the time taken to step one generation
+     * @param percentile, from 0 to 100
+     * @return, the time in nano seconds
+     */
+    private long percentile(double percentile) {
+        synchronized (latency) {
+            return latency.getValueAtPercentile(percentile);
+        }
+    }
+
+    /**
+     * Forgets the step times and counts recorded so far. Waits for the
+     * grid's lock so no step is half counted
+     */
+    public synchronized void reset() {
+        synchronized (grid.getLock()) {
+            synchronized (latency) {
+                latency.reset();
+            }
+            generations = 0;
+            cellUpdates = 0;
+            births = 0;
+            deaths = 0;
+            sampledGenerations = 0;
+            sampledCells = 0;
+            sampledBirths = 0;
+            sampledDeaths = 0;
+        }
+    }
+
+    /**
+     * Stops sampling, unregisters the MBean and stops measuring the grid
+     */
+    public void close() {
+        sampler.shutdownNow();
+        grid.removeGridListener(this);
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+                System.err.println("Could not unregister " + name + ": " + e.getMessage());
+            }
+            name = null;
+        }
+    }
+
+    /**
+     * Describes the last sample as one line, e.g. "Generation 5000:
+     * 1000.0 gen/s, 1.56e+07 cells/s, step p50 120.3us p99 310.0us max
+     * 1.2ms, population 4213, 98.2 births and 97.9 deaths per generation,
+     * 0.1 MB/s allocated"
+     * @return, the description
+     */
+    @Override
+    public String toString() {
+        String allocation = allocatedPerSecond < 0 ? "allocation not measured"
+                : String.format("%.1f MB/s allocated", allocatedPerSecond / BYTES_PER_MEGABYTE);
+        String changes = counting
+                ? String.format("%.1f births and %.1f deaths per generation", birthsPerGeneration, deathsPerGeneration)
+                : "births and deaths not counted";
+        return String.format("Generation %d: %.1f gen/s, %.3g cells/s, step p50 %s p99 %s max %s, population %d, %s, %s",
+                generations, generationsPerSecond, cellsPerSecond, time(getStepNanosP50()), time(getStepNanosP99()),
+                time(getStepNanosMax()), population, changes, allocation);
+    }
+
+    /**
+     * Formats a duration in the largest unit that keeps it above 1
+     * @param nanos, the duration in nano seconds
+     * @return, the duration, e.g. "120.3us"
+     */
+    private static String time(long nanos) {
+        if (nanos < NANOS_PER_MICRO) {
+            return nanos + "ns";
+        }
+        if (nanos < NANOS_PER_MICRO * NANOS_PER_MICRO) {
+            return String.format("%.1fus", nanos / NANOS_PER_MICRO);
+        }
+        return String.format("%.1fms", nanos / (NANOS_PER_MICRO * NANOS_PER_MICRO));
+    }
+
+}
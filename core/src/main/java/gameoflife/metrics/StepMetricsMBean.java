@@ -0,0 +1,111 @@
+package gameoflife.metrics;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Management interface of StepMetrics, shown by JConsole or VisualVM
+ * under gameoflife:type=StepMetrics. Rates are averaged over the last
+ * sample period; step times cover every generation since the last reset.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public interface StepMetricsMBean {
+
+    /**
+     * Gets the number of generations stepped since the last reset
+     * @return, the generation count
+     */
+    long getGenerations();
+
+    /**
+     * Gets the number of live cells after the last change to the grid
+     * @return, the population
+     */
+    long getPopulation();
+
+    /**
+     * Gets the number of cells born since the last reset
+     * @return, the births, or -1 if the engine does not count them
+     */
+    long getBirths();
+
+    /**
+     * Gets the number of live cells that died since the last reset
+     * @return, the deaths, or -1 if the engine does not count them
+     */
+    long getDeaths();
+
+    /**
+     * Gets the mean births per generation over the last sample period
+     * @return, the births per generation
+     */
+    double getBirthsPerGeneration();
+
+    /**
+     * Gets the mean deaths per generation over the last sample period
+     * @return, the deaths per generation
+     */
+    double getDeathsPerGeneration();
+
+    /**
+     * Gets the generations stepped per second over the last sample period
+     * @return, the generations per second
+     */
+    double getGenerationsPerSecond();
+
+    /**
+     * Gets the cells updated per second over the last sample period,
+     * every cell of the board counting once per generation
+     * @return, the cells per second
+     */
+    double getCellsPerSecond();
+
+    /**
+     * Gets the bytes allocated per second by every thread over the last
+     * sample period
+     * @return, the bytes per second, or -1 if the JVM cannot measure it
+     */
+    double getAllocatedBytesPerSecond();
+
+    /**
+     * Gets the mean time taken to step one generation
+     * @return, the mean in nano seconds
+     */
+    double getStepNanosMean();
+
+    /**
+     * Gets the median time taken to step one generation
+     * @return, the 50th percentile in nano seconds
+     */
+    long getStepNanosP50();
+
+    /**
+     * Gets the 90th percentile of the time taken to step one generation
+     * @return, the 90th percentile in nano seconds
+     */
+    long getStepNanosP90();
+
+    /**
+     * Gets the 99th percentile of the time taken to step one generation
+     * @return, the 99th percentile in nano seconds
+     */
+    long getStepNanosP99();
+
+    /**
+     * Gets the 99.9th percentile of the time taken to step one generation
+     * @return, the 99.9th percentile in nano seconds
+     */
+    long getStepNanosP999();
+
+    /**
+     * Gets the longest time taken to step one generation
+     * @return, the maximum in nano seconds
+     */
+    long getStepNanosMax();
+
+    /**
+     * Forgets the step times and counts recorded so far
+     */
+    void reset();
+
+}
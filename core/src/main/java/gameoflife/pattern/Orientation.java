@@ -0,0 +1,76 @@
+package gameoflife.pattern;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * The eight ways a pattern can be turned and flipped onto the board.
+ * Each is made of an optional swap of rows for columns followed by
+ * optional flips of the rows and columns, which is all Pattern needs to
+ * build the turned copy.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public enum Orientation {
+    IDENTITY("As Drawn", false, false, false),
+    ROTATE_90("Rotate 90", true, false, true), // Clockwise
+    ROTATE_180("Rotate 180", false, true, true),
+    ROTATE_270("Rotate 270", true, true, false),
+    FLIP_HORIZONTAL("Flip Left To Right", false, false, true),
+    FLIP_VERTICAL("Flip Top To Bottom", false, true, false),
+    FLIP_DIAGONAL("Flip Diagonal", true, false, false), // Top left to bottom right
+    FLIP_ANTIDIAGONAL("Flip Antidiagonal", true, true, true); // Top right to bottom left
+
+    private final String label; // Name shown to the user
+    private final boolean transpose; // True if rows become columns
+    private final boolean flipRows; // True if the last row comes first, after any transpose
+    private final boolean flipCols; // True if the last column comes first, after any transpose
+
+    /**
+     * Enum constructor
+     * @param label, the name shown to the user
+     * @param transpose, true if rows become columns
+     * @param flipRows, true if the rows are reversed after any transpose
+     * @param flipCols, true if the columns are reversed after any transpose
+     */
+    Orientation(String label, boolean transpose, boolean flipRows, boolean flipCols) {
+        this.label = label;
+        this.transpose = transpose;
+        this.flipRows = flipRows;
+        this.flipCols = flipCols;
+    }
+
+    /**
+     * Returns true if rows become columns, so a turned pattern's height
+     * is the original's width
+     * @return true, if rows and columns are swapped
+     */
+    public boolean isTranspose() {
+        return transpose;
+    }
+
+    /**
+     * Returns true if the rows are reversed after any transpose
+     * @return true, if the rows are flipped
+     */
+    public boolean isFlipRows() {
+        return flipRows;
+    }
+
+    /**
+     * Returns true if the columns are reversed after any transpose
+     * @return true, if the columns are flipped
+     */
+    public boolean isFlipCols() {
+        return flipCols;
+    }
+
+    /**
+     * Gets the name shown to the user
+     * @return, the label
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+
+}
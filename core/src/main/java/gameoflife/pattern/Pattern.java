@@ -0,0 +1,298 @@
+package gameoflife.pattern;
+
+import gameoflife.engine.LifeEngine;
+
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * An immutable pattern held as packed rows, 64 cells to a long with
+ * bit (col & 63) of word (col >>> 6) holding column col, the same
+ * layout LifeEngine.copyRow() uses, so a Stamper can OR it into the
+ * board a word at a time. Each of the eight orientations is built
+ * from the drawn pattern the first time it is asked for and kept.
+ *
+ * Patterns are equal when they have the same cells, whatever their
+ * names, and are ordered by size then cells, so the smallest of the
+ * eight orientations is a canonical form shared by every orientation.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class Pattern implements Comparable<Pattern> {
+    private final String name; // Name of the pattern, e.g. "glider"
+    private final int rows; // Rows of the pattern
+    private final int cols; // Columns of the pattern
+    private final int wordsPerRow; // Longs holding each row
+    private final long[] bits; // Packed rows, row by row
+    private final long population; // Live cells of the pattern
+    private final int hash; // Hash code of the size and cells
+    private final Pattern[] orientations; // Turned copies built so far, shared by every orientation
+
+    /**
+     * Class constructor
+     * @param name, the name of the pattern
+     * @param rows, the rows of the pattern
+     * @param cols, the columns of the pattern
+     * @param bits, the packed rows, with bits past the last column dead
+     * @param orientations, the turned copies shared with the drawn pattern, or null for a drawn pattern
+     */
+    private Pattern(String name, int rows, int cols, long[] bits, Pattern[] orientations) {
+        this.name = name;
+        this.rows = rows;
+        this.cols = cols;
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.bits = bits;
+        long live = 0;
+        for (long word : bits) {
+            live += Long.bitCount(word);
+        }
+        this.population = live;
+        this.hash = 31 * (31 * rows + cols) + Arrays.hashCode(bits);
+        if (orientations == null) {
+            orientations = new Pattern[Orientation.values().length];
+            orientations[Orientation.IDENTITY.ordinal()] = this;
+        }
+        this.orientations = orientations;
+    }
+
+    /**
+     * Creates a pattern from packed rows laid out as in LifeEngine.copyRow()
+     * @param name, the name of the pattern
+     * @param rows, the rows of the pattern
+     * @param cols, the columns of the pattern
+     * @param bits, the rows one after another, (cols + 63) / 64 longs each, copied
+     * @return, the pattern
+     */
+    public static Pattern of(String name, int rows, int cols, long[] bits) {
+        if (rows < 1 || cols < 1) {
+            throw new IllegalArgumentException("Pattern size must be positive: " + cols + "x" + rows);
+        }
+        int wordsPerRow = (cols + 63) >>> 6;
+        long[] copy = Arrays.copyOf(bits, rows * wordsPerRow);
+        long lastWordMask = (cols & 63) == 0 ? -1L : (1L << (cols & 63)) - 1;
+        for (int row = 0; row < rows; row++) {
+            copy[row * wordsPerRow + wordsPerRow - 1] &= lastWordMask; // Keep the bits past the last column dead
+        }
+        return new Pattern(name, rows, cols, copy, null);
+    }
+
+    /**
+     * Copies the whole board of an engine into a new pattern
+     * @param name, the name of the pattern
+     * @param engine, the engine holding the pattern
+     * @return, the pattern
+     */
+    public static Pattern copyOf(String name, LifeEngine engine) {
+        return copyOf(name, engine, 0, 0, engine.getRows(), engine.getCols());
+    }
+
+    /**
+     * Copies a rectangle of an engine's board into a new pattern
+     * @param name, the name of the pattern
+     * @param engine, the engine holding the pattern
+     * @param top, the first row of the rectangle
+     * @param left, the first column of the rectangle
+     * @param rows, the rows of the rectangle
+     * @param cols, the columns of the rectangle
+     * @return, the pattern
+     */
+    public static Pattern copyOf(String name, LifeEngine engine, int top, int left, int rows, int cols) {
+        int wordsPerRow = (cols + 63) >>> 6;
+        long[] row = new long[((engine.getCols() + 63) >>> 6) + 1]; // One spare word to shift in from
+        long[] bits = new long[rows * wordsPerRow];
+        int shift = left & 63;
+        for (int r = 0; r < rows; r++) {
+            engine.copyRow(top + r, row, 0);
+            for (int i = 0; i < wordsPerRow; i++) {
+                int word = (left >>> 6) + i;
+                bits[r * wordsPerRow + i] = shift == 0 ? row[word] : row[word] >>> shift | row[word + 1] << (64 - shift);
+            }
+        }
+        return of(name, rows, cols, bits);
+    }
+
+    /**
+     * Gets the pattern turned and flipped, building it the first time
+     * @param orientation, the way to turn the pattern as drawn
+     * @return, the turned pattern
+     */
+    public Pattern orient(Orientation orientation) {
+        synchronized (orientations) {
+            Pattern turned = orientations[orientation.ordinal()];
+            if (turned == null) {
+                turned = orientations[Orientation.IDENTITY.ordinal()].build(orientation);
+                orientations[orientation.ordinal()] = turned;
+            }
+            return turned;
+        }
+    }
+
+    /**
+     * Gets the smallest of the pattern's eight orientations, the same
+     * pattern for every orientation of the same object
+     * @return, the canonical orientation
+     */
+    public Pattern canonical() {
+        Pattern smallest = this;
+        for (Orientation orientation : Orientation.values()) {
+            Pattern turned = orient(orientation);
+            if (turned.compareTo(smallest) < 0) {
+                smallest = turned;
+            }
+        }
+        return smallest;
+    }
+
+    /**
+     * Builds a turned copy of this pattern a cell at a time. Patterns are
+     * small and each orientation is only built once
+     * @param orientation, the way to turn the pattern
+     * @return, the turned pattern
+     */
+    private Pattern build(Orientation orientation) {
+        int newRows = orientation.isTranspose() ? cols : rows;
+        int newCols = orientation.isTranspose() ? rows : cols;
+        int newWords = (newCols + 63) >>> 6;
+        long[] turned = new long[newRows * newWords];
+        for (int r = 0; r < newRows; r++) {
+            int a = orientation.isFlipRows() ? newRows - 1 - r : r;
+            for (int c = 0; c < newCols; c++) {
+                int b = orientation.isFlipCols() ? newCols - 1 - c : c;
+                if (orientation.isTranspose() ? getCell(b, a) : getCell(a, b)) {
+                    turned[r * newWords + (c >>> 6)] |= 1L << c;
+                }
+            }
+        }
+        return new Pattern(name, newRows, newCols, turned, orientations);
+    }
+
+    /**
+     * Gets the state of one cell of the pattern
+     * @param row, the row of the cell
+     * @param col, the column of the cell
+     * @return true, if the cell is alive
+     */
+    public boolean getCell(int row, int col) {
+        return (bits[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    /**
+     * Gets the name of the pattern
+     * @return, the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the rows of the pattern
+     * @return, the rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the columns of the pattern
+     * @return, the columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Gets the longs holding each packed row
+     * @return, the words per row
+     */
+    int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Gets the packed rows, which must not be changed
+     * @return, the rows one after another, getWordsPerRow() longs each
+     */
+    long[] getBits() {
+        return bits;
+    }
+
+    /**
+     * Gets the number of live cells in the pattern
+     * @return, the population
+     */
+    public long getPopulation() {
+        return population;
+    }
+
+    /**
+     * Ors the pattern into the engine with its top left corner at a cell.
+     * Stamping many patterns into one engine can share a Stamper
+     * @param engine, the engine to stamp into
+     * @param row, the row of the turned pattern's top left corner
+     * @param col, the column of the turned pattern's top left corner
+     * @param orientation, the way to turn the pattern
+     */
+    public void stamp(LifeEngine engine, int row, int col, Orientation orientation) {
+        new Stamper(engine).stamp(this, row, col, orientation);
+    }
+
+    /**
+     * Orders patterns by rows, then columns, then cells a word at a time
+     * @param other, the pattern to compare with
+     * @return, less than, equal to or greater than zero as this pattern comes first, equal or after
+     */
+    @Override
+    public int compareTo(Pattern other) {
+        if (rows != other.rows) {
+            return Integer.compare(rows, other.rows);
+        }
+        if (cols != other.cols) {
+            return Integer.compare(cols, other.cols);
+        }
+        for (int i = 0; i < bits.length; i++) {
+            if (bits[i] != other.bits[i]) {
+                return Long.compareUnsigned(bits[i], other.bits[i]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns true if the other pattern has the same size and cells,
+     * whatever its name
+     * @param other, the object to compare with
+     * @return true, if the patterns have the same cells
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Pattern)) {
+            return false;
+        }
+        Pattern pattern = (Pattern) other;
+        return hash == pattern.hash && rows == pattern.rows && cols == pattern.cols
+                && Arrays.equals(bits, pattern.bits);
+    }
+
+    /**
+     * Gets a hash code of the pattern's size and cells
+     * @return, the hash code
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Gets the name and size of the pattern
+     * @return, e.g. "glider (3x3)"
+     */
+    @Override
+    public String toString() {
+        return name + " (" + cols + "x" + rows + ")";
+    }
+
+}
@@ -0,0 +1,208 @@
+package gameoflife.pattern;
+
+import gameoflife.engine.PackedEngine;
+import gameoflife.io.LifeFiles;
+import gameoflife.io.RleFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Built in patterns (still lifes, oscillators, spaceships, methuselahs
+ * and guns) and the user's RLE files, each parsed once into a Pattern
+ * and kept in a least recently used cache. User files are cached by
+ * path, size and modification time, so a file changed on disk is read
+ * again and the stale copy ages out of the cache.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class PatternLibrary {
+    public static final int DEFAULT_CACHE_SIZE = 64; // Patterns kept by default
+    private static final int MAX_PATTERN_SIZE = 1 << 14; // Most rows or columns of a pattern file
+    private static final List<String> BUILT_IN = Collections.unmodifiableList(Arrays.asList(
+            "block", "beehive", "loaf", "boat", "ship", "tub", "pond", "long-boat", "barge", "mango",
+            "eater-1", "aircraft-carrier", "snake",
+            "blinker", "toad", "beacon", "pulsar", "pentadecathlon",
+            "glider", "lwss", "mwss", "hwss",
+            "r-pentomino", "acorn", "diehard",
+            "gosper-glider-gun", "simkin-glider-gun"
+    )); // Names of the patterns in the resources, in the order shown
+    private final Map<String, Pattern> cache; // Parsed patterns, least recently used first
+    private long hits; // Patterns found in the cache
+    private long misses; // Patterns parsed
+
+    /**
+     * Class constructor that keeps up to DEFAULT_CACHE_SIZE patterns
+     */
+    public PatternLibrary() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Class constructor
+     * @param cacheSize, the most patterns kept parsed
+     */
+    public PatternLibrary(int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Pattern cache must hold at least one pattern");
+        }
+        this.cache = new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Gets the names of the built in patterns
+     * @return, the names, e.g. "glider"
+     */
+    public static List<String> getBuiltInNames() {
+        return BUILT_IN;
+    }
+
+    /**
+     * Gets a built in pattern, parsing it the first time
+     * @param name, the name of the pattern, e.g. "glider"
+     * @return, the pattern
+     * @throws IOException, if there is no such pattern or it cannot be read
+     */
+    public synchronized Pattern get(String name) throws IOException {
+        String key = "builtin:" + name;
+        Pattern pattern = cache.get(key);
+        if (pattern != null) {
+            hits++;
+            return pattern;
+        }
+
+        InputStream in = BUILT_IN.contains(name) ? PatternLibrary.class.getResourceAsStream(name + ".rle") : null;
+        if (in == null) {
+            throw new FileNotFoundException("No built in pattern called " + name);
+        }
+        byte[] bytes;
+        try (in) {
+            bytes = in.readAllBytes();
+        }
+        pattern = parse(name, bytes, name);
+        cache.put(key, pattern);
+        misses++;
+        return pattern;
+    }
+
+    /**
+     * Gets the pattern in an RLE file, parsing it unless the same file
+     * is cached unchanged
+     * @param file, the RLE file
+     * @return, the pattern, named after the file
+     * @throws IOException, if the file cannot be read or is not valid RLE
+     */
+    public synchronized Pattern load(Path file) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        String key = "file:" + path + "@" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+        Pattern pattern = cache.get(key);
+        if (pattern != null) {
+            hits++;
+            return pattern;
+        }
+
+        String name = path.getFileName().toString();
+        if (LifeFiles.extension(path).equals(RleFile.EXTENSION)) {
+            name = name.substring(0, name.length() - RleFile.EXTENSION.length() - 1);
+        }
+        int[] size = RleFile.readSize(FileChannel.open(path, StandardOpenOption.READ), path.toString());
+        pattern = read(name, size, path.toString(), () -> FileChannel.open(path, StandardOpenOption.READ));
+        cache.put(key, pattern);
+        misses++;
+        return pattern;
+    }
+
+    /**
+     * Parses an RLE pattern held in memory
+     * @param name, the name of the pattern
+     * @param bytes, the RLE text
+     * @param source, names the pattern in error messages
+     * @return, the pattern
+     * @throws IOException, if the text is not valid RLE
+     */
+    private static Pattern parse(String name, byte[] bytes, String source) throws IOException {
+        int[] size = RleFile.readSize(Channels.newChannel(new ByteArrayInputStream(bytes)), source);
+        return read(name, size, source, () -> Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Reads an RLE pattern into an engine the size its header gives and
+     * copies the engine into a Pattern
+     * @param name, the name of the pattern
+     * @param size, the rows and columns from the header, as {rows, cols}
+     * @param source, names the pattern in error messages
+     * @param opener, opens a fresh channel onto the RLE text
+     * @return, the pattern
+     * @throws IOException, if the text cannot be read, is too big or is not valid RLE
+     */
+    private static Pattern read(String name, int[] size, String source, ChannelOpener opener) throws IOException {
+        if (size[0] < 1 || size[1] < 1 || size[0] > MAX_PATTERN_SIZE || size[1] > MAX_PATTERN_SIZE) {
+            throw new IOException("RLE pattern must be 1 to " + MAX_PATTERN_SIZE + " cells each way, not "
+                    + size[1] + "x" + size[0] + ": " + source);
+        }
+        PackedEngine engine = new PackedEngine(size[0], size[1]);
+        RleFile.read(opener.open(), source, engine, false);
+        return Pattern.copyOf(name, engine);
+    }
+
+    /**
+     * Gets the number of patterns currently cached
+     * @return, the patterns cached
+     */
+    public synchronized int getCachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache
+     * @return, the cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to parse a pattern
+     * @return, the cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Opens a channel onto the text of a pattern, once for its header
+     * and again for its cells
+     */
+    private interface ChannelOpener {
+
+        /**
+         * Opens the channel
+         * @return, the channel, closed by whoever reads it
+         * @throws IOException, if it cannot be opened
+         */
+        ReadableByteChannel open() throws IOException;
+    }
+
+}
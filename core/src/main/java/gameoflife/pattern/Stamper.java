@@ -0,0 +1,124 @@
+package gameoflife.pattern;
+
+import gameoflife.engine.Boundary;
+import gameoflife.engine.LifeEngine;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Ors patterns into an engine a word at a time. Each packed pattern
+ * row is shifted to the column it lands on and ORed into the one or two
+ * board words under each of its words through LifeEngine.orWord(), so a
+ * pattern costs a couple of word writes per row on packed engines, and
+ * a setCell() per live cell on the others, whatever the board's width.
+ *
+ * Patterns that cross an edge wrap to the opposite edge where the
+ * boundary joins them as on a torus, and are cut off elsewhere, so on
+ * a Klein bottle they wrap left to right but not top to bottom. The
+ * caller holds the grid's lock while stamping if the engine is shared.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class Stamper {
+    private final LifeEngine engine; // Engine being stamped into
+    private final int rows; // Rows of the board
+    private final int cols; // Columns of the board
+    private final int wordsPerRow; // Longs holding each board row
+    private final boolean wrapRows; // True if patterns crossing the top or bottom wrap round
+    private final boolean wrapCols; // True if patterns crossing the left or right edge wrap round
+    private long stamps; // Patterns stamped so far
+
+    /**
+     * Class constructor
+     * @param engine, the engine to stamp into
+     */
+    public Stamper(LifeEngine engine) {
+        this.engine = engine;
+        this.rows = engine.getRows();
+        this.cols = engine.getCols();
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.wrapRows = engine.getBoundary() == Boundary.TORUS;
+        this.wrapCols = engine.getBoundary().wraps();
+    }
+
+    /**
+     * Ors a pattern as drawn into the board
+     * @param pattern, the pattern to stamp
+     * @param row, the row of the pattern's top left corner
+     * @param col, the column of the pattern's top left corner
+     */
+    public void stamp(Pattern pattern, int row, int col) {
+        stamp(pattern, row, col, Orientation.IDENTITY);
+    }
+
+    /**
+     * Ors a pattern into the board, turned and flipped
+     * @param pattern, the pattern to stamp
+     * @param row, the row of the turned pattern's top left corner
+     * @param col, the column of the turned pattern's top left corner
+     * @param orientation, the way to turn the pattern
+     */
+    public void stamp(Pattern pattern, int row, int col, Orientation orientation) {
+        Pattern turned = pattern.orient(orientation);
+        long[] bits = turned.getBits();
+        int patternWords = turned.getWordsPerRow();
+        if (wrapRows) {
+            row = Math.floorMod(row, rows);
+        }
+        if (wrapCols) {
+            col = Math.floorMod(col, cols);
+        }
+
+        for (int r = 0; r < turned.getRows(); r++) {
+            int boardRow = wrapRows ? (row + r) % rows : row + r;
+            if (boardRow < 0 || boardRow >= rows) {
+                continue; // Cut off by an edge
+            }
+
+            // Wrapped patterns are ORed in again one board width to the left for each edge they cross
+            for (int shift = col; shift + turned.getCols() > 0; shift -= cols) {
+                or(boardRow, bits, r * patternWords, patternWords, shift);
+                if (!wrapCols) {
+                    break;
+                }
+            }
+        }
+        stamps++;
+    }
+
+    /**
+     * Ors one packed pattern row into a board row, shifted right by a
+     * number of columns. Columns shifted past either end are dropped
+     * @param row, the board row
+     * @param bits, the pattern's packed rows
+     * @param offset, index of bits holding the first word of the row
+     * @param count, the longs holding the pattern row
+     * @param shift, the board column of the pattern's first column, may be negative
+     */
+    private void or(int row, long[] bits, int offset, int count, int shift) {
+        int wordShift = Math.floorDiv(shift, 64);
+        int bitShift = shift & 63;
+        for (int i = 0; i < count; i++) {
+            long word = bits[offset + i];
+            if (word == 0) {
+                continue;
+            }
+            int w = i + wordShift;
+            if (w >= 0 && w < wordsPerRow) {
+                engine.orWord(row, w, word << bitShift);
+            }
+            if (bitShift != 0 && w + 1 >= 0 && w + 1 < wordsPerRow) {
+                engine.orWord(row, w + 1, word >>> (64 - bitShift));
+            }
+        }
+    }
+
+    /**
+     * Gets the number of patterns stamped so far
+     * @return, the patterns stamped
+     */
+    public long getStamps() {
+        return stamps;
+    }
+
+}
@@ -0,0 +1,494 @@
+package gameoflife.search;
+
+import gameoflife.engine.LifeEngine;
+import gameoflife.pattern.Pattern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Counts and classifies the objects left on a board. Live cells within
+ * two cells of each other, across or diagonally, share a neighbour and
+ * so form one object, which then steps on its own exactly as it does
+ * on the board. Objects are found by union-find over the runs of live
+ * cells in each row of a packed copy of the board: the board is cut
+ * into stripes of rows whose runs are joined in parallel, the runs
+ * either side of each cut are joined after, and each object's cells
+ * are gathered into a Pattern and looked up in the ObjectIndex of the
+ * board's rule, in parallel again. A group that is several objects
+ * near each other, e.g. two blocks side by side, is split by the index
+ * into the objects it is made of.
+ *
+ * Known objects are named, e.g. "block", "blinker" or "glider", and
+ * others by cell count and size with the longer side first, plus their
+ * period if they oscillate, e.g. "14c6x4p2". Edges are not wrapped, so
+ * an object crossing the edge of a torus is counted as two.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class Census {
+    private static final int DISTANCE = 2; // Cells at most this far apart are in the same object
+    private static final int STRIPES_PER_THREAD = 4; // Stripes created for each thread
+    private static final int MIN_STRIPE_ROWS = 64; // Fewest rows in a stripe
+    private final Map<String, Integer> counts = new TreeMap<>(); // Objects found, by name
+    private final Map<String, LifeObject> found = new HashMap<>(); // What each name found is
+    private int objects; // Total objects found
+
+    /**
+     * Class constructor, use take() to count a board
+     */
+    private Census() {
+    }
+
+    /**
+     * Counts the objects on the engine's board on the calling thread
+     * @param engine, the engine to count
+     * @return, the census of its board
+     */
+    public static Census take(LifeEngine engine) {
+        try {
+            return take(engine, 1);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("Census interrupted", e); // Never waits on one thread
+        }
+    }
+
+    /**
+     * Counts the objects on the engine's board using several threads
+     * @param engine, the engine to count, not stepped until the census is taken
+     * @param threads, the threads to count with, 1 for the calling thread alone
+     * @return, the census of its board
+     * @throws InterruptedException, if interrupted while waiting for the threads
+     */
+    public static Census take(LifeEngine engine, int threads) throws InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            return new Labeller(engine, threads, pool).count();
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of each object found
+     * @return, the counts by object name, sorted by name
+     */
+    public Map<String, Integer> getCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Gets what an object found is: its kind, period and movement
+     * @param name, the name of the object, as in getCounts()
+     * @return, the object, or null if none of that name was found
+     */
+    public LifeObject getObject(String name) {
+        return found.get(name);
+    }
+
+    /**
+     * Gets the number of objects found of one kind
+     * @param kind, the kind of object
+     * @return, the number found
+     */
+    public int getCount(LifeObject.Kind kind) {
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (found.get(entry.getKey()).getKind() == kind) {
+                total += entry.getValue();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets the total number of objects found
+     * @return, the object count
+     */
+    public int getObjects() {
+        return objects;
+    }
+
+    /**
+     * Adds one object found to the census
+     * @param object, the object
+     */
+    private void add(LifeObject object) {
+        counts.merge(object.getName(), 1, Integer::sum);
+        found.putIfAbsent(object.getName(), object);
+        objects++;
+    }
+
+    /**
+     * Adds the objects found by another census of part of the board
+     * @param part, the census of the part
+     */
+    private void add(Census part) {
+        for (Map.Entry<String, Integer> entry : part.counts.entrySet()) {
+            counts.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+        for (Map.Entry<String, LifeObject> entry : part.found.entrySet()) {
+            found.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        objects += part.objects;
+    }
+
+    /**
+     * Lists the objects found as space separated "name*count" entries,
+     * leaving out the count when it is 1
+     * @return, the census, empty if the board is empty
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(entry.getKey());
+            if (entry.getValue() > 1) {
+                text.append('*').append(entry.getValue());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the census as a JSON object of counts by object name
+     * @param json, receives the object
+     */
+    void appendJson(StringBuilder json) {
+        json.append('{');
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (json.charAt(json.length() - 1) != '{') {
+                json.append(',');
+            }
+            json.append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+        }
+        json.append('}');
+    }
+
+    /**
+     * Finds the objects of one board. Runs are numbered in row order and
+     * a union always hangs the larger root under the smaller, so the
+     * root of every object is its first run, in its top row
+     */
+    private static final class Labeller {
+        private final LifeEngine engine; // Engine being counted
+        private final ForkJoinPool pool; // Pool running the tasks, null to run them on the calling thread
+        private final int threads; // Threads counting
+        private final int rows; // Rows of the board
+        private final int cols; // Columns of the board
+        private final int wordsPerRow; // Longs holding each row
+        private final int stripeRows; // Rows in each stripe
+        private final int stripes; // Stripes the board is cut into
+        private final long[] cells; // Packed copy of the board
+        private final int[] rowFirst; // Number of the first run of each row, and the run count at the end
+        private int[] runStart; // First column of each run
+        private int[] runEnd; // Last column of each run
+        private int[] runRow; // Row of each run
+        private int[] parent; // Parent of each run in the union-find forest, then its root
+
+        /**
+         * Class constructor that copies the board
+         * @param engine, the engine to count
+         * @param threads, the threads counting
+         * @param pool, the pool running the tasks, null for the calling thread alone
+         */
+        Labeller(LifeEngine engine, int threads, ForkJoinPool pool) {
+            this.engine = engine;
+            this.pool = pool;
+            this.threads = threads;
+            this.rows = engine.getRows();
+            this.cols = engine.getCols();
+            this.wordsPerRow = (cols + 63) >>> 6;
+            this.stripeRows = threads == 1 ? rows
+                    : Math.max(MIN_STRIPE_ROWS, (rows + threads * STRIPES_PER_THREAD - 1) / (threads * STRIPES_PER_THREAD));
+            this.stripes = (rows + stripeRows - 1) / stripeRows;
+            this.cells = new long[rows * wordsPerRow];
+            this.rowFirst = new int[rows + 1];
+            for (int r = 0; r < rows; r++) {
+                engine.copyRow(r, cells, r * wordsPerRow); // Engines need not allow reads from several threads
+            }
+        }
+
+        /**
+         * Finds, joins and classifies the runs of the board
+         * @return, the census
+         * @throws InterruptedException, if interrupted while waiting for the threads
+         */
+        Census count() throws InterruptedException {
+            // Number the runs of each stripe from where the stripe before ends
+            int[] stripeFirst = new int[stripes + 1];
+            run(stripes, stripe -> stripeFirst[stripe + 1] = countRuns(stripe));
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                stripeFirst[stripe + 1] += stripeFirst[stripe];
+            }
+            int runs = stripeFirst[stripes];
+            runStart = new int[runs];
+            runEnd = new int[runs];
+            runRow = new int[runs];
+            parent = new int[runs];
+            rowFirst[rows] = runs;
+
+            // Join the runs within each stripe, then across each cut
+            run(stripes, stripe -> joinStripe(stripe, stripeFirst[stripe]));
+            for (int stripe = 1; stripe < stripes; stripe++) {
+                int cut = stripe * stripeRows;
+                joinRows(cut - 1, cut);
+                joinRows(cut - 2, cut);
+                joinRows(cut - 1, cut + 1);
+            }
+            run(stripes, stripe -> {
+                for (int run = stripeFirst[stripe]; run < stripeFirst[stripe + 1]; run++) {
+                    parent[run] = find(run); // Roots only, so the forest is read only from here
+                }
+            });
+
+            // Gather the runs of each object together, in row order
+            int[] object = new int[runs]; // Object of each run
+            int objects = 0;
+            for (int run = 0; run < runs; run++) {
+                object[run] = parent[run] == run ? objects++ : object[parent[run]];
+            }
+            int[] objectFirst = new int[objects + 1]; // Index in order of each object's first run
+            for (int run = 0; run < runs; run++) {
+                objectFirst[object[run] + 1]++;
+            }
+            for (int i = 0; i < objects; i++) {
+                objectFirst[i + 1] += objectFirst[i];
+            }
+            int[] order = new int[runs]; // Runs sorted by object
+            int[] next = objectFirst.clone();
+            for (int run = 0; run < runs; run++) {
+                order[next[object[run]]++] = run;
+            }
+
+            // Classify the objects in batches
+            ObjectIndex index = ObjectIndex.forRule(engine.getRule());
+            int batches = Math.max(1, Math.min(objects, threads * STRIPES_PER_THREAD));
+            Census[] parts = new Census[batches];
+            int total = objects;
+            run(batches, batch -> {
+                Census part = new Census();
+                for (int i = (int) ((long) total * batch / batches); i < (long) total * (batch + 1) / batches; i++) {
+                    Pattern shape = shape(order, objectFirst[i], objectFirst[i + 1]);
+                    if (index == null) {
+                        part.add(ObjectIndex.unknown(shape));
+                        continue;
+                    }
+                    for (LifeObject found : index.findAll(shape)) {
+                        part.add(found); // Several if the group is objects near each other
+                    }
+                }
+                parts[batch] = part;
+            });
+
+            Census census = new Census();
+            for (Census part : parts) {
+                census.add(part);
+            }
+            return census;
+        }
+
+        /**
+         * Runs a task for each of a number of parts, in parallel if there
+         * is a pool
+         * @param parts, the number of parts
+         * @param task, the task, given the number of the part
+         * @throws InterruptedException, if interrupted while waiting for the tasks
+         */
+        private void run(int parts, IntConsumer task) throws InterruptedException {
+            if (pool == null) {
+                for (int part = 0; part < parts; part++) {
+                    task.accept(part);
+                }
+                return;
+            }
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int part = 0; part < parts; part++) {
+                int number = part;
+                tasks.add(() -> {
+                    task.accept(number);
+                    return null;
+                });
+            }
+            for (Future<Void> done : pool.invokeAll(tasks)) {
+                try {
+                    done.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Census task failed", e.getCause());
+                }
+            }
+        }
+
+        /**
+         * Counts the runs of live cells in a stripe
+         * @param stripe, the stripe
+         * @return, the number of runs
+         */
+        private int countRuns(int stripe) {
+            int count = 0;
+            for (int r = stripe * stripeRows; r < Math.min(rows, (stripe + 1) * stripeRows); r++) {
+                long carry = 0; // Last cell of the word before
+                for (int i = r * wordsPerRow; i < (r + 1) * wordsPerRow; i++) {
+                    count += Long.bitCount(cells[i] & ~(cells[i] << 1 | carry)); // Live cells with a dead cell to their left
+                    carry = cells[i] >>> 63;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Numbers the runs of a stripe and joins those that are close
+         * enough to be in the same object
+         * @param stripe, the stripe
+         * @param first, the number of the stripe's first run
+         */
+        private void joinStripe(int stripe, int first) {
+            int run = first;
+            int top = stripe * stripeRows;
+            for (int r = top; r < Math.min(rows, (stripe + 1) * stripeRows); r++) {
+                rowFirst[r] = run;
+                int col = nextCell(r, 0, true);
+                while (col < cols) {
+                    int end = nextCell(r, col, false);
+                    runStart[run] = col;
+                    runEnd[run] = end - 1;
+                    runRow[run] = r;
+                    parent[run] = run;
+                    if (run > rowFirst[r] && col - runEnd[run - 1] <= DISTANCE) {
+                        union(run - 1, run); // Close enough along the row
+                    }
+                    run++;
+                    col = nextCell(r, end, true);
+                }
+                rowFirst[r + 1] = run; // Overwritten by the next row, or the next stripe's first row
+                for (int above = Math.max(top, r - DISTANCE); above < r; above++) {
+                    joinRows(above, r);
+                }
+            }
+        }
+
+        /**
+         * Joins each run of one row to the runs of a row below it that are
+         * close enough to be in the same object
+         * @param upper, the upper row
+         * @param lower, the lower row, at most DISTANCE rows below
+         */
+        private void joinRows(int upper, int lower) {
+            if (upper < 0 || lower >= rows) {
+                return;
+            }
+            int b = rowFirst[upper];
+            int bEnd = rowFirst[upper + 1];
+            for (int a = rowFirst[lower]; a < rowFirst[lower + 1]; a++) {
+                while (b < bEnd && runEnd[b] < runStart[a] - DISTANCE) {
+                    b++; // Too far left of this run and every run after it
+                }
+                for (int c = b; c < bEnd && runStart[c] <= runEnd[a] + DISTANCE; c++) {
+                    union(a, c);
+                }
+            }
+        }
+
+        /**
+         * Finds the root of a run's tree, halving the path as it goes
+         * @param run, the run
+         * @return, the root
+         */
+        private int find(int run) {
+            while (parent[run] != run) {
+                parent[run] = parent[parent[run]];
+                run = parent[run];
+            }
+            return run;
+        }
+
+        /**
+         * Joins the trees of two runs, hanging the larger root under the smaller
+         * @param a, one run
+         * @param b, the other run
+         */
+        private void union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA < rootB) {
+                parent[rootB] = rootA;
+            } else if (rootB < rootA) {
+                parent[rootA] = rootB;
+            }
+        }
+
+        /**
+         * Finds the next column at or after col whose state matches
+         * @param row, the row to search
+         * @param col, the column to search from
+         * @param alive, the state to find
+         * @return, the column found, or cols if there is none
+         */
+        private int nextCell(int row, int col, boolean alive) {
+            int base = row * wordsPerRow;
+            while (col < cols) {
+                long word = alive ? cells[base + (col >>> 6)] : ~cells[base + (col >>> 6)];
+                word &= -1L << col; // Ignore the columns before col
+                if (word != 0) {
+                    return Math.min(cols, (col & ~63) + Long.numberOfTrailingZeros(word));
+                }
+                col = (col & ~63) + 64;
+            }
+            return cols;
+        }
+
+        /**
+         * Gathers the runs of one object into a pattern the size of its
+         * bounding box
+         * @param order, the runs sorted by object
+         * @param from, index in order of the object's first run
+         * @param to, index in order after its last run
+         * @return, the object's shape
+         */
+        private Pattern shape(int[] order, int from, int to) {
+            int top = runRow[order[from]];
+            int bottom = runRow[order[to - 1]];
+            int left = Integer.MAX_VALUE;
+            int right = 0;
+            for (int i = from; i < to; i++) {
+                left = Math.min(left, runStart[order[i]]);
+                right = Math.max(right, runEnd[order[i]]);
+            }
+            int width = right - left + 1;
+            int words = (width + 63) >>> 6;
+            long[] bits = new long[(bottom - top + 1) * words];
+            for (int i = from; i < to; i++) {
+                int run = order[i];
+                int base = (runRow[run] - top) * words;
+                for (int c = runStart[run] - left; c <= runEnd[run] - left; ) {
+                    int stop = Math.min(runEnd[run] - left + 1, (c & ~63) + 64); // End of the run within this word
+                    int length = stop - c;
+                    bits[base + (c >>> 6)] |= (length == 64 ? -1L : (1L << length) - 1) << c;
+                    c = stop;
+                }
+            }
+            return Pattern.of("", bottom - top + 1, width, bits);
+        }
+
+    }
+
+}
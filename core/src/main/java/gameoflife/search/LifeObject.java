@@ -0,0 +1,99 @@
+package gameoflife.search;
+
+import java.util.Locale;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * A kind of object a Census can find: its name, what it does left
+ * alone, how many generations it takes to come back to the same shape
+ * and how far it has moved when it does.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class LifeObject {
+
+    /**
+     * What an object does when left alone
+     */
+    public enum Kind {
+        STILL_LIFE, // Never changes
+        OSCILLATOR, // Comes back to the same shape in the same place
+        SPACESHIP, // Comes back to the same shape somewhere else
+        UNKNOWN // Did not come back within the generations tried, or was too big to try
+    }
+
+    private final String name; // Name of the object, e.g. "block" or "14c6x4p2"
+    private final Kind kind; // What the object does left alone
+    private final int period; // Generations until it comes back, 0 if unknown
+    private final int rowShift; // Rows moved down each period
+    private final int colShift; // Columns moved right each period
+
+    /**
+     * Class constructor
+     * @param name, the name of the object
+     * @param kind, what the object does left alone
+     * @param period, the generations until it comes back, 0 if unknown
+     * @param rowShift, the rows moved down each period
+     * @param colShift, the columns moved right each period
+     */
+    LifeObject(String name, Kind kind, int period, int rowShift, int colShift) {
+        this.name = name;
+        this.kind = kind;
+        this.period = period;
+        this.rowShift = rowShift;
+        this.colShift = colShift;
+    }
+
+    /**
+     * Gets the name of the object
+     * @return, e.g. "glider"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets what the object does when left alone
+     * @return, the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the number of generations until the object comes back to the
+     * same shape, 1 for still lifes
+     * @return, the period, 0 if unknown
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    /**
+     * Gets the rows a spaceship moves down each period, negative for up
+     * @return, the rows moved
+     */
+    public int getRowShift() {
+        return rowShift;
+    }
+
+    /**
+     * Gets the columns a spaceship moves right each period, negative for left
+     * @return, the columns moved
+     */
+    public int getColShift() {
+        return colShift;
+    }
+
+    /**
+     * Gets the name, kind and period of the object
+     * @return, e.g. "glider (spaceship, period 4)"
+     */
+    @Override
+    public String toString() {
+        String text = name + " (" + kind.name().toLowerCase(Locale.ROOT).replace('_', ' ');
+        return period > 0 ? text + ", period " + period + ")" : text + ")";
+    }
+
+}
@@ -0,0 +1,328 @@
+package gameoflife.search;
+
+import gameoflife.engine.PackedEngine;
+import gameoflife.engine.Rule;
+import gameoflife.pattern.Orientation;
+import gameoflife.pattern.Pattern;
+import gameoflife.pattern.PatternLibrary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Hash index from the shape of an object to what it is. Every phase of
+ * every known object is entered in all eight orientations, so objects
+ * found on a board are looked up as they lie without being turned.
+ * A shape not in the index is turned to its canonical orientation and
+ * looked up again, and failing that it is stepped on its own board
+ * until it comes back to the same shape, and every phase it went
+ * through is entered under a name made from its cell count, size and
+ * period, so each new shape is only stepped once.
+ *
+ * A group of cells close enough to share a neighbour may be several
+ * objects, e.g. two blocks side by side. Unless the group is a known
+ * object as it lies, such as a beacon, it is split into its connected
+ * parts, and the parts are reported when each is an object on its own.
+ * Only a group that cannot be split that way is named as one object.
+ *
+ * There is one index per rule, shared by every thread. Known objects
+ * are named for Conway's Game of Life only; under other rules every
+ * object is classified by stepping it.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+final class ObjectIndex {
+    private static final int MAX_PERIOD = 64; // Most generations an object is stepped to find its period
+    private static final int MAX_CELLS = 1024; // Most cells of an object that is stepped
+    private static final int MAX_SIZE = 128; // Most rows or columns of an object that is stepped
+    private static final int MAX_ENTRIES = 1 << 20; // Most shapes indexed, beyond which new shapes are stepped each time
+    private static final int MAX_SPLIT_AREA = 1 << 20; // Largest bounding box of a group split into its parts
+    private static final String[] KNOWN = {
+            "block", "beehive", "loaf", "boat", "ship", "tub", "pond", "long-boat", "barge", "mango",
+            "eater-1", "aircraft-carrier", "snake",
+            "blinker", "toad", "beacon", "pulsar", "pentadecathlon",
+            "glider", "lwss", "mwss", "hwss"
+    }; // Built in patterns named in the index of Conway's Game of Life
+    private static final Set<String> KNOWN_NAMES = Set.of(KNOWN); // Names of the built in patterns
+    private static final Map<Rule, ObjectIndex> INDEXES = new ConcurrentHashMap<>(); // Index of each rule used so far
+    private final Rule rule; // Rule objects are stepped under
+    private final Map<Pattern, LifeObject> objects = new ConcurrentHashMap<>(); // Object of every shape indexed
+
+    /**
+     * Class constructor, use forRule() to get the index of a rule
+     * @param rule, the rule objects are stepped under
+     */
+    private ObjectIndex(Rule rule) {
+        this.rule = rule;
+        if (rule.equals(Rule.CONWAY)) {
+            PatternLibrary library = new PatternLibrary(KNOWN.length);
+            for (String name : KNOWN) {
+                try {
+                    classify(library.get(name), name);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // Missing from the jar
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the index of a rule, creating it the first time
+     * @param rule, the rule the objects run under
+     * @return, the index, or null if objects of the rule cannot be
+     * stepped alone (rules with more than two states or births on no neighbours)
+     */
+    static ObjectIndex forRule(Rule rule) {
+        if (!rule.isLifeLike() || rule.isBornFromNothing()) {
+            return null;
+        }
+        return INDEXES.computeIfAbsent(rule, ObjectIndex::new);
+    }
+
+    /**
+     * Finds what an object is from its shape
+     * @param shape, the object's live cells, trimmed to its bounding box
+     * @return, the object
+     */
+    LifeObject find(Pattern shape) {
+        LifeObject object = objects.get(shape);
+        if (object != null) {
+            return object;
+        }
+        if (shape.getPopulation() > MAX_CELLS || shape.getRows() > MAX_SIZE || shape.getCols() > MAX_SIZE) {
+            return unknown(shape);
+        }
+
+        Pattern canonical = shape.canonical();
+        object = objects.get(canonical);
+        if (object == null) {
+            object = classify(canonical, null);
+        }
+        if (objects.size() < MAX_ENTRIES) {
+            objects.put(shape, object); // Found as it lies from now on
+        }
+        return object;
+    }
+
+    /**
+     * Finds the objects a group of cells close enough to share a
+     * neighbour is made of. A known object is found whole; any other
+     * group is split into its connected parts, which are found one by
+     * one if every part is a still life, oscillator or spaceship alone
+     * @param group, the group's live cells, trimmed to its bounding box
+     * @return, the objects, one unless the group was split
+     */
+    List<LifeObject> findAll(Pattern group) {
+        LifeObject whole = objects.get(group);
+        if (whole != null && KNOWN_NAMES.contains(whole.getName())) {
+            return List.of(whole); // Known as it lies, e.g. a beacon whose halves are apart
+        }
+        if ((long) group.getRows() * group.getCols() <= MAX_SPLIT_AREA) {
+            List<Pattern> parts = parts(group);
+            if (parts.size() > 1) {
+                List<LifeObject> found = new ArrayList<>(parts.size());
+                for (Pattern part : parts) {
+                    LifeObject object = find(part);
+                    if (object.getKind() == LifeObject.Kind.UNKNOWN) {
+                        found = null; // Only lives as a whole
+                        break;
+                    }
+                    found.add(object);
+                }
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return List.of(whole != null ? whole : find(group));
+    }
+
+    /**
+     * Splits a group into its parts of cells touching across or diagonally
+     * @param group, the group's live cells
+     * @return, each part trimmed to its bounding box, in the order of their first cells
+     */
+    private static List<Pattern> parts(Pattern group) {
+        int rows = group.getRows();
+        int cols = group.getCols();
+        boolean[] seen = new boolean[rows * cols];
+        int[] queue = new int[rows * cols]; // Cells of every part found so far, by part
+        int tail = 0;
+        List<Pattern> parts = new ArrayList<>();
+        for (int start = 0; start < rows * cols; start++) {
+            if (seen[start] || !group.getCell(start / cols, start % cols)) {
+                continue;
+            }
+
+            // Gather the part by breadth first search
+            int head = tail;
+            int first = tail;
+            queue[tail++] = start;
+            seen[start] = true;
+            int top = rows, left = cols, bottom = -1, right = -1;
+            while (head < tail) {
+                int row = queue[head] / cols;
+                int col = queue[head++] % cols;
+                top = Math.min(top, row);
+                bottom = Math.max(bottom, row);
+                left = Math.min(left, col);
+                right = Math.max(right, col);
+                for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                    for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                        if (!seen[r * cols + c] && group.getCell(r, c)) {
+                            seen[r * cols + c] = true;
+                            queue[tail++] = r * cols + c;
+                        }
+                    }
+                }
+            }
+
+            int width = right - left + 1;
+            int words = (width + 63) >>> 6;
+            long[] bits = new long[(bottom - top + 1) * words];
+            for (int i = first; i < tail; i++) {
+                int col = queue[i] % cols - left;
+                bits[(queue[i] / cols - top) * words + (col >>> 6)] |= 1L << col;
+            }
+            parts.add(Pattern.of(group.getName(), bottom - top + 1, width, bits));
+        }
+        return parts;
+    }
+
+    /**
+     * Steps an object on its own board until it comes back to the same
+     * shape and enters every phase it went through in the index
+     * @param shape, the object's live cells, trimmed to its bounding box
+     * @param name, the name of the object, or null to name it from its smallest phase
+     * @return, the object
+     */
+    private LifeObject classify(Pattern shape, String name) {
+        int margin = MAX_PERIOD + 2; // Room to move one cell a generation without touching the edge
+        PackedEngine engine = new PackedEngine(shape.getRows() + 2 * margin, shape.getCols() + 2 * margin);
+        engine.setRule(rule);
+        shape.stamp(engine, margin, margin, Orientation.IDENTITY);
+
+        List<Pattern> phases = new ArrayList<>();
+        phases.add(shape);
+        int[] box = new int[4]; // Top, left, bottom and right of the live cells
+        for (int generation = 1; generation <= MAX_PERIOD; generation++) {
+            engine.step();
+            if (!bounds(engine, box) || box[0] == 0 || box[1] == 0
+                    || box[2] == engine.getRows() - 1 || box[3] == engine.getCols() - 1) {
+                break; // Died out or reached the edge
+            }
+            Pattern phase = Pattern.copyOf(shape.getName(), engine, box[0], box[1],
+                    box[2] - box[0] + 1, box[3] - box[1] + 1);
+            if (phase.equals(shape)) {
+                int rowShift = box[0] - margin;
+                int colShift = box[1] - margin;
+                LifeObject.Kind kind = rowShift != 0 || colShift != 0 ? LifeObject.Kind.SPACESHIP
+                        : generation == 1 ? LifeObject.Kind.STILL_LIFE : LifeObject.Kind.OSCILLATOR;
+                LifeObject object = new LifeObject(name != null ? name : name(phases, generation),
+                        kind, generation, rowShift, colShift);
+                for (Pattern each : phases) {
+                    enter(each, object);
+                }
+                return object;
+            }
+            if (phase.getPopulation() > MAX_CELLS || phase.getRows() > MAX_SIZE || phase.getCols() > MAX_SIZE) {
+                break; // Growing, so not coming back
+            }
+            phases.add(phase);
+        }
+
+        LifeObject object = unknown(shape);
+        enter(shape, object);
+        return object;
+    }
+
+    /**
+     * Enters a phase of an object in the index in all eight orientations
+     * @param phase, the phase
+     * @param object, the object it is a phase of
+     */
+    private void enter(Pattern phase, LifeObject object) {
+        if (objects.size() >= MAX_ENTRIES) {
+            return;
+        }
+        for (Orientation orientation : Orientation.values()) {
+            objects.putIfAbsent(phase.orient(orientation), object);
+        }
+    }
+
+    /**
+     * Names an object from the phase with the fewest cells, then the
+     * smallest canonical form, as its cell count, its size with the
+     * longer side first and its period, e.g. "14c6x4p2"
+     * @param phases, every phase of the object
+     * @param period, the object's period
+     * @return, the name
+     */
+    private static String name(List<Pattern> phases, int period) {
+        Pattern smallest = null;
+        for (Pattern phase : phases) {
+            if (smallest == null || phase.getPopulation() < smallest.getPopulation()
+                    || phase.getPopulation() == smallest.getPopulation()
+                    && phase.canonical().compareTo(smallest.canonical()) < 0) {
+                smallest = phase;
+            }
+        }
+        return sizeName(smallest) + (period > 1 ? "p" + period : "");
+    }
+
+    /**
+     * Creates an object that did not come back to its shape
+     * @param shape, the object's live cells
+     * @return, the object, named from its cell count and size
+     */
+    static LifeObject unknown(Pattern shape) {
+        return new LifeObject(sizeName(shape), LifeObject.Kind.UNKNOWN, 0, 0, 0);
+    }
+
+    /**
+     * Names a shape from its cell count and size with the longer side first
+     * @param shape, the shape
+     * @return, e.g. "4c2x2"
+     */
+    private static String sizeName(Pattern shape) {
+        return shape.getPopulation() + "c" + Math.max(shape.getRows(), shape.getCols())
+                + "x" + Math.min(shape.getRows(), shape.getCols());
+    }
+
+    /**
+     * Finds the bounding box of the live cells of an engine
+     * @param engine, the engine
+     * @param box, receives the top, left, bottom and right of the live cells
+     * @return true, if any cell is alive
+     */
+    private static boolean bounds(PackedEngine engine, int[] box) {
+        long[] row = new long[engine.getWordsPerRow()];
+        int top = -1, bottom = -1, left = Integer.MAX_VALUE, right = -1;
+        for (int r = 0; r < engine.getRows(); r++) {
+            engine.copyRow(r, row, 0);
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] != 0) {
+                    if (top < 0) {
+                        top = r;
+                    }
+                    bottom = r;
+                    left = Math.min(left, (i << 6) + Long.numberOfTrailingZeros(row[i]));
+                    right = Math.max(right, (i << 6) + 63 - Long.numberOfLeadingZeros(row[i]));
+                }
+            }
+        }
+        box[0] = top;
+        box[1] = left;
+        box[2] = bottom;
+        box[3] = right;
+        return top >= 0;
+    }
+
+}
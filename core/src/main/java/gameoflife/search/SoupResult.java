@@ -0,0 +1,96 @@
+package gameoflife.search;
+
+import gameoflife.CycleDetector;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * What one random soup settled into, written as one CSV or JSON line.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public final class SoupResult {
+    public static final String CSV_HEADER = "soup,seed,outcome,period,lifespan,population,objects,census";
+    public static final String UNSETTLED = "UNSETTLED"; // Outcome of a soup that reached the generation cap
+
+    private final long soup; // Index of the soup in the search
+    private final long seed; // Seed the soup was generated from
+    private final String outcome; // CycleDetector outcome, or UNSETTLED
+    private final long period; // Period of the final cycle, 0 if unsettled
+    private final long lifespan; // Generation the soup settled at, or the cap
+    private final long population; // Live cells at the end of the run
+    private final Census census; // Objects left at the end of the run
+
+    /**
+     * Class constructor
+     * @param soup, the index of the soup in the search
+     * @param seed, the seed the soup was generated from
+     * @param outcome, what the soup settled into, or null if it reached the cap
+     * @param period, the period of the final cycle
+     * @param lifespan, the generation the soup settled at, or the cap
+     * @param population, the live cells at the end of the run
+     * @param census, the objects left at the end of the run
+     */
+    public SoupResult(long soup, long seed, CycleDetector.Outcome outcome, long period, long lifespan,
+                      long population, Census census) {
+        this.soup = soup;
+        this.seed = seed;
+        this.outcome = outcome == null ? UNSETTLED : outcome.name();
+        this.period = period;
+        this.lifespan = lifespan;
+        this.population = population;
+        this.census = census;
+    }
+
+    /**
+     * Gets what the soup settled into
+     * @return, a CycleDetector outcome name, or UNSETTLED
+     */
+    public String getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the generation the soup settled at
+     * @return, the lifespan, or the generation cap if it never settled
+     */
+    public long getLifespan() {
+        return lifespan;
+    }
+
+    /**
+     * Gets the objects left at the end of the run
+     * @return, the census
+     */
+    public Census getCensus() {
+        return census;
+    }
+
+    /**
+     * Writes the result as a CSV line in the order of CSV_HEADER
+     * @param line, receives the line, ending in a new line
+     */
+    public void appendCsv(StringBuilder line) {
+        line.append(soup).append(',').append(seed).append(',').append(outcome).append(',')
+                .append(period).append(',').append(lifespan).append(',').append(population).append(',')
+                .append(census.getObjects()).append(',').append(census).append('\n');
+    }
+
+    /**
+     * Writes the result as a line of JSON
+     * @param line, receives the line, ending in a new line
+     */
+    public void appendJson(StringBuilder line) {
+        line.append("{\"soup\":").append(soup)
+                .append(",\"seed\":").append(seed)
+                .append(",\"outcome\":\"").append(outcome)
+                .append("\",\"period\":").append(period)
+                .append(",\"lifespan\":").append(lifespan)
+                .append(",\"population\":").append(population)
+                .append(",\"objects\":").append(census.getObjects())
+                .append(",\"census\":");
+        census.appendJson(line);
+        line.append("}\n");
+    }
+
+}
@@ -0,0 +1,409 @@
+package gameoflife.search;
+
+import gameoflife.CycleDetector;
+import gameoflife.engine.Boundary;
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.PackedEngine;
+import gameoflife.engine.Rule;
+import gameoflife.engine.TableEngine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Headless batch search over random soups. Each soup is a square of
+ * random cells in the middle of an empty board, stepped until a
+ * CycleDetector finds it has died out, gone still or started repeating,
+ * or until a generation cap. The outcome, lifespan, final population
+ * and a Census of the objects left are written as a CSV or JSON line
+ * per soup.
+ *
+ * One worker per thread runs on a ForkJoinPool, claiming batches of
+ * soups from a shared counter until every soup has been claimed, so
+ * faster threads take more of them. Each worker reuses one engine and
+ * CycleDetector for all of its soups, a PackedEngine for life-like
+ * rules and a TableEngine otherwise. Soup i is generated from
+ * seed + i, so any soup can be run again on its own with --seed and
+ * --soups 1. Nothing here touches Swing, so the search runs on servers
+ * without a display.
+ *
+ * Options
+ * --soups N          number of soups to run (default 1000)
+ * --board N          side of the square board (default 128)
+ * --soup N           side of the random square in its middle (default 16)
+ * --density D        chance of each soup cell being alive (default 0.5)
+ * --rule RULE        rule the soups are run under (default B3/S23)
+ * --boundary B       dead, torus or klein edges of the board (default dead)
+ * --max-gen N        generation cap for each soup (default 10000)
+ * --history N        longest period detected (default 1024)
+ * --threads N        worker threads (default one per core)
+ * --seed N           seed of the first soup (default random)
+ * --format csv|jsonl output format (default csv)
+ * --output FILE      file to write the results to (default standard out)
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class SoupSearch {
+    private static final int BATCH = 64; // Soups claimed by a worker at a time
+    private static final double NANO_TO_SECOND = 1e9; // Nano seconds in one second
+    private final long soups; // Number of soups to run
+    private int boardSize = 128; // Side of the square board
+    private int soupSize = 16; // Side of the random square in the middle of the board
+    private double density = 0.5; // Chance of each soup cell being alive
+    private Rule rule = Rule.CONWAY; // Rule the soups are run under
+    private Boundary boundary = Boundary.DEAD; // What lies past the edges of the board
+    private long maxGenerations = 10000; // Generation cap for each soup
+    private int history = CycleDetector.DEFAULT_HISTORY; // Longest period detected
+    private int threads = Runtime.getRuntime().availableProcessors(); // Worker threads
+    private long seed = new SplittableRandom().nextLong(); // Seed of the first soup
+    private boolean json; // True to write JSON lines instead of CSV
+    private final AtomicLong nextSoup = new AtomicLong(); // Next soup to be claimed
+    private final Map<String, AtomicLong> outcomes = new TreeMap<>(); // Soups per outcome
+
+    /**
+     * Class constructor
+     * @param soups, the number of soups to run
+     */
+    public SoupSearch(long soups) {
+        if (soups < 0) {
+            throw new IllegalArgumentException("Soup count must not be negative: " + soups);
+        }
+        this.soups = soups;
+        for (CycleDetector.Outcome outcome : CycleDetector.Outcome.values()) {
+            outcomes.put(outcome.name(), new AtomicLong());
+        }
+        outcomes.put(SoupResult.UNSETTLED, new AtomicLong());
+    }
+
+    /**
+     * Sets the size of the board and of the random square in its middle
+     * @param boardSize, the side of the square board
+     * @param soupSize, the side of the random square
+     */
+    public void setSize(int boardSize, int soupSize) {
+        if (soupSize <= 0 || boardSize < soupSize) {
+            throw new IllegalArgumentException("Soup " + soupSize + " does not fit on board " + boardSize);
+        }
+        this.boardSize = boardSize;
+        this.soupSize = soupSize;
+    }
+
+    /**
+     * Sets the chance of each soup cell being alive
+     * @param density, the chance, from 0 to 1
+     */
+    public void setDensity(double density) {
+        if (!(density >= 0 && density <= 1)) {
+            throw new IllegalArgumentException("Density must be from 0 to 1: " + density);
+        }
+        this.density = density;
+    }
+
+    /**
+     * Sets the rule the soups are run under
+     * @param rule, the rule
+     */
+    public void setRule(Rule rule) {
+        this.rule = rule;
+    }
+
+    /**
+     * Sets what lies past the edges of the board
+     * @param boundary, the boundary
+     */
+    public void setBoundary(Boundary boundary) {
+        this.boundary = boundary;
+    }
+
+    /**
+     * Sets the generation cap and the longest period detected
+     * @param maxGenerations, the generations a soup may run before it is given up on
+     * @param history, the generations remembered by each CycleDetector
+     */
+    public void setLimits(long maxGenerations, int history) {
+        if (maxGenerations < 0) {
+            throw new IllegalArgumentException("Generation cap must not be negative: " + maxGenerations);
+        }
+        this.maxGenerations = maxGenerations;
+        this.history = history;
+    }
+
+    /**
+     * Sets the number of worker threads
+     * @param threads, the thread count
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the seed of the first soup, soup i using seed + i
+     * @param seed, the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the seed of the first soup
+     * @return, the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets whether results are written as JSON lines or CSV
+     * @param json, true for JSON lines
+     */
+    public void setJson(boolean json) {
+        this.json = json;
+    }
+
+    /**
+     * Runs every soup, writing a line per soup in the order they finish
+     * @param out, receives the results
+     * @throws IOException, if the results cannot be written
+     * @throws InterruptedException, if interrupted while waiting for the workers
+     */
+    public void run(Writer out) throws IOException, InterruptedException {
+        if (!json) {
+            out.write(SoupResult.CSV_HEADER);
+            out.write('\n');
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Callable<Void>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(() -> {
+                    claimSoups(out);
+                    return null;
+                });
+            }
+            for (Future<Void> worker : pool.invokeAll(workers)) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IllegalStateException("Soup worker failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        out.flush();
+    }
+
+    /**
+     * Claims and runs batches of soups until every soup has been claimed,
+     * writing each batch's results at once
+     * @param out, receives the results
+     * @throws IOException, if the results cannot be written
+     */
+    private void claimSoups(Writer out) throws IOException {
+        LifeEngine engine = rule.isLifeLike()
+                ? new PackedEngine(boardSize, boardSize) : new TableEngine(boardSize, boardSize);
+        engine.setRule(rule);
+        engine.setBoundary(boundary);
+        CycleDetector detector = new CycleDetector(history);
+        StringBuilder lines = new StringBuilder();
+
+        long first;
+        while ((first = nextSoup.getAndAdd(BATCH)) < soups) {
+            lines.setLength(0);
+            for (long soup = first; soup < Math.min(soups, first + BATCH); soup++) {
+                SoupResult result = runSoup(engine, detector, soup);
+                outcomes.get(result.getOutcome()).incrementAndGet();
+                if (json) {
+                    result.appendJson(lines);
+                } else {
+                    result.appendCsv(lines);
+                }
+            }
+            synchronized (out) {
+                out.append(lines);
+            }
+        }
+    }
+
+    /**
+     * Runs one soup until it settles or reaches the generation cap
+     * @param engine, the engine to run the soup on, cleared first
+     * @param detector, the detector to watch the soup with, reset first
+     * @param soup, the index of the soup
+     * @return, what the soup settled into
+     */
+    public SoupResult runSoup(LifeEngine engine, CycleDetector detector, long soup) {
+        engine.clear();
+        detector.reset();
+
+        // Fill the square in the middle of the board
+        SplittableRandom random = new SplittableRandom(seed + soup);
+        int offset = (boardSize - soupSize) / 2;
+        boolean half = density == 0.5; // Every bit of a random long is a fair coin
+        long bits = 0;
+        int left = 0; // Unused bits in bits
+        for (int r = 0; r < soupSize; r++) {
+            for (int c = 0; c < soupSize; c++) {
+                boolean alive;
+                if (half) {
+                    if (left == 0) {
+                        bits = random.nextLong();
+                        left = 64;
+                    }
+                    alive = (bits & 1) != 0;
+                    bits >>>= 1;
+                    left--;
+                } else {
+                    alive = random.nextDouble() < density;
+                }
+                if (alive) {
+                    engine.setCell(offset + r, offset + c, true);
+                }
+            }
+        }
+
+        boolean settled;
+        while (!(settled = detector.update(engine)) && engine.getGeneration() < maxGenerations) {
+            engine.step();
+        }
+
+        return new SoupResult(soup, seed + soup, detector.getOutcome(), detector.getPeriod(),
+                settled ? detector.getStart() : engine.getGeneration(), engine.getPopulation(), Census.take(engine));
+    }
+
+    /**
+     * Gets the number of soups that ended in each outcome so far
+     * @return, the soup counts by outcome name
+     */
+    public Map<String, Long> getOutcomes() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : outcomes.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long soups = 1000; // Soups to run
+        int boardSize = 128; // Side of the board
+        int soupSize = 16; // Side of the random square
+        double density = 0.5; // Chance of each soup cell being alive
+        Rule rule = Rule.CONWAY; // Rule the soups are run under
+        Boundary boundary = Boundary.DEAD; // Edges of the board
+        long maxGenerations = 10000; // Generation cap
+        int history = CycleDetector.DEFAULT_HISTORY; // Longest period detected
+        int threads = Runtime.getRuntime().availableProcessors(); // Worker threads
+        Long seed = null; // Seed of the first soup, null for random
+        boolean json = false; // True for JSON lines
+        String output = null; // File to write to, null for standard out
+
+        // Read the command line options
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--soups":
+                    soups = Long.parseLong(value(args, ++i));
+                    break;
+                case "--board":
+                    boardSize = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--soup":
+                    soupSize = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--density":
+                    density = Double.parseDouble(value(args, ++i));
+                    break;
+                case "--rule":
+                    rule = Rule.parse(value(args, ++i));
+                    break;
+                case "--boundary":
+                    boundary = Boundary.parse(value(args, ++i));
+                    break;
+                case "--max-gen":
+                    maxGenerations = Long.parseLong(value(args, ++i));
+                    break;
+                case "--history":
+                    history = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value(args, ++i));
+                    break;
+                case "--format":
+                    String format = value(args, ++i);
+                    if (!format.equals("csv") && !format.equals("jsonl")) {
+                        throw new IllegalArgumentException("Unknown format: " + format);
+                    }
+                    json = format.equals("jsonl");
+                    break;
+                case "--output":
+                    output = value(args, ++i);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        SoupSearch search = new SoupSearch(soups);
+        search.setSize(boardSize, soupSize);
+        search.setDensity(density);
+        search.setRule(rule);
+        search.setBoundary(boundary);
+        search.setLimits(maxGenerations, history);
+        search.setThreads(threads);
+        search.setJson(json);
+        if (seed != null) {
+            search.setSeed(seed);
+        }
+        System.err.println("Running " + soups + " soups of " + rule + " from seed " + search.getSeed() + " on " + threads + " threads");
+
+        long start = System.nanoTime();
+        try (Writer out = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            search.run(out);
+        }
+        double seconds = (System.nanoTime() - start) / NANO_TO_SECOND;
+        System.err.printf("%d soups in %.1f s (%.0f soups/hour): %s%n", soups, seconds,
+                soups / seconds * 3600, search.getOutcomes());
+    }
+
+    /**
+     * Gets the value following an option
+     * @param args, the command line arguments
+     * @param i, the index of the value
+     * @return, the value
+     */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+}
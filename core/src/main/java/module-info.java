@@ -0,0 +1,21 @@
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Headless core of the game. Depends on java.base and the management
+ * modules the metrics are published through only, so nothing in here
+ * can pull in Swing or AWT.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+module gameoflife.core {
+    requires java.management;
+    requires jdk.management;
+
+    exports gameoflife;
+    exports gameoflife.cluster;
+    exports gameoflife.engine;
+    exports gameoflife.io;
+    exports gameoflife.metrics;
+    exports gameoflife.pattern;
+    exports gameoflife.search;
+}
@@ -0,0 +1,166 @@
+package gameoflife.engine;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * WordKernel on the Vector API. Runs the same full-adder circuits as
+ * PackedEngine.nextWord() and ruleWord() on as many words at once as the
+ * CPU's widest vectors hold, four with AVX2 and eight with AVX-512. The
+ * words either side of each vector are read by loading the same row one
+ * word to the left and one to the right, so no lanes are shuffled. A
+ * span that is not a whole number of vectors ends with a vector that
+ * overlaps the one before, which only computes some words twice.
+ *
+ * Only compiled for Java 17 and later, into META-INF/versions/17.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+final class VectorWordKernel implements WordKernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED; // Widest vectors the CPU has
+    private static final int LANES = SPECIES.length(); // Words in each vector
+
+    /**
+     * Computes the next state of words from to to of a row in whole
+     * vectors, the last of which may overlap the one before
+     */
+    public void step(long[] cur, long[] out, int above, int middle, int below, int from, int to, long[] masks) {
+        if (masks == null) {
+            stepConway(cur, out, above, middle, below, from, to);
+        } else {
+            stepRule(cur, out, above, middle, below, from, to, masks);
+        }
+    }
+
+    /**
+     * Gets the number of words in each vector
+     * @return, the lanes
+     */
+    public int lanes() {
+        return LANES;
+    }
+
+    /**
+     * Describes the kernel by its vector width
+     * @return, the description, e.g. "vector 256-bit"
+     */
+    public String name() {
+        return "vector " + SPECIES.vectorBitSize() + "-bit";
+    }
+
+    /**
+     * Steps whole vectors of words under Conway's rule, as nextWord() does
+     */
+    private static void stepConway(long[] cur, long[] out, int above, int middle, int below, int from, int to) {
+        for (int start = from; start < to; start += LANES) {
+            int i = Math.min(start, to - LANES); // The last vector overlaps the one before instead of stopping short
+            LongVector a = LongVector.fromArray(SPECIES, cur, above + i);
+            LongVector b = LongVector.fromArray(SPECIES, cur, middle + i);
+            LongVector c = LongVector.fromArray(SPECIES, cur, below + i);
+
+            // West and east neighbours, shifting in the end bit of the word either side
+            LongVector aW = a.lanewise(VectorOperators.LSHL, 1).or(LongVector.fromArray(SPECIES, cur, above + i - 1).lanewise(VectorOperators.LSHR, 63));
+            LongVector aE = a.lanewise(VectorOperators.LSHR, 1).or(LongVector.fromArray(SPECIES, cur, above + i + 1).lanewise(VectorOperators.LSHL, 63));
+            LongVector bW = b.lanewise(VectorOperators.LSHL, 1).or(LongVector.fromArray(SPECIES, cur, middle + i - 1).lanewise(VectorOperators.LSHR, 63));
+            LongVector bE = b.lanewise(VectorOperators.LSHR, 1).or(LongVector.fromArray(SPECIES, cur, middle + i + 1).lanewise(VectorOperators.LSHL, 63));
+            LongVector cW = c.lanewise(VectorOperators.LSHL, 1).or(LongVector.fromArray(SPECIES, cur, below + i - 1).lanewise(VectorOperators.LSHR, 63));
+            LongVector cE = c.lanewise(VectorOperators.LSHR, 1).or(LongVector.fromArray(SPECIES, cur, below + i + 1).lanewise(VectorOperators.LSHL, 63));
+
+            // Add each row of three into a two bit sum (ones, twos)
+            LongVector a0 = aW.lanewise(VectorOperators.XOR, a).lanewise(VectorOperators.XOR, aE);
+            LongVector a1 = aW.and(a).or(aE.and(aW.lanewise(VectorOperators.XOR, a)));
+            LongVector b0 = bW.lanewise(VectorOperators.XOR, bE); // Middle row excludes the cell itself
+            LongVector b1 = bW.and(bE);
+            LongVector c0 = cW.lanewise(VectorOperators.XOR, c).lanewise(VectorOperators.XOR, cE);
+            LongVector c1 = cW.and(c).or(cE.and(cW.lanewise(VectorOperators.XOR, c)));
+
+            // Add the ones column, carrying into the twos column
+            LongVector ones = a0.lanewise(VectorOperators.XOR, b0).lanewise(VectorOperators.XOR, c0);
+            LongVector carry = a0.and(b0).or(c0.and(a0.lanewise(VectorOperators.XOR, b0)));
+
+            // Neighbour count is 2 or 3 only if exactly one twos bit is set
+            LongVector p = a1.lanewise(VectorOperators.XOR, b1);
+            LongVector q = c1.lanewise(VectorOperators.XOR, carry);
+            LongVector oneTwo = p.lanewise(VectorOperators.XOR, q)
+                    .lanewise(VectorOperators.AND_NOT, a1.and(b1).or(c1.and(carry)));
+
+            // Count of 3 gives birth or survival, count of 2 only survival
+            oneTwo.and(ones.or(b)).intoArray(out, middle + i);
+        }
+    }
+
+    /**
+     * Steps whole vectors of words under any other life-like rule, as
+     * ruleWord() does
+     */
+    private static void stepRule(long[] cur, long[] out, int above, int middle, int below, int from, int to,
+                                long[] masks) {
+        // Birth masks, and birth masks XOR survival masks, for each count
+        LongVector m0 = LongVector.broadcast(SPECIES, masks[0]), f0 = LongVector.broadcast(SPECIES, masks[9]);
+        LongVector m1 = LongVector.broadcast(SPECIES, masks[1]), f1 = LongVector.broadcast(SPECIES, masks[10]);
+        LongVector m2 = LongVector.broadcast(SPECIES, masks[2]), f2 = LongVector.broadcast(SPECIES, masks[11]);
+        LongVector m3 = LongVector.broadcast(SPECIES, masks[3]), f3 = LongVector.broadcast(SPECIES, masks[12]);
+        LongVector m4 = LongVector.broadcast(SPECIES, masks[4]), f4 = LongVector.broadcast(SPECIES, masks[13]);
+        LongVector m5 = LongVector.broadcast(SPECIES, masks[5]), f5 = LongVector.broadcast(SPECIES, masks[14]);
+        LongVector m6 = LongVector.broadcast(SPECIES, masks[6]), f6 = LongVector.broadcast(SPECIES, masks[15]);
+        LongVector m7 = LongVector.broadcast(SPECIES, masks[7]), f7 = LongVector.broadcast(SPECIES, masks[16]);
+        LongVector m8 = LongVector.broadcast(SPECIES, masks[8]), f8 = LongVector.broadcast(SPECIES, masks[17]);
+
+        for (int start = from; start < to; start += LANES) {
+            int i = Math.min(start, to - LANES); // The last vector overlaps the one before instead of stopping short
+            LongVector a = LongVector.fromArray(SPECIES, cur, above + i);
+            LongVector b = LongVector.fromArray(SPECIES, cur, middle + i);
+            LongVector c = LongVector.fromArray(SPECIES, cur, below + i);
+            LongVector aW = a.lanewise(VectorOperators.LSHL, 1).or(LongVector.fromArray(SPECIES, cur, above + i - 1).lanewise(VectorOperators.LSHR, 63));
+            LongVector aE = a.lanewise(VectorOperators.LSHR, 1).or(LongVector.fromArray(SPECIES, cur, above + i + 1).lanewise(VectorOperators.LSHL, 63));
+            LongVector bW = b.lanewise(VectorOperators.LSHL, 1).or(LongVector.fromArray(SPECIES, cur, middle + i - 1).lanewise(VectorOperators.LSHR, 63));
+            LongVector bE = b.lanewise(VectorOperators.LSHR, 1).or(LongVector.fromArray(SPECIES, cur, middle + i + 1).lanewise(VectorOperators.LSHL, 63));
+            LongVector cW = c.lanewise(VectorOperators.LSHL, 1).or(LongVector.fromArray(SPECIES, cur, below + i - 1).lanewise(VectorOperators.LSHR, 63));
+            LongVector cE = c.lanewise(VectorOperators.LSHR, 1).or(LongVector.fromArray(SPECIES, cur, below + i + 1).lanewise(VectorOperators.LSHL, 63));
+
+            // Add each row of three into a two bit sum (ones, twos)
+            LongVector a0 = aW.lanewise(VectorOperators.XOR, a).lanewise(VectorOperators.XOR, aE);
+            LongVector a1 = aW.and(a).or(aE.and(aW.lanewise(VectorOperators.XOR, a)));
+            LongVector b0 = bW.lanewise(VectorOperators.XOR, bE);
+            LongVector b1 = bW.and(bE);
+            LongVector c0 = cW.lanewise(VectorOperators.XOR, c).lanewise(VectorOperators.XOR, cE);
+            LongVector c1 = cW.and(c).or(cE.and(cW.lanewise(VectorOperators.XOR, c)));
+
+            // Add the three sums into a four bit count (s0 to s3)
+            LongVector s0 = a0.lanewise(VectorOperators.XOR, b0).lanewise(VectorOperators.XOR, c0);
+            LongVector carry = a0.and(b0).or(c0.and(a0.lanewise(VectorOperators.XOR, b0)));
+            LongVector p = a1.lanewise(VectorOperators.XOR, b1);
+            LongVector q = c1.lanewise(VectorOperators.XOR, carry);
+            LongVector s1 = p.lanewise(VectorOperators.XOR, q);
+            LongVector pair = a1.and(b1);
+            LongVector fours = c1.and(carry);
+            LongVector s2 = pair.lanewise(VectorOperators.XOR, fours).lanewise(VectorOperators.XOR, p.and(q));
+            LongVector s3 = pair.and(fours);
+
+            // Next state for each count given the cell's state: birth mask, or survival mask where b is set
+            LongVector v0 = m0.lanewise(VectorOperators.XOR, b.and(f0));
+            LongVector v1 = m1.lanewise(VectorOperators.XOR, b.and(f1));
+            LongVector v2 = m2.lanewise(VectorOperators.XOR, b.and(f2));
+            LongVector v3 = m3.lanewise(VectorOperators.XOR, b.and(f3));
+            LongVector v4 = m4.lanewise(VectorOperators.XOR, b.and(f4));
+            LongVector v5 = m5.lanewise(VectorOperators.XOR, b.and(f5));
+            LongVector v6 = m6.lanewise(VectorOperators.XOR, b.and(f6));
+            LongVector v7 = m7.lanewise(VectorOperators.XOR, b.and(f7));
+            LongVector v8 = m8.lanewise(VectorOperators.XOR, b.and(f8));
+
+            // Pick by the count's bits, lowest first
+            LongVector v01 = v0.lanewise(VectorOperators.XOR, s0.and(v0.lanewise(VectorOperators.XOR, v1)));
+            LongVector v23 = v2.lanewise(VectorOperators.XOR, s0.and(v2.lanewise(VectorOperators.XOR, v3)));
+            LongVector v45 = v4.lanewise(VectorOperators.XOR, s0.and(v4.lanewise(VectorOperators.XOR, v5)));
+            LongVector v67 = v6.lanewise(VectorOperators.XOR, s0.and(v6.lanewise(VectorOperators.XOR, v7)));
+            LongVector v03 = v01.lanewise(VectorOperators.XOR, s1.and(v01.lanewise(VectorOperators.XOR, v23)));
+            LongVector v47 = v45.lanewise(VectorOperators.XOR, s1.and(v45.lanewise(VectorOperators.XOR, v67)));
+            LongVector v07 = v03.lanewise(VectorOperators.XOR, s2.and(v03.lanewise(VectorOperators.XOR, v47)));
+            v07.lanewise(VectorOperators.XOR, s3.and(v07.lanewise(VectorOperators.XOR, v8))).intoArray(out, middle + i);
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package gameoflife.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Checks that the engines on an unbounded plane hash the same board to
+ * the same value as BoardHash.of over a packed board, and that cells
+ * outside the displayed region still count.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+class BoardHashTest {
+    private static final int SIZE = 200; // Rows & columns of the packed board
+    private static final int GENERATIONS = 30; // Generations stepped before comparing again
+
+    /**
+     * Fills the same soup into a packed, sparse and hashlife engine and
+     * checks their hashes agree before and after stepping
+     */
+    @Test
+    void unboundedEnginesMatchPackedBoard() {
+        PackedEngine packed = new PackedEngine(SIZE, SIZE);
+        SparseEngine sparse = new SparseEngine(SIZE, SIZE);
+        HashLifeEngine hashLife = new HashLifeEngine(SIZE, SIZE);
+        Random random = new Random(3);
+        for (int row = 50; row < 150; row++) {
+            for (int col = 50; col < 150; col++) {
+                if (random.nextInt(3) == 0) {
+                    packed.setCell(row, col, true);
+                    sparse.setCell(row, col, true);
+                    hashLife.setCell(row, col, true);
+                }
+            }
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            long expected = BoardHash.of(packed);
+            assertEquals(expected, sparse.getHash(), "SparseEngine after " + packed.getGeneration());
+            assertEquals(expected, hashLife.getHash(), "HashLifeEngine after " + packed.getGeneration());
+            packed.advance(GENERATIONS);
+            sparse.advance(GENERATIONS);
+            hashLife.advance(GENERATIONS);
+        }
+    }
+
+    /**
+     * Checks a glider that has flown out of the displayed region, to
+     * negative rows and columns, still changes the hash as it flies
+     */
+    @Test
+    void cellsOutsideTheViewAreHashed() {
+        SparseEngine sparse = new SparseEngine(10, 10);
+        HashLifeEngine hashLife = new HashLifeEngine(10, 10);
+        int[][] cells = {{-5, -4}, {-4, -3}, {-3, -5}, {-3, -4}, {-3, -3}};
+        for (int[] cell : cells) {
+            sparse.setCell(cell[0], cell[1], true);
+            hashLife.setCell(cell[0], cell[1], true);
+        }
+        assertEquals(0, BoardHash.of(sparse), "The glider starts outside the view");
+
+        long before = sparse.getHash();
+        assertNotEquals(0, before);
+        sparse.advance(4);
+        hashLife.advance(4);
+        assertNotEquals(before, sparse.getHash(), "A glider moved one cell is another board");
+        assertEquals(sparse.getHash(), hashLife.getHash());
+    }
+
+}
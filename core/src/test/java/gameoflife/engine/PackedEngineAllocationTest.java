@@ -0,0 +1,56 @@
+package gameoflife.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Checks that stepping a PackedEngine allocates nothing once it has
+ * warmed up, measured by the bytes the JVM says the stepping thread
+ * has allocated.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+class PackedEngineAllocationTest {
+    private static final int SIZE = 256; // Rows & columns of the board
+    private static final int WARM_UP = 20_000; // Generations stepped before measuring, so the JIT has compiled step()
+    private static final int GENERATIONS = 10_000; // Generations measured
+
+    /**
+     * Steps a soup on a torus, which never settles, and checks the
+     * thread allocated no bytes while stepping it
+     */
+    @Test
+    void stepAllocatesNothingOnceWarmedUp() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported(), "JVM cannot count allocated bytes");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        PackedEngine engine = new PackedEngine(SIZE, SIZE, 1);
+        engine.setBoundary(Boundary.TORUS);
+        Random random = new Random(1);
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                engine.setCell(row, col, random.nextBoolean());
+            }
+        }
+        for (int i = 0; i < WARM_UP; i++) {
+            engine.step();
+        }
+
+        long id = Thread.currentThread().getId(); // getCurrentThreadAllocatedBytes() needs Java 14
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < GENERATIONS; i++) {
+            engine.step();
+        }
+        long after = threads.getThreadAllocatedBytes(id);
+        assertEquals(0, after - before, "Bytes allocated stepping " + GENERATIONS + " generations");
+    }
+
+}
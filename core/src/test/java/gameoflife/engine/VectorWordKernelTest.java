@@ -0,0 +1,100 @@
+package gameoflife.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Checks that the vector WordKernel gives the same bits as the scalar
+ * circuit, stepping the same soups with each and comparing every word
+ * of every generation. Skipped when the JVM has no vector kernel, i.e.
+ * before Java 17 or without jdk.incubator.vector; the vector-kernel
+ * profile adds the module when running the tests.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+class VectorWordKernelTest {
+    private static final int ROWS = 96; // Rows of each soup
+    private static final int[] COLS = {64 * 9, 64 * 13 + 5, 64 * 31 + 63}; // Widths, whole and part vectors
+    private static final int GENERATIONS = 200; // Generations compared
+    private static final String[] RULES = {"B3/S23", "B36/S23", "B2/S", "B3678/S34678"}; // Conway's and the masks path
+
+    /**
+     * Steps soups of several widths, rules and boundaries on both
+     * kernels and checks they never differ
+     */
+    @Test
+    void vectorMatchesScalar() {
+        assumeTrue(!"scalar".equals(vectorEngine(8, 64 * 9).getKernelName()), "No vector kernel in this JVM");
+
+        long seed = 1;
+        for (int cols : COLS) {
+            for (String rule : RULES) {
+                for (Boundary boundary : new Boundary[] {Boundary.DEAD, Boundary.TORUS}) {
+                    compare(cols, Rule.parse(rule), boundary, seed++);
+                }
+            }
+        }
+    }
+
+    /**
+     * Steps one soup on both kernels, comparing the boards each generation
+     * @param cols, the columns of the board
+     * @param rule, the rule applied
+     * @param boundary, what lies past the edges
+     * @param seed, the seed of the soup
+     */
+    private static void compare(int cols, Rule rule, Boundary boundary, long seed) {
+        PackedEngine vector = vectorEngine(ROWS, cols);
+        PackedEngine scalar = new PackedEngine(ROWS, cols, 1);
+        scalar.setVectorKernel(false);
+        assertNotEquals("scalar", vector.getKernelName());
+        for (PackedEngine engine : new PackedEngine[] {vector, scalar}) {
+            engine.setRule(rule);
+            engine.setBoundary(boundary);
+        }
+        Random random = new Random(seed);
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < cols; col++) {
+                boolean alive = random.nextInt(3) == 0;
+                vector.setCell(row, col, alive);
+                scalar.setCell(row, col, alive);
+            }
+        }
+
+        long[] expected = new long[(cols + 63) >>> 6];
+        long[] actual = new long[expected.length];
+        for (int generation = 1; generation <= GENERATIONS; generation++) {
+            vector.step();
+            scalar.step();
+            for (int row = 0; row < ROWS; row++) {
+                scalar.copyRow(row, expected, 0);
+                vector.copyRow(row, actual, 0);
+                if (!Arrays.equals(expected, actual)) {
+                    assertArrayEquals(expected, actual, rule + " " + boundary + " " + ROWS + "x" + cols
+                            + " row " + row + " at generation " + generation);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a single threaded engine stepped by the vector kernel, if the JVM has one
+     * @param rows, the rows of the board
+     * @param cols, the columns of the board
+     * @return, the engine
+     */
+    private static PackedEngine vectorEngine(int rows, int cols) {
+        PackedEngine engine = new PackedEngine(rows, cols, 1);
+        engine.setVectorKernel(true);
+        return engine;
+    }
+
+}
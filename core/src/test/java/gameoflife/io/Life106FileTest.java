@@ -0,0 +1,71 @@
+package gameoflife.io;
+
+import gameoflife.engine.PackedEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Checks that Life 1.06 patterns drawn around the origin are centred
+ * on the board rather than losing their negative cells, and that files
+ * written here read back where they were.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+class Life106FileTest {
+    private static final int SIZE = 125; // Rows & columns of the board
+    @TempDir
+    Path directory; // Holds the files written
+
+    /**
+     * Reads a glider whose cells lie either side of the origin and
+     * checks all five are centred on the board
+     * @throws IOException, if the file cannot be written or read
+     */
+    @Test
+    void negativeCoordinatesAreCentred() throws IOException {
+        Path file = directory.resolve("glider." + Life106File.EXTENSION);
+        Files.write(file, "#Life 1.06\n0 -1\n1 0\n-1 1\n0 1\n1 1\n".getBytes(StandardCharsets.US_ASCII));
+
+        PackedEngine engine = new PackedEngine(SIZE, SIZE);
+        Life106File.read(file, engine, false);
+        assertEquals(5, engine.getPopulation());
+        int top = (SIZE - 3) / 2; // The pattern is 3x3, so its top left moves here
+        int left = (SIZE - 3) / 2;
+        int[][] cells = {{0, 1}, {1, 2}, {2, 0}, {2, 1}, {2, 2}};
+        for (int[] cell : cells) {
+            assertTrue(engine.getCell(top + cell[0], left + cell[1]), "Cell " + cell[0] + "," + cell[1]);
+        }
+    }
+
+    /**
+     * Writes a board and reads it back, checking no cell has moved
+     * @throws IOException, if the file cannot be written or read
+     */
+    @Test
+    void roundTripKeepsPositions() throws IOException {
+        PackedEngine saved = new PackedEngine(SIZE, SIZE);
+        saved.setCell(0, 0, true);
+        saved.setCell(3, 70, true);
+        saved.setCell(SIZE - 1, SIZE - 1, true);
+        Path file = directory.resolve("cells." + Life106File.EXTENSION);
+        Life106File.write(saved, file);
+
+        PackedEngine loaded = new PackedEngine(SIZE, SIZE);
+        Life106File.read(file, loaded, false);
+        assertEquals(3, loaded.getPopulation());
+        assertTrue(loaded.getCell(0, 0));
+        assertTrue(loaded.getCell(3, 70));
+        assertTrue(loaded.getCell(SIZE - 1, SIZE - 1));
+    }
+
+}
@@ -0,0 +1,98 @@
+package gameoflife.io;
+
+import gameoflife.engine.PackedEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Checks that the formats recording a generation give it back when a
+ * saved board is loaded, and leave it alone when a file is added.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+class LifeFilesTest {
+    private static final int SIZE = 125; // Rows & columns of the board
+    private static final long GENERATION = 37; // Generation the board is saved at
+    @TempDir
+    Path directory; // Holds the files written
+
+    /**
+     * Saves a glider part way through a run as a binary grid file and
+     * checks it loads at the same generation
+     * @throws IOException, if the file cannot be written or read
+     */
+    @Test
+    void binaryLoadRestoresGeneration() throws IOException {
+        assertRoundTrip(directory.resolve("glider." + BinaryGridFile.EXTENSION));
+    }
+
+    /**
+     * Saves a glider part way through a run as RLE and checks it loads
+     * at the same generation
+     * @throws IOException, if the file cannot be written or read
+     */
+    @Test
+    void rleLoadRestoresGeneration() throws IOException {
+        assertRoundTrip(directory.resolve("glider." + RleFile.EXTENSION));
+    }
+
+    /**
+     * Adds a saved board to another and checks the other keeps its own generation
+     * @throws IOException, if the file cannot be written or read
+     */
+    @Test
+    void addingKeepsGeneration() throws IOException {
+        Path file = directory.resolve("glider." + RleFile.EXTENSION);
+        LifeFiles.write(glider(), file);
+
+        PackedEngine loaded = new PackedEngine(SIZE, SIZE);
+        loaded.setGeneration(5);
+        LifeFiles.read(file, loaded, true);
+        assertEquals(5, loaded.getGeneration());
+        assertEquals(5, loaded.getPopulation());
+    }
+
+    /**
+     * Writes a glider to a file, reads it into a new engine and checks
+     * the cells and generation match
+     * @param file, the file to write, its extension choosing the format
+     * @throws IOException, if the file cannot be written or read
+     */
+    private static void assertRoundTrip(Path file) throws IOException {
+        PackedEngine saved = glider();
+        LifeFiles.write(saved, file);
+
+        PackedEngine loaded = new PackedEngine(SIZE, SIZE);
+        LifeFiles.read(file, loaded, false);
+        assertEquals(GENERATION, loaded.getGeneration());
+        assertEquals(saved.getPopulation(), loaded.getPopulation());
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                assertEquals(saved.getCell(row, col), loaded.getCell(row, col), "Cell " + row + "," + col);
+            }
+        }
+    }
+
+    /**
+     * Builds a glider that has flown GENERATION generations
+     * @return, the engine holding the glider
+     */
+    private static PackedEngine glider() {
+        PackedEngine engine = new PackedEngine(SIZE, SIZE);
+        int[][] cells = {{0, 1}, {1, 2}, {2, 0}, {2, 1}, {2, 2}};
+        for (int[] cell : cells) {
+            engine.setCell(cell[0] + 10, cell[1] + 10, true);
+        }
+        engine.advance(GENERATION);
+        assertEquals(5, engine.getPopulation(), "Glider lost");
+        return engine;
+    }
+
+}
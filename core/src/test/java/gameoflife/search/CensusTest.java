@@ -0,0 +1,74 @@
+package gameoflife.search;
+
+import gameoflife.engine.PackedEngine;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Checks that the census names objects lying near each other one by
+ * one, and still names a known object whose parts are apart.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+class CensusTest {
+    private static final int SIZE = 32; // Rows & columns of the board
+
+    /**
+     * Checks that two blocks one column apart count as two blocks
+     */
+    @Test
+    void nearbyBlocksAreCountedApart() {
+        PackedEngine engine = new PackedEngine(SIZE, SIZE);
+        fill(engine, 10, 10, 2, 2);
+        fill(engine, 10, 13, 2, 2);
+        Census census = Census.take(engine);
+        assertEquals("block*2", census.toString());
+        assertEquals(2, census.getObjects());
+    }
+
+    /**
+     * Checks that a block beside a blinker counts as one of each
+     */
+    @Test
+    void blockBesideBlinkerIsCountedApart() {
+        PackedEngine engine = new PackedEngine(SIZE, SIZE);
+        fill(engine, 10, 10, 2, 2);
+        fill(engine, 13, 10, 1, 3);
+        Census census = Census.take(engine);
+        assertEquals("blinker block", census.toString());
+        assertEquals(LifeObject.Kind.OSCILLATOR, census.getObject("blinker").getKind());
+    }
+
+    /**
+     * Checks that a beacon, two blocks touching at a corner in one phase
+     * and apart in the other, is still counted as a beacon
+     */
+    @Test
+    void beaconIsCountedWhole() {
+        PackedEngine engine = new PackedEngine(SIZE, SIZE);
+        fill(engine, 10, 10, 2, 2);
+        fill(engine, 12, 12, 2, 2);
+        assertEquals("beacon", Census.take(engine).toString());
+        engine.step();
+        assertEquals("beacon", Census.take(engine).toString());
+    }
+
+    /**
+     * Brings a rectangle of cells to life
+     * @param engine, the board
+     * @param top, the first row
+     * @param left, the first column
+     * @param rows, the rows of the rectangle
+     * @param cols, the columns of the rectangle
+     */
+    private static void fill(PackedEngine engine, int top, int left, int rows, int cols) {
+        for (int row = top; row < top + rows; row++) {
+            for (int col = left; col < left + cols; col++) {
+                engine.setCell(row, col, true);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package gameoflife.gui;
+
+import gameoflife.Grid;
+import gameoflife.engine.MappedEngine;
+import gameoflife.engine.Rule;
+import gameoflife.io.BinaryGridFile;
+import gameoflife.io.GridFile;
+import gameoflife.io.Life106File;
+import gameoflife.io.LifeFiles;
+import gameoflife.io.RleFile;
+import gameoflife.pattern.Orientation;
+import gameoflife.pattern.Pattern;
+import gameoflife.pattern.PatternLibrary;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.io.*;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Allow for the saving and loading of grids to and from file
+ * chosen via JFileChooser. The file formats themselves live in
+ * gameoflife.io, chosen by LifeFiles from the file's extension. RLE
+ * files added to the grid come from the PatternLibrary, so a pattern
+ * added again is stamped without reading the file again.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class FileManager {
+    Grid gd = new Grid(); // Create instance of Grid
+    GridView view; // View the grid is displayed on
+    PatternLibrary patterns; // Parsed RLE patterns, kept between adds
+
+    /**
+     * Class constructor
+     * @param view, the view the grid is displayed on
+     * @param patterns, the library caching RLE patterns added to the grid
+     */
+    public FileManager(GridView view, PatternLibrary patterns) {
+        this.view = view;
+        this.patterns = patterns;
+    }
+
+    /**
+     * Saves the current state of all cells on the grid to a file
+     * chosen via JFileChooser
+     */
+    public void saveGrid() {
+        // Save to File
+        JFileChooser fc = new JFileChooser(); // Create instance of JFileChooser
+        FileNameExtensionFilter gridFilter = new FileNameExtensionFilter("Grid Files", GridFile.EXTENSION);
+        fc.addChoosableFileFilter(gridFilter);
+        fc.addChoosableFileFilter(new FileNameExtensionFilter("Binary Grid Files", BinaryGridFile.EXTENSION));
+        fc.addChoosableFileFilter(new FileNameExtensionFilter("RLE Patterns", RleFile.EXTENSION));
+        fc.addChoosableFileFilter(new FileNameExtensionFilter("Life 1.06 Patterns", Life106File.EXTENSION));
+        fc.setAcceptAllFileFilterUsed(false);
+        fc.setFileFilter(gridFilter);
+        fc.setDialogTitle("Save Grid");
+        int saveFile = fc.showSaveDialog(null);
+        if (saveFile == JFileChooser.APPROVE_OPTION) {
+            File file = fc.getSelectedFile();
+
+            // Add the chosen format's extension unless the name already has one
+            if (!Arrays.asList(LifeFiles.EXTENSIONS).contains(LifeFiles.extension(file.toPath()))) {
+                String extension = ((FileNameExtensionFilter) fc.getFileFilter()).getExtensions()[0];
+                file = new File(file + "." + extension);
+            }
+
+            String failure = null; // Reason the grid was not saved, shown once the lock is released
+            synchronized (gd.getLock()) { // Simulation may be stepping the engine
+                try {
+                    LifeFiles.write(gd.getEngine(), file.toPath()); // Write grid to File
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    failure = e.getMessage();
+                }
+            }
+            if (failure != null) {
+                JOptionPane.showMessageDialog(null, failure, "Save Grid", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Creates the grid if not created and populates it according to
+     * a grid or pattern file chosen via JFileChooser
+     * @param panel, primary panel the grid is displayed on
+     * @param add, true if adding formations
+     */
+    public void loadGrid(JPanel panel, boolean add) {
+        // Load from File
+        JFileChooser fc = new JFileChooser(); // Create instance of JFileChooser
+        FileNameExtensionFilter filter = new FileNameExtensionFilter("Grid & Pattern Files", LifeFiles.EXTENSIONS);
+        fc.setFileFilter(filter);
+        fc.setDialogTitle("Load Grid");
+        int returnFile = fc.showOpenDialog(null);
+        if (returnFile != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        // Grid doesn't exist, create it
+        if (!view.gridExists()) {
+            view.createGrid(panel);
+        }
+
+        // Mapped board files are opened in place rather than read, which is instant at any size
+        Path path = fc.getSelectedFile().toPath();
+        if (!add && isMappedBoard(path)) {
+            try {
+                gd.openEngine(MappedEngine.open(path)); // Step the file itself from now on
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        // RLE patterns are parsed outside the lock, once, and stamped a word at a time
+        if (add && LifeFiles.extension(path).equals(RleFile.EXTENSION)) {
+            try {
+                Pattern pattern = patterns.load(path); // Call load(Path) method in PatternLibrary
+                synchronized (gd.getLock()) { // Simulation may be stepping the engine
+                    pattern.stamp(gd.getEngine(), 0, 0, Orientation.IDENTITY);
+                    gd.refresh(); // Redraw the grid with the pattern
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        synchronized (gd.getLock()) { // Simulation may be stepping the engine
+            try {
+                String rule = add ? null : LifeFiles.readRule(path);
+                if (rule != null) {
+                    gd.setRule(Rule.parse(rule)); // Run the pattern under the rule it was saved with
+                }
+                LifeFiles.read(path, gd.getEngine(), add); // Read File into grid
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            gd.refresh(); // Redraw the grid from the loaded state
+        }
+    }
+
+    /**
+     * Returns true if the file is a board file written by MappedEngine
+     * @param path, the file to check
+     * @return true, if the file can be opened as a MappedEngine
+     */
+    private boolean isMappedBoard(Path path) {
+        if (!LifeFiles.extension(path).equals(BinaryGridFile.EXTENSION)) {
+            return false;
+        }
+        try {
+            return (BinaryGridFile.readHeader(path).getFlags() & BinaryGridFile.MAPPED) != 0;
+        } catch (IOException e) {
+            return false; // Let the normal load report the problem
+        }
+    }
+
+}
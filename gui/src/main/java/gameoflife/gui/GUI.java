@@ -0,0 +1,368 @@
+package gameoflife.gui;
+
+import gameoflife.Checkpointer;
+import gameoflife.GenerationHistory;
+import gameoflife.SimulationController;
+import gameoflife.SimulationListener;
+import gameoflife.pattern.Orientation;
+import gameoflife.pattern.PatternLibrary;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Creates and controls program gui and allows for user interaction.
+ * The buttons only tell the SimulationController what to do, and the
+ * button text follows the controller's state, so no click waits for
+ * the simulation thread. While the simulation is not running, the
+ * history slider rewinds the grid to any generation the
+ * GenerationHistory remembers, and running again carries on from there.
+ * Choosing a pattern from the library makes clicks on the grid stamp it
+ * rather than toggle a cell.
+ * 
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class GUI extends JFrame implements ActionListener, SimulationListener {
+    private final static int HISTORY_REFRESH_MILLIS = 250; // Time between updates of the history slider
+    private final static String HISTORY_TIP = "Rewind to a recent generation while the simulation is not running"; // History slider tool tip
+    private final static String TOGGLE_CELLS = "Toggle Cells"; // Pattern choice that lets clicks toggle cells
+    private GridView grid = new GridView(); // Create instance of GridView
+    private SimulationController simulation; // Runs the simulation on its own thread
+    private GenerationHistory history; // Remembers recent generations (null for none)
+    private long historyBase; // Generation at the left end of the history slider
+    private boolean updatingHistory; // True while the slider is moved to follow the grid, not by the user
+    private PatternLibrary patterns = new PatternLibrary(); // Patterns parsed once and shared by every FileManager
+    
+    // Main Window
+    private JFrame mainFrame = new JFrame(); // Window Frame
+    private JPanel mainPanel = new JPanel(); // Window Panel
+    
+    // Panels
+    private JPanel topPanel = new JPanel(); // Top Sector Panel
+    private JPanel optionsLeft = new JPanel(); // Left Buttons Panel
+    private JButton bNew = new JButton();
+    private JButton bSave = new JButton();
+    private JButton bLoad = new JButton();
+    private JButton bAdd = new JButton();
+    private JComboBox<String> patternChoice = new JComboBox<>();
+    private JComboBox<Orientation> orientationChoice = new JComboBox<>(Orientation.values());
+    private JPanel optionsRight = new JPanel(); // Right Buttons Panel
+    private JButton bRunSim = new JButton();
+    private JButton bPause = new JButton();
+    private JButton bStep = new JButton();
+    private JLabel genPerSec = new JLabel("", SwingConstants.RIGHT);
+    private JTextField perSecond = new JTextField();
+    
+    private JPanel middlePanel = new JPanel();
+    private JScrollPane scrollPane = new JScrollPane(middlePanel, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED, JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED); // ScrollPane
+    
+    private JPanel bottomPanel = new JPanel(); // Bottom Sector Panel
+    private JPanel statusBarLeft = new JPanel(); // Left Labels Panel
+    private JLabel generationCount = new JLabel("", SwingConstants.LEFT);
+    private JSlider historySlider = new JSlider(0, 0, 0);
+    private Timer historyTimer = new Timer(HISTORY_REFRESH_MILLIS, this);
+    private JPanel statusBarRight = new JPanel(); // Right Labels Panel
+    private JLabel currentFile = new JLabel("", SwingConstants.RIGHT);
+
+    /**
+     * Class constructor that initializes the graphics user
+     * interface via a call to the init() method
+     * @param title, the title of the window
+     * @param width, the default width of the window
+     * @param height, the defualt height of the window
+     * @param simulation, the controller that runs the grid
+     * @param history, the generations the slider can rewind to, or null for no slider
+     */
+    public GUI(String title, int width, int height, SimulationController simulation, GenerationHistory history) {
+        this.simulation = simulation;
+        this.history = history;
+        init(title, width, height); // Call init(String,int,int) method
+        simulation.addSimulationListener(this); // Keep the buttons in step with the simulation
+    }
+
+    /**
+     * Create graphical user interface using the paramteres parsed
+     * @param title, the title of the window
+     * @param width, the default width of the window
+     * @param height, the defualt height of the window
+     */
+    private void init(String title, int width, int height) {
+        // JFrame
+        mainFrame = new JFrame(title); // Create instance of JFrame
+        mainFrame.setSize(width,height); // Size
+        mainFrame.setLocationRelativeTo(null); // Center Window to Screen
+        mainFrame.setResizable(true); // Resizable
+        mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE); // Close operation
+        mainFrame.getContentPane().add(mainPanel); // Add main panel to frame
+        
+        // Set Panel Layouts
+        mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
+        
+        // Top Section's Panels
+        topPanel.setLayout(new BoxLayout(topPanel, BoxLayout.X_AXIS));
+        optionsLeft.setLayout(new FlowLayout(FlowLayout.LEFT));
+        optionsRight.setLayout(new FlowLayout(FlowLayout.RIGHT));
+        
+        // Middle Section's Panels (Grid Panel)
+        middlePanel.setBorder(BorderFactory.createLineBorder(Color.BLACK));
+        
+        // Bottom Section's Panels
+        bottomPanel.setLayout(new BoxLayout(bottomPanel, BoxLayout.X_AXIS));
+        statusBarLeft.setLayout(new FlowLayout(FlowLayout.LEFT));
+        statusBarRight.setLayout(new FlowLayout(FlowLayout.RIGHT));
+        
+        // Top Section
+        // Left Panel
+        bNew.setText("New Grid");
+        optionsLeft.add(bNew); // Add Component to Panel
+        bNew.addActionListener(this); // Action Listener
+        
+        bSave.setText("Save");
+        optionsLeft.add(bSave); // Add Component to Panel
+        bSave.addActionListener(this); // Action Listener
+
+        bLoad.setText("Load");
+        optionsLeft.add(bLoad); // Add Component to Panel
+        bLoad.addActionListener(this); // Action Listener
+
+        bAdd.setText("Add to Grid");
+        optionsLeft.add(bAdd); // Add Component to Panel
+        bAdd.addActionListener(this); // Action Listener
+
+        patternChoice.addItem(TOGGLE_CELLS);
+        for (String name : PatternLibrary.getBuiltInNames()) {
+            patternChoice.addItem(name);
+        }
+        patternChoice.setToolTipText("Pattern stamped where the grid is clicked");
+        optionsLeft.add(patternChoice); // Add Component to Panel
+        patternChoice.addActionListener(this); // Action Listener
+
+        orientationChoice.setToolTipText("Way the stamped pattern is turned");
+        optionsLeft.add(orientationChoice); // Add Component to Panel
+        orientationChoice.addActionListener(this); // Action Listener
+        
+        // Right Panel
+        genPerSec.setText("Generations Per Second:");
+        genPerSec.setOpaque(true);
+        optionsRight.add(genPerSec); // Add Component to Panel
+        
+        perSecond = new JTextField(6);
+        optionsRight.add(perSecond); // Add Component to Panel
+        
+        bRunSim = new JButton("Run Simulation");
+        optionsRight.add(bRunSim); // Add Component to Panel
+        bRunSim.addActionListener(this); // Action Listener
+
+        bPause = new JButton("Pause");
+        bPause.setEnabled(false); // Nothing to pause until a run starts
+        optionsRight.add(bPause); // Add Component to Panel
+        bPause.addActionListener(this); // Action Listener
+
+        bStep = new JButton("Step");
+        optionsRight.add(bStep); // Add Component to Panel
+        bStep.addActionListener(this); // Action Listener
+        
+        // Bottom Section
+        // Left Panel
+        generationCount.setText("|"); // Text to display & align left
+        generationCount.setOpaque(true);
+        statusBarLeft.add(generationCount); // Add Component to Panel
+
+        if (history != null) {
+            historySlider.setEnabled(false); // Nothing to rewind to yet
+            historySlider.setToolTipText(HISTORY_TIP);
+            statusBarLeft.add(historySlider); // Add Component to Panel
+            historySlider.addChangeListener(e -> rewind()); // Rewind as the slider is dragged
+            historyTimer.start();
+        }
+        
+        // Right Panel
+        currentFile.setText("Current File: No File Found"); // Text to display & align right
+        currentFile.setOpaque(true);
+        //statusBarRight.add(currentFile); // Add Component to Panel
+        
+        // Add Components to Panels
+        topPanel.add(optionsLeft);
+        topPanel.add(optionsRight);
+        
+        scrollPane.setPreferredSize(new Dimension(1500, 1000)); // Set dimensions of ScrollPane
+        scrollPane.setViewportView(middlePanel); // Set ViewPort to middlePanel
+        
+        bottomPanel.add(statusBarLeft);
+        bottomPanel.add(statusBarRight);
+        
+        // Add Panels to Main Panel
+        mainPanel.add(topPanel);
+        mainPanel.add(scrollPane); // ScrollPane to mainPanel (Grid Panel)
+        mainPanel.add(bottomPanel);
+        
+        mainFrame.setVisible(true); // JFrame Visibility
+    }
+
+    /**
+     * Shows the grid and loads the newest readable checkpoint into it
+     * @param checkpointer, the Checkpointer holding the checkpoints
+     */
+    public void resume(Checkpointer checkpointer) {
+        grid.createGrid(middlePanel); // Call createGrid(JPanel) method in GridView
+        try {
+            long generation = checkpointer.resume(simulation.getGrid());
+            System.err.println(generation < 0 ? "No checkpoint to resume from" : "Resumed from generation " + generation);
+        } catch (Exception resumeExc) {
+            resumeExc.printStackTrace();
+        }
+    }
+
+    /**
+     * ActionListener to enable button presses
+     * @param e, ActionListener for the buttons of the gui
+     */
+    public void actionPerformed(ActionEvent e) {
+
+        // 'New' Button Pressed
+        if (e.getSource() == bNew) {
+            grid.createGrid(middlePanel); // Call createGrid(JPanel) method in GridView
+        }
+        
+        // 'Save' Button Pressed
+        if (e.getSource() == bSave) {
+            try {
+                FileManager fm = new FileManager(grid, patterns); // Create instance of FileManager
+                fm.saveGrid(); // Call saveGrid() method in FileManager
+            } catch (Exception saveExc){
+                saveExc.printStackTrace();
+            }
+            
+        }
+
+        // 'Load' Button Pressed
+        if (e.getSource() == bLoad) {
+            try {
+                FileManager fm = new FileManager(grid, patterns); // Create instance of FileManager
+                fm.loadGrid(middlePanel, false); // Call loadFile() method in FileManager
+            } catch (Exception loadExc){
+                loadExc.printStackTrace();
+            }
+
+        }
+
+        // 'Load' Button Pressed
+        if (e.getSource() == bAdd) {
+            try {
+                FileManager fm = new FileManager(grid, patterns); // Create instance of FileManager
+                fm.loadGrid(middlePanel, true); // Call loadFile() method in FileManager
+            } catch (Exception loadExc){
+                loadExc.printStackTrace();
+            }
+
+        }
+        
+        // 'Run/Stop Simulation' Button Pressed
+        if (e.getSource() == bRunSim) {
+            if (simulation.getState() == SimulationController.State.STOPPED) { // Not running
+                double generationsPerSecond = Double.parseDouble(perSecond.getText()); // Parse text from textField to variable, 0 for as fast as possible
+                simulation.start(generationsPerSecond); // Call start(double) method in SimulationController
+            } else { // Running or paused
+                simulation.stop(); // Returns at once, the run stops after its current tick
+            }
+        }
+
+        // 'Pause/Resume' Button Pressed
+        if (e.getSource() == bPause) {
+            if (!simulation.pause()) {
+                simulation.resume();
+            }
+        }
+
+        // 'Step' Button Pressed
+        if (e.getSource() == bStep) {
+            simulation.step(); // Ignored while running
+        }
+
+        // Pattern or its orientation chosen
+        if (e.getSource() == patternChoice || e.getSource() == orientationChoice) {
+            choosePattern(); // Call choosePattern() method
+        }
+
+        // History slider due an update
+        if (e.getSource() == historyTimer) {
+            updateHistory(); // Call updateHistory() method
+        }
+        
+    }
+
+    /**
+     * Tells the grid view which pattern clicks stamp, parsing it from the
+     * library the first time it is chosen
+     */
+    private void choosePattern() {
+        String name = (String) patternChoice.getSelectedItem();
+        if (name == null || name.equals(TOGGLE_CELLS)) {
+            grid.setStamp(null, Orientation.IDENTITY); // Clicks toggle cells again
+            return;
+        }
+        try {
+            grid.setStamp(patterns.get(name), (Orientation) orientationChoice.getSelectedItem());
+        } catch (Exception patternExc) {
+            patternExc.printStackTrace();
+        }
+    }
+
+    /**
+     * Moves the history slider's ends to the oldest and newest generations
+     * remembered and its knob to the grid's generation, and shows them
+     */
+    private void updateHistory() {
+        if (historySlider.getValueIsAdjusting()) {
+            return; // Being dragged
+        }
+        long oldest = history.getOldestGeneration();
+        long newest = history.getNewestGeneration();
+        long current = simulation.getGrid().getEngine() == null ? -1 : simulation.getGrid().getEngine().getGeneration();
+        updatingHistory = true;
+        try {
+            historyBase = Math.max(oldest, 0);
+            historySlider.setMaximum((int) Math.min(Integer.MAX_VALUE, Math.max(newest - historyBase, 0)));
+            historySlider.setValue((int) Math.max(0, Math.min(current - historyBase, historySlider.getMaximum())));
+            historySlider.setEnabled(newest > oldest && simulation.getState() != SimulationController.State.RUNNING);
+            historySlider.setToolTipText(history.isRecording() ? HISTORY_TIP
+                    : "No history is kept for unbounded planes or rules with more than two states");
+        } finally {
+            updatingHistory = false;
+        }
+        generationCount.setText(current < 0 ? "|" : "Generation " + current
+                + (newest > oldest ? " | History " + oldest + " to " + newest : ""));
+    }
+
+    /**
+     * Rewinds the grid to the generation the user has moved the history
+     * slider to
+     */
+    private void rewind() {
+        if (updatingHistory || simulation.getState() == SimulationController.State.RUNNING) {
+            return;
+        }
+        history.rewind(historyBase + historySlider.getValue()); // Call rewind(long) method in GenerationHistory
+    }
+
+    /**
+     * Updates the button text when the simulation starts, pauses,
+     * resumes or stops, including when a run stops by itself
+     * @param controller, the controller that changed
+     * @param state, the state it changed to
+     */
+    public void stateChanged(SimulationController controller, SimulationController.State state) {
+        SwingUtilities.invokeLater(() -> {
+            boolean stopped = state == SimulationController.State.STOPPED;
+            bRunSim.setText(stopped ? "Run Simulation" : "Stop Simulation"); // Change Button Text
+            bPause.setText(state == SimulationController.State.PAUSED ? "Resume" : "Pause");
+            bPause.setEnabled(!stopped);
+            bStep.setEnabled(state != SimulationController.State.RUNNING);
+        });
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,202 @@
+package gameoflife.gui;
+
+import gameoflife.Checkpointer;
+import gameoflife.CycleDetector;
+import gameoflife.GenerationHistory;
+import gameoflife.Grid;
+import gameoflife.SimulationController;
+import gameoflife.engine.Boundary;
+import gameoflife.engine.EngineType;
+import gameoflife.engine.Rule;
+import gameoflife.metrics.StepMetrics;
+
+import javax.management.JMException;
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * The Game of Life, also known simply as Life, is a cellular automaton
+ * devised by the British mathematician John Horton Conway in 1970.
+ * 
+ * Standard Rules
+ * 1. Any live cell with fewer than two live neighbors dies, as if by under population.
+ * 2. Any live cell with two or three live neighbors lives on to the next generation.
+ * 3. Any live cell with more than three live neighbors dies, as if by overpopulation.
+ * 4. Any dead cell with exactly three live neighbors becomes a live cell, as if by reproduction.
+ *
+ * Options
+ * --rule RULE               run under another rule, e.g. B36/S23, /2/3 or
+ *                           R5,C0,M1,S34..58,B34..45,NM (default B3/S23)
+ * --boundary dead|torus|klein
+ *                           what lies past the edges of the grid (default dead)
+ * --engine packed|sparse|hashlife
+ *                           engine life-like rules run on (default packed).
+ *                           sparse and hashlife run an unbounded plane; the
+ *                           grid follows the population on sparse and shows
+ *                           the top left corner on hashlife
+ * --batch K                 step K generations per redraw (default 0, batching
+ *                           only above 250 generations per second). A rate of
+ *                           0 generations per second runs unthrottled
+ * --jump K                  advance 2^K generations per redraw in one call, a
+ *                           single memoized jump with --engine hashlife
+ * --checkpoint-dir DIR      write checkpoints to DIR while the simulation runs,
+ *                           for rules without dying states
+ * --checkpoint-every N      checkpoint every N generations
+ * --checkpoint-seconds S    checkpoint every S seconds (60 if neither interval is given)
+ * --checkpoint-keep K       keep the newest K checkpoints (default 3)
+ * --resume                  start from the newest readable checkpoint in DIR
+ * --stop-on-cycle [N]       stop once the board dies out, goes still or repeats
+ *                           with a period of up to N (default 1024) generations
+ * --metrics-log S           log step times, rates and population every S seconds.
+ *                           They are always published over JMX as
+ *                           gameoflife:type=StepMetrics
+ * --history-mb N            remember recent generations in N MB off the heap
+ *                           for the history slider (default 64, 0 for none)
+ * 
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class GameOfLife
+{
+    // Constants
+    private final static String WINDOW_TITLE = "Conway's Game of Life - 7.5HD Improved Custom Program"; // JFrame Window Title
+    private final static int WINDOW_WIDTH = 1280; // JFrame Window Width
+    private final static int WINDOW_HEIGHT = 720; // JFrame Window Height
+    
+    public static void main(String[] args) throws IOException { 
+        String checkpointDir = null; // Directory of checkpoints, null for none
+        long everyGenerations = 0; // Generations between checkpoints
+        long everySeconds = 0; // Seconds between checkpoints
+        int keep = 3; // Newest checkpoints kept
+        boolean resume = false; // True to start from the newest checkpoint
+        int cycleHistory = 0; // Longest period detected, 0 to run until stopped
+        Rule rule = Rule.CONWAY; // Rule the grid is run under
+        Boundary boundary = Boundary.DEAD; // What lies past the edges of the grid
+        EngineType engineType = EngineType.PACKED; // Engine life-like rules run on
+        int jump = -1; // Base two logarithm of the generations per tick, -1 to use batch
+        int batch = 0; // Generations per tick, 0 to batch only at high rates
+        long metricsSeconds = 0; // Seconds between metrics log lines, 0 for none
+        long historyBytes = GenerationHistory.DEFAULT_CAPACITY; // Bytes of generation history, 0 for none
+
+        // Read the command line options
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rule":
+                    rule = Rule.parse(value(args, ++i));
+                    break;
+                case "--boundary":
+                    boundary = Boundary.parse(value(args, ++i));
+                    break;
+                case "--engine":
+                    engineType = EngineType.parse(value(args, ++i));
+                    break;
+                case "--jump":
+                    jump = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--batch":
+                    batch = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--checkpoint-dir":
+                    checkpointDir = value(args, ++i);
+                    break;
+                case "--checkpoint-every":
+                    everyGenerations = Long.parseLong(value(args, ++i));
+                    break;
+                case "--checkpoint-seconds":
+                    everySeconds = Long.parseLong(value(args, ++i));
+                    break;
+                case "--checkpoint-keep":
+                    keep = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--resume":
+                    resume = true;
+                    break;
+                case "--metrics-log":
+                    metricsSeconds = Long.parseLong(value(args, ++i));
+                    break;
+                case "--history-mb":
+                    historyBytes = Long.parseLong(value(args, ++i)) << 20;
+                    break;
+                case "--stop-on-cycle":
+                    cycleHistory = CycleDetector.DEFAULT_HISTORY;
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                        cycleHistory = Integer.parseInt(args[++i]);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Grid grid = new Grid();
+        SimulationController simulation = new SimulationController(grid);
+        Checkpointer checkpointer = null;
+        if (checkpointDir != null) {
+            if (everyGenerations == 0 && everySeconds == 0) {
+                everySeconds = 60; // Default to once a minute
+            }
+            if (!Checkpointer.canCheckpoint(rule)) {
+                throw new IllegalArgumentException("Checkpoints hold one bit per cell, so cannot store"
+                        + " the dying states of " + rule);
+            }
+            checkpointer = new Checkpointer(Paths.get(checkpointDir), everyGenerations, everySeconds, keep);
+            simulation.setCheckpointer(checkpointer);
+        } else if (resume) {
+            throw new IllegalArgumentException("--resume needs --checkpoint-dir");
+        }
+        grid.setRule(rule); // Applied when the grid is created
+        grid.setBoundary(boundary);
+        grid.setEngineType(engineType);
+        simulation.setBatch(batch);
+        if (jump >= 0) {
+            simulation.setJump(jump);
+        }
+        if (cycleHistory > 0) {
+            simulation.setCycleDetector(new CycleDetector(cycleHistory));
+        }
+        StepMetrics metrics = new StepMetrics(grid);
+        metrics.start(metricsSeconds > 0 ? metricsSeconds : 1, metricsSeconds > 0);
+        try {
+            metrics.register(); // Visible to JConsole and VisualVM
+        } catch (JMException e) {
+            System.err.println("Metrics not published over JMX: " + e.getMessage());
+        }
+        final GenerationHistory history = historyBytes > 0 ? new GenerationHistory(grid, historyBytes) : null;
+        final Checkpointer resumeFrom = resume ? checkpointer : null;
+
+        /** Create instance of GUI */
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                GUI gui = new GUI(WINDOW_TITLE,WINDOW_WIDTH,WINDOW_HEIGHT,simulation,history); // Create instance of GUI
+                if (resumeFrom != null) {
+                    gui.resume(resumeFrom); // Show the grid at the newest checkpoint
+                }
+            }
+        });
+        
+    }
+
+    /**
+     * Gets the value following an option
+     * @param args, the command line arguments
+     * @param i, the index of the value
+     * @return, the value
+     */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+}
+
+
+
+
+
+
+
+
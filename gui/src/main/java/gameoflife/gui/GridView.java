@@ -0,0 +1,346 @@
+package gameoflife.gui;
+
+import gameoflife.Grid;
+import gameoflife.GridListener;
+import gameoflife.GridSnapshot;
+import gameoflife.SnapshotExchange;
+import gameoflife.engine.LifeEngine;
+import gameoflife.engine.SparseEngine;
+import gameoflife.pattern.Orientation;
+import gameoflife.pattern.Pattern;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Conway's Game Of Life (7.5HD Improved Custom Program)
+ * Displays the Grid as a single component. The board is drawn into a
+ * BufferedImage with one pixel per cell, which is scaled up when
+ * painted. Only the pixels of cells that changed are rewritten, and
+ * only the rows they are on are repainted. Clicking a cell toggles it,
+ * or stamps the chosen pattern centred on it. On a SparseEngine the
+ * view follows the population across the plane, moving to centre it
+ * whenever a live cell leaves the view.
+ *
+ * The thread stepping the grid only copies each generation into a
+ * SnapshotExchange. A Swing Timer on the event dispatch thread takes
+ * the latest snapshot about 60 times a second and draws it, so the
+ * simulation never waits on painting and generations produced faster
+ * than the screen can show are dropped.
+ *
+ * @author Harry Lavell
+ * @version October 2018
+ */
+public class GridView extends JComponent implements GridListener {
+    private static final int ALIVE = 0x000000; // Colour of a live cell (black)
+    private static final int DEAD = 0xFFFFFF; // Colour of a dead cell (white)
+    private static final Color LINES = Color.LIGHT_GRAY; // Colour of the lines between cells
+    private static final int MIN_LINE_SIZE = 4; // Smallest cell size that still gets lines
+    private static final int VIEW_SIZE = 1000; // Pixels the grid aims to fill by default
+    private static final int BAND_ROWS = 64; // Rows repainted together
+    private static final int FRAME_DELAY = 16; // Milliseconds between frames (about 60 per second)
+    private static final int VIEW_LIMIT = 4096; // Most rows & columns shown of larger boards
+    private Grid grid = new Grid(); // Create instance of Grid
+    private SnapshotExchange frames = new SnapshotExchange(); // Hands generations to the event dispatch thread
+    private Timer frameTimer = new Timer(FRAME_DELAY, e -> showLatest()); // Draws the latest generation
+    private BufferedImage image; // One pixel per cell
+    private int[] pixels; // Pixels of the image, row by row
+    private long[] shown; // Packed state of the cells currently in the image
+    private int rows; // Rows displayed
+    private int cols; // Columns displayed
+    private int wordsPerRow; // Longs needed to hold one row
+    private int cellSize; // Size of each cell on screen in pixels
+    private int viewTop; // Engine row copied into the next snapshot's first row, only used by the stepping thread
+    private int viewLeft; // Engine column copied into the next snapshot's first column, only used by the stepping thread
+    private int[] bounds = new int[4]; // Top, left, bottom and right of the live cells of a SparseEngine
+    private int shownTop; // Engine row shown in the image's first row
+    private int shownLeft; // Engine column shown in the image's first column
+    private boolean created = false; // True once the view has been added to a panel
+    private Pattern stamp; // Pattern stamped by clicks, null to toggle cells
+    private Orientation orientation = Orientation.IDENTITY; // Way the stamped pattern is turned
+
+    /**
+     * Class constructor that lets a mouse press toggle the cell under it
+     */
+    public GridView() {
+        setOpaque(true);
+        frameTimer.setCoalesce(true); // Late ticks are merged rather than queued
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                toggleCell(e.getX(), e.getY()); // Call toggleCell(int,int) method
+            }
+        });
+    }
+
+    /**
+     * Creates the grid if not created and adds the view to the panel,
+     * otherwise clears the existing grid
+     * @param panel, primary GUI panel that displays the grid
+     */
+    public void createGrid(JPanel panel) {
+        grid.createGrid(); // Call createGrid() method in Grid
+        if (!created) {
+            panel.setLayout(new BorderLayout());
+            panel.add(this, BorderLayout.CENTER); // Add view to the grid panel
+            grid.addGridListener(this); // Redraw whenever the grid changes
+            created = true;
+        }
+
+        showLatest(); // Draw the new grid
+        panel.revalidate();
+    }
+
+    /**
+     * Copies the grid into the exchange's back buffer and publishes it.
+     * Called by whichever thread changed the grid, while it holds the
+     * grid's lock
+     * @param grid, the grid that changed
+     */
+    public void gridUpdated(Grid grid) {
+        LifeEngine engine = grid.getEngine();
+        if (engine == null) {
+            return;
+        }
+        if (engine instanceof SparseEngine) {
+            follow((SparseEngine) engine); // Call follow(SparseEngine) method
+        } else {
+            viewTop = 0;
+            viewLeft = 0;
+        }
+        frames.back().copyFrom(engine, VIEW_LIMIT, viewTop, viewLeft);
+        frames.publish();
+    }
+
+    /**
+     * Moves the view to centre the live cells of an unbounded plane if
+     * any of them is outside it, or centres the view on them if they
+     * are too spread out to fit
+     * @param engine, the engine whose live cells are followed
+     */
+    private void follow(SparseEngine engine) {
+        if (!engine.getBounds(bounds)) {
+            return; // Nothing to follow
+        }
+        int viewRows = Math.min(engine.getRows(), VIEW_LIMIT);
+        int viewCols = Math.min(engine.getCols(), VIEW_LIMIT);
+        if (bounds[0] < viewTop || bounds[2] >= (long) viewTop + viewRows) {
+            viewTop = (int) (((long) bounds[0] + bounds[2]) / 2 - viewRows / 2);
+        }
+        if (bounds[1] < viewLeft || bounds[3] >= (long) viewLeft + viewCols) {
+            viewLeft = (int) (((long) bounds[1] + bounds[3]) / 2 - viewCols / 2);
+        }
+    }
+
+    /**
+     * Draws the latest published snapshot, if there is a new one.
+     * Rewrites the pixels of every cell whose state differs from what
+     * is shown and repaints the bands of rows that changed. Must be
+     * called on the event dispatch thread
+     */
+    private void showLatest() {
+        GridSnapshot snapshot = frames.latest();
+        if (snapshot == null) {
+            return; // Nothing new since the last frame
+        }
+        if (image == null || snapshot.getRows() != rows || snapshot.getCols() != cols) {
+            createBoardImage(snapshot.getRows(), snapshot.getCols());
+        }
+        shownTop = snapshot.getTop();
+        shownLeft = snapshot.getLeft();
+
+        for (int bandStart = 0; bandStart < rows; bandStart += BAND_ROWS) {
+            int bandEnd = Math.min(rows, bandStart + BAND_ROWS);
+            int minCol = Integer.MAX_VALUE; // Columns of the band that changed
+            int maxCol = -1;
+
+            for (int r = bandStart; r < bandEnd; r++) {
+                int offset = r * wordsPerRow;
+
+                for (int i = 0; i < wordsPerRow; i++) {
+                    long word = snapshot.getWord(r, i);
+                    long changed = word ^ shown[offset + i];
+                    if (changed == 0) {
+                        continue;
+                    }
+                    shown[offset + i] = word;
+
+                    // Rewrite the pixel of each changed bit
+                    int base = r * cols + (i << 6);
+                    while (changed != 0) {
+                        int bit = Long.numberOfTrailingZeros(changed);
+                        pixels[base + bit] = (word & (1L << bit)) != 0 ? ALIVE : DEAD;
+                        changed &= changed - 1;
+                    }
+                    minCol = Math.min(minCol, i << 6);
+                    maxCol = Math.max(maxCol, Math.min(cols, (i + 1) << 6));
+                }
+            }
+
+            if (maxCol >= 0) {
+                repaint(minCol * cellSize, bandStart * cellSize,
+                        (maxCol - minCol) * cellSize + 1, (bandEnd - bandStart) * cellSize + 1);
+            }
+        }
+    }
+
+    /**
+     * Paints the part of the image inside the clip, scaled to the
+     * cell size, and the lines between cells if they are big enough
+     * @param g, the graphics to paint with
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (image == null) {
+            return;
+        }
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, cols * cellSize, rows * cellSize);
+        }
+
+        // Cells covered by the clip
+        int firstCol = Math.max(0, clip.x / cellSize);
+        int firstRow = Math.max(0, clip.y / cellSize);
+        int lastCol = Math.min(cols, (clip.x + clip.width) / cellSize + 1);
+        int lastRow = Math.min(rows, (clip.y + clip.height) / cellSize + 1);
+        if (firstCol >= lastCol || firstRow >= lastRow) {
+            return;
+        }
+
+        g.drawImage(image,
+                firstCol * cellSize, firstRow * cellSize, lastCol * cellSize, lastRow * cellSize,
+                firstCol, firstRow, lastCol, lastRow, null);
+
+        if (cellSize >= MIN_LINE_SIZE) {
+            g.setColor(LINES);
+            for (int r = firstRow; r <= lastRow; r++) {
+                g.drawLine(firstCol * cellSize, r * cellSize, lastCol * cellSize, r * cellSize);
+            }
+            for (int c = firstCol; c <= lastCol; c++) {
+                g.drawLine(c * cellSize, firstRow * cellSize, c * cellSize, lastRow * cellSize);
+            }
+        }
+        Toolkit.getDefaultToolkit().sync(); // Flush the frame to the screen now rather than batching it
+    }
+
+    /**
+     * Starts drawing frames once the view is on screen
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        frameTimer.start();
+    }
+
+    /**
+     * Stops drawing frames once the view is taken off screen
+     */
+    @Override
+    public void removeNotify() {
+        frameTimer.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Gets the size the view needs to show every cell
+     * @return, the preferred size in pixels
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(cols * cellSize + 1, rows * cellSize + 1);
+    }
+
+    /**
+     * Toggles the cell under a point of the view, or stamps the chosen
+     * pattern centred on it
+     * @param x, the x position in pixels
+     * @param y, the y position in pixels
+     */
+    private void toggleCell(int x, int y) {
+        int col = x / cellSize;
+        int r = y / cellSize;
+        if (image == null || r < 0 || r >= rows || col < 0 || col >= cols) {
+            return;
+        }
+
+        r += shownTop; // Cell of the engine under the point
+        col += shownLeft;
+        if (stamp == null) {
+            grid.toggleCell(r, col); // Call toggleCell(int,int) method in Grid
+        } else {
+            Pattern turned = stamp.orient(orientation);
+            int top = r - turned.getRows() / 2;
+            int left = col - turned.getCols() / 2;
+            synchronized (grid.getLock()) { // Simulation may be stepping the engine
+                if (shownTop == 0 && shownLeft == 0) {
+                    turned.stamp(grid.getEngine(), top, left, Orientation.IDENTITY);
+                } else {
+                    for (int i = 0; i < turned.getRows(); i++) { // Off the engine's top left rows and columns
+                        for (int j = 0; j < turned.getCols(); j++) {
+                            if (turned.getCell(i, j)) {
+                                grid.getEngine().setCell(top + i, left + j, true);
+                            }
+                        }
+                    }
+                }
+                grid.refresh(); // Redraw the grid with the pattern
+            }
+        }
+        showLatest(); // Show the click without waiting for the next frame
+    }
+
+    /**
+     * Chooses the pattern clicks stamp onto the grid
+     * @param pattern, the pattern to stamp, or null to toggle cells
+     * @param orientation, the way to turn the pattern
+     */
+    public void setStamp(Pattern pattern, Orientation orientation) {
+        this.stamp = pattern;
+        this.orientation = orientation;
+    }
+
+    /**
+     * Sets the size of each cell on screen
+     * @param cellSize, the size in pixels
+     */
+    public void setCellSize(int cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Returns true if the grid has been created already
+     * @return true, if the grid is displayed
+     */
+    public boolean gridExists() {
+        return created;
+    }
+
+    /**
+     * Creates an all dead image of the parsed size
+     * @param rows, the rows to display
+     * @param cols, the columns to display
+     */
+    private void createBoardImage(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        wordsPerRow = (cols + 63) >>> 6;
+        cellSize = Math.max(1, VIEW_SIZE / Math.max(rows, cols));
+
+        image = new BufferedImage(cols, rows, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        java.util.Arrays.fill(pixels, DEAD);
+        shown = new long[rows * wordsPerRow];
+
+        revalidate();
+        repaint();
+    }
+
+}